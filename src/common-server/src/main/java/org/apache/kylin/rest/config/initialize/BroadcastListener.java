@@ -31,8 +31,11 @@ import org.apache.kylin.common.persistence.transaction.AclTCRRevokeEventNotifier
 import org.apache.kylin.common.persistence.transaction.AddCredentialToSparkBroadcastEventNotifier;
 import org.apache.kylin.common.persistence.transaction.AuditLogBroadcastEventNotifier;
 import org.apache.kylin.common.persistence.transaction.BroadcastEventReadyNotifier;
+import org.apache.kylin.common.persistence.transaction.JobSchedulingBroadcastNotifier;
 import org.apache.kylin.common.persistence.transaction.LogicalViewBroadcastNotifier;
 import org.apache.kylin.common.persistence.transaction.StopQueryBroadcastEventNotifier;
+import org.apache.kylin.common.scheduler.EventBusFactory;
+import org.apache.kylin.common.scheduler.JobSchedulerWakeUpNotifier;
 import org.apache.kylin.guava30.shaded.common.eventbus.Subscribe;
 import org.apache.kylin.metadata.model.TableExtDesc;
 import org.apache.kylin.rest.broadcaster.BroadcastEventHandler;
@@ -126,6 +129,8 @@ public class BroadcastListener implements BroadcastEventHandler {
                     adminUserSyncEventNotifier.isUseEmptyPermission());
         } else if (notifier instanceof LogicalViewBroadcastNotifier) {
             LogicalViewLoader.syncViewAsync();
+        } else if (notifier instanceof JobSchedulingBroadcastNotifier) {
+            EventBusFactory.getInstance().postAsync(new JobSchedulerWakeUpNotifier());
         }
     }
 
@@ -51,6 +51,23 @@ public class BroadcastController extends NBasicController {
         return new EnvelopeResponse<>(KylinException.CODE_SUCCESS, "", "");
     }
 
+    @PostMapping(value = "/batch")
+    @ResponseBody
+    public EnvelopeResponse<Integer> broadcastReceiveBatch(@RequestBody BroadcastEventReadyNotifier[] notifiers) {
+        // the sender notifies the events after the handled ones again, so they are not handled twice
+        int handled = 0;
+        try {
+            for (BroadcastEventReadyNotifier notifier : notifiers) {
+                localHandler.handle(notifier);
+                handled++;
+            }
+        } catch (Exception e) {
+            getLogger().warn("Failed to handle broadcast event {}", notifiers[handled], e);
+            return new EnvelopeResponse<>(KylinException.CODE_UNDEFINED, handled, e.getMessage());
+        }
+        return new EnvelopeResponse<>(KylinException.CODE_SUCCESS, handled, "");
+    }
+
     @PutMapping(value = "/capacity/refresh_all")
     @ResponseBody
     public EnvelopeResponse<String> innerRefreshAll() {
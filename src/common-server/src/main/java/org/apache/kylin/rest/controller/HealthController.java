@@ -25,6 +25,7 @@ import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import javax.crypto.SecretKey;
 import javax.servlet.http.HttpServletRequest;
@@ -32,9 +33,12 @@ import javax.servlet.http.HttpServletRequest;
 import org.apache.kylin.common.exception.KylinException;
 import org.apache.kylin.common.util.SecretKeyUtil;
 import org.apache.kylin.guava30.shaded.common.collect.Lists;
+import org.apache.kylin.guava30.shaded.common.collect.Maps;
+import org.apache.kylin.metadata.project.MetadataBootstrapper;
 import org.apache.kylin.query.util.QueryLimiter;
 import org.apache.kylin.rest.response.EnvelopeResponse;
 import org.apache.kylin.rest.response.HealthResponse;
+import org.apache.kylin.rest.response.MetadataReadinessResponse;
 import org.apache.kylin.rest.service.HealthService;
 import org.apache.kylin.tool.daemon.ServiceOpLevelEnum;
 import org.apache.kylin.tool.daemon.checker.KEStatusChecker;
@@ -42,6 +46,7 @@ import org.apache.kylin.tool.util.ToolUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -49,6 +54,7 @@ import org.springframework.web.bind.annotation.ResponseBody;
 
 import io.swagger.annotations.ApiOperation;
 import lombok.Getter;
+import lombok.val;
 import lombok.extern.log4j.Log4j;
 
 @Log4j
@@ -108,6 +114,19 @@ public class HealthController extends NBasicController {
         }
     }
 
+    @ApiOperation(value = "metadata readiness", tags = { "SM" })
+    @GetMapping(value = "/metadata_readiness")
+    @ResponseBody
+    public EnvelopeResponse<MetadataReadinessResponse> getMetadataReadiness() {
+        val bootstrapper = MetadataBootstrapper.getInstance();
+        Map<String, MetadataReadinessResponse.ProjectLoadStatusResponse> projects = Maps.newTreeMap();
+        bootstrapper.getStatuses().forEach((project, status) -> projects.put(project,
+                new MetadataReadinessResponse.ProjectLoadStatusResponse(status.getState().name(),
+                        status.getDurationMs(), status.getError())));
+        return new EnvelopeResponse<>(KylinException.CODE_SUCCESS,
+                new MetadataReadinessResponse(bootstrapper.isReady(), projects), "");
+    }
+
     public EnvelopeResponse<HealthResponse> getHealthStatus() {
         HealthResponse.RestartSparkStatusResponse sparkRestartStatus = healthService.getRestartSparkStatus();
         List<HealthResponse.CanceledSlowQueryStatusResponse> canceledSlowQueriesStatus = healthService
@@ -23,7 +23,9 @@ import static org.apache.kylin.common.util.ClusterConstant.ServerModeEnum;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
@@ -32,19 +34,30 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.ArrayUtils;
+import org.apache.kylin.common.KylinConfig;
 import org.apache.kylin.common.constant.LogConstant;
+import org.apache.kylin.common.exception.KylinException;
 import org.apache.kylin.common.logging.SetLogCategory;
+import org.apache.kylin.common.metrics.MetricsCategory;
+import org.apache.kylin.common.metrics.MetricsGroup;
+import org.apache.kylin.common.metrics.MetricsName;
+import org.apache.kylin.common.persistence.transaction.AuditLogBroadcastEventNotifier;
 import org.apache.kylin.common.persistence.transaction.BroadcastEventReadyNotifier;
 import org.apache.kylin.common.util.AddressUtil;
 import org.apache.kylin.common.util.DaemonThreadFactory;
 import org.apache.kylin.common.util.NamedThreadFactory;
+import org.apache.kylin.guava30.shaded.common.collect.Lists;
+import org.apache.kylin.guava30.shaded.common.collect.Maps;
 import org.apache.kylin.guava30.shaded.common.collect.Sets;
 import org.apache.kylin.rest.cluster.ClusterManager;
 import org.apache.kylin.rest.response.ServerInfoResponse;
@@ -54,27 +67,58 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+/**
+ * Delivers broadcast events to other nodes.
+ *
+ * Announcing an event already waiting in the queue as the latest one of its delivery order key is a no-op, so
+ * repeated events like {@link AuditLogBroadcastEventNotifier} are coalesced. Events which need to be delivered first
+ * are polled ahead of the others, unless an earlier event of the same key is still waiting behind. Polled events are
+ * delivered in batches, all events of a batch to the same node are sent in one request, and only the events the node
+ * did not acknowledge are sent again one by one when the request fails. When the queue is full, announcing blocks for
+ * a while before the event is dropped.
+ */
 @Component
 public class Broadcaster implements Closeable {
     private static final Logger logger = LoggerFactory.getLogger(Broadcaster.class);
 
+    private static final String GLOBAL = "global";
+
     private final ClusterManager clusterManager;
     private final ExecutorService eventPollExecutor;
     private final ExecutorService eventHandlerExecutor;
     private final BlockingQueue<Runnable> runnableQueue;
-    private final BlockingQueue<BroadcastEventReadyNotifier> eventQueue;
+    private final BlockingQueue<PendingEvent> eventQueue;
+    private final Object pendingLock = new Object();
+    private final Map<BroadcastEventReadyNotifier, PendingEvent> pendingEvents;
+    private final Map<String, PendingEvent> latestPendingByKey;
+    private final Semaphore queueCapacity;
+    private final AtomicLong sequence;
+    private final long offerTimeoutMs;
+    private final int batchSize;
     private final ConcurrentHashMap<String, RestClient> restClientMap;
     private volatile boolean isRunning;
     private volatile BroadcastEventHandler handler;
 
     @Autowired
     public Broadcaster(ClusterManager clusterManager) {
+        KylinConfig config = KylinConfig.getInstanceFromEnv();
+        int capacity = config.getBroadcastQueueCapacity();
+        int handlerThreads = Math.max(1, config.getBroadcastHandlerThreads());
         this.clusterManager = clusterManager;
-        this.runnableQueue = new LinkedBlockingQueue<>();
-        this.eventQueue = new LinkedBlockingQueue<>();
+        this.runnableQueue = new LinkedBlockingQueue<>(capacity);
+        this.eventQueue = new PriorityBlockingQueue<>(11, PendingEvent.COMPARATOR);
+        this.pendingEvents = Maps.newHashMap();
+        this.latestPendingByKey = Maps.newHashMap();
+        this.queueCapacity = new Semaphore(capacity);
+        this.sequence = new AtomicLong();
+        this.offerTimeoutMs = config.getBroadcastOfferTimeoutMs();
+        this.batchSize = Math.max(1, config.getBroadcastBatchSize());
         this.restClientMap = new ConcurrentHashMap<>();
-        this.eventHandlerExecutor = new ThreadPoolExecutor(10, 10, 60L, TimeUnit.SECONDS, runnableQueue,
-                new DaemonThreadFactory("BroadcastEvent-handler"), new ThreadPoolExecutor.DiscardPolicy());
+        // a full handler queue makes the poll thread deliver by itself, which slows down polling instead of
+        // silently discarding notifications
+        this.eventHandlerExecutor = new ThreadPoolExecutor(handlerThreads, handlerThreads, 60L, TimeUnit.SECONDS,
+                runnableQueue, new DaemonThreadFactory("BroadcastEvent-handler"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
         this.eventPollExecutor = Executors.newSingleThreadExecutor(new NamedThreadFactory("BroadcastEvent-poll"));
     }
 
@@ -92,22 +136,70 @@ public class Broadcaster implements Closeable {
     }
 
     public void announce(BroadcastEventReadyNotifier event) {
-        if (eventQueue.contains(event)) {
-            try (SetLogCategory ignored = new SetLogCategory(LogConstant.SCHEDULE_CATEGORY)) {
-                logger.debug("broadcast event queue has contain this event: {}", event);
+        if (coalesce(event)) {
+            return;
+        }
+        try {
+            if (!queueCapacity.tryAcquire(offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                logger.warn("unable to send broadcast event {}, the queue is full", event);
+                MetricsGroup.hostTagCounterInc(MetricsName.BROADCAST_DROPPED, MetricsCategory.GLOBAL, GLOBAL);
+                return;
             }
+        } catch (InterruptedException e) {
+            logger.warn("interrupted while sending broadcast event {}", event);
+            Thread.currentThread().interrupt();
             return;
         }
-        if (!eventQueue.offer(event)) {
-            logger.warn("unable to send broadcast ");
+        synchronized (pendingLock) {
+            // the same event may have been announced while waiting for the capacity
+            if (coalesce(event)) {
+                queueCapacity.release();
+                return;
+            }
+            String key = event.deliveryOrderKey();
+            PendingEvent latest = latestPendingByKey.get(key);
+            // never overtake an earlier event of the same key
+            boolean first = event.needDeliverFirst() && (latest == null || latest.isFirst());
+            PendingEvent pending = new PendingEvent(event, first, sequence.getAndIncrement(),
+                    System.currentTimeMillis());
+            pendingEvents.put(event, pending);
+            latestPendingByKey.put(key, pending);
+            eventQueue.offer(pending);
         }
     }
 
+    /**
+     * An event is coalesced only with the same event waiting as the latest one of its key, otherwise the events
+     * announced in between would be delivered after it.
+     */
+    private boolean coalesce(BroadcastEventReadyNotifier event) {
+        synchronized (pendingLock) {
+            PendingEvent pending = pendingEvents.get(event);
+            if (pending == null || pending != latestPendingByKey.get(event.deliveryOrderKey())) {
+                return false;
+            }
+        }
+        try (SetLogCategory ignored = new SetLogCategory(LogConstant.SCHEDULE_CATEGORY)) {
+            logger.debug("broadcast event queue has contain this event: {}", event);
+        }
+        MetricsGroup.hostTagCounterInc(MetricsName.BROADCAST_COALESCED, MetricsCategory.GLOBAL, GLOBAL);
+        return true;
+    }
+
     public void consumeEvent() {
         try (SetLogCategory ignored = new SetLogCategory(LogConstant.SCHEDULE_CATEGORY)) {
             while (isRunning) {
-                BroadcastEventReadyNotifier notifier = eventQueue.take();
-                handleEvent(notifier);
+                List<PendingEvent> batch = Lists.newArrayList(eventQueue.take());
+                eventQueue.drainTo(batch, batchSize - 1);
+                queueCapacity.release(batch.size());
+                // events announced from now on are delivered again
+                synchronized (pendingLock) {
+                    for (PendingEvent event : batch) {
+                        pendingEvents.remove(event.getNotifier(), event);
+                        latestPendingByKey.remove(event.getNotifier().deliveryOrderKey(), event);
+                    }
+                }
+                handleEvents(batch);
             }
         } catch (InterruptedException e) {
             logger.error("consume broadcast event fail: ", e);
@@ -115,36 +207,34 @@ public class Broadcaster implements Closeable {
         }
     }
 
-    private void handleEvent(BroadcastEventReadyNotifier notifier) {
+    private void handleEvents(List<PendingEvent> batch) {
         try {
-            Set<String> notifyNodes = getBroadcastNodes(notifier);
-            if (notifyNodes.isEmpty()) {
-                logger.debug("no need broadcast the event {} to other node.", notifier);
+            Map<String, List<PendingEvent>> eventsByNode = Maps.newLinkedHashMap();
+            for (PendingEvent event : batch) {
+                Set<String> notifyNodes = getBroadcastNodes(event.getNotifier());
+                if (notifyNodes.isEmpty()) {
+                    logger.debug("no need broadcast the event {} to other node.", event.getNotifier());
+                }
+                for (String node : notifyNodes) {
+                    eventsByNode.computeIfAbsent(node, key -> Lists.newArrayList()).add(event);
+                }
+            }
+            if (eventsByNode.isEmpty()) {
                 return;
             }
 
-            CountDownLatch latch = new CountDownLatch(notifyNodes.size());
+            CountDownLatch latch = new CountDownLatch(eventsByNode.size());
             String identity = AddressUtil.getLocalInstance();
-            for (String node : notifyNodes) {
-
-                eventHandlerExecutor.submit(() -> {
-                    try {
-                        if (identity.equals(node)) {
-                            if (handler != null) {
-                                handler.handleLocally(notifier);
-                            }
-                        } else {
-                            remoteHandle(node, notifier);
-                        }
-                        logger.info("Broadcast to {} notify.", node);
-                    } catch (IOException e) {
-                        logger.warn("Failed to notify.", e);
-                    } finally {
-                        latch.countDown();
-                    }
-                });
-
-            }
+            eventsByNode.forEach((node, events) -> eventHandlerExecutor.submit(() -> {
+                try {
+                    deliver(identity, node, events);
+                    logger.info("Broadcast {} event(s) to {} notify.", events.size(), node);
+                } catch (Exception e) {
+                    logger.warn("Failed to notify.", e);
+                } finally {
+                    latch.countDown();
+                }
+            }));
             if (!latch.await(5, TimeUnit.SECONDS)) {
                 logger.warn("Failed to broadcast due to timeout. current BroadcastEvent-handler task num {}",
                         runnableQueue.size());
@@ -158,11 +248,51 @@ public class Broadcaster implements Closeable {
         }
     }
 
+    private void deliver(String identity, String node, List<PendingEvent> events) throws IOException {
+        List<BroadcastEventReadyNotifier> notifiers = events.stream().map(PendingEvent::getNotifier)
+                .collect(Collectors.toList());
+        if (identity.equals(node)) {
+            if (handler != null) {
+                for (BroadcastEventReadyNotifier notifier : notifiers) {
+                    handler.handleLocally(notifier);
+                }
+            }
+        } else if (notifiers.size() == 1) {
+            remoteHandle(node, notifiers.get(0));
+        } else {
+            remoteHandle(node, notifiers);
+        }
+        long now = System.currentTimeMillis();
+        for (PendingEvent event : events) {
+            MetricsGroup.hostTagHistogramUpdate(MetricsName.BROADCAST_DELIVERY_LATENCY, MetricsCategory.GLOBAL,
+                    GLOBAL, now - event.getAnnounceTime());
+        }
+    }
+
     private void remoteHandle(String node, BroadcastEventReadyNotifier notifier) throws IOException {
         restClientMap.computeIfAbsent(node, RestClient::new);
         restClientMap.get(node).notify(notifier);
     }
 
+    private void remoteHandle(String node, List<BroadcastEventReadyNotifier> notifiers) throws IOException {
+        RestClient restClient = restClientMap.computeIfAbsent(node, RestClient::new);
+        int acknowledged = 0;
+        try {
+            acknowledged = restClient.notify(notifiers);
+        } catch (KylinException | IOException e) {
+            // the node may not accept batches yet, e.g. during a rolling upgrade
+            logger.warn("Failed to notify {} events to {} in one request", notifiers.size(), node, e);
+        }
+        if (acknowledged < notifiers.size()) {
+            // the acknowledged events have been handled by the node already, do not deliver them twice
+            logger.warn("{} of {} events are not acknowledged by {}, notify them one by one",
+                    notifiers.size() - acknowledged, notifiers.size(), node);
+            for (BroadcastEventReadyNotifier notifier : notifiers.subList(acknowledged, notifiers.size())) {
+                restClient.notify(notifier);
+            }
+        }
+    }
+
     private Set<String> getBroadcastNodes(BroadcastEventReadyNotifier notifier) {
         Set<String> nodes;
         switch (notifier.getBroadcastScope()) {
@@ -214,4 +344,34 @@ public class Broadcaster implements Closeable {
     public void close() {
         isRunning = false;
     }
+
+    private static class PendingEvent {
+        private static final Comparator<PendingEvent> COMPARATOR = Comparator
+                .<PendingEvent> comparingInt(event -> event.isFirst() ? 0 : 1)
+                .thenComparingLong(event -> event.sequence);
+
+        private final BroadcastEventReadyNotifier notifier;
+        private final boolean first;
+        private final long sequence;
+        private final long announceTime;
+
+        private PendingEvent(BroadcastEventReadyNotifier notifier, boolean first, long sequence, long announceTime) {
+            this.notifier = notifier;
+            this.first = first;
+            this.sequence = sequence;
+            this.announceTime = announceTime;
+        }
+
+        private BroadcastEventReadyNotifier getNotifier() {
+            return notifier;
+        }
+
+        private boolean isFirst() {
+            return first;
+        }
+
+        private long getAnnounceTime() {
+            return announceTime;
+        }
+    }
 }
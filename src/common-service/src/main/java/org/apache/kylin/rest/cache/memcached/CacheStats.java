@@ -21,12 +21,18 @@ package org.apache.kylin.rest.cache.memcached;
 public class CacheStats {
     private final long getBytes;
     private final long getTime;
+    private final long hitTime;
     private final long putBytes;
     private final CacheStatsCounter cacheStatsCounter;
 
     public CacheStats(long getBytes, long getTime, long putBytes, CacheStatsCounter cacheStatsCounter) {
+        this(getBytes, getTime, 0, putBytes, cacheStatsCounter);
+    }
+
+    public CacheStats(long getBytes, long getTime, long hitTime, long putBytes, CacheStatsCounter cacheStatsCounter) {
         this.getBytes = getBytes;
         this.getTime = getTime;
+        this.hitTime = hitTime;
         this.putBytes = putBytes;
         this.cacheStatsCounter = cacheStatsCounter;
     }
@@ -102,4 +108,8 @@ public class CacheStats {
     public long getAvgGetTime() {
         return getTime / numLookups();
     }
+
+    public long getAvgHitTime() {
+        return cacheStatsCounter.numHits == 0 ? 0 : hitTime / cacheStatsCounter.numHits;
+    }
 }
@@ -34,6 +34,8 @@ public interface KeyHookLookup {
 
         private String[] chunkskey;
         private byte[] values;
+        // whether the whole value is compressed before being split into chunks
+        private boolean compressed;
 
         /**
          * For de-serialization
@@ -63,6 +65,14 @@ public interface KeyHookLookup {
             this.values = values;
         }
 
+        public boolean isCompressed() {
+            return compressed;
+        }
+
+        public void setCompressed(boolean compressed) {
+            this.compressed = compressed;
+        }
+
         @Override
         public int hashCode() {
             final int prime = 31;
@@ -89,6 +89,7 @@ public class MemcachedCache {
     protected final AtomicLong putBytes = new AtomicLong(0);
     private final int timeToLiveSeconds;
     protected AtomicLong cacheGetTime = new AtomicLong(0);
+    protected final AtomicLong cacheHitTime = new AtomicLong(0);
 
     public MemcachedCache(final MemcachedClientIF client, final MemcachedCacheConfig config,
             final String memcachedPrefix, int timeToLiveSeconds) {
@@ -243,8 +244,9 @@ public class MemcachedCache {
     }
 
     public CacheStats getStats() {
-        return new CacheStats(readBytes.get(), cacheGetTime.get(), putBytes.get(), new CacheStats.CacheStatsCounter(
-                putCount.get(), hitCount.get(), missCount.get(), 0, timeoutCount.get(), errorCount.get()));
+        return new CacheStats(readBytes.get(), cacheGetTime.get(), cacheHitTime.get(), putBytes.get(),
+                new CacheStats.CacheStatsCounter(putCount.get(), hitCount.get(), missCount.get(), 0,
+                        timeoutCount.get(), errorCount.get()));
     }
 
     /**
@@ -293,9 +295,11 @@ public class MemcachedCache {
             } else {
                 result = null;
             }
-            cacheGetTime.addAndGet(System.currentTimeMillis() - start);
+            long duration = System.currentTimeMillis() - start;
+            cacheGetTime.addAndGet(duration);
             if (result != null) {
                 hitCount.incrementAndGet();
+                cacheHitTime.addAndGet(duration);
                 readBytes.addAndGet(result.length);
             } else {
                 missCount.incrementAndGet();
@@ -315,7 +319,7 @@ public class MemcachedCache {
         }
     }
 
-    private void internalPut(String hashedKey, byte[] encodedValue, int expiration) {
+    protected void internalPut(String hashedKey, byte[] encodedValue, int expiration) {
         try {
             client.set(hashedKey, expiration, encodedValue);
             putCount.incrementAndGet();
@@ -344,11 +348,19 @@ public class MemcachedCache {
         if (compressed != null) {
             return ByteBuffer.allocate(Shorts.BYTES + compressed.length).putShort((short) 1).put(compressed).array();
         } else {
-            return ByteBuffer.allocate(Shorts.BYTES + Ints.BYTES + key.length + valueB.length).putShort((short) 0)
-                    .putInt(key.length).put(key).put(valueB).array();
+            return encodeUncompressedValue(key, valueB, 0, valueB.length);
         }
     }
 
+    /**
+     * Encode a range of the value bytes without compression, so that chunks are encoded without copying
+     * them out of the value first.
+     */
+    protected byte[] encodeUncompressedValue(byte[] key, byte[] valueB, int offset, int length) {
+        return ByteBuffer.allocate(Shorts.BYTES + Ints.BYTES + key.length + length).putShort((short) 0)
+                .putInt(key.length).put(key).put(valueB, offset, length).array();
+    }
+
     protected byte[] decodeValue(byte[] key, byte[] valueE) {
         if (valueE == null || valueE.length == 0)
             return new byte[0];
@@ -31,6 +31,8 @@ public class MemcachedCacheConfig {
         maxChunkSize = kylinConfig.getMaxChunkSize();
         maxObjectSize = kylinConfig.getMaxObjectSize();
         enableCompression = kylinConfig.isEnableCompression();
+        singleRoundTripEnabled = kylinConfig.isMemcachedSingleRoundTripEnabled();
+        prefetchChunks = kylinConfig.getMemcachedPrefetchChunks();
     }
 
     private long timeout;
@@ -51,6 +53,12 @@ public class MemcachedCacheConfig {
     // whether enable compress the value data or not
     private boolean enableCompression;
 
+    // whether get the key hook and chunks in one bulk get, values are compressed before being split
+    private boolean singleRoundTripEnabled;
+
+    // number of chunks fetched together with the key hook
+    private int prefetchChunks;
+
     // only for test
     private boolean enableDebugLog = false;
 
@@ -119,4 +127,20 @@ public class MemcachedCacheConfig {
     public void setEnableCompression(boolean enableCompression) {
         this.enableCompression = enableCompression;
     }
+
+    public boolean isSingleRoundTripEnabled() {
+        return singleRoundTripEnabled;
+    }
+
+    public void setSingleRoundTripEnabled(boolean singleRoundTripEnabled) {
+        this.singleRoundTripEnabled = singleRoundTripEnabled;
+    }
+
+    public int getPrefetchChunks() {
+        return prefetchChunks;
+    }
+
+    public void setPrefetchChunks(int prefetchChunks) {
+        this.prefetchChunks = prefetchChunks;
+    }
 }
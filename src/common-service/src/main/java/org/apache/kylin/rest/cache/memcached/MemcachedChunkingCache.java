@@ -18,26 +18,33 @@
 
 package org.apache.kylin.rest.cache.memcached;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.SerializationUtils;
 import org.apache.kylin.common.util.Pair;
 import org.apache.kylin.guava30.shaded.common.base.Preconditions;
 import org.apache.kylin.guava30.shaded.common.base.Strings;
 import org.apache.kylin.guava30.shaded.common.base.Throwables;
+import org.apache.kylin.guava30.shaded.common.collect.HashBiMap;
+import org.apache.kylin.guava30.shaded.common.collect.Lists;
 import org.apache.kylin.guava30.shaded.common.collect.Maps;
 import org.apache.kylin.guava30.shaded.common.primitives.Ints;
 import org.apache.kylin.guava30.shaded.common.primitives.Shorts;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
 import net.spy.memcached.internal.BulkFuture;
 
 /**
@@ -50,6 +57,8 @@ import net.spy.memcached.internal.BulkFuture;
  */
 public class MemcachedChunkingCache extends MemcachedCache implements KeyHookLookup {
     private static final Logger logger = LoggerFactory.getLogger(MemcachedChunkingCache.class);
+    private static final LZ4Factory LZ4_FACTORY = LZ4Factory.fastestInstance();
+    private static final int MIN_COMPRESS_BYTES = 1024;
 
     public MemcachedChunkingCache(MemcachedCache cache) {
         super(cache);
@@ -103,11 +112,13 @@ public class MemcachedChunkingCache extends MemcachedCache implements KeyHookLoo
      * and check the KeyHook that whether chunking is enabled or not.
      */
     @Override
-    @SuppressWarnings({ "squid:S3776" })
     public byte[] getBinary(String keyS) {
         if (Strings.isNullOrEmpty(keyS)) {
             return new byte[0];
         }
+        if (config.isSingleRoundTripEnabled()) {
+            return getBinaryInSingleRoundTrip(keyS);
+        }
         KeyHook keyHook = lookupKeyHook(keyS);
         if (keyHook == null) {
             return new byte[0];
@@ -119,10 +130,9 @@ public class MemcachedChunkingCache extends MemcachedCache implements KeyHookLoo
                         "Chunking not enabled, return the value bytes in the keyhook directly, value bytes size = {}",
                         keyHook.getValues().length);
             }
-            return keyHook.getValues();
+            return decompressValue(keyHook, keyHook.getValues());
         }
 
-        BulkFuture<Map<String, Object>> bulkFuture;
         long start = System.currentTimeMillis();
 
         if (logger.isDebugEnabled() || config.isEnableDebugLog()) {
@@ -130,53 +140,138 @@ public class MemcachedChunkingCache extends MemcachedCache implements KeyHookLoo
         }
 
         Map<String, String> keyLookup = computeKeyHash(Arrays.asList(keyHook.getChunkskey()));
-        try {
-            bulkFuture = client.asyncGetBulk(keyLookup.keySet());
-        } catch (IllegalStateException e) {
-            // operation did not get queued in time (queue is full)
-            errorCount.incrementAndGet();
-            logger.error("Unable to queue cache operation.", e);
+        Map<String, Object> bulkResult = bulkGet(keyLookup.keySet());
+        if (bulkResult == null) {
             return new byte[0];
-        } catch (Throwable t) {
-            errorCount.incrementAndGet();
-            logger.error("Unable to queue cache operation.", t);
+        }
+        cacheGetTime.addAndGet(System.currentTimeMillis() - start);
+        if (bulkResult.size() != keyHook.getChunkskey().length) {
+            missCount.incrementAndGet();
+            logger.warn("Some paritial chunks missing for query key: {}", keyS);
+            //remove all the partital chunks here.
+            for (String partitalKey : bulkResult.keySet()) {
+                client.delete(partitalKey);
+            }
+            deleteKeyHook(keyS);
             return new byte[0];
         }
+        hitCount.getAndAdd(keyHook.getChunkskey().length);
+        byte[][] bytesArray = new byte[keyHook.getChunkskey().length][];
+        for (Map.Entry<String, Object> entry : bulkResult.entrySet()) {
+            byte[] bytes = (byte[]) entry.getValue();
+            readBytes.addAndGet(bytes.length);
+            String originalKeyS = keyLookup.get(entry.getKey());
+            int idx = Integer.parseInt(originalKeyS.substring(keyS.length()));
+            bytesArray[idx] = decodeValue(originalKeyS.getBytes(StandardCharsets.UTF_8), bytes);
+        }
+        return decompressValue(keyHook, concatBytes(bytesArray));
+    }
 
-        try {
-            Map<String, Object> bulkResult = bulkFuture.get(config.getTimeout(), TimeUnit.MILLISECONDS);
+    /**
+     * Chunk keys are derived from the key, so the key hook and the first chunks are fetched in one bulk get,
+     * only chunks beyond the prefetched ones need another round trip.
+     */
+    private byte[] getBinaryInSingleRoundTrip(String keyS) {
+        long start = System.currentTimeMillis();
+        List<String> prefetchKeys = Lists.newArrayList(keyS);
+        for (int i = 0; i < config.getPrefetchChunks(); i++) {
+            prefetchKeys.add(keyS + i);
+        }
+        Map<String, String> keyLookup = computeKeyHash(prefetchKeys);
+        Map<String, String> hashedKeys = HashBiMap.create(keyLookup).inverse();
+        Map<String, Object> bulkResult = bulkGet(keyLookup.keySet());
+        if (bulkResult == null) {
+            return new byte[0];
+        }
+
+        byte[] keyHookBytes = (byte[]) bulkResult.get(hashedKeys.get(keyS));
+        byte[] serializedKeyHook = decodeValue(keyS.getBytes(StandardCharsets.UTF_8), keyHookBytes);
+        if (serializedKeyHook.length == 0) {
+            missCount.incrementAndGet();
             cacheGetTime.addAndGet(System.currentTimeMillis() - start);
-            if (bulkResult.size() != keyHook.getChunkskey().length) {
+            return new byte[0];
+        }
+        readBytes.addAndGet(keyHookBytes.length);
+        KeyHook keyHook = SerializationUtils.deserialize(serializedKeyHook);
+        String[] chunkKeys = keyHook.getChunkskey();
+        byte[] value;
+        if (chunkKeys == null || chunkKeys.length == 0) {
+            value = keyHook.getValues();
+        } else {
+            Map<String, String> remainingKeyLookup = computeKeyHash(Arrays.asList(chunkKeys).stream()
+                    .filter(chunkKey -> !hashedKeys.containsKey(chunkKey)).collect(Collectors.toList()));
+            if (!remainingKeyLookup.isEmpty()) {
+                Map<String, Object> remainingResult = bulkGet(remainingKeyLookup.keySet());
+                if (remainingResult == null) {
+                    return new byte[0];
+                }
+                bulkResult.putAll(remainingResult);
+                hashedKeys.putAll(HashBiMap.create(remainingKeyLookup).inverse());
+            }
+            value = readChunks(keyS, chunkKeys, hashedKeys, bulkResult);
+            if (value.length == 0) {
+                cacheGetTime.addAndGet(System.currentTimeMillis() - start);
+                return value;
+            }
+        }
+        long duration = System.currentTimeMillis() - start;
+        cacheGetTime.addAndGet(duration);
+        cacheHitTime.addAndGet(duration);
+        hitCount.incrementAndGet();
+        return decompressValue(keyHook, value);
+    }
+
+    private byte[] readChunks(String keyS, String[] chunkKeys, Map<String, String> hashedKeys,
+            Map<String, Object> bulkResult) {
+        byte[][] bytesArray = new byte[chunkKeys.length][];
+        for (int i = 0; i < chunkKeys.length; i++) {
+            byte[] bytes = (byte[]) bulkResult.get(hashedKeys.get(chunkKeys[i]));
+            if (bytes == null) {
                 missCount.incrementAndGet();
                 logger.warn("Some paritial chunks missing for query key: {}", keyS);
-                //remove all the partital chunks here.
-                for (String partitalKey : bulkResult.keySet()) {
-                    client.delete(partitalKey);
+                for (String chunkKey : chunkKeys) {
+                    client.delete(hashedKeys.get(chunkKey));
                 }
                 deleteKeyHook(keyS);
                 return new byte[0];
             }
-            hitCount.getAndAdd(keyHook.getChunkskey().length);
-            byte[][] bytesArray = new byte[keyHook.getChunkskey().length][];
-            for (Map.Entry<String, Object> entry : bulkResult.entrySet()) {
-                byte[] bytes = (byte[]) entry.getValue();
-                readBytes.addAndGet(bytes.length);
-                String originalKeyS = keyLookup.get(entry.getKey());
-                int idx = Integer.parseInt(originalKeyS.substring(keyS.length()));
-                bytesArray[idx] = decodeValue(originalKeyS.getBytes(StandardCharsets.UTF_8), bytes);
-            }
-            return concatBytes(bytesArray);
+            readBytes.addAndGet(bytes.length);
+            bytesArray[i] = decodeValue(chunkKeys[i].getBytes(StandardCharsets.UTF_8), bytes);
+        }
+        return concatBytes(bytesArray);
+    }
+
+    /**
+     * @return null if failed to get from cache
+     */
+    private Map<String, Object> bulkGet(Collection<String> hashedKeys) {
+        BulkFuture<Map<String, Object>> bulkFuture;
+        try {
+            bulkFuture = client.asyncGetBulk(hashedKeys);
+        } catch (IllegalStateException e) {
+            // operation did not get queued in time (queue is full)
+            errorCount.incrementAndGet();
+            logger.error("Unable to queue cache operation.", e);
+            return null;
+        } catch (Throwable t) {
+            errorCount.incrementAndGet();
+            logger.error("Unable to queue cache operation.", t);
+            return null;
+        }
+
+        try {
+            return Maps.newHashMap(bulkFuture.get(config.getTimeout(), TimeUnit.MILLISECONDS));
         } catch (TimeoutException e) {
             timeoutCount.incrementAndGet();
             bulkFuture.cancel(false);
-            return new byte[0];
+            return null;
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw Throwables.propagate(e);
         } catch (ExecutionException e) {
             errorCount.incrementAndGet();
             logger.error("ExecutionException when pulling item from cache.", e);
-            return new byte[0];
+            return null;
         }
     }
 
@@ -190,6 +285,10 @@ public class MemcachedChunkingCache extends MemcachedCache implements KeyHookLoo
         if (Strings.isNullOrEmpty(keyS)) {
             return;
         }
+        if (config.isSingleRoundTripEnabled()) {
+            putCompressedBinary(keyS, valueB, expiration);
+            return;
+        }
         int nSplit = getValueSplit(config, keyS, valueB.length);
         Pair<KeyHook, byte[][]> keyValuePair = getKeyValuePair(nSplit, keyS, valueB);
         KeyHook keyHook = keyValuePair.getFirst();
@@ -210,6 +309,71 @@ public class MemcachedChunkingCache extends MemcachedCache implements KeyHookLoo
         }
     }
 
+    /**
+     * The whole value is compressed once before being split, chunks are encoded from ranges of the value,
+     * and put before the key hook, so that a key hook is never read before its chunks.
+     */
+    private void putCompressedBinary(String keyS, byte[] valueB, int expiration) {
+        byte[] compressed = compressValue(valueB);
+        byte[] data = compressed == null ? valueB : compressed;
+        int nSplit = getValueSplit(config, keyS, data.length);
+        KeyHook keyHook;
+        if (nSplit > 1) {
+            String[] chunkKeys = new String[nSplit];
+            final int splitSize = (data.length - 1) / nSplit + 1;
+            for (int i = 0; i < nSplit; i++) {
+                chunkKeys[i] = keyS + i;
+                int offset = i * splitSize;
+                int length = Math.min(splitSize, data.length - offset);
+                internalPut(computeKeyHash(chunkKeys[i]),
+                        encodeUncompressedValue(chunkKeys[i].getBytes(StandardCharsets.UTF_8), data, offset, length),
+                        expiration);
+            }
+            keyHook = new KeyHook(chunkKeys, null);
+        } else {
+            keyHook = new KeyHook(null, data);
+        }
+        keyHook.setCompressed(compressed != null);
+        if (logger.isDebugEnabled() || config.isEnableDebugLog()) {
+            logger.debug("put key hook:{} to cache for hash key, value bytes size = {}, stored bytes size = {}",
+                    keyHook, valueB.length, data.length);
+        }
+        byte[] serializedKeyHook = serializeValue(keyHook);
+        internalPut(computeKeyHash(keyS), encodeUncompressedValue(keyS.getBytes(StandardCharsets.UTF_8),
+                serializedKeyHook, 0, serializedKeyHook.length), expiration);
+    }
+
+    /**
+     * @return the compressed bytes, or null if compression is disabled or doesn't make the value smaller
+     */
+    private byte[] compressValue(byte[] valueB) {
+        if (!config.isEnableCompression() || valueB.length < MIN_COMPRESS_BYTES) {
+            return null;
+        }
+        LZ4Compressor compressor = LZ4_FACTORY.fastCompressor();
+        byte[] compressed = new byte[Ints.BYTES + compressor.maxCompressedLength(valueB.length)];
+        int compressedLength = compressor.compress(valueB, 0, valueB.length, compressed, Ints.BYTES);
+        if (Ints.BYTES + compressedLength >= valueB.length) {
+            return null;
+        }
+        ByteBuffer.wrap(compressed).putInt(valueB.length);
+        return Arrays.copyOf(compressed, Ints.BYTES + compressedLength);
+    }
+
+    private byte[] decompressValue(KeyHook keyHook, byte[] value) {
+        if (!keyHook.isCompressed() || value == null || value.length == 0) {
+            return value;
+        }
+        try {
+            int originalLength = ByteBuffer.wrap(value).getInt();
+            return LZ4_FACTORY.fastDecompressor().decompress(value, Ints.BYTES, originalLength);
+        } catch (RuntimeException e) {
+            errorCount.incrementAndGet();
+            logger.error("Decompressing value bytes error.", e);
+            return new byte[0];
+        }
+    }
+
     @Override
     public void evict(String keyS) {
         if (Strings.isNullOrEmpty(keyS)) {
@@ -40,7 +40,7 @@ import org.apache.kylin.engine.spark.filter.QueryFiltersCollector;
 import org.apache.kylin.engine.spark.utils.SparkJobFactoryUtils;
 import org.apache.kylin.metadata.model.util.ComputedColumnUtil;
 import org.apache.kylin.metadata.project.EnhancedUnitOfWork;
-import org.apache.kylin.metadata.project.NProjectLoader;
+import org.apache.kylin.metadata.project.MetadataBootstrapper;
 import org.apache.kylin.metadata.project.NProjectManager;
 import org.apache.kylin.metadata.project.ProjectInstance;
 import org.apache.kylin.metadata.streaming.JdbcStreamingJobStatsStore;
@@ -223,11 +223,8 @@ public class AppInitializer {
 
     private void warmUpSystemCache() {
         KylinConfig kylinConfig = KylinConfig.getInstanceFromEnv();
-        List<ProjectInstance> prjInstances = NProjectManager.getInstance(kylinConfig).listAllProjects();
-        prjInstances.forEach(prjInstance -> {
-            NProjectLoader.updateCache(prjInstance.getName());
-            NProjectLoader.removeCache();
-        });
+        // projects are loaded several at a time, failures are reported by /api/kg/health/metadata_readiness
+        MetadataBootstrapper.getInstance().bootstrap(kylinConfig).join();
         log.info("The system cache is warmed up.");
     }
 
@@ -20,10 +20,13 @@ package org.apache.kylin.rest.config.initialize;
 
 import java.util.Map;
 
+import org.apache.kylin.common.KylinConfig;
 import org.apache.kylin.common.metrics.MetricsCategory;
 import org.apache.kylin.common.metrics.MetricsGroup;
 import org.apache.kylin.common.metrics.MetricsName;
 import org.apache.kylin.common.metrics.MetricsTag;
+import org.apache.kylin.common.persistence.transaction.JobSchedulingBroadcastNotifier;
+import org.apache.kylin.common.scheduler.EventBusFactory;
 import org.apache.kylin.common.scheduler.JobAddedNotifier;
 import org.apache.kylin.common.scheduler.JobDiscardNotifier;
 import org.apache.kylin.common.scheduler.JobReadyNotifier;
@@ -37,8 +40,10 @@ import lombok.extern.slf4j.Slf4j;
 public class JobSchedulerListener {
     @Subscribe
     public void onJobIsReady(JobReadyNotifier notifier) {
-        //TODO schedule job immediately
-        //        NDefaultScheduler.getInstance(notifier.getProject()).fetchJobsImmediately();
+        // the local job scheduler subscribes the notifier itself, wake up the schedulers on other nodes
+        if (KylinConfig.getInstanceFromEnv().isJobSchedulerEventDrivenEnabled()) {
+            EventBusFactory.getInstance().postAsync(new JobSchedulingBroadcastNotifier());
+        }
     }
 
     @Subscribe
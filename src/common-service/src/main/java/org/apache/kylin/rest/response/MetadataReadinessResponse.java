@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.rest.response;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class MetadataReadinessResponse {
+    @JsonProperty("ready")
+    private boolean ready;
+    @JsonProperty("projects")
+    private Map<String, ProjectLoadStatusResponse> projects;
+
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    public static class ProjectLoadStatusResponse {
+        @JsonProperty("state")
+        private String state;
+        @JsonProperty("duration_ms")
+        private long durationMs;
+        @JsonProperty("error")
+        private String error;
+    }
+}
@@ -18,17 +18,27 @@
 
 package org.apache.kylin.rest.cache.memcached;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.commons.lang3.SerializationUtils;
 import org.apache.kylin.common.util.NLocalFileMetadataTestCase;
 import org.apache.kylin.common.util.Pair;
 import org.apache.kylin.guava30.shaded.common.base.Charsets;
 import org.apache.kylin.guava30.shaded.common.base.Strings;
+import org.apache.kylin.guava30.shaded.common.collect.Lists;
 import org.apache.kylin.guava30.shaded.common.collect.Maps;
 import org.apache.kylin.rest.cache.memcached.CompositeMemcachedCache.MemCachedCacheAdaptor;
 import org.apache.kylin.rest.service.CommonQueryCacheSupporter;
@@ -188,4 +198,62 @@ public class MemcachedChunkingCacheTest extends NLocalFileMetadataTestCase {
         Assert.assertFalse(
                 keyHook.equals(keyHookEq) || keyHook.toString().equals(keyHookEq.toString()) || keyHook.equals(null));
     }
+
+    @Test
+    public void testSingleRoundTripWithCompression() throws Exception {
+        MemcachedCacheConfig cacheConfig = new MemcachedCacheConfig();
+        cacheConfig.setMaxObjectSize(300);
+        cacheConfig.setEnableCompression(true);
+        cacheConfig.setSingleRoundTripEnabled(true);
+        cacheConfig.setPrefetchChunks(2);
+        MemcachedClient memcachedClient = mock(MemcachedClient.class);
+        Map<String, Object> storage = Maps.newHashMap();
+        when(memcachedClient.set(anyString(), anyInt(), any())).then(invocation -> {
+            storage.put(invocation.getArgument(0), invocation.getArgument(2));
+            return null;
+        });
+        List<Collection<String>> bulkGets = Lists.newArrayList();
+        when(memcachedClient.asyncGetBulk(anyCollection())).then(invocation -> {
+            Collection<String> keys = invocation.getArgument(0);
+            bulkGets.add(keys);
+            Map<String, Object> result = Maps.newHashMap();
+            keys.stream().filter(storage::containsKey).forEach(key -> result.put(key, storage.get(key)));
+            BulkFuture<Map<String, Object>> bulkFuture = mock(BulkFuture.class);
+            when(bulkFuture.get(anyLong(), any(TimeUnit.class))).thenReturn(result);
+            return bulkFuture;
+        });
+        MemcachedChunkingCache cache = new MemcachedChunkingCache(new MemcachedCache(memcachedClient, cacheConfig,
+                CommonQueryCacheSupporter.Type.SUCCESS_QUERY_CACHE.rootCacheName, 7 * 24 * 3600));
+
+        // a compressible value is small enough to be embedded in the key hook
+        String compressibleValue = Strings.repeat("value3", 2000);
+        cache.put("sql3", compressibleValue);
+        Assert.assertEquals(1, storage.size());
+        Assert.assertEquals(compressibleValue, SerializationUtils.deserialize(cache.get("sql3")));
+        Assert.assertEquals(1, bulkGets.size());
+
+        // chunks beyond the prefetched ones are fetched in the second round trip
+        Random random = new Random(37);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            builder.append((char) ('a' + random.nextInt(26)));
+        }
+        String largeValue = builder.toString();
+        cache.put("sql4", largeValue);
+        Assert.assertTrue(storage.size() > 4);
+        bulkGets.clear();
+        Assert.assertEquals(largeValue, SerializationUtils.deserialize(cache.get("sql4")));
+        Assert.assertEquals(2, bulkGets.size());
+        Assert.assertEquals(3, bulkGets.get(0).size());
+
+        // missing chunks make a miss
+        storage.remove(cache.computeKeyHash("sql4" + 1));
+        Assert.assertEquals(0, cache.get("sql4").length);
+        Assert.assertEquals(0, cache.get("sql5").length);
+
+        CacheStats stats = cache.getStats();
+        Assert.assertEquals(2, stats.getNumHits());
+        Assert.assertEquals(2, stats.getNumMisses());
+        Assert.assertTrue(stats.getAvgHitTime() >= 0);
+    }
 }
@@ -336,6 +336,24 @@ public class KylinConfig extends KylinConfigBase {
         return createKylinConfig(another.getRawAllProperties());
     }
 
+    /**
+     * Create a config with its own managers and resource store, copying the already resolved properties of
+     * another config, so the properties are not resolved again. Properties set on the new config are not
+     * visible to the other one.
+     */
+    public static KylinConfig createKylinConfigCopyingProperties(KylinConfig another) {
+        Properties props = new Properties();
+        props.putAll(another.getRawAllProperties());
+        return new KylinConfig(props, true);
+    }
+
+    /**
+     * Replace the properties with the already resolved properties of another config, keeping the managers.
+     */
+    public void reloadPropertiesFrom(KylinConfig another) {
+        properties.reloadProperties(another.getRawAllProperties());
+    }
+
     /** If use createKylinConfig to create a new config,remember to release this config */
     public static KylinConfig createKylinConfig(Properties prop) {
         KylinConfig kylinConfig = new KylinConfig();
@@ -526,11 +526,40 @@ public abstract class KylinConfigBase implements Serializable {
         return Boolean.parseBoolean(getOptional("kylin.internal-table.sort-by-partition.enabled", TRUE));
     }
 
+    /**
+     * An internal table in upsert mode is compacted after loading once it has more data files than this,
+     * non-positive to disable.
+     */
+    public int getInternalTableUpsertCompactionFileThreshold() {
+        return Integer.parseInt(getOptional("kylin.internal-table.upsert.compaction-file-threshold", "1000"));
+    }
+
     public int getQueryConcurrentRunningThresholdForProject() {
         // by default there's no limitation
         return Integer.parseInt(getOptional("kylin.query.project-concurrent-running-threshold", "0"));
     }
 
+    public boolean isQueryAdmissionQueueEnabled() {
+        return Boolean.parseBoolean(getOptional("kylin.query.admission-queue.enabled", FALSE));
+    }
+
+    public long getQueryAdmissionQueueMaxWaitMs() {
+        return TimeUtil.timeStringAs(getOptional("kylin.query.admission-queue.max-wait", "10s"),
+                TimeUnit.MILLISECONDS);
+    }
+
+    public int getQueryAdmissionQueueMaxSize() {
+        return Integer.parseInt(getOptional("kylin.query.admission-queue.max-size", "100"));
+    }
+
+    /**
+     * The share of project slots that heavy and async queries may hold together,
+     * the rest is always left for VIP and light queries.
+     */
+    public double getQueryAdmissionHeavySlotRatio() {
+        return Double.parseDouble(getOptional("kylin.query.admission-queue.heavy-slot-ratio", "0.5"));
+    }
+
     public int getAsyncQueryMaxConcurrentJobs() {
         // by default there's no limitation
         return Integer.parseInt(getOptional("kylin.query.async-query.max-concurrent-jobs", "0"));
@@ -693,6 +722,41 @@ public abstract class KylinConfigBase implements Serializable {
         return Boolean.parseBoolean(getOptional("kylin.metadata.check-copy-on-write", FALSE));
     }
 
+    /**
+     * The number of idle transaction contexts kept for reuse, the managers of a reused context keep the entities
+     * loaded by previous transactions. A non-positive value creates a new config for every transaction.
+     */
+    public int getTransactionContextPoolSize() {
+        return Integer.parseInt(getOptional("kylin.metadata.transaction.context-pool-size", "8"));
+    }
+
+    public int getMetadataBootstrapParallelism() {
+        return Integer.parseInt(getOptional("kylin.metadata.bootstrap.parallelism", "8"));
+    }
+
+    /**
+     * Entities of one manager are deserialized in parallel only if there are at least this many of them.
+     */
+    public int getMetadataBootstrapParallelThreshold() {
+        return Integer.parseInt(getOptional("kylin.metadata.bootstrap.parallel-threshold", "64"));
+    }
+
+    public boolean isMetadataBootstrapLazyLoadEnabled() {
+        return Boolean.parseBoolean(getOptional("kylin.metadata.bootstrap.lazy-load-enabled", FALSE));
+    }
+
+    /**
+     * When lazy load is enabled, the most recently modified projects and the listed projects are still loaded
+     * on startup, others are loaded on first access.
+     */
+    public int getMetadataBootstrapEagerLoadMaxProjects() {
+        return Integer.parseInt(getOptional("kylin.metadata.bootstrap.eager-load-max-projects", "20"));
+    }
+
+    public String[] getMetadataBootstrapEagerLoadProjects() {
+        return getOptionalStringArray("kylin.metadata.bootstrap.eager-load-projects", new String[0]);
+    }
+
     public boolean isCheckHostname() {
         return Boolean.parseBoolean(getOptional("kylin.env.hostname-check-enabled", TRUE));
     }
@@ -845,6 +909,18 @@ public abstract class KylinConfigBase implements Serializable {
         return Integer.parseInt(getOptional("kylin.snapshot.partition-build-max-thread", "10"));
     }
 
+    public boolean isSnapshotFingerprintReuseEnabled() {
+        return Boolean.parseBoolean(getOptional("kylin.snapshot.fingerprint-reuse-enabled", TRUE));
+    }
+
+    public int getSnapshotFingerprintIndexSize() {
+        return Integer.parseInt(getOptional("kylin.snapshot.fingerprint-index-size", "10"));
+    }
+
+    public int getSnapshotFooterReadParallelism() {
+        return Integer.parseInt(getOptional("kylin.snapshot.footer-read-parallelism", "8"));
+    }
+
     public int getSnapshotMaxVersions() {
         return Integer.parseInt(getOptional("kylin.snapshot.max-versions", "3"));
     }
@@ -1647,6 +1723,14 @@ public abstract class KylinConfigBase implements Serializable {
         return getOptional("kylin.engine.spark.merge-class-name", "org.apache.kylin.engine.spark.job.SegmentMergeJob");
     }
 
+    /**
+     * Merge the layouts containing the time partition column by concatenating the segments without aggregation,
+     * rows of different segments never collide since the segments cover disjoint time ranges.
+     */
+    public boolean isMergeWithoutAggregationEnabled() {
+        return Boolean.parseBoolean(getOptional("kylin.engine.merge-without-aggregation-enabled", TRUE));
+    }
+
     public boolean isCompactionAfterDataUpdateEnabled() {
         return Boolean.parseBoolean(getOptional("kylin.engine.spark.compaction-after-date-update-enabled", TRUE));
     }
@@ -2195,6 +2279,14 @@ public abstract class KylinConfigBase implements Serializable {
         return Boolean.parseBoolean((getOptional("kylin.cache.memcached.is-enable-compression", TRUE)));
     }
 
+    public boolean isMemcachedSingleRoundTripEnabled() {
+        return Boolean.parseBoolean(getOptional("kylin.cache.memcached.single-round-trip-enabled", FALSE));
+    }
+
+    public int getMemcachedPrefetchChunks() {
+        return Integer.parseInt(getOptional("kylin.cache.memcached.prefetch-chunks", "8"));
+    }
+
     public long getMaxWaitMillis() {
         return Long.parseLong(getOptional("kylin.cache.redis.max-wait", "300000"));
     }
@@ -2554,6 +2646,29 @@ public abstract class KylinConfigBase implements Serializable {
         return Boolean.parseBoolean(this.getOptional("kylin.server.common-only", FALSE));
     }
 
+    public int getBroadcastQueueCapacity() {
+        return Integer.parseInt(this.getOptional("kylin.server.broadcast.queue-capacity", "10000"));
+    }
+
+    /**
+     * How long announcing a broadcast event blocks when the queue is full, before the event is dropped.
+     */
+    public long getBroadcastOfferTimeoutMs() {
+        return TimeUtil.timeStringAs(this.getOptional("kylin.server.broadcast.offer-timeout", "5s"),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Max number of queued events delivered together, events to the same node are sent in one request.
+     */
+    public int getBroadcastBatchSize() {
+        return Integer.parseInt(this.getOptional("kylin.server.broadcast.batch-size", "100"));
+    }
+
+    public int getBroadcastHandlerThreads() {
+        return Integer.parseInt(this.getOptional("kylin.server.broadcast.handler-threads", "10"));
+    }
+
     public String[] getAllModeServers() {
         return this.getSystemStringArray("kylin.server.cluster-mode-all", new String[0]);
     }
@@ -2883,6 +2998,28 @@ public abstract class KylinConfigBase implements Serializable {
                 TimeUnit.MILLISECONDS);
     }
 
+    /**
+     * Manifests are only read and deleted by the manifest driven garbage cleaning, so by default they are only
+     * written when it is enabled.
+     */
+    public boolean isStorageManifestEnabled() {
+        return Boolean.parseBoolean(getOptional("kylin.garbage.storage.manifest-enabled",
+                String.valueOf(isStorageManifestGcEnabled())));
+    }
+
+    public boolean isStorageManifestGcEnabled() {
+        return Boolean.parseBoolean(getOptional("kylin.garbage.storage.manifest-gc-enabled", FALSE));
+    }
+
+    public long getStorageFullScanInterval() {
+        return TimeUtil.timeStringAs(getOptional("kylin.garbage.storage.full-scan-interval", "7d"),
+                TimeUnit.MILLISECONDS);
+    }
+
+    public int getStorageCleanerScanParallelism() {
+        return Integer.parseInt(getOptional("kylin.garbage.storage.scan-parallelism", "4"));
+    }
+
     public boolean getJobDataLoadEmptyNotificationEnabled() {
         return Boolean.parseBoolean(getOptional("kylin.job.notification-on-empty-data-load", FALSE));
     }
@@ -3288,6 +3425,34 @@ public abstract class KylinConfigBase implements Serializable {
         return Boolean.parseBoolean(this.getOptional("kylin.query.unique-async-query-yarn-queue-enabled", FALSE));
     }
 
+    public boolean isAsyncQuerySharedAppEnabled() {
+        return Boolean.parseBoolean(this.getOptional("kylin.query.async-query.shared-app-enabled", FALSE));
+    }
+
+    public int getAsyncQuerySharedAppMaxConcurrency() {
+        return Integer.parseInt(this.getOptional("kylin.query.async-query.shared-app.max-concurrency", "4"));
+    }
+
+    public long getAsyncQuerySharedAppMaxScanRows() {
+        return Long.parseLong(this.getOptional("kylin.query.async-query.shared-app.max-scan-rows", "100000000"));
+    }
+
+    public long getAsyncQuerySharedAppMaxScanBytes() {
+        return Long.parseLong(this.getOptional("kylin.query.async-query.shared-app.max-scan-bytes", "10737418240"));
+    }
+
+    public String getAsyncQuerySharedAppSchedulerPool() {
+        return this.getOptional("kylin.query.async-query.shared-app.scheduler-pool", "async_query_tasks");
+    }
+
+    public boolean isAsyncQueryParallelExportEnabled() {
+        return Boolean.parseBoolean(this.getOptional("kylin.query.async-query.parallel-export-enabled", FALSE));
+    }
+
+    public int getAsyncQueryXlsxRowWindowSize() {
+        return Integer.parseInt(this.getOptional("kylin.query.async-query.xlsx-row-window-size", "1000"));
+    }
+
     public String getAsyncQuerySparkYarnQueue() {
         return getOptional("kylin.query.async-query.spark-conf.spark.yarn.queue", DEFAULT);
     }
@@ -3603,6 +3768,10 @@ public abstract class KylinConfigBase implements Serializable {
         return ImmutableSet.copyOf(lists.split(","));
     }
 
+    public int getDiagLogExtractParallelism() {
+        return Integer.parseInt(getOptional("kylin.diag.log-extract-parallelism", "4"));
+    }
+
     public boolean isMetadataOnlyForRead() {
         return Boolean.parseBoolean(getOptional("kylin.env.metadata.only-for-read", FALSE));
     }
@@ -3737,6 +3906,28 @@ public abstract class KylinConfigBase implements Serializable {
         return Boolean.parseBoolean(getOptional("kylin.query.dimension-range-filter-enabled", FALSE));
     }
 
+    /**
+     * Derived filters are translated into host key predicates only when the lookup snapshot has no more
+     * rows than this threshold, a non-positive value disables the translation.
+     */
+    public int getDerivedFilterTranslationThreshold() {
+        return Integer.parseInt(getOptional("kylin.query.derived-filter-translation-threshold", "10000"));
+    }
+
+    /**
+     * Share the segments pruned by identical filters on the same dataflow among the OlapContexts of a query.
+     */
+    public boolean isQuerySegmentPruningMemoEnabled() {
+        return Boolean.parseBoolean(getOptional("kylin.query.segment-pruning-memo-enabled", TRUE));
+    }
+
+    /**
+     * Push the min-max ranges collected by runtime bloom filters of joins into parquet row group filtering.
+     */
+    public boolean isRuntimeFilterRangePushdownEnabled() {
+        return Boolean.parseBoolean(getOptional("kylin.query.runtime-filter.range-pushdown-enabled", TRUE));
+    }
+
     public int getSegmentExecMaxThreads() {
         return Integer.parseInt(getOptional("kylin.engine.segment-exec-max-threads", "200"));
     }
@@ -4034,6 +4225,21 @@ public abstract class KylinConfigBase implements Serializable {
         return Long.parseLong(this.getOptional("kylin.job.master-poll-interval-second", "10"));
     }
 
+    /**
+     * Whether job creation, job completion and lock release wake up the job scheduler immediately.
+     * When enabled, the scheduler only polls at {@link #getJobSchedulerSafetyPollIntervalSec()}.
+     */
+    public boolean isJobSchedulerEventDrivenEnabled() {
+        return Boolean.parseBoolean(this.getOptional("kylin.job.scheduler.event-driven-enabled", TRUE));
+    }
+
+    /**
+     * The slow fallback poll of the event-driven job scheduler, in case a wake-up event is lost.
+     */
+    public long getJobSchedulerSafetyPollIntervalSec() {
+        return Long.parseLong(this.getOptional("kylin.job.scheduler.safety-poll-interval-second", "120"));
+    }
+
     public int getJobSchedulerMasterPollBatchSize() {
         return Integer.parseInt(this.getOptional("kylin.job.master-pull-batch-size", "30"));
     }
@@ -4050,6 +4256,19 @@ public abstract class KylinConfigBase implements Serializable {
         return Integer.parseInt(this.getOptional("kylin.job.slave-pull-batch-size", "20"));
     }
 
+    public boolean isJobSchedulerShortestJobFirstEnabled() {
+        return Boolean.parseBoolean(this.getOptional("kylin.job.scheduler.shortest-job-first-enabled", TRUE));
+    }
+
+    /**
+     * The longest time a busy node waits before picking up a ready job, so that the idle nodes pick it up first.
+     */
+    public long getJobSchedulerBusyNodeYieldMs() {
+        String defaultValue = isDevOrUT() ? "0s" : "60s";
+        return TimeUtil.timeStringAs(this.getOptional("kylin.job.scheduler.busy-node-yield-time", defaultValue),
+                TimeUnit.MILLISECONDS);
+    }
+
     public int getJobLockClientRenewalMaxThreads() {
         return Integer.parseInt(this.getOptional("kylin.job.lock-client-renewal-threads", "3"));
     }
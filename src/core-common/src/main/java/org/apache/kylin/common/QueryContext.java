@@ -24,6 +24,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -115,6 +116,21 @@ public class QueryContext implements Closeable {
     @Setter
     private Map<String, Boolean> unmatchedJoinDigest = new ConcurrentHashMap<>();
 
+    /**
+     * Ids of the segments pruned by filters, keyed by the pruning inputs. OlapContexts of the query
+     * with identical filters on the same dataflow reuse the result instead of pruning again, contexts
+     * chosen in parallel wait for the pruning in progress.
+     */
+    @Getter
+    private final Map<String, CompletableFuture<List<String>>> prunedSegmentsMemo = new ConcurrentHashMap<>();
+
+    /**
+     * Releases the request level concurrency slot of the query once it waits in the admission queue, which limits
+     * the concurrency instead. Queries bypassing the queue, like pushdown and constant queries, keep their slots.
+     */
+    @Setter
+    private Runnable requestSlotReleaser;
+
     @Getter
     @Setter
     private boolean enhancedAggPushDown;
@@ -172,6 +188,14 @@ public class QueryContext implements Closeable {
         queryPlan = new QueryPlan();
     }
 
+    public void releaseRequestSlot() {
+        Runnable releaser = requestSlotReleaser;
+        requestSlotReleaser = null;
+        if (releaser != null) {
+            releaser.run();
+        }
+    }
+
     public static QueryContext current() {
         return contexts.get();
     }
@@ -279,6 +303,12 @@ public class QueryContext implements Closeable {
         private long dataFetchTime; // see doc in SQLResponse.dataFetchTime
         private String queryExecutedPlan;
 
+        // admission queue of the project, see QueryAdmissionController
+        private String admissionPriority;
+        private long admissionQueueTime = -1;
+        private long admissionEstimatedRows = -1;
+        private boolean admissionRejected;
+
         // sourceScanXxx from Parquet
         private AtomicLong sourceScanBytes = new AtomicLong();
 
@@ -382,6 +412,7 @@ public class QueryContext implements Closeable {
         private boolean isHighPriorityQuery = false;
         private boolean withoutSyntaxError;
         private boolean isAsyncQuery;
+        private boolean isAsyncQueryOnSharedApp;
         private boolean isPushdown;
         private boolean isPartial = false;
         private boolean isStorageCacheUsed = false;
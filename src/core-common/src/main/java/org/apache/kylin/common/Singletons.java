@@ -29,6 +29,7 @@ public class Singletons implements Serializable {
 
     transient ConcurrentHashMap<Class<?>, Object> instances = new ConcurrentHashMap<>();
     transient ConcurrentHashMap<Class<?>, ConcurrentHashMap<String, Object>> instancesByPrj = new ConcurrentHashMap<>();
+    transient ConcurrentHashMap<String, Object> creationLocksByPrj = new ConcurrentHashMap<>();
 
     public static <T> T getInstance(String project, Class<T> clz) {
         return instance.getInstance0(project, clz, defaultCreator(project));
@@ -114,10 +115,10 @@ public class Singletons implements Serializable {
         if (singleton != null)
             return (T) singleton;
 
-        synchronized (keyClass) {
-            instanceMap = instancesByPrj.get(keyClass);
-            if (instanceMap == null)
-                instanceMap = new ConcurrentHashMap<>();
+        // lock by class and project, so that managers of different projects can be created in parallel
+        Object lock = creationLocksByPrj.computeIfAbsent(keyClass.getName() + "/" + project, key -> new Object());
+        synchronized (lock) {
+            instanceMap = instancesByPrj.computeIfAbsent(keyClass, key -> new ConcurrentHashMap<>());
 
             singleton = instanceMap.get(project);
             if (singleton != null)
@@ -131,7 +132,6 @@ public class Singletons implements Serializable {
             if (singleton != null) {
                 instanceMap.put(project, singleton);
             }
-            instancesByPrj.put(keyClass, instanceMap);
         }
         return (T) singleton;
     }
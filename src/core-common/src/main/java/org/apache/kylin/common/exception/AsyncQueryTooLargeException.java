@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.common.exception;
+
+import static org.apache.kylin.common.exception.QueryErrorCode.ASYNC_QUERY_TOO_LARGE_FOR_SHARED_APP;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+
+/**
+ * Thrown before execution when an async query is too large to run on the shared application,
+ * the query is then submitted as a standalone async query job.
+ */
+public class AsyncQueryTooLargeException extends KylinException {
+
+    public AsyncQueryTooLargeException(String message) {
+        super(ASYNC_QUERY_TOO_LARGE_FOR_SHARED_APP, message);
+    }
+
+    public static boolean causedByTooLarge(Throwable e) {
+        return e instanceof AsyncQueryTooLargeException
+                || ExceptionUtils.getRootCause(e) instanceof AsyncQueryTooLargeException;
+    }
+}
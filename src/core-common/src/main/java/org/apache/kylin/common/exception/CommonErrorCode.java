@@ -39,6 +39,7 @@ public enum CommonErrorCode implements ErrorCodeSupplier {
     FAILED_FORWARD_METADATA_ACTION("KE-000027004"), //
     INTERNAL_TABLE_UNSUPPORTED_STORAGE_TYPE("KE-000027005"), //
     INTERNAL_TABLE_INVALID_BUCKET_NUMBER("KE-000027006"), //
+    INTERNAL_TABLE_MISSING_PRIMARY_KEY("KE-000027007"), //
 
     // 00028XXX source usage
     LICENSE_OVER_CAPACITY("KE-000028001"), //
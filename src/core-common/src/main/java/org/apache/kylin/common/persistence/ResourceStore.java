@@ -142,6 +142,10 @@ public abstract class ResourceStore implements AutoCloseable {
         META_CACHE.put(config, rs);
     }
 
+    public static boolean isRSCached(KylinConfig config, ResourceStore rs) {
+        return META_CACHE.getIfPresent(config) == rs;
+    }
+
     /**
      * Create a resource store for general purpose, according specified by given StorageURL.
      */
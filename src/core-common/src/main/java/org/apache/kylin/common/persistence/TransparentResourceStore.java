@@ -43,13 +43,18 @@ import lombok.val;
 public class TransparentResourceStore extends ResourceStore {
 
     @Getter
-    private final List<RawResource> resources;
+    private List<RawResource> resources;
 
     private final InMemResourceStore underlying;
 
-    private final InMemResourceStore overlay;
-    
-    private final boolean needToComputeRawDiff;
+    private InMemResourceStore overlay;
+
+    private boolean needToComputeRawDiff;
+
+    // a pooled store only shows its overlay to the thread running the transaction
+    private boolean ownedByThread = false;
+
+    private volatile Thread owner;
 
     public TransparentResourceStore(InMemResourceStore underlying, KylinConfig kylinConfig) {
         super(kylinConfig);
@@ -57,11 +62,40 @@ public class TransparentResourceStore extends ResourceStore {
         this.overlay = new InMemResourceStore(kylinConfig);
         this.metadataStore = underlying.getMetadataStore();
         this.resources = Lists.newArrayList();
-        this.needToComputeRawDiff = kylinConfig.isAuditLogJsonPatchEnabled()
-                && (metadataStore instanceof JdbcMetadataStore)
+        this.needToComputeRawDiff = needToComputeRawDiff();
+    }
+
+    private boolean needToComputeRawDiff() {
+        return kylinConfig.isAuditLogJsonPatchEnabled() && (metadataStore instanceof JdbcMetadataStore)
                 && (kylinConfig.isUTEnv() || !UnitOfWork.get().isSkipAuditLog());
     }
 
+    /**
+     * Start a new transaction of the given thread on a pooled store, the overlay and the written resources
+     * of the previous transaction are dropped.
+     */
+    public void reset(Thread owner) {
+        this.overlay = new InMemResourceStore(kylinConfig);
+        this.resources = Lists.newArrayList();
+        this.needToComputeRawDiff = needToComputeRawDiff();
+        this.ownedByThread = true;
+        this.owner = owner;
+    }
+
+    /**
+     * Return a pooled store after its transaction, entities leaked from the transaction only read the underlying
+     * store from now on.
+     */
+    public void release() {
+        this.owner = null;
+        this.overlay = new InMemResourceStore(kylinConfig);
+        this.resources = Lists.newArrayList();
+    }
+
+    private boolean isOverlayVisible() {
+        return !ownedByThread || owner == Thread.currentThread();
+    }
+
     @Override
     public MetadataStore getMetadataStore() {
         return metadataStore;
@@ -70,6 +104,9 @@ public class TransparentResourceStore extends ResourceStore {
     @Override
     protected NavigableSet<String> listResourcesImpl(String folderPath, RawResourceFilter filter, boolean recursive) {
         NavigableSet<String> fromUnderlying = underlying.listResourcesImpl(folderPath, filter, recursive);
+        if (!isOverlayVisible()) {
+            return fromUnderlying;
+        }
         NavigableSet<String> fromOverlay = overlay.listResourcesImpl(folderPath, filter, recursive);
         TreeSet<String> ret = new TreeSet<>();
         if (fromUnderlying != null)
@@ -85,6 +122,9 @@ public class TransparentResourceStore extends ResourceStore {
 
     @Override
     protected boolean existsImpl(String resPath) {
+        if (!isOverlayVisible()) {
+            return underlying.exists(resPath);
+        }
         RawResource overlayResource = overlay.getResourceImpl(resPath, false);
         if (overlayResource != null) {
             return overlayResource != TombRawResource.getINSTANCE();
@@ -126,6 +166,9 @@ public class TransparentResourceStore extends ResourceStore {
     }
 
     private RawResource getResourceFromCache(String resPath) {
+        if (!isOverlayVisible()) {
+            return underlying.getResourceImpl(resPath, false);
+        }
         val r = overlay.getResourceImpl(resPath, false);
         if (r != null) {
             return r == TombRawResource.getINSTANCE() ? null //deleted
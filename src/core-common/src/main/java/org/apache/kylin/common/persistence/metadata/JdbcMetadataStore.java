@@ -37,6 +37,7 @@ import java.util.NavigableSet;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
 
 import org.apache.commons.dbcp2.BasicDataSource;
 import org.apache.commons.lang3.NotImplementedException;
@@ -81,6 +82,7 @@ public class JdbcMetadataStore extends MetadataStore {
     @Getter
     private final JdbcTemplate jdbcTemplate;
     private final boolean isUT;
+    private final int reloadParallelism;
 
     @Delegate
     private final JdbcTransactionHelper helper;
@@ -94,6 +96,7 @@ public class JdbcMetadataStore extends MetadataStore {
         jdbcTemplate = new JdbcTemplate(dataSource);
         String table = url.getIdentifier();
         isUT = config.isUTEnv();
+        reloadParallelism = Math.max(1, config.getMetadataBootstrapParallelism());
         auditLogStore = new JdbcAuditLogStore(config, jdbcTemplate, transactionManager,
                 table + JdbcAuditLogStore.AUDIT_LOG_SUFFIX);
         sqlSessionFactory = MetadataMapperFactory.getSqlSessionFactory(dataSource);
@@ -258,15 +261,25 @@ public class JdbcMetadataStore extends MetadataStore {
         val data = MemoryMetaData.createEmpty();
         return withTransaction(transactionManager, () -> {
             log.info("Start jdbc reloadAll");
-            data.getData().keySet().parallelStream().forEach(type -> {
-                // _REC is only appeared in the file based metadata store, skip it
-                if (type != MetadataType.TMP_REC) {
-                    // The needLock parameter set to false, because we use the mysql snapshot read
-                    val rawResourceMap = data.getData().get(type);
-                    get(type, new RawResourceFilter(), false, true)
-                            .forEach(res -> rawResourceMap.put(res.getMetaKey(), new VersionedRawResource(res)));
-                }
-            });
+            // one bulk fetch per type, fetched in a bounded pool instead of the common pool
+            // which is shared with the parallel streams of the whole process
+            val pool = new ForkJoinPool(reloadParallelism);
+            try {
+                pool.submit(() -> data.getData().keySet().parallelStream().forEach(type -> {
+                    // _REC is only appeared in the file based metadata store, skip it
+                    if (type != MetadataType.TMP_REC) {
+                        // The needLock parameter set to false, because we use the mysql snapshot read
+                        val rawResourceMap = data.getData().get(type);
+                        long start = System.currentTimeMillis();
+                        val resources = get(type, new RawResourceFilter(), false, true);
+                        resources.forEach(res -> rawResourceMap.put(res.getMetaKey(), new VersionedRawResource(res)));
+                        log.info("Reloaded {} resources of type {} in {} ms", resources.size(), type,
+                                System.currentTimeMillis() - start);
+                    }
+                })).get();
+            } finally {
+                pool.shutdown();
+            }
 
             long offset = getAuditLogStore().getMaxId();
             log.info("end reloadAll offset is {}", offset);
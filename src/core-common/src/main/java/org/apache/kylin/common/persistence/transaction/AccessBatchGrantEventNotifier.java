@@ -36,4 +36,9 @@ public class AccessBatchGrantEventNotifier extends BroadcastEventReadyNotifier {
         this.entityId = entityId;
         this.rawAclTCRRequests = rawAclTCRRequests;
     }
+
+    @Override
+    public boolean needDeliverFirst() {
+        return true;
+    }
 }
@@ -43,4 +43,9 @@ public class AccessGrantEventNotifier extends BroadcastEventReadyNotifier {
         this.permission = permission;
         this.project = project;
     }
+
+    @Override
+    public boolean needDeliverFirst() {
+        return true;
+    }
 }
@@ -39,4 +39,9 @@ public class AccessRevokeEventNotifier extends BroadcastEventReadyNotifier {
         this.name = name;
         this.principal = principal;
     }
+
+    @Override
+    public boolean needDeliverFirst() {
+        return true;
+    }
 }
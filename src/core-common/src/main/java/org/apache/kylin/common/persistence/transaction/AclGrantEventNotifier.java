@@ -31,4 +31,8 @@ public class AclGrantEventNotifier extends BroadcastEventReadyNotifier {
 
     private String rawAclTCRRequests;
 
+    @Override
+    public boolean needDeliverFirst() {
+        return true;
+    }
 }
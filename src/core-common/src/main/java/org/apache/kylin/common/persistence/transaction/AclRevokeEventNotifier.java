@@ -33,4 +33,8 @@ public class AclRevokeEventNotifier extends BroadcastEventReadyNotifier {
 
     private boolean principal;
 
+    @Override
+    public boolean needDeliverFirst() {
+        return true;
+    }
 }
@@ -40,4 +40,9 @@ public class AclTCRRevokeEventNotifier extends BroadcastEventReadyNotifier {
     public BroadcastScopeEnum getBroadcastScope() {
         return BroadcastScopeEnum.LEADER_NODES;
     }
+
+    @Override
+    public boolean needDeliverFirst() {
+        return true;
+    }
 }
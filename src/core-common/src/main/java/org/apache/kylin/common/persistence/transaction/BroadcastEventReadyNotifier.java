@@ -48,6 +48,22 @@ public class BroadcastEventReadyNotifier extends SchedulerEventNotifier {
         return true;
     }
 
+    /**
+     * Events delivered first are queued ahead of the others, e.g. stopping a query or changing permissions,
+     * which should take effect on other nodes as soon as possible.
+     */
+    public boolean needDeliverFirst() {
+        return false;
+    }
+
+    /**
+     * Events of the same key are delivered in the announced order, even if some of them need to be delivered first.
+     * Not named as a getter, so that it is not serialized.
+     */
+    public String deliveryOrderKey() {
+        return project != null ? project : getEventType();
+    }
+
     public enum BroadcastScopeEnum {
         /**
          * All、Job、Query
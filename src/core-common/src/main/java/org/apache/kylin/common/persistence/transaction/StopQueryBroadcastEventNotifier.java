@@ -44,4 +44,13 @@ public class StopQueryBroadcastEventNotifier extends BroadcastEventReadyNotifier
         return false;
     }
 
+    @Override
+    public boolean needDeliverFirst() {
+        return true;
+    }
+
+    @Override
+    public String deliveryOrderKey() {
+        return id;
+    }
 }
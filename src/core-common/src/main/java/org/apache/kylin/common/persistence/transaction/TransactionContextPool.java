@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.common.persistence.transaction;
+
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+import org.apache.kylin.common.KylinConfig;
+import org.apache.kylin.common.persistence.InMemResourceStore;
+import org.apache.kylin.common.persistence.ResourceStore;
+import org.apache.kylin.common.persistence.TransparentResourceStore;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Keeps the configs and transparent resource stores of finished transactions for reuse.
+ *
+ * A new config comes with new managers and empty caches, so every entity read in a transaction would be
+ * deserialized again. The managers of a reused config keep the entities loaded by previous transactions,
+ * which are only reloaded if their mvcc no longer matches the store, the same as the managers of the base
+ * config. Contexts of failed transactions are dropped, since their caches may contain uncommitted entities.
+ * A pooled config has its own copy of the base properties, which is refreshed every time it's reused, so
+ * properties set in a transaction neither leak into the base config nor into later transactions.
+ */
+class TransactionContextPool {
+
+    private static final Deque<TransactionContext> IDLE_CONTEXTS = new ConcurrentLinkedDeque<>();
+
+    private TransactionContextPool() {
+    }
+
+    static TransactionContext acquire(KylinConfig baseConfig, InMemResourceStore underlying) {
+        TransactionContext context;
+        while ((context = IDLE_CONTEXTS.pollFirst()) != null) {
+            // the base config or the underlying store is replaced, e.g. after the metadata is reloaded
+            if (context.baseConfig == baseConfig && context.underlying == underlying
+                    && ResourceStore.isRSCached(context.config, context.store)) {
+                break;
+            }
+            ResourceStore.clearCache(context.config);
+        }
+        if (context == null) {
+            KylinConfig config = KylinConfig.createKylinConfigCopyingProperties(baseConfig);
+            context = new TransactionContext(baseConfig, underlying, config,
+                    new TransparentResourceStore(underlying, config));
+        } else {
+            // drop the properties set by previous transactions and pick up the changes of the base config
+            context.config.reloadPropertiesFrom(baseConfig);
+        }
+        context.store.reset(Thread.currentThread());
+        return context;
+    }
+
+    static void release(TransactionContext context, boolean committed) {
+        context.store.release();
+        if (committed && IDLE_CONTEXTS.size() < context.baseConfig.getTransactionContextPoolSize()) {
+            IDLE_CONTEXTS.offerFirst(context);
+        } else {
+            ResourceStore.clearCache(context.config);
+        }
+    }
+
+    static int idleSize() {
+        return IDLE_CONTEXTS.size();
+    }
+
+    static void clear() {
+        TransactionContext context;
+        while ((context = IDLE_CONTEXTS.pollFirst()) != null) {
+            ResourceStore.clearCache(context.config);
+        }
+    }
+
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    static class TransactionContext {
+        private final KylinConfig baseConfig;
+        private final InMemResourceStore underlying;
+        @Getter(AccessLevel.PACKAGE)
+        private final KylinConfig config;
+        @Getter(AccessLevel.PACKAGE)
+        private final TransparentResourceStore store;
+    }
+}
@@ -199,8 +199,17 @@ public class UnitOfWork {
         ResourceStore underlying = ResourceStore.getKylinMetaStore(config);
         MetadataStore metadataStore = underlying.getMetadataStore();
 
-        KylinConfig configCopy = KylinConfig.createKylinConfig(config);
-        TransparentResourceStore rs = new TransparentResourceStore((InMemResourceStore) underlying, configCopy);
+        KylinConfig configCopy;
+        TransparentResourceStore rs;
+        if (config.getTransactionContextPoolSize() > 0) {
+            val pooledContext = TransactionContextPool.acquire(config, (InMemResourceStore) underlying);
+            unitOfWork.setPooledContext(pooledContext);
+            configCopy = pooledContext.getConfig();
+            rs = pooledContext.getStore();
+        } else {
+            configCopy = KylinConfig.createKylinConfig(config);
+            rs = new TransparentResourceStore((InMemResourceStore) underlying, configCopy);
+        }
         ResourceStore.setRS(configCopy, rs);
         unitOfWork.setLocalConfig(KylinConfig.setAndUnsetThreadLocalConfig(configCopy));
 
@@ -268,6 +277,7 @@ public class UnitOfWork {
             UnitOfWork.get().onUnitUpdated();
             transparentRS.getMetadataStore().commit(threadLocals.get().getTransactionStatus());
             threadLocals.get().setTransactionStatus(null);
+            work.setCommitted(true);
         } finally {
             //clean rs and config
             work.cleanResource();
@@ -29,6 +29,7 @@ import org.apache.kylin.guava30.shaded.common.base.Preconditions;
 import org.apache.kylin.guava30.shaded.common.collect.Lists;
 import org.springframework.transaction.TransactionStatus;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
@@ -48,6 +49,13 @@ public class UnitOfWorkContext {
     private Set<String> readLockPath = new HashSet<>();
     private TransactionStatus transactionStatus = null;
 
+    @Getter(AccessLevel.PACKAGE)
+    @Setter(AccessLevel.PACKAGE)
+    private TransactionContextPool.TransactionContext pooledContext;
+
+    @Setter(AccessLevel.PACKAGE)
+    private boolean committed = false;
+
     @Delegate
     private UnitOfWorkParams params;
 
@@ -79,7 +87,13 @@ public class UnitOfWorkContext {
         }
 
         KylinConfig config = localConfig.get();
-        ResourceStore.clearCache(config);
+        if (pooledContext != null) {
+            // a pooled config keeps its store, managers created by leaked entities must not read another store
+            TransactionContextPool.release(pooledContext, committed);
+            pooledContext = null;
+        } else {
+            ResourceStore.clearCache(config);
+        }
         localConfig.close();
         localConfig = null;
     }
@@ -74,6 +74,7 @@ public class HadoopUtil {
     public static final String SNAPSHOT_STORAGE_ROOT = "/table_snapshot";
     public static final String FLAT_TABLE_STORAGE_ROOT = "/flat_table";
     public static final String FAST_BITMAP_SUFFIX = "_fast_bitmap";
+    public static final String STORAGE_MANIFEST_ROOT = "/storage_manifest";
     public static final String TABLE_EXD_STORAGE_ROOT = ResourceStore.TABLE_EXD_RESOURCE_ROOT;
 
     @SuppressWarnings("unused")
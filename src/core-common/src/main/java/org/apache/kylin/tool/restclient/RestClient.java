@@ -65,6 +65,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpHeaders;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
@@ -218,6 +219,35 @@ public class RestClient {
         return response;
     }
 
+    /**
+     * @return the number of leading notifiers handled by the node, all of them unless the node failed on one
+     */
+    public int notify(List<BroadcastEventReadyNotifier> notifiers) throws IOException {
+        String url = baseUrl + "/broadcast/batch";
+        HttpPost post = newPost(url);
+        post.addHeader(ROUTED, "true");
+        HttpResponse response = null;
+        try {
+            // serialize as an array, so that the type of each notifier is kept
+            byte[] content = JsonUtil.writeValueAsBytes(notifiers.toArray(new BroadcastEventReadyNotifier[0]));
+            post.setEntity(new ByteArrayEntity(content, ContentType.APPLICATION_JSON));
+            response = client.execute(post);
+            if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+                String msg = EntityUtils.toString(response.getEntity());
+                throw new KylinException(CommonErrorCode.FAILED_NOTIFY_CATCHUP, "Invalid response "
+                        + response.getStatusLine().getStatusCode() + " with notify catch up url " + url + "\n" + msg);
+            }
+            JsonNode envelope = JsonUtil.readValueAsTree(getContent(response));
+            if (KylinException.CODE_SUCCESS.equals(envelope.path("code").asText())) {
+                return notifiers.size();
+            }
+            logger.warn("Failed to handle broadcast events on {}: {}", baseUrl, envelope.path("msg").asText());
+            return Math.min(envelope.path("data").asInt(0), notifiers.size());
+        } finally {
+            cleanup(post, response);
+        }
+    }
+
     public HttpResponse forwardGet(HttpHeaders headers, String targetUrl, boolean autoClean) throws IOException {
         String url = baseUrl + targetUrl;
         HttpGet get = newGet(url);
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.common.persistence.transaction;
+
+import java.nio.charset.Charset;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.kylin.common.KylinConfig;
+import org.apache.kylin.common.persistence.ResourceStore;
+import org.apache.kylin.guava30.shaded.common.io.ByteSource;
+import org.apache.kylin.junit.annotation.MetadataInfo;
+import org.apache.kylin.junit.annotation.OverwriteProp;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+
+@MetadataInfo(onlyProps = true)
+class TransactionContextPoolTest {
+
+    @BeforeEach
+    @AfterEach
+    void clearPool() {
+        TransactionContextPool.clear();
+    }
+
+    private KylinConfig configInTransaction() {
+        return UnitOfWork.doInTransactionWithRetry(KylinConfig::getInstanceFromEnv, UnitOfWork.GLOBAL_UNIT);
+    }
+
+    private void putResource(String path) {
+        val resourceStore = ResourceStore.getKylinMetaStore(KylinConfig.getInstanceFromEnv());
+        UnitOfWork.get().getCopyForWriteItems().add(path);
+        resourceStore.checkAndPutResource(path, ByteSource.wrap("{}".getBytes(Charset.defaultCharset())), -1L);
+    }
+
+    @Test
+    void testReuseConfigOfCommittedTransaction() {
+        val config = configInTransaction();
+        Assertions.assertEquals(1, TransactionContextPool.idleSize());
+        Assertions.assertSame(config, configInTransaction());
+        Assertions.assertNotSame(KylinConfig.getInstanceFromEnv(), config);
+        // changes of the base config are picked up when the config is reused
+        KylinConfig.getInstanceFromEnv().setProperty("kylin.metadata.transaction.context-pool-size", "5");
+        Assertions.assertEquals(5, configInTransaction().getTransactionContextPoolSize());
+    }
+
+    @Test
+    void testPropertiesSetInTransactionNotLeaked() {
+        val key = "kylin.metadata.transaction.context-pool-size";
+        val baseValue = KylinConfig.getInstanceFromEnv().getTransactionContextPoolSize();
+        val config = UnitOfWork.doInTransactionWithRetry(() -> {
+            KylinConfig.getInstanceFromEnv().setProperty(key, "3");
+            Assertions.assertEquals(3, KylinConfig.getInstanceFromEnv().getTransactionContextPoolSize());
+            return KylinConfig.getInstanceFromEnv();
+        }, UnitOfWork.GLOBAL_UNIT);
+        Assertions.assertEquals(baseValue, KylinConfig.getInstanceFromEnv().getTransactionContextPoolSize());
+
+        // the next transaction reuses the config without the property of the previous one
+        UnitOfWork.doInTransactionWithRetry(() -> {
+            Assertions.assertSame(config, KylinConfig.getInstanceFromEnv());
+            Assertions.assertEquals(baseValue, KylinConfig.getInstanceFromEnv().getTransactionContextPoolSize());
+            return null;
+        }, UnitOfWork.GLOBAL_UNIT);
+    }
+
+    @Test
+    void testDropConfigOfFailedTransaction() {
+        val config = configInTransaction();
+        Assertions.assertThrows(TransactionException.class, () -> UnitOfWork.doInTransactionWithRetry(() -> {
+            putResource("PROJECT/res");
+            throw new IllegalStateException("failed");
+        }, UnitOfWork.GLOBAL_UNIT, 1));
+        Assertions.assertEquals(0, TransactionContextPool.idleSize());
+        Assertions.assertNotSame(config, configInTransaction());
+    }
+
+    @Test
+    void testOverlayOnlyVisibleToTransactionThread() {
+        UnitOfWork.doInTransactionWithRetry(() -> {
+            putResource("PROJECT/res");
+            val resourceStore = ResourceStore.getKylinMetaStore(KylinConfig.getInstanceFromEnv());
+            Assertions.assertNotNull(resourceStore.getResource("PROJECT/res"));
+            Assertions.assertNull(CompletableFuture.supplyAsync(() -> resourceStore.getResource("PROJECT/res")).get());
+            return null;
+        }, UnitOfWork.GLOBAL_UNIT);
+        val resourceStore = ResourceStore.getKylinMetaStore(KylinConfig.getInstanceFromEnv());
+        Assertions.assertEquals(0, resourceStore.getResource("PROJECT/res").getMvcc());
+    }
+
+    @Test
+    @OverwriteProp(key = "kylin.metadata.transaction.context-pool-size", value = "0")
+    void testPoolDisabled() {
+        val config = configInTransaction();
+        Assertions.assertEquals(0, TransactionContextPool.idleSize());
+        Assertions.assertNotSame(config, configInTransaction());
+    }
+}
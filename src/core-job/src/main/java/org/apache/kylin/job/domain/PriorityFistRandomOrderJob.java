@@ -37,6 +37,9 @@ public class PriorityFistRandomOrderJob implements Comparable<PriorityFistRandom
 
     private int priority;
 
+    // the job lock is created when the job is published to job nodes as a ready job
+    private long createTime;
+
     private int randomOrder = random.nextInt();
 
     @Override
@@ -715,6 +715,7 @@ public class ExecutableManager {
             resumeJob(jobId, getJob(jobId), force);
             return true;
         });
+        notifyJobReady();
     }
 
     //for ut
@@ -904,6 +905,18 @@ public class ExecutableManager {
             restartJob(jobId, getJob(jobId));
             return true;
         });
+        notifyJobReady();
+    }
+
+    /**
+     * The resumed and restarted jobs are READY again, dispatch the message after the job status is committed.
+     */
+    private void notifyJobReady() {
+        if (UnitOfWork.isAlreadyInTransaction()) {
+            UnitOfWork.get().doAfterUnit(() -> EventBusFactory.getInstance().postAsync(new JobReadyNotifier(project)));
+        } else {
+            EventBusFactory.getInstance().postAsync(new JobReadyNotifier(project));
+        }
     }
 
     // for ut
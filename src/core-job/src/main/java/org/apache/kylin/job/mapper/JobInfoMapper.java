@@ -50,6 +50,9 @@ public interface JobInfoMapper {
 
     long countByJobFilter(JobMapperFilter jobMapperFilter);
 
+    List<Long> findRecentJobDurations(@Param("status") String status, @Param("jobType") String jobType,
+            @Param("modelId") String modelId, @Param("limit") int limit);
+
     long getEarliestCreateTime(@Param("project") String project);
 
 }
@@ -56,5 +56,7 @@ public interface JobLockMapper {
 
     List<String> findExpiredORNonLockIdList(@Param("batchSize") int batchSize);
 
+    List<String> findActiveLockNodes();
+
     List<JobLock> fetchAll();
 }
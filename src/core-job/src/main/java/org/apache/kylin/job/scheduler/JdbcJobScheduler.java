@@ -22,6 +22,7 @@ import static org.apache.kylin.common.persistence.ResourceStore.GLOBAL_PROJECT;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -32,18 +33,30 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.kylin.common.KylinConfig;
 import org.apache.kylin.common.constant.LogConstant;
 import org.apache.kylin.common.logging.SetLogCategory;
+import org.apache.kylin.common.metrics.MetricsCategory;
+import org.apache.kylin.common.metrics.MetricsGroup;
+import org.apache.kylin.common.metrics.MetricsName;
+import org.apache.kylin.common.persistence.transaction.JobSchedulingBroadcastNotifier;
+import org.apache.kylin.common.scheduler.EventBusFactory;
+import org.apache.kylin.common.scheduler.JobReadyNotifier;
+import org.apache.kylin.common.scheduler.JobSchedulerWakeUpNotifier;
+import org.apache.kylin.common.util.ClusterConstant.ServerModeEnum;
 import org.apache.kylin.common.util.ExecutorServiceUtil;
 import org.apache.kylin.common.util.Pair;
 import org.apache.kylin.common.util.ThreadUtils;
+import org.apache.kylin.guava30.shaded.common.base.Suppliers;
 import org.apache.kylin.guava30.shaded.common.collect.Lists;
 import org.apache.kylin.guava30.shaded.common.collect.Maps;
+import org.apache.kylin.guava30.shaded.common.eventbus.Subscribe;
 import org.apache.kylin.job.JobContext;
 import org.apache.kylin.job.core.AbstractJobExecutable;
 import org.apache.kylin.job.core.lock.JdbcJobLock;
@@ -67,6 +80,8 @@ import org.apache.kylin.metadata.project.EnhancedUnitOfWork;
 import org.apache.kylin.metadata.project.NProjectManager;
 import org.apache.kylin.metadata.project.ProjectInstance;
 import org.apache.kylin.metadata.resourcegroup.ResourceGroupManager;
+import org.apache.kylin.metadata.system.NodeRegistry;
+import org.apache.kylin.metadata.system.NodeRegistryManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -94,14 +109,23 @@ public class JdbcJobScheduler implements JobScheduler {
 
     private ThreadPoolExecutor executorPool;
 
+    private WakeableScheduledTask produceTask;
+
+    private WakeableScheduledTask consumeTask;
+
+    private JobSchedulingListener jobSchedulingListener;
+
     private final int consumerMaxThreads;
 
+    private final JobFootprintEstimator footprintEstimator;
+
     public JdbcJobScheduler(JobContext jobContext) {
         this.jobContext = jobContext;
         this.isMaster = new AtomicBoolean(false);
         this.runningJobMap = Maps.newConcurrentMap();
         this.readyJobCache = Maps.newHashMap();
         this.consumerMaxThreads = jobContext.getKylinConfig().getNodeMaxConcurrentJobLimit();
+        this.footprintEstimator = new JobFootprintEstimator(jobContext);
     }
 
     @Override
@@ -115,13 +139,17 @@ public class JdbcJobScheduler implements JobScheduler {
         master.schedule(this::standby, 0, TimeUnit.SECONDS);
 
         // master: publish job
-        master.schedule(this::produceJob, 0, TimeUnit.SECONDS);
+        produceTask = new WakeableScheduledTask("JdbcJobScheduler-Master", master, this::produceJob,
+                getPollIntervalSec(jobContext.getKylinConfig().getJobSchedulerMasterPollIntervalSec()));
+        produceTask.start();
     }
 
     @Override
     public void subscribeJob() {
         // slave: subscribe job
-        slave.schedule(this::consumeJob, 0, TimeUnit.SECONDS);
+        consumeTask = new WakeableScheduledTask("JdbcJobScheduler-Slave", slave, this::consumeJob,
+                getPollIntervalSec(jobContext.getKylinConfig().getSchedulerPollIntervalSecond()));
+        consumeTask.start();
     }
 
     // public for UT
@@ -163,11 +191,55 @@ public class JdbcJobScheduler implements JobScheduler {
 
         publishJob();
         subscribeJob();
+
+        if (jobContext.getKylinConfig().isJobSchedulerEventDrivenEnabled()) {
+            jobSchedulingListener = new JobSchedulingListener();
+            EventBusFactory.getInstance().register(jobSchedulingListener, false);
+        }
+    }
+
+    /**
+     * Publish and subscribe jobs immediately instead of waiting for the next poll.
+     */
+    public void wakeUp() {
+        if (Objects.nonNull(produceTask)) {
+            produceTask.wakeUp();
+        }
+        if (Objects.nonNull(consumeTask)) {
+            consumeTask.wakeUp();
+        }
+    }
+
+    /**
+     * Wake up the given local tasks and the job schedulers on other nodes. A task never wakes up itself,
+     * it decides its next run by the delay it returns.
+     */
+    private void notifyJobScheduling(WakeableScheduledTask... tasks) {
+        if (!jobContext.getKylinConfig().isJobSchedulerEventDrivenEnabled()) {
+            return;
+        }
+        for (WakeableScheduledTask task : tasks) {
+            if (Objects.nonNull(task)) {
+                task.wakeUp();
+            }
+        }
+        // the job schedulers on other nodes
+        EventBusFactory.getInstance().postAsync(new JobSchedulingBroadcastNotifier());
+    }
+
+    private long getPollIntervalSec(long intervalSec) {
+        KylinConfig config = jobContext.getKylinConfig();
+        return config.isJobSchedulerEventDrivenEnabled() ? config.getJobSchedulerSafetyPollIntervalSec()
+                : intervalSec;
     }
 
     // for UT
     public void destroy() {
 
+        if (Objects.nonNull(jobSchedulingListener)) {
+            EventBusFactory.getInstance().unregister(jobSchedulingListener);
+        }
+
         if (Objects.nonNull(masterLock)) {
             try {
                 masterLock.tryRelease();
@@ -207,12 +279,12 @@ public class JdbcJobScheduler implements JobScheduler {
         }
     }
 
-    private void produceJob() {
-        long delaySec = jobContext.getKylinConfig().getJobSchedulerMasterPollIntervalSec();
+    private long produceJob() {
+        long delaySec = getPollIntervalSec(jobContext.getKylinConfig().getJobSchedulerMasterPollIntervalSec());
         try {
             // only master can publish job
             if (!isMaster.get()) {
-                return;
+                return delaySec;
             }
 
             releaseExpiredLock();
@@ -228,6 +300,7 @@ public class JdbcJobScheduler implements JobScheduler {
                     projectRunningIndexPlannerBuildJobMap, JobTypeEnum.Category.REC);
 
             boolean produced = false;
+            int producedCount = 0;
             for (Map.Entry<String, Integer> entry : projectProduceCountMap.entrySet()) {
                 String project = entry.getKey();
                 int produceCount = entry.getValue();
@@ -249,19 +322,22 @@ public class JdbcJobScheduler implements JobScheduler {
                 logger.info("Begin to produce job for project: {}, product count: {}", project, produceCount);
 
                 for (int i = 0; i < produceCount; i++) {
-                    produceJobForProject(produceCount, projectReadyJobCache, projectRunningRecModelMap.get(project),
-                            projectProduceIndexPlannerBuildJobCountMap);
+                    producedCount += produceJobForProject(produceCount, projectReadyJobCache,
+                            projectRunningRecModelMap.get(project), projectProduceIndexPlannerBuildJobCountMap);
                 }
             }
             if (produced) {
                 // maybe more jobs exist, publish job immediately
                 delaySec = 0;
             }
+            if (producedCount > 0) {
+                // pending jobs can be subscribed now
+                notifyJobScheduling(consumeTask);
+            }
         } catch (Exception e) {
             logger.error("Something's wrong when publishing job", e);
-        } finally {
-            master.schedule(this::produceJob, delaySec, TimeUnit.SECONDS);
         }
+        return delaySec;
     }
 
     private void collectProcessingJobInfo(List<JobInfo> processingJobInfoList,
@@ -294,7 +370,7 @@ public class JdbcJobScheduler implements JobScheduler {
         }
     }
 
-    private void produceJobForProject(int produceCount, PriorityQueue<JobInfo> projectReadyJobCache,
+    private int produceJobForProject(int produceCount, PriorityQueue<JobInfo> projectReadyJobCache,
             Set<String> runningRecModels, Map<String, Integer> projectRunningIndexPlannerBuildJob) {
         int i = 0;
         while (i < produceCount) {
@@ -306,6 +382,7 @@ public class JdbcJobScheduler implements JobScheduler {
                 i++;
             }
         }
+        return i;
     }
 
     private boolean doProduce(JobInfo jobInfo, Set<String> runningRecModels,
@@ -431,14 +508,14 @@ public class JdbcJobScheduler implements JobScheduler {
         }
     }
 
-    private void consumeJob() {
-        long delay = jobContext.getKylinConfig().getSchedulerPollIntervalSecond();
+    private long consumeJob() {
+        long delay = getPollIntervalSec(jobContext.getKylinConfig().getSchedulerPollIntervalSecond());
         try {
             // The number of tasks to be obtained cannot exceed the free slots of the 'executorPool'
             int exeFreeSlots = this.consumerMaxThreads - this.runningJobMap.size();
             if (exeFreeSlots <= 0) {
                 logger.info("No free slots to execute job");
-                return;
+                return delay;
             }
             int batchSize = jobContext.getKylinConfig().getJobSchedulerSlavePollBatchSize();
             if (exeFreeSlots < batchSize) {
@@ -446,44 +523,144 @@ public class JdbcJobScheduler implements JobScheduler {
             }
             List<String> projects = ResourceGroupManager.getInstance(jobContext.getKylinConfig())
                     .listProjectWithPermission();
-            List<String> jobIdList = findNonLockIdListInOrder(batchSize, projects);
+            List<PriorityFistRandomOrderJob> nonLockJobs = findNonLockJobsInOrder(batchSize, projects);
 
-            if (CollectionUtils.isEmpty(jobIdList)) {
-                return;
+            if (CollectionUtils.isEmpty(nonLockJobs)) {
+                return delay;
             }
+            Map<String, Long> readyTimes = Maps.newHashMap();
+            nonLockJobs.forEach(job -> readyTimes.put(job.getJobId(), job.getCreateTime()));
+            List<String> jobIdList = nonLockJobs.stream().map(PriorityFistRandomOrderJob::getJobId)
+                    .collect(Collectors.toList());
             // for slave node, force catchup metadata before execute jobs
             if (!isMaster.get()) {
                 StreamingUtils.replayAuditlog();
             }
-            // submit job
-            jobIdList.forEach(jobId -> {
+            List<Pair<JobInfo, AbstractJobExecutable>> jobs = Lists.newArrayList();
+            for (String jobId : jobIdList) {
                 // check 'runningJobMap', avoid processing submitted tasks
                 if (runningJobMap.containsKey(jobId)) {
                     logger.warn("Job {} has already been submitted", jobId);
-                    return;
+                    continue;
                 }
                 Pair<JobInfo, AbstractJobExecutable> job = fetchJob(jobId);
-                if (null == job) {
-                    return;
+                if (null != job) {
+                    jobs.add(job);
                 }
+            }
+            sortByEstimatedDuration(jobs);
+            Supplier<Boolean> lessLoadedNodeExists = Suppliers.memoize(this::hasLessLoadedJobNode);
+            // submit job
+            for (Pair<JobInfo, AbstractJobExecutable> job : jobs) {
                 final JobInfo jobInfo = job.getFirst();
                 final AbstractJobExecutable jobExecutable = job.getSecond();
+                final String jobId = jobInfo.getJobId();
+                long yieldMs = getYieldTimeMs(jobInfo, jobExecutable, readyTimes.get(jobId), lessLoadedNodeExists);
+                if (yieldMs > 0) {
+                    // check the job again once it has waited long enough
+                    delay = Math.min(delay, TimeUnit.MILLISECONDS.toSeconds(yieldMs) + 1);
+                    continue;
+                }
                 if (!canSubmitJob(jobId, jobInfo, jobExecutable)) {
-                    return;
+                    continue;
                 }
                 // record running job id, and job scheduled time
                 runningJobMap.put(jobId, new Pair<>(jobExecutable, System.currentTimeMillis()));
                 executorPool.execute(() -> executeJob(jobExecutable, jobInfo));
-            });
+            }
         } catch (Exception e) {
             logger.error("Something's wrong when consuming job", e);
         } finally {
             logger.info("{} running jobs in current scheduler", getRunningJob().size());
-            slave.schedule(this::consumeJob, delay, TimeUnit.SECONDS);
         }
+        return delay;
+    }
+
+    /**
+     * Shortest job first among jobs of the same priority, jobs without history keep their order at the end.
+     */
+    private void sortByEstimatedDuration(List<Pair<JobInfo, AbstractJobExecutable>> jobs) {
+        if (jobs.size() <= 1 || !jobContext.getKylinConfig().isJobSchedulerShortestJobFirstEnabled()) {
+            return;
+        }
+        Map<String, Long> estimatedDurations = Maps.newHashMap();
+        jobs.forEach(job -> estimatedDurations.put(job.getFirst().getJobId(),
+                footprintEstimator.estimateDuration(job.getFirst())));
+        // stable sort, the order of jobs with the same priority and estimated duration is kept
+        jobs.sort(Comparator.<Pair<JobInfo, AbstractJobExecutable>> comparingInt(job -> job.getFirst().getPriority())
+                .thenComparingLong(job -> estimatedDurations.get(job.getFirst().getJobId())));
+    }
+
+    /**
+     * A ready job is left to less loaded nodes for a while, the busier this node is and the more driver memory
+     * the job needs, the longer it waits. The driver memory is the static estimate of {@link NodeResource}, not a
+     * measured footprint. The wait counts from the time the job was published as a ready job, and any node picks
+     * up the job once it has waited long enough.
+     *
+     * @return the time to wait before picking up the job, 0 to pick it up now
+     */
+    private long getYieldTimeMs(JobInfo jobInfo, AbstractJobExecutable jobExecutable, Long readyTime,
+            Supplier<Boolean> lessLoadedNodeExists) {
+        long yieldMs = jobContext.getKylinConfig().getJobSchedulerBusyNodeYieldMs();
+        if (yieldMs <= 0 || runningJobMap.isEmpty() || readyTime == null || readyTime <= 0) {
+            return 0;
+        }
+        double load = Math.max(1.0 * runningJobMap.size() / Math.max(1, consumerMaxThreads),
+                ResourceAcquirer.usedMemoryRatio());
+        double sizeFactor = Math.min(1.0, 1.0 * new NodeResource(jobExecutable).getMemory()
+                / jobContext.getKylinConfig().getSparkEngineDriverMemoryMaximum());
+        long waitedMs = System.currentTimeMillis() - readyTime;
+        long remainingMs = (long) (load * sizeFactor * yieldMs) - waitedMs;
+        if (remainingMs <= 0 || !lessLoadedNodeExists.get()) {
+            return 0;
+        }
+        logger.debug("Yield job {} to less loaded nodes, load: {}, waited: {}ms", jobInfo.getJobId(), load,
+                waitedMs);
+        return remainingMs;
+    }
+
+    /**
+     * Whether another live job node runs fewer jobs than this node, the running jobs of a node are the job locks
+     * it holds. The live job nodes are taken from the node registry, idle nodes hold no lock and are only known
+     * from there. Without the registry, the nodes holding job locks are the known live nodes.
+     */
+    private boolean hasLessLoadedJobNode() {
+        try {
+            Map<String, Integer> nodeLoads = Maps.newHashMap();
+            List<String> liveNodes = getLiveJobNodes();
+            liveNodes.forEach(node -> nodeLoads.put(node, 0));
+            for (String lockNode : jobContext.getJobLockMapper().findActiveLockNodes()) {
+                if (liveNodes.isEmpty() || nodeLoads.containsKey(lockNode)) {
+                    nodeLoads.merge(lockNode, 1, Integer::sum);
+                }
+            }
+            nodeLoads.remove(jobContext.getServerNode());
+            int localLoad = runningJobMap.size();
+            return nodeLoads.values().stream().anyMatch(load -> load < localLoad);
+        } catch (Exception e) {
+            logger.warn("Failed to get the load of other job nodes", e);
+            return false;
+        }
+    }
+
+    private List<String> getLiveJobNodes() {
+        NodeRegistry nodeRegistry = NodeRegistryManager.getInstance(jobContext.getKylinConfig()).getNodeRegistry();
+        if (nodeRegistry == null) {
+            return Collections.emptyList();
+        }
+        long expireTime = System.currentTimeMillis() - jobContext.getKylinConfig().getNodeRegistryJdbcExpireThreshold();
+        return Stream.of(ServerModeEnum.ALL, ServerModeEnum.JOB, ServerModeEnum.DATA_LOADING)
+                .flatMap(mode -> nodeRegistry.getNodeInstances(mode).stream())
+                .filter(instance -> instance.getLastHeartbeatTS() >= expireTime)
+                .map(instance -> instance.getHost() + ":" + instance.getPort()).collect(Collectors.toList());
     }
 
     public List<String> findNonLockIdListInOrder(int batchSize, List<String> projects) {
+        return findNonLockJobsInOrder(batchSize, projects).stream().map(PriorityFistRandomOrderJob::getJobId)
+                .collect(Collectors.toList());
+    }
+
+    private List<PriorityFistRandomOrderJob> findNonLockJobsInOrder(int batchSize, List<String> projects) {
         KylinConfig config = jobContext.getKylinConfig();
         List<String> projectsAndGlobal = new ArrayList<>(projects);
         projectsAndGlobal.add(GLOBAL_PROJECT);
@@ -497,7 +674,7 @@ public class JdbcJobScheduler implements JobScheduler {
         if (hasRunningJob()) {
             Collections.sort(jobIdList);
         }
-        return jobIdList.stream().map(PriorityFistRandomOrderJob::getJobId).collect(Collectors.toList());
+        return jobIdList;
     }
 
     private Pair<JobInfo, AbstractJobExecutable> fetchJob(String jobId) {
@@ -564,8 +741,12 @@ public class JdbcJobScheduler implements JobScheduler {
                     .stopJobIfStorageQuotaLimitReached(jobContext, jobInfo.getProject(), jobInfo.getJobId())) {
                 return;
             }
+            recordStartLatency(executable, jobInfo);
             // heavy action
             jobExecutor.execute();
+            if (ExecutableState.SUCCEED == executable.getStatus()) {
+                footprintEstimator.record(jobInfo, executable.getDuration());
+            }
         } catch (Exception e) {
             logger.error("Execute job failed {}", jobExecutable.getJobId(), e);
         } finally {
@@ -573,7 +754,20 @@ public class JdbcJobScheduler implements JobScheduler {
                 stopJobLockRenewAfterExecute(jobLock);
             }
             runningJobMap.remove(jobExecutable.getJobId());
+            // the slot and the job lock are released, other jobs can be published and subscribed
+            notifyJobScheduling(produceTask, consumeTask);
+        }
+    }
+
+    private void recordStartLatency(AbstractExecutable executable, JobInfo jobInfo) {
+        // only the first run, the resumed and restarted jobs are waiting for other reasons
+        if (executable.getStartTime() > 0) {
+            return;
         }
+        long latency = System.currentTimeMillis() - jobInfo.getCreateTime();
+        logger.debug("Job {} starts {} ms after submitted", jobInfo.getJobId(), latency);
+        MetricsGroup.hostTagHistogramUpdate(MetricsName.JOB_START_LATENCY, MetricsCategory.PROJECT,
+                jobInfo.getProject(), latency);
     }
 
     private JdbcJobLock tryJobLock(AbstractJobExecutable jobExecutable) throws LockException {
@@ -644,6 +838,9 @@ public class JdbcJobScheduler implements JobScheduler {
         public void onSucceed() {
             if (isMaster.compareAndSet(false, true)) {
                 logger.info("Job scheduler become master.");
+                if (Objects.nonNull(produceTask)) {
+                    produceTask.wakeUp();
+                }
             } else {
                 logger.debug("Job scheduler keep on master");
             }
@@ -661,6 +858,19 @@ public class JdbcJobScheduler implements JobScheduler {
         }
     }
 
+    private class JobSchedulingListener {
+
+        @Subscribe
+        public void onJobIsReady(JobReadyNotifier notifier) {
+            wakeUp();
+        }
+
+        @Subscribe
+        public void onWakeUp(JobSchedulerWakeUpNotifier notifier) {
+            wakeUp();
+        }
+    }
+
     @Getter
     private static class JobAcquireListener implements LockAcquireListener {
 
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.job.scheduler;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.OptionalDouble;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kylin.guava30.shaded.common.cache.Cache;
+import org.apache.kylin.guava30.shaded.common.cache.CacheBuilder;
+import org.apache.kylin.job.JobContext;
+import org.apache.kylin.job.domain.JobInfo;
+import org.apache.kylin.job.execution.ExecutableState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Estimates how long a job will run from the measured durations of finished jobs with the same job type and model.
+ *
+ * The history is loaded from the succeeded jobs in the job table, so it is shared by all job nodes, and is updated
+ * by the jobs finished on this node. A job without history has an unknown duration.
+ */
+public class JobFootprintEstimator {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobFootprintEstimator.class);
+
+    public static final long UNKNOWN_DURATION = Long.MAX_VALUE;
+
+    // the number of recent succeeded jobs to average
+    private static final int HISTORY_SIZE = 10;
+
+    private final JobContext jobContext;
+
+    private final Cache<String, Long> durations = CacheBuilder.newBuilder().maximumSize(10_000)
+            .expireAfterWrite(1, TimeUnit.HOURS).build();
+
+    public JobFootprintEstimator(JobContext jobContext) {
+        this.jobContext = jobContext;
+    }
+
+    public long estimateDuration(JobInfo jobInfo) {
+        try {
+            return durations.get(getKey(jobInfo), () -> loadDuration(jobInfo));
+        } catch (ExecutionException e) {
+            logger.warn("Failed to estimate the duration of job {}", jobInfo.getJobId(), e);
+            return UNKNOWN_DURATION;
+        }
+    }
+
+    /**
+     * Record the duration of a job succeeded on this node, recent jobs weigh more than the older history.
+     */
+    public void record(JobInfo jobInfo, long durationMillis) {
+        if (durationMillis <= 0) {
+            return;
+        }
+        String key = getKey(jobInfo);
+        Long history = durations.getIfPresent(key);
+        long estimated = history == null || history == UNKNOWN_DURATION ? durationMillis
+                : (history * 3 + durationMillis) / 4;
+        durations.put(key, estimated);
+    }
+
+    private long loadDuration(JobInfo jobInfo) {
+        // only the durations are selected, the job contents are not needed
+        List<Long> history = jobContext.getJobInfoMapper().findRecentJobDurations(ExecutableState.SUCCEED.name(),
+                jobInfo.getJobType(), jobInfo.getModelId(), HISTORY_SIZE);
+        OptionalDouble average = history.stream().filter(Objects::nonNull).filter(duration -> duration > 0)
+                .mapToLong(Long::longValue).average();
+        return average.isPresent() ? Math.round(average.getAsDouble()) : UNKNOWN_DURATION;
+    }
+
+    private static String getKey(JobInfo jobInfo) {
+        return jobInfo.getJobType() + "/" + jobInfo.getModelId();
+    }
+}
@@ -39,13 +39,16 @@ public class ResourceAcquirer {
 
     private static volatile Semaphore memorySemaphore = new Semaphore(Integer.MAX_VALUE);
 
+    private static volatile int totalMemory = Integer.MAX_VALUE;
+
     public ResourceAcquirer(KylinConfig kylinConfig) {
         this.kylinConfig = kylinConfig;
 
         if (kylinConfig.getAutoSetConcurrentJob()) {
             double memoryRatio = kylinConfig.getMaxLocalConsumptionRatio();
             if (Integer.MAX_VALUE == memorySemaphore.availablePermits()) {
-                memorySemaphore = new Semaphore((int) (memoryRatio * SystemInfoCollector.getAvailableMemoryInfo()));
+                totalMemory = (int) (memoryRatio * SystemInfoCollector.getAvailableMemoryInfo());
+                memorySemaphore = new Semaphore(totalMemory);
             }
             logger.info("Init memorySemaphore:{} MB, memoryRatio: {}", memorySemaphore.availablePermits(), memoryRatio);
         }
@@ -91,6 +94,17 @@ public class ResourceAcquirer {
         return memorySemaphore.availablePermits();
     }
 
+    /**
+     * The ratio of the driver memory acquired by running jobs, 0 if the memory is not limited.
+     */
+    public static double usedMemoryRatio() {
+        int total = totalMemory;
+        if (total == Integer.MAX_VALUE || total <= 0) {
+            return 0;
+        }
+        return Math.max(0, 1 - 1.0 * memorySemaphore.availablePermits() / total);
+    }
+
     public void start() {
         // do nothing
     }
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.job.scheduler;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A task which reschedules itself on a single thread executor after each run, the delay of the next run
+ * is returned by the task itself. It can be woken up to run as soon as possible instead of waiting for the delay,
+ * if it's running when woken up, the next run starts right after the current one. A failed run is retried
+ * after the failure delay, even if woken up meanwhile.
+ */
+@Slf4j
+class WakeableScheduledTask {
+
+    private final String name;
+
+    private final ScheduledExecutorService executor;
+
+    private final LongSupplier task;
+
+    private final long failureDelaySec;
+
+    // every scheduled run gets a new round, runs of the previous rounds are skipped
+    private long round;
+
+    private boolean running;
+
+    private boolean wokenUp;
+
+    private ScheduledFuture<?> next;
+
+    WakeableScheduledTask(String name, ScheduledExecutorService executor, LongSupplier task, long failureDelaySec) {
+        this.name = name;
+        this.executor = executor;
+        this.task = task;
+        this.failureDelaySec = failureDelaySec;
+    }
+
+    synchronized void start() {
+        schedule(0);
+    }
+
+    synchronized void wakeUp() {
+        wokenUp = true;
+        if (running || next == null) {
+            return;
+        }
+        next.cancel(false);
+        schedule(0);
+    }
+
+    private void run(long expectedRound) {
+        synchronized (this) {
+            if (expectedRound != round) {
+                return;
+            }
+            running = true;
+            wokenUp = false;
+        }
+        long delaySec = failureDelaySec;
+        boolean succeeded = false;
+        try {
+            delaySec = task.getAsLong();
+            succeeded = true;
+        } finally {
+            synchronized (this) {
+                running = false;
+                schedule(succeeded && wokenUp ? 0 : delaySec);
+            }
+        }
+    }
+
+    private void schedule(long delaySec) {
+        long currentRound = ++round;
+        try {
+            next = executor.schedule(() -> run(currentRound), delaySec, TimeUnit.SECONDS);
+        } catch (RejectedExecutionException e) {
+            next = null;
+            log.debug("Executor of {} has been shutdown", name);
+        }
+    }
+}
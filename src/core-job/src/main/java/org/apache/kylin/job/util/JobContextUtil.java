@@ -102,6 +102,7 @@ public class JobContextUtil {
         if (config.isUTEnv()) {
             config.setProperty("kylin.job.master-poll-interval-second", "1");
             config.setProperty("kylin.job.scheduler.poll-interval-second", "1");
+            config.setProperty("kylin.job.scheduler.safety-poll-interval-second", "1");
             config.setProperty("kylin.job.slave-lock-renew-sec", "5");
             config.setProperty("kylin.job.slave-lock-renew-ratio", "0.4");
         }
@@ -20,19 +20,29 @@ package org.apache.kylin.job.scheduler;
 import static org.apache.kylin.common.util.TestUtils.getTestConfig;
 import static org.awaitility.Awaitility.await;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.kylin.common.AbstractTestCase;
 import org.apache.kylin.common.KylinConfig;
+import org.apache.kylin.common.persistence.transaction.BroadcastEventReadyNotifier;
+import org.apache.kylin.common.persistence.transaction.JobSchedulingBroadcastNotifier;
+import org.apache.kylin.common.scheduler.EventBusFactory;
+import org.apache.kylin.common.scheduler.JobSchedulerWakeUpNotifier;
+import org.apache.kylin.common.util.Pair;
 import org.apache.kylin.guava30.shaded.common.collect.Maps;
 import org.apache.kylin.job.JobContext;
+import org.apache.kylin.job.core.AbstractJobExecutable;
 import org.apache.kylin.job.dao.ExecutableOutputPO;
 import org.apache.kylin.job.dao.JobInfoDao;
+import org.apache.kylin.job.domain.JobInfo;
 import org.apache.kylin.job.domain.JobLock;
 import org.apache.kylin.job.execution.AbstractExecutable;
 import org.apache.kylin.job.execution.ExecutableManager;
@@ -231,6 +241,19 @@ class JdbcJobSchedulerTest extends AbstractTestCase {
         Assertions.assertEquals(1, jobIdList.size());
     }
 
+    @Test
+    void testFindActiveLockNodes() {
+        jobContext.getJobScheduler().destroy();
+        Date expireTime = new Date(System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1));
+        insertLock("active_lock_1", "127.0.0.1:7071", expireTime);
+        insertLock("active_lock_2", "127.0.0.1:7071", expireTime);
+        insertLock("expired_lock", "127.0.0.1:7072", new Date(System.currentTimeMillis() - 1000));
+        insertLock("ready_lock", null, null);
+
+        List<String> lockNodes = jobContext.getJobLockMapper().findActiveLockNodes();
+        Assertions.assertEquals(Arrays.asList("127.0.0.1:7071", "127.0.0.1:7071"), lockNodes);
+    }
+
     @Test
     void testJobProducedAndDeleted() {
         // mock job, not persist in metadata
@@ -276,6 +299,155 @@ class JdbcJobSchedulerTest extends AbstractTestCase {
         await().atMost(5, TimeUnit.SECONDS).until(() -> jobContext.getJobLockMapper().selectByJobId(jobId) == null);
     }
 
+    @Test
+    void testJobReadyNotifierWakesUpScheduler() {
+        restartSchedulerWithSafetyPoll();
+        // ExecutableManager#addJob posts JobReadyNotifier
+        String jobId = mockJob();
+        await().atMost(10, TimeUnit.SECONDS).until(() -> !jobInfoDao.getExecutablePOByUuid(jobId).getOutput()
+                .getStatus().equals(ExecutableState.READY.name()));
+        await().atMost(10, TimeUnit.SECONDS).until(() -> jobInfoDao.getExecutablePOByUuid(jobId).getOutput().getStatus()
+                .equals(ExecutableState.SUCCEED.name()));
+    }
+
+    @Test
+    void testWakeUpNotifierWakesUpScheduler() {
+        restartSchedulerWithSafetyPoll();
+        // add the job without any notification
+        AbstractExecutable job = mockExecutable();
+        jobInfoDao.addJob(ExecutableManager.toPO(job, PROJECT));
+        String jobId = job.getJobId();
+        // the job scheduler on another node broadcast a scheduling event
+        EventBusFactory.getInstance().postAsync(new JobSchedulerWakeUpNotifier());
+        await().atMost(10, TimeUnit.SECONDS).until(() -> jobInfoDao.getExecutablePOByUuid(jobId).getOutput().getStatus()
+                .equals(ExecutableState.SUCCEED.name()));
+    }
+
+    @Test
+    void testResumedJobWakesUpScheduler() {
+        JdbcJobScheduler scheduler = jobContext.getJobScheduler();
+        scheduler.destroy();
+        String jobId = mockJob();
+        ExecutableManager manager = ExecutableManager.getInstance(getTestConfig(), PROJECT);
+        manager.pauseJob(jobId);
+        restartSchedulerWithSafetyPoll();
+        Assertions.assertEquals(ExecutableState.PAUSED.name(),
+                jobInfoDao.getExecutablePOByUuid(jobId).getOutput().getStatus());
+
+        manager.resumeJob(jobId);
+        await().atMost(10, TimeUnit.SECONDS).until(() -> jobInfoDao.getExecutablePOByUuid(jobId).getOutput().getStatus()
+                .equals(ExecutableState.SUCCEED.name()));
+    }
+
+    @Test
+    void testJobSchedulingBroadcastScope() {
+        JobSchedulingBroadcastNotifier notifier = new JobSchedulingBroadcastNotifier();
+        Assertions.assertEquals(BroadcastEventReadyNotifier.BroadcastScopeEnum.JOB_NODES,
+                notifier.getBroadcastScope());
+        Assertions.assertFalse(notifier.needBroadcastSelf());
+    }
+
+    @Test
+    void testShortestJobFirstWithinPriority() {
+        JdbcJobScheduler scheduler = jobContext.getJobScheduler();
+        scheduler.destroy();
+        JobFootprintEstimator estimator = Mockito.mock(JobFootprintEstimator.class);
+        ReflectionTestUtils.setField(scheduler, "footprintEstimator", estimator);
+        JobInfo longJob = mockJobInfo("long_job", 1, 5000L);
+        JobInfo shortJob = mockJobInfo("short_job", 1, 1000L);
+        JobInfo unknownJob = mockJobInfo("unknown_job", 1, JobFootprintEstimator.UNKNOWN_DURATION);
+        JobInfo urgentLongJob = mockJobInfo("urgent_long_job", 0, 9000L);
+        Mockito.when(estimator.estimateDuration(Mockito.any(JobInfo.class)))
+                .thenAnswer(invocation -> ((JobInfo) invocation.getArgument(0)).getJobDurationMillis());
+        List<Pair<JobInfo, AbstractJobExecutable>> jobs = Stream.of(unknownJob, longJob, shortJob, urgentLongJob)
+                .map(jobInfo -> new Pair<JobInfo, AbstractJobExecutable>(jobInfo, mockExecutable()))
+                .collect(Collectors.toList());
+
+        ReflectionTestUtils.invokeMethod(scheduler, "sortByEstimatedDuration", jobs);
+        // the priority comes first, jobs without history keep their order at the end
+        Assertions.assertEquals(Arrays.asList("urgent_long_job", "short_job", "long_job", "unknown_job"),
+                jobs.stream().map(job -> job.getFirst().getJobId()).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testBusyNodeYieldsToLessLoadedNode() {
+        JdbcJobScheduler scheduler = mockBusyScheduler();
+        // another live node runs one job, fewer than the two jobs of this node
+        Date expireTime = new Date(System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1));
+        insertLock("other_node_job", "127.0.0.1:7071", expireTime);
+        Assertions.assertTrue((boolean) ReflectionTestUtils.invokeMethod(scheduler, "hasLessLoadedJobNode"));
+
+        AbstractExecutable job = mockExecutable();
+        long readyTime = System.currentTimeMillis();
+        long yieldMs = getYieldTimeMs(scheduler, job, readyTime);
+        Assertions.assertTrue(yieldMs > 0 && yieldMs <= TimeUnit.MINUTES.toMillis(1));
+        // picked up once it has waited long enough
+        Assertions.assertEquals(0, getYieldTimeMs(scheduler, job, readyTime - TimeUnit.MINUTES.toMillis(1)));
+    }
+
+    @Test
+    void testNoYieldOnSingleNode() {
+        JdbcJobScheduler scheduler = mockBusyScheduler();
+        // the locks of this node do not count as another node
+        Date expireTime = new Date(System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1));
+        insertLock("local_job", jobContext.getServerNode(), expireTime);
+        Assertions.assertFalse((boolean) ReflectionTestUtils.invokeMethod(scheduler, "hasLessLoadedJobNode"));
+        Assertions.assertEquals(0, getYieldTimeMs(scheduler, mockExecutable(), System.currentTimeMillis()));
+    }
+
+    /**
+     * A stopped scheduler running as many jobs as its slots, which yields jobs for up to one minute.
+     */
+    private JdbcJobScheduler mockBusyScheduler() {
+        getTestConfig().setProperty("kylin.job.scheduler.busy-node-yield-time", "60s");
+        JdbcJobScheduler scheduler = jobContext.getJobScheduler();
+        scheduler.destroy();
+        @SuppressWarnings("unchecked")
+        Map<String, Pair<AbstractJobExecutable, Long>> runningJobMap = (Map<String, Pair<AbstractJobExecutable, Long>>)
+                ReflectionTestUtils.getField(scheduler, "runningJobMap");
+        runningJobMap.put("running_job_1", new Pair<>(mockExecutable(), System.currentTimeMillis()));
+        runningJobMap.put("running_job_2", new Pair<>(mockExecutable(), System.currentTimeMillis()));
+        return scheduler;
+    }
+
+    private long getYieldTimeMs(JdbcJobScheduler scheduler, AbstractExecutable job, long readyTime) {
+        Supplier<Boolean> lessLoadedNodeExists = () -> ReflectionTestUtils.invokeMethod(scheduler,
+                "hasLessLoadedJobNode");
+        JobInfo jobInfo = mockJobInfo(job.getJobId(), 3, null);
+        Long yieldMs = ReflectionTestUtils.invokeMethod(scheduler, "getYieldTimeMs", jobInfo, job, readyTime,
+                lessLoadedNodeExists);
+        return yieldMs;
+    }
+
+    private JobInfo mockJobInfo(String jobId, int priority, Long durationMillis) {
+        JobInfo jobInfo = new JobInfo();
+        jobInfo.setJobId(jobId);
+        jobInfo.setPriority(priority);
+        jobInfo.setJobDurationMillis(durationMillis);
+        return jobInfo;
+    }
+
+    /**
+     * Restart the scheduler with a safety poll longer than the test timeouts, so only the events wake it up.
+     */
+    private void restartSchedulerWithSafetyPoll() {
+        KylinConfig config = getTestConfig();
+        config.setProperty("kylin.job.scheduler.event-driven-enabled", "true");
+        config.setProperty("kylin.job.scheduler.safety-poll-interval-second", "60");
+        JdbcJobScheduler scheduler = jobContext.getJobScheduler();
+        scheduler.destroy();
+        scheduler.start();
+        // let the first runs of both loops finish, they wait for the safety poll afterwards
+        await().pollDelay(2, TimeUnit.SECONDS).atMost(3, TimeUnit.SECONDS).until(() -> true);
+    }
+
+    private void insertLock(String jobId, String lockNode, Date expireTime) {
+        JobLock lock = new JobLock(jobId, PROJECT, 1, JobLock.JobTypeEnum.OFFLINE);
+        lock.setLockNode(lockNode);
+        lock.setLockExpireTime(expireTime);
+        jobContext.getJobLockMapper().insert(lock);
+    }
+
     private String mockJob() {
         ExecutableManager manager = ExecutableManager.getInstance(getTestConfig(), PROJECT);
         AbstractExecutable job = mockExecutable();
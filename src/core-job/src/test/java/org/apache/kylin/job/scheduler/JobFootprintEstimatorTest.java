@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kylin.job.scheduler;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.kylin.job.JobContext;
+import org.apache.kylin.job.domain.JobInfo;
+import org.apache.kylin.job.mapper.JobInfoMapper;
+import org.apache.kylin.job.rest.JobMapperFilter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class JobFootprintEstimatorTest {
+
+    private JobInfoMapper jobInfoMapper;
+    private JobFootprintEstimator estimator;
+
+    @BeforeEach
+    void setup() {
+        jobInfoMapper = Mockito.mock(JobInfoMapper.class);
+        JobContext jobContext = Mockito.mock(JobContext.class);
+        Mockito.when(jobContext.getJobInfoMapper()).thenReturn(jobInfoMapper);
+        estimator = new JobFootprintEstimator(jobContext);
+    }
+
+    private JobInfo jobInfo(String modelId, Long durationMillis) {
+        JobInfo jobInfo = new JobInfo();
+        jobInfo.setJobId(modelId + "-" + durationMillis);
+        jobInfo.setJobType("INDEX_BUILD");
+        jobInfo.setModelId(modelId);
+        jobInfo.setJobDurationMillis(durationMillis);
+        return jobInfo;
+    }
+
+    @Test
+    void testEstimateFromHistory() {
+        Mockito.when(jobInfoMapper.findRecentJobDurations(Mockito.anyString(), Mockito.anyString(),
+                Mockito.anyString(), Mockito.anyInt())).thenReturn(Arrays.asList(1000L, 3000L, null));
+        Assertions.assertEquals(2000L, estimator.estimateDuration(jobInfo("m1", null)));
+        // loaded only once
+        Assertions.assertEquals(2000L, estimator.estimateDuration(jobInfo("m1", null)));
+        Mockito.verify(jobInfoMapper, Mockito.times(1)).findRecentJobDurations("SUCCEED", "INDEX_BUILD", "m1", 10);
+        Mockito.verify(jobInfoMapper, Mockito.never()).selectByJobFilter(Mockito.any(JobMapperFilter.class));
+    }
+
+    @Test
+    void testRecordDuration() {
+        Mockito.when(jobInfoMapper.findRecentJobDurations(Mockito.anyString(), Mockito.anyString(),
+                Mockito.anyString(), Mockito.anyInt())).thenReturn(Collections.emptyList());
+        JobInfo jobInfo = jobInfo("m2", null);
+        Assertions.assertEquals(JobFootprintEstimator.UNKNOWN_DURATION, estimator.estimateDuration(jobInfo));
+
+        estimator.record(jobInfo, 4000L);
+        Assertions.assertEquals(4000L, estimator.estimateDuration(jobInfo));
+        estimator.record(jobInfo, 8000L);
+        Assertions.assertEquals(5000L, estimator.estimateDuration(jobInfo));
+    }
+}
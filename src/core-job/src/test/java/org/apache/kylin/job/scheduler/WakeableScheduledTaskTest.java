@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.job.scheduler;
+
+import static org.awaitility.Awaitility.await;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.kylin.common.util.ThreadUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class WakeableScheduledTaskTest {
+
+    private ScheduledExecutorService executor;
+
+    @BeforeEach
+    void setup() {
+        executor = ThreadUtils.newDaemonSingleThreadScheduledExecutor("WakeableScheduledTaskTest");
+    }
+
+    @AfterEach
+    void clean() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testWakeUpWaitingTask() {
+        AtomicInteger runs = new AtomicInteger();
+        WakeableScheduledTask task = new WakeableScheduledTask("test", executor, () -> {
+            runs.incrementAndGet();
+            return 3600;
+        }, 3600);
+        task.start();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> runs.get() == 1);
+
+        task.wakeUp();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> runs.get() == 2);
+        // the cancelled run is not executed, the task waits for the delay again
+        await().pollDelay(500, TimeUnit.MILLISECONDS).atMost(5, TimeUnit.SECONDS).until(() -> true);
+        Assertions.assertEquals(2, runs.get());
+    }
+
+    @Test
+    void testWakeUpRunningTask() {
+        AtomicInteger runs = new AtomicInteger();
+        WakeableScheduledTask[] holder = new WakeableScheduledTask[1];
+        holder[0] = new WakeableScheduledTask("test", executor, () -> {
+            if (runs.incrementAndGet() == 1) {
+                // woken up while running, the next run starts right after this one
+                holder[0].wakeUp();
+            }
+            return 3600;
+        }, 3600);
+        holder[0].start();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> runs.get() == 2);
+        await().pollDelay(500, TimeUnit.MILLISECONDS).atMost(5, TimeUnit.SECONDS).until(() -> true);
+        Assertions.assertEquals(2, runs.get());
+    }
+
+    @Test
+    void testRetryFailedTaskAfterFailureDelay() {
+        AtomicInteger runs = new AtomicInteger();
+        WakeableScheduledTask[] holder = new WakeableScheduledTask[1];
+        holder[0] = new WakeableScheduledTask("test", executor, () -> {
+            runs.incrementAndGet();
+            // woken up while failing, the retry still waits for the failure delay
+            holder[0].wakeUp();
+            throw new OutOfMemoryError("test");
+        }, 3600);
+        holder[0].start();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> runs.get() == 1);
+        await().during(500, TimeUnit.MILLISECONDS).atMost(5, TimeUnit.SECONDS).until(() -> runs.get() == 1);
+    }
+}
@@ -20,14 +20,23 @@ package org.apache.kylin.measure.percentile;
 
 import java.io.Serializable;
 import java.nio.ByteBuffer;
+import java.util.Collection;
 
 import com.tdunning.math.stats.AVLTreeDigest;
+import com.tdunning.math.stats.Centroid;
 import com.tdunning.math.stats.TDigest;
 
 public class PercentileCounter implements Serializable {
     public static final int DEFAULT_PERCENTILE_ACCURACY = 100;
     private static final double INVALID_QUANTILE_RATIO = -1;
 
+    /**
+     * Registers are written in the small encoding of AVLTreeDigest, so that the registers written by older releases
+     * can be read and the other way around. It stores the delta of each centroid mean as a float and the count as
+     * a varint, the verbose encoding is only read.
+     */
+    static final int SMALL_ENCODING = 2;
+
     double compression;
     double quantileRatio;
 
@@ -49,7 +58,7 @@ public class PercentileCounter implements Serializable {
     }
 
     private void reInitRegisters() {
-        this.registers = TDigest.createAvlTreeDigest(this.compression);
+        this.registers = TDigest.createMergingDigest(this.compression);
     }
 
     public void add(double v) {
@@ -77,12 +86,86 @@ public class PercentileCounter implements Serializable {
 
     public void writeRegisters(ByteBuffer out) {
         registers.compress();
-        registers.asSmallBytes(out);
+        Collection<Centroid> centroids = registers.centroids();
+        out.putInt(SMALL_ENCODING);
+        out.putDouble(compression);
+        out.putInt(centroids.size());
+        double previousMean = 0;
+        for (Centroid centroid : centroids) {
+            out.putFloat((float) (centroid.mean() - previousMean));
+            previousMean = centroid.mean();
+        }
+        for (Centroid centroid : centroids) {
+            encode(out, centroid.count());
+        }
     }
 
     public void readRegisters(ByteBuffer in) {
-        registers = AVLTreeDigest.fromBytes(in);
-        compression = registers.compression();
+        int mark = in.position();
+        if (in.getInt() == SMALL_ENCODING) {
+            compression = in.getDouble();
+            reInitRegisters();
+            addCentroids(in);
+        } else {
+            in.position(mark);
+            TDigest verbose = AVLTreeDigest.fromBytes(in);
+            compression = verbose.compression();
+            reInitRegisters();
+            registers.add(verbose);
+        }
+    }
+
+    /**
+     * Merge the serialized registers into this counter directly, the centroids are appended to the buffer
+     * of the merging digest without building an intermediate counter.
+     */
+    public void mergeRegisters(ByteBuffer in) {
+        int mark = in.position();
+        if (in.getInt() == SMALL_ENCODING) {
+            double serializedCompression = in.getDouble();
+            if (serializedCompression != compression) {
+                throw new IllegalArgumentException("Cannot merge percentile registers with compression "
+                        + serializedCompression + " into a counter with compression " + compression);
+            }
+            addCentroids(in);
+        } else {
+            in.position(mark);
+            registers.add(AVLTreeDigest.fromBytes(in));
+        }
+    }
+
+    private void addCentroids(ByteBuffer in) {
+        int centroidCount = in.getInt();
+        double[] means = new double[centroidCount];
+        double mean = 0;
+        for (int i = 0; i < centroidCount; i++) {
+            mean += in.getFloat();
+            means[i] = mean;
+        }
+        for (int i = 0; i < centroidCount; i++) {
+            registers.add(means[i], decode(in));
+        }
+    }
+
+    private static void encode(ByteBuffer out, int n) {
+        while ((n & ~0x7f) != 0) {
+            out.put((byte) (0x80 | (n & 0x7f)));
+            n >>>= 7;
+        }
+        out.put((byte) n);
+    }
+
+    private static int decode(ByteBuffer in) {
+        int b = in.get();
+        int n = b & 0x7f;
+        for (int shift = 7; (b & 0x80) != 0; shift += 7) {
+            if (shift > 28) {
+                throw new IllegalStateException("Invalid varint of percentile registers");
+            }
+            b = in.get();
+            n |= (b & 0x7f) << shift;
+        }
+        return n;
     }
 
     public int getBytesEstimate() {
@@ -133,7 +216,17 @@ public class PercentileCounter implements Serializable {
 
     public int peekLength(ByteBuffer in) {
         int mark = in.position();
-        AVLTreeDigest.fromBytes(in);
+        if (in.getInt() == SMALL_ENCODING) {
+            in.getDouble();
+            int centroidCount = in.getInt();
+            in.position(in.position() + centroidCount * Float.BYTES);
+            for (int i = 0; i < centroidCount; i++) {
+                decode(in);
+            }
+        } else {
+            in.position(mark);
+            AVLTreeDigest.fromBytes(in);
+        }
         int total = in.position() - mark;
         in.position(mark);
         return total;
@@ -21,12 +21,15 @@ package org.apache.kylin.metadata.cachesync;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 import javax.annotation.Nullable;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.kylin.common.KylinConfig;
 import org.apache.kylin.common.persistence.JsonSerializer;
 import org.apache.kylin.common.persistence.MetadataType;
 import org.apache.kylin.common.persistence.RawResourceFilter;
@@ -52,6 +55,8 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public abstract class CachedCrudAssist<T extends RootPersistentEntity> {
 
+    private static final ThreadLocal<Boolean> PARALLEL_RELOAD = ThreadLocal.withInitial(() -> false);
+
     private final ResourceStore store;
     private final Class<T> entityType;
     private final MetadataType type;
@@ -166,14 +171,62 @@ public abstract class CachedCrudAssist<T extends RootPersistentEntity> {
         }
 
         List<String> paths = store.collectResourceRecursively(type, filter);
-        for (String path : paths) {
-            reloadQuietlyAt(path);
+        if (isParallelReloadEnabled(paths.size())) {
+            reloadInParallel(paths);
+        } else {
+            for (String path : paths) {
+                reloadQuietlyAt(path);
+            }
         }
 
         log.trace("Loaded {} {}(s) out of {} resource from {}", cache.size(), entityType.getSimpleName(), paths.size(),
                 store.getReadableResourcePath(type.name()));
     }
 
+    /**
+     * Run the action with the entities of managers reloaded in parallel, only used to load metadata on node startup.
+     * Other reloads, e.g. on cache sync, stay sequential.
+     */
+    public static void runWithParallelReload(Runnable action) {
+        boolean previous = PARALLEL_RELOAD.get();
+        PARALLEL_RELOAD.set(true);
+        try {
+            action.run();
+        } finally {
+            PARALLEL_RELOAD.set(previous);
+        }
+    }
+
+    private boolean isParallelReloadEnabled(int size) {
+        // the transaction context is bound to the current thread
+        val config = store.getConfig();
+        return PARALLEL_RELOAD.get() && config.getMetadataBootstrapParallelism() > 1
+                && size >= config.getMetadataBootstrapParallelThreshold() && !UnitOfWork.isAlreadyInTransaction();
+    }
+
+    /**
+     * Resources are already in memory, most of the time of a reload is spent on deserializing and initializing
+     * entities, which are independent of each other.
+     */
+    private void reloadInParallel(List<String> paths) {
+        val config = store.getConfig();
+        val pool = new ForkJoinPool(config.getMetadataBootstrapParallelism());
+        try {
+            pool.submit(() -> paths.parallelStream().forEach(path -> {
+                try (val ignored = KylinConfig.setAndUnsetThreadLocalConfig(config)) {
+                    reloadQuietlyAt(path);
+                }
+            })).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reloading " + entityType.getSimpleName(), e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to reload " + entityType.getSimpleName(), e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
     private T reload(String resourceName) {
         return reloadAt(resourcePath(resourceName));
     }
@@ -29,6 +29,7 @@ import java.util.stream.Stream;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.kylin.common.util.ImmutableBitSet;
 import org.apache.kylin.guava30.shaded.common.collect.Lists;
 import org.apache.kylin.guava30.shaded.common.collect.Maps;
 import org.apache.kylin.guava30.shaded.common.collect.Sets;
@@ -54,6 +55,8 @@ import lombok.extern.slf4j.Slf4j;
 public class AggIndexMatcher extends IndexMatcher {
 
     private final Map<FunctionDesc, List<Integer>> functionCols;
+    // for every aggregation, the model measures answering it, measure ids minus MEASURE_ID_BASE as layout measure bits
+    private List<ImmutableBitSet> aggregationMeasureBits;
 
     public AggIndexMatcher(SQLDigest sqlDigest, ChooserContext chooserContext, NDataflow dataflow,
             ColExcludedChecker exColChecker, AntiFlatChecker antiFlatChecker) {
@@ -80,15 +83,32 @@ public class AggIndexMatcher extends IndexMatcher {
             }
             functionCols.put(agg, cols);
         }
+        sqlColumnBits = ImmutableBitSet.valueOf(Lists.newArrayList(sqlColumns));
+        aggregationMeasureBits = sqlDigest.getAggregations().stream()
+                .map(agg -> ImmutableBitSet.valueOf(model.getEffectiveMeasures().entrySet().stream()
+                        .filter(entry -> entry.getValue().getFunction().equals(agg))
+                        .mapToInt(entry -> entry.getKey() - NDataModel.MEASURE_ID_BASE).toArray()))
+                .collect(Collectors.toList());
         return true;
     }
 
+    /**
+     * Whether the layout has a measure for every aggregation of the query, by bit tests.
+     */
+    private boolean coversAggregations(LayoutEntity layout) {
+        ImmutableBitSet measureBits = layout.getMeasureBits();
+        return aggregationMeasureBits.stream().allMatch(measureBits::intersects);
+    }
+
     @Override
     public MatchResult match(LayoutEntity layout) {
         if (canSkipIndexMatch(layout.getIndex()) || !isValid()) {
             return new MatchResult();
         }
         log.trace("Matching agg index");
+        if (coversColumns(layout) && coversAggregations(layout)) {
+            return new MatchResult(true, Maps.newHashMap(), null, Lists.newArrayList());
+        }
         Collection<FunctionDesc> unmatchedMetrics = Lists.newArrayList(sqlDigest.getAggregations());
         Set<Integer> unmatchedCols = initUnmatchedColumnIds(layout);
         final Map<Integer, DeriveInfo> needDerive = Maps.newHashMap();
@@ -27,6 +27,7 @@ import java.util.stream.Stream;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.kylin.common.KylinConfig;
+import org.apache.kylin.common.util.ImmutableBitSet;
 import org.apache.kylin.guava30.shaded.common.base.Preconditions;
 import org.apache.kylin.guava30.shaded.common.collect.ImmutableCollection;
 import org.apache.kylin.guava30.shaded.common.collect.ImmutableMultimap;
@@ -73,6 +74,9 @@ public abstract class IndexMatcher {
     final Map<String, List<Integer>> foreignKeyColumnIds;
     final ImmutableMultimap<Integer, Integer> fk2Pk;
     Set<Integer> sqlColumns;
+    ImmutableBitSet sqlColumnBits;
+    // a layout with all the query columns matches without going through derived or excluded columns
+    final boolean directMatchSupported;
 
     ColExcludedChecker excludedChecker;
     AntiFlatChecker antiFlatChecker;
@@ -110,6 +114,8 @@ public abstract class IndexMatcher {
                         new DeriveInfo(DeriveInfo.DeriveType.LOOKUP, join, Lists.newArrayList(foreignKeyId), false));
             }
         });
+        this.directMatchSupported = !isBatchFusionModel && toManyDerivedInfoMap.isEmpty()
+                && !NProjectManager.getProjectConfig(project).isSnapshotPreferred();
     }
 
     //the integrity check is passed
@@ -119,6 +125,15 @@ public abstract class IndexMatcher {
 
     protected abstract boolean canSkipIndexMatch(IndexEntity index);
 
+    /**
+     * Whether the layout has all the columns of the query, a bit test instead of going through every column.
+     * A layout not covering the columns may still match by deriving columns, which is left to the full match.
+     */
+    boolean coversColumns(LayoutEntity layout) {
+        return directMatchSupported && sqlColumnBits != null
+                && sqlColumnBits.andNot(layout.getDimensionBits()).isEmpty();
+    }
+
     Set<Integer> initUnmatchedColumnIds(LayoutEntity layout) {
         Set<Integer> unmatchedCols = Sets.newHashSet();
         unmatchedCols.addAll(sqlColumns);
@@ -23,6 +23,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.apache.kylin.common.util.ImmutableBitSet;
 import org.apache.kylin.guava30.shaded.common.collect.Lists;
 import org.apache.kylin.guava30.shaded.common.collect.Maps;
 import org.apache.kylin.metadata.cube.model.IndexEntity;
@@ -51,7 +52,11 @@ public class TableIndexMatcher extends IndexMatcher {
     protected boolean fastValidCheckBeforeMatch() {
         // cols may have null values as the CC col in query may not present in the model
         sqlColumns = sqlDigest.getAllColumns().stream().map(tblColMap::get).collect(Collectors.toSet());
-        return !sqlColumns.contains(null);
+        if (sqlColumns.contains(null)) {
+            return false;
+        }
+        sqlColumnBits = ImmutableBitSet.valueOf(Lists.newArrayList(sqlColumns));
+        return true;
     }
 
     @Override
@@ -61,6 +66,9 @@ public class TableIndexMatcher extends IndexMatcher {
         }
 
         log.trace("Matching table index");
+        if (coversColumns(layout)) {
+            return new MatchResult(true, 0, Maps.newHashMap());
+        }
         final Map<Integer, DeriveInfo> needDerive = Maps.newHashMap();
         Set<Integer> unmatchedCols = initUnmatchedColumnIds(layout);
         int penaltyFactor = 0;
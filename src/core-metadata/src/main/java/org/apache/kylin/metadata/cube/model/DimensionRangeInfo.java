@@ -19,9 +19,14 @@
 package org.apache.kylin.metadata.cube.model;
 
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.Map;
 
+import org.apache.kylin.guava30.shaded.common.collect.Maps;
 import org.apache.kylin.metadata.datatype.DataType;
+import org.apache.kylin.metadata.model.TblColRef;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import lombok.Data;
@@ -36,6 +41,11 @@ public class DimensionRangeInfo implements Serializable {
     @JsonProperty("max")
     private String max;
 
+    // the number of null values, unknown for ranges calculated by older versions
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty("null_count")
+    private Long nullCount;
+
     public DimensionRangeInfo(String min, String max) {
         if (min == null && max != null || min != null && max == null)
             throw new IllegalStateException();
@@ -44,6 +54,11 @@ public class DimensionRangeInfo implements Serializable {
         this.max = max;
     }
 
+    public DimensionRangeInfo(String min, String max, Long nullCount) {
+        this(min, max);
+        this.nullCount = nullCount;
+    }
+
     public String getMin() {
         return min;
     }
@@ -65,6 +80,48 @@ public class DimensionRangeInfo implements Serializable {
                 : dimensionRangeInfo.getMin();
         String maxValue = dataType.compare(this.max, dimensionRangeInfo.getMax()) > 0 ? this.max
                 : dimensionRangeInfo.getMax();
-        return new DimensionRangeInfo(minValue, maxValue);
+        return new DimensionRangeInfo(minValue, maxValue, addNullCount(this.nullCount, dimensionRangeInfo.nullCount));
+    }
+
+    /**
+     * Merge the dimension ranges of several segments or partitions in one pass over dimensions x segments.
+     *
+     * A dimension without range in some segment is dropped: it may have only null values there, or it may have
+     * been added after a partial build of that segment and never collected, so its values are not bounded by the
+     * ranges of the other segments. Dimensions not in the given dimension columns are dropped as well.
+     */
+    public static Map<String, DimensionRangeInfo> mergeAll(Collection<Map<String, DimensionRangeInfo>> rangeInfoMaps,
+            Map<Integer, TblColRef> dimCols) {
+        Map<String, DimensionRangeInfo> merged = Maps.newHashMapWithExpectedSize(dimCols.size());
+        for (Map.Entry<Integer, TblColRef> dimCol : dimCols.entrySet()) {
+            String column = String.valueOf(dimCol.getKey());
+            DataType dataType = dimCol.getValue().getType();
+            String minValue = null;
+            String maxValue = null;
+            Long nullCount = 0L;
+            boolean collectedInAll = true;
+            for (Map<String, DimensionRangeInfo> rangeInfoMap : rangeInfoMaps) {
+                DimensionRangeInfo rangeInfo = rangeInfoMap.get(column);
+                if (rangeInfo == null) {
+                    collectedInAll = false;
+                    break;
+                }
+                if (minValue == null || dataType.compare(rangeInfo.getMin(), minValue) < 0) {
+                    minValue = rangeInfo.getMin();
+                }
+                if (maxValue == null || dataType.compare(rangeInfo.getMax(), maxValue) > 0) {
+                    maxValue = rangeInfo.getMax();
+                }
+                nullCount = addNullCount(nullCount, rangeInfo.getNullCount());
+            }
+            if (collectedInAll && minValue != null) {
+                merged.put(column, new DimensionRangeInfo(minValue, maxValue, nullCount));
+            }
+        }
+        return merged;
+    }
+
+    private static Long addNullCount(Long nullCount1, Long nullCount2) {
+        return nullCount1 == null || nullCount2 == null ? null : nullCount1 + nullCount2;
     }
 }
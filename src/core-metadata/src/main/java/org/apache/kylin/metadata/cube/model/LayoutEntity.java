@@ -29,6 +29,7 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.apache.kylin.common.KylinConfig;
+import org.apache.kylin.common.util.ImmutableBitSet;
 import org.apache.kylin.common.util.MapUtil;
 import org.apache.kylin.guava30.shaded.common.base.MoreObjects;
 import org.apache.kylin.guava30.shaded.common.collect.ImmutableBiMap;
@@ -48,6 +49,7 @@ import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
@@ -136,6 +138,15 @@ public class LayoutEntity implements IStorageAware, Serializable {
     private ImmutableBiMap<Integer, TblColRef> orderedStreamingDimensions;
     private ImmutableBiMap<Integer, Measure> orderedStreamingMeasures;
 
+    // position of each column in col_order, used to rank layouts while choosing one for a query
+    @Getter(AccessLevel.NONE)
+    private ImmutableMap<Integer, Integer> colPositions;
+
+    // dimension ids and measure ids minus MEASURE_ID_BASE of col_order, to match layouts with a query by bit tests,
+    // measure ids are offset to keep the bits few
+    private ImmutableBitSet dimensionBits;
+    private ImmutableBitSet measureBits;
+
     @Setter
     @Getter
     private boolean toBeDeleted = false;
@@ -289,6 +300,42 @@ public class LayoutEntity implements IStorageAware, Serializable {
         return ImmutableList.copyOf(colOrder);
     }
 
+    /**
+     * @return the position of the column in col_order, or -1 if the layout does not contain it
+     */
+    public int getColumnPosition(int colId) {
+        ImmutableMap<Integer, Integer> positions = colPositions;
+        if (positions == null) {
+            synchronized (this) {
+                if (colPositions == null) {
+                    Map<Integer, Integer> positionMap = Maps.newHashMapWithExpectedSize(colOrder.size());
+                    for (int i = 0; i < colOrder.size(); i++) {
+                        positionMap.putIfAbsent(colOrder.get(i), i);
+                    }
+                    colPositions = ImmutableMap.copyOf(positionMap);
+                }
+                positions = colPositions;
+            }
+        }
+        return positions.getOrDefault(colId, -1);
+    }
+
+    public ImmutableBitSet getDimensionBits() {
+        if (dimensionBits == null) {
+            dimensionBits = ImmutableBitSet.valueOf(colOrder.stream().filter(id -> id < NDataModel.MEASURE_ID_BASE)
+                    .mapToInt(Integer::intValue).toArray());
+        }
+        return dimensionBits;
+    }
+
+    public ImmutableBitSet getMeasureBits() {
+        if (measureBits == null) {
+            measureBits = ImmutableBitSet.valueOf(colOrder.stream().filter(id -> id >= NDataModel.MEASURE_ID_BASE)
+                    .mapToInt(id -> id - NDataModel.MEASURE_ID_BASE).toArray());
+        }
+        return measureBits;
+    }
+
     public boolean equalsCols(LayoutEntity layout) {
         Set<Integer> order1 = ImmutableSortedSet.<Integer> naturalOrder().addAll(getColOrder()).build();
         Set<Integer> order2 = ImmutableSortedSet.<Integer> naturalOrder().addAll(layout.getColOrder()).build();
@@ -298,6 +345,9 @@ public class LayoutEntity implements IStorageAware, Serializable {
     public void setColOrder(List<Integer> l) {
         checkIsNotCachedAndShared();
         this.colOrder = l;
+        this.colPositions = null;
+        this.dimensionBits = null;
+        this.measureBits = null;
     }
 
     public ImmutableMap<Integer, String> getLayoutOverrideIndexes() {
@@ -21,7 +21,6 @@ package org.apache.kylin.metadata.cube.optimization;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
-import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -36,6 +35,7 @@ import org.apache.kylin.metadata.cube.model.NDataLayout;
 import org.apache.kylin.metadata.cube.model.NDataSegment;
 import org.apache.kylin.metadata.cube.model.NDataflow;
 import org.apache.kylin.metadata.cube.utils.IndexPlanReduceUtil;
+import org.apache.kylin.metadata.cube.utils.LayoutLineageFinder;
 import org.apache.kylin.metadata.model.NDataModel;
 
 import lombok.extern.slf4j.Slf4j;
@@ -165,24 +165,7 @@ public class SimilarLayoutOptStrategy extends AbstractOptStrategy {
      * Find a lineage from son layout to father layout.
      */
     private Set<Pair<LayoutEntity, LayoutEntity>> findLineage(List<LayoutEntity> sortedLayouts) {
-        Set<Pair<LayoutEntity, LayoutEntity>> lineageSet = Sets.newHashSet();
-        for (int i = 0; i < sortedLayouts.size(); i++) {
-            LayoutEntity father = sortedLayouts.get(i);
-            for (int j = i + 1; j < sortedLayouts.size(); j++) {
-                LayoutEntity son = sortedLayouts.get(j);
-                if (father.getColOrder().size() == son.getColOrder().size()
-                        || !Objects.equals(son.getShardByColumns(), father.getShardByColumns())) {
-                    continue;
-                }
-
-                List<Integer> fatherDims = father.getOrderedDimensions().keySet().asList();
-                List<Integer> sonDims = son.getOrderedDimensions().keySet().asList();
-                if (IndexPlanReduceUtil.isSubPartColOrder(sonDims, fatherDims)) {
-                    lineageSet.add(new Pair<>(son, father));
-                }
-            }
-        }
-
-        return lineageSet;
+        return LayoutLineageFinder.findSubSequenceLineage(sortedLayouts,
+                layout -> layout.getOrderedDimensions().keySet().asList());
     }
 }
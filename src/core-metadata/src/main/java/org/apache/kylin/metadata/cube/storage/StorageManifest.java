@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.metadata.cube.storage;
+
+import static org.apache.kylin.common.util.HadoopUtil.FLAT_TABLE_STORAGE_ROOT;
+import static org.apache.kylin.common.util.HadoopUtil.PARQUET_STORAGE_ROOT;
+import static org.apache.kylin.common.util.HadoopUtil.STORAGE_MANIFEST_ROOT;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.kylin.common.KapConfig;
+import org.apache.kylin.common.util.HadoopUtil;
+import org.apache.kylin.common.util.JsonUtil;
+import org.apache.kylin.common.util.RandomUtil;
+import org.apache.kylin.guava30.shaded.common.collect.Sets;
+import org.apache.kylin.metadata.cube.model.NDataLayout;
+import org.apache.kylin.metadata.cube.model.NDataSegment;
+import org.apache.kylin.metadata.cube.model.NDataflow;
+import org.apache.kylin.metadata.cube.model.NDataflowUpdate;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The storage paths created and superseded by one commit of a build, merge or refresh job.
+ *
+ * Manifests are written under ${working_dir}/${project}/storage_manifest, all paths are relative to the working
+ * directory. The storage cleaner deletes the superseded paths listed in manifests instead of listing every
+ * dataflow, segment and layout directory.
+ */
+@Slf4j
+@Getter
+@Setter
+@JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.NONE, getterVisibility = JsonAutoDetect.Visibility.NONE, isGetterVisibility = JsonAutoDetect.Visibility.NONE, setterVisibility = JsonAutoDetect.Visibility.NONE)
+public class StorageManifest {
+
+    public static final String MANIFEST_SUFFIX = ".json";
+
+    @JsonProperty("project")
+    private String project;
+
+    @JsonProperty("dataflow_id")
+    private String dataflowId;
+
+    @JsonProperty("create_time")
+    private long createTime;
+
+    @JsonProperty("created_paths")
+    private Set<String> createdPaths = Sets.newTreeSet();
+
+    @JsonProperty("superseded_paths")
+    private Set<String> supersededPaths = Sets.newTreeSet();
+
+    public static StorageManifest of(NDataflow dataflow, NDataflowUpdate update) {
+        StorageManifest manifest = new StorageManifest();
+        manifest.setProject(dataflow.getProject());
+        manifest.setDataflowId(dataflow.getId());
+        manifest.setCreateTime(System.currentTimeMillis());
+        if (update.getToAddOrUpdateLayouts() != null) {
+            for (NDataLayout layout : update.getToAddOrUpdateLayouts()) {
+                manifest.getCreatedPaths().add(getLayoutPath(dataflow, layout.getSegDetails().getUuid(), layout));
+            }
+        }
+        if (update.getToRemoveLayouts() != null) {
+            for (NDataLayout layout : update.getToRemoveLayouts()) {
+                manifest.getSupersededPaths().add(getLayoutPath(dataflow, layout.getSegDetails().getUuid(), layout));
+            }
+        }
+        if (update.getToRemoveSegs() != null) {
+            for (NDataSegment segment : update.getToRemoveSegs()) {
+                manifest.getSupersededPaths().add(getSegmentPath(dataflow, segment.getId()));
+                manifest.getSupersededPaths().add(dataflow.getProject() + FLAT_TABLE_STORAGE_ROOT + "/"
+                        + dataflow.getId() + "/" + segment.getId());
+            }
+        }
+        return manifest;
+    }
+
+    public static String getSegmentPath(NDataflow dataflow, String segmentId) {
+        return dataflow.getProject() + PARQUET_STORAGE_ROOT + "/" + dataflow.getId() + "/" + segmentId;
+    }
+
+    private static String getLayoutPath(NDataflow dataflow, String segmentId, NDataLayout layout) {
+        return getSegmentPath(dataflow, segmentId) + "/" + layout.getLayoutId();
+    }
+
+    /**
+     * The bucket directories of the given multi-level partitions in the layout. A partition refresh writes
+     * new buckets, so these directories are superseded once the refreshed partitions are committed.
+     */
+    public static List<String> getPartitionPaths(NDataflow dataflow, NDataLayout layout, Set<Long> partitionIds) {
+        String layoutPath = getLayoutPath(dataflow, layout.getSegDetails().getUuid(), layout);
+        return layout.getMultiPartition().stream()
+                .filter(partition -> partitionIds.contains(partition.getPartitionId()))
+                .map(partition -> layoutPath + "/" + partition.getBucketId()).collect(Collectors.toList());
+    }
+
+    public boolean isEmpty() {
+        return createdPaths.isEmpty() && supersededPaths.isEmpty();
+    }
+
+    public static Path getManifestDir(String workingDir, String project) {
+        return new Path(workingDir, project + STORAGE_MANIFEST_ROOT);
+    }
+
+    /**
+     * Write the manifest into the metadata working directory of the dataflow, failures are only logged,
+     * the periodical full scan of the storage cleaner is the safety net of a lost manifest.
+     */
+    public static void record(NDataflow dataflow, StorageManifest manifest) {
+        if (manifest.isEmpty()) {
+            return;
+        }
+        String workingDir = KapConfig.wrap(dataflow.getConfig()).getMetadataWorkingDirectory();
+        Path path = new Path(getManifestDir(workingDir, manifest.getProject()), String.format(Locale.ROOT,
+                "%d_%s%s", manifest.getCreateTime(), RandomUtil.randomUUIDStr(), MANIFEST_SUFFIX));
+        try (FSDataOutputStream out = HadoopUtil.getWorkingFileSystem().create(path)) {
+            JsonUtil.writeValue(out, manifest);
+            log.debug("Storage manifest of dataflow {} is recorded to {}", manifest.getDataflowId(), path);
+        } catch (IOException e) {
+            log.warn("Failed to record storage manifest of dataflow {} to {}", manifest.getDataflowId(), path, e);
+        }
+    }
+
+    public static StorageManifest read(FileSystem fs, Path path) throws IOException {
+        try (FSDataInputStream in = fs.open(path)) {
+            return JsonUtil.readValue(in, StorageManifest.class);
+        }
+    }
+}
@@ -19,9 +19,9 @@
 package org.apache.kylin.metadata.cube.utils;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -121,19 +121,19 @@ public class IndexPlanReduceUtil {
             return includedMap;
         }
 
+        boolean isTableIndex = IndexEntity.isTableIndex(sortedLayouts.get(0).getId());
+        BitSet[] descendants = LayoutLineageFinder.findDescendants(sortedLayouts,
+                layout -> isTableIndex ? layout.getColOrder() : layout.getIndex().getMeasures());
         for (int i = 0; i < sortedLayouts.size(); i++) {
             LayoutEntity target = sortedLayouts.get(i);
             if (includedMap.containsKey(target)) {
                 continue;
             }
-            for (int j = i + 1; j < sortedLayouts.size(); j++) {
+            for (int j = descendants[i].nextSetBit(0); j >= 0; j = descendants[i].nextSetBit(j + 1)) {
                 LayoutEntity current = sortedLayouts.get(j);
                 // In the process of garbage cleaning all existing layouts were taken into account,
                 // but in the process of propose only layouts with status of inProposing were taken into account.
-                if ((!isGarbageCleaning && !current.isInProposing())
-                        || (target.getColOrder().size() == current.getColOrder().size())
-                        || includedMap.containsKey(current)
-                        || !Objects.equals(current.getShardByColumns(), target.getShardByColumns())) {
+                if ((!isGarbageCleaning && !current.isInProposing()) || includedMap.containsKey(current)) {
                     continue;
                 }
 
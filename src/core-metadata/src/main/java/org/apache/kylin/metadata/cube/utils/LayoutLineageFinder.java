@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.metadata.cube.utils;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.apache.kylin.common.util.Pair;
+import org.apache.kylin.guava30.shaded.common.collect.Maps;
+import org.apache.kylin.guava30.shaded.common.collect.Sets;
+import org.apache.kylin.metadata.cube.model.LayoutEntity;
+
+/**
+ * Find the lineage between layouts without comparing every pair of them.
+ *
+ * Every column is mapped to a bitmap of the layouts containing it, the layouts containing all columns of
+ * a layout are the intersection of these bitmaps. Only the pairs left after the intersection are checked
+ * pair by pair, so the cost mostly depends on the number of related layouts instead of all layout pairs.
+ */
+public class LayoutLineageFinder {
+
+    private LayoutLineageFinder() {
+    }
+
+    /**
+     * For each layout, find the layouts after it in the sorted list which have a different size of col_order,
+     * the same shard by columns and whose columns are all contained by it.
+     *
+     * @param sortedLayouts layouts sorted by the size of col_order in descending order
+     * @param columnsExtractor the columns of a layout to check the containment
+     * @return the descendants of each layout, indexed by its position in sortedLayouts
+     */
+    public static BitSet[] findDescendants(List<LayoutEntity> sortedLayouts,
+            Function<LayoutEntity, ? extends Collection<Integer>> columnsExtractor) {
+        int size = sortedLayouts.size();
+        int[] colOrderSizes = new int[size];
+        Map<Integer, BitSet> columnToLayouts = Maps.newHashMap();
+        Map<List<Integer>, BitSet> shardByToLayouts = Maps.newHashMap();
+        for (int i = 0; i < size; i++) {
+            LayoutEntity layout = sortedLayouts.get(i);
+            colOrderSizes[i] = layout.getColOrder().size();
+            shardByToLayouts.computeIfAbsent(layout.getShardByColumns(), key -> new BitSet(size)).set(i);
+            for (Integer column : columnsExtractor.apply(layout)) {
+                columnToLayouts.computeIfAbsent(column, key -> new BitSet(size)).set(i);
+            }
+        }
+
+        BitSet[] descendants = new BitSet[size];
+        for (int i = 0; i < size; i++) {
+            descendants[i] = new BitSet(size);
+        }
+        for (int son = 0; son < size; son++) {
+            LayoutEntity layout = sortedLayouts.get(son);
+            BitSet fathers = (BitSet) shardByToLayouts.get(layout.getShardByColumns()).clone();
+            fathers.clear(son, size);
+            for (Integer column : columnsExtractor.apply(layout)) {
+                if (fathers.isEmpty()) {
+                    break;
+                }
+                fathers.and(columnToLayouts.get(column));
+            }
+            for (int father = fathers.nextSetBit(0); father >= 0; father = fathers.nextSetBit(father + 1)) {
+                if (colOrderSizes[father] != colOrderSizes[son]) {
+                    descendants[father].set(son);
+                }
+            }
+        }
+        return descendants;
+    }
+
+    /**
+     * Find a lineage from son layout to father layout, the sequence of the son must be a sub-sequence
+     * of the father's.
+     *
+     * @param sortedLayouts layouts sorted by the size of col_order in descending order
+     * @param sequenceExtractor the ordered columns of a layout
+     */
+    public static Set<Pair<LayoutEntity, LayoutEntity>> findSubSequenceLineage(List<LayoutEntity> sortedLayouts,
+            Function<LayoutEntity, List<Integer>> sequenceExtractor) {
+        Map<LayoutEntity, List<Integer>> sequences = Maps.newIdentityHashMap();
+        sortedLayouts.forEach(layout -> sequences.put(layout, sequenceExtractor.apply(layout)));
+
+        Set<Pair<LayoutEntity, LayoutEntity>> lineageSet = Sets.newHashSet();
+        BitSet[] descendants = findDescendants(sortedLayouts, sequences::get);
+        for (int i = 0; i < descendants.length; i++) {
+            LayoutEntity father = sortedLayouts.get(i);
+            for (int j = descendants[i].nextSetBit(0); j >= 0; j = descendants[i].nextSetBit(j + 1)) {
+                LayoutEntity son = sortedLayouts.get(j);
+                if (IndexPlanReduceUtil.isSubPartColOrder(sequences.get(son), sequences.get(father))) {
+                    lineageSet.add(new Pair<>(son, father));
+                }
+            }
+        }
+        return lineageSet;
+    }
+}
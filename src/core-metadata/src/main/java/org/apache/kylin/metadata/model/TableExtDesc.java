@@ -24,6 +24,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -121,6 +122,18 @@ public class TableExtDesc extends RootPersistentEntity implements Serializable {
     @JsonProperty("excluded_columns")
     private Set<String> excludedColumns = Sets.newLinkedHashSet();
 
+    // snapshot content fingerprint -> snapshot path, the latest one comes last
+    @Getter
+    @Setter
+    @JsonProperty("snapshot_fingerprints")
+    private LinkedHashMap<String, String> snapshotFingerprints = Maps.newLinkedHashMap();
+
+    // snapshot partition -> content fingerprint of the partition
+    @Getter
+    @Setter
+    @JsonProperty("snapshot_partition_fingerprints")
+    private Map<String, String> snapshotPartitionFingerprints = Maps.newHashMap();
+
     public TableExtDesc() {
     }
 
@@ -139,6 +152,8 @@ public class TableExtDesc extends RootPersistentEntity implements Serializable {
         this.excluded = other.excluded;
         this.excludedColumns = other.excludedColumns;
         this.rowCountStatus = other.rowCountStatus; // no need any more, will be deleted later.
+        this.snapshotFingerprints = other.snapshotFingerprints;
+        this.snapshotPartitionFingerprints = other.snapshotPartitionFingerprints;
     }
 
     public boolean testExcluded(ColumnDesc column) {
@@ -240,6 +255,42 @@ public class TableExtDesc extends RootPersistentEntity implements Serializable {
         return columnStatsMap.getOrDefault(colName, null);
     }
 
+    /**
+     * Remember the path of a snapshot by its content fingerprint, only the latest {@code maxSize} are kept.
+     */
+    public void putSnapshotFingerprint(String fingerprint, String snapshotPath, int maxSize) {
+        snapshotFingerprints.remove(fingerprint);
+        snapshotFingerprints.put(fingerprint, snapshotPath);
+        Iterator<String> iterator = snapshotFingerprints.keySet().iterator();
+        while (snapshotFingerprints.size() > Math.max(1, maxSize) && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    public String getSnapshotPathByFingerprint(String fingerprint) {
+        return fingerprint == null ? null : snapshotFingerprints.get(fingerprint);
+    }
+
+    public void removeSnapshotFingerprint(String fingerprint) {
+        snapshotFingerprints.remove(fingerprint);
+    }
+
+    public void putSnapshotPartitionFingerprint(String partition, String fingerprint) {
+        snapshotPartitionFingerprints.put(partition, fingerprint);
+    }
+
+    public String getSnapshotPartitionFingerprint(String partition) {
+        return snapshotPartitionFingerprints.get(partition);
+    }
+
+    /**
+     * Forget the fingerprints of the snapshot partitions not in {@code partitions}, e.g. dropped from the source.
+     */
+    public void retainSnapshotPartitionFingerprints(Set<String> partitions) {
+        snapshotPartitionFingerprints.keySet().retainAll(partitions);
+    }
+
     public boolean isExcludedCol(String colName) {
         return excluded || getExcludedColumns().contains(colName);
     }
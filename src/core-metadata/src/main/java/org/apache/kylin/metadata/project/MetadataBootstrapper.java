@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.metadata.project;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import org.apache.kylin.common.KylinConfig;
+import org.apache.kylin.common.util.NamedThreadFactory;
+import org.apache.kylin.guava30.shaded.common.collect.Maps;
+import org.apache.kylin.guava30.shaded.common.collect.Sets;
+import org.apache.kylin.metadata.cachesync.CachedCrudAssist;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Loads the metadata of projects on node startup, several projects at a time.
+ *
+ * With lazy load enabled, only hot projects are loaded on startup, the others are marked as {@link LoadState#LAZY}
+ * and are loaded by {@link NProjectLoader} on first access. The load state of each project is reported by
+ * the readiness API.
+ */
+@Slf4j
+public class MetadataBootstrapper {
+
+    private static final MetadataBootstrapper INSTANCE = new MetadataBootstrapper();
+
+    public enum LoadState {
+        PENDING, LOADING, LOADED, LAZY, FAILED
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class ProjectLoadStatus {
+        private final LoadState state;
+        private final long durationMs;
+        private final String error;
+    }
+
+    private final Map<String, ProjectLoadStatus> statuses = new ConcurrentHashMap<>();
+    private volatile boolean started;
+
+    MetadataBootstrapper() {
+    }
+
+    public static MetadataBootstrapper getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Load hot projects several at a time, cold projects are left to be loaded on first access.
+     */
+    public synchronized CompletableFuture<Void> bootstrap(KylinConfig config) {
+        statuses.clear();
+        List<ProjectInstance> projects = NProjectManager.getInstance(config).listAllProjects();
+        Set<String> eagerProjects = selectEagerProjects(config, projects);
+        for (ProjectInstance project : projects) {
+            LoadState state = eagerProjects.contains(project.getName()) ? LoadState.PENDING : LoadState.LAZY;
+            statuses.put(project.getName(), new ProjectLoadStatus(state, 0, null));
+        }
+        started = true;
+        log.info("Start to load {} of {} projects, the others will be loaded on first access", eagerProjects.size(),
+                projects.size());
+
+        long start = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, config.getMetadataBootstrapParallelism()),
+                new NamedThreadFactory("MetadataBootstrap"));
+        CompletableFuture<?>[] futures = eagerProjects.stream()
+                .map(project -> CompletableFuture.runAsync(() -> load(config, project), executor))
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(futures).whenComplete((ignored, throwable) -> {
+            executor.shutdown();
+            log.info("Loaded {} projects in {} ms", futures.length, System.currentTimeMillis() - start);
+        });
+    }
+
+    static Set<String> selectEagerProjects(KylinConfig config, List<ProjectInstance> projects) {
+        if (!config.isMetadataBootstrapLazyLoadEnabled()) {
+            return projects.stream().map(ProjectInstance::getName).collect(Collectors.toSet());
+        }
+        Set<String> allProjects = projects.stream().map(ProjectInstance::getName).collect(Collectors.toSet());
+        Set<String> eagerProjects = Sets.newHashSet();
+        Arrays.stream(config.getMetadataBootstrapEagerLoadProjects()).filter(allProjects::contains)
+                .forEach(eagerProjects::add);
+        projects.stream().sorted(Comparator.comparingLong(ProjectInstance::getLastModified).reversed())
+                .limit(config.getMetadataBootstrapEagerLoadMaxProjects()).map(ProjectInstance::getName)
+                .forEach(eagerProjects::add);
+        return eagerProjects;
+    }
+
+    private void load(KylinConfig config, String project) {
+        try (val ignored = KylinConfig.setAndUnsetThreadLocalConfig(config)) {
+            statuses.put(project, new ProjectLoadStatus(LoadState.LOADING, 0, null));
+            long start = System.currentTimeMillis();
+            try {
+                // pool threads may inherit the bundle of the thread which created them
+                NProjectLoader.removeCache();
+                CachedCrudAssist.runWithParallelReload(() -> NProjectLoader.updateCache(project));
+                statuses.put(project,
+                        new ProjectLoadStatus(LoadState.LOADED, System.currentTimeMillis() - start, null));
+            } catch (Exception e) {
+                log.warn("Failed to load project {} on startup", project, e);
+                statuses.put(project, new ProjectLoadStatus(LoadState.FAILED, System.currentTimeMillis() - start,
+                        e.getMessage()));
+            } finally {
+                NProjectLoader.removeCache();
+            }
+        }
+    }
+
+    boolean isLazy(String project) {
+        ProjectLoadStatus status = statuses.get(project);
+        return status != null && status.getState() == LoadState.LAZY;
+    }
+
+    /**
+     * Called when a lazy project is loaded on its first access.
+     */
+    void markLoaded(String project, long durationMs) {
+        statuses.computeIfPresent(project, (name, status) -> status.getState() == LoadState.LAZY
+                ? new ProjectLoadStatus(LoadState.LOADED, durationMs, null)
+                : status);
+    }
+
+    /**
+     * Ready when every project chosen to be loaded on startup is loaded or failed to load.
+     */
+    public boolean isReady() {
+        return started && statuses.values().stream()
+                .noneMatch(status -> status.getState() == LoadState.PENDING || status.getState() == LoadState.LOADING);
+    }
+
+    public Map<String, ProjectLoadStatus> getStatuses() {
+        return Maps.newTreeMap(statuses);
+    }
+
+    // for unit test
+    void reset() {
+        statuses.clear();
+        started = false;
+    }
+}
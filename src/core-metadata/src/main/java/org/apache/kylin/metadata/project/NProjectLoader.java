@@ -59,7 +59,13 @@ public class NProjectLoader {
     public static void updateCache(@Nullable String project) {
         if (StringUtils.isNotEmpty(project) && !project.startsWith("_")) {
             val projectLoader = new NProjectLoader(KylinConfig.getInstanceFromEnv());
+            val bootstrapper = MetadataBootstrapper.getInstance();
+            boolean lazy = bootstrapper.isLazy(project);
+            long start = System.currentTimeMillis();
             val bundle = projectLoader.load(project);
+            if (lazy) {
+                bootstrapper.markLoaded(project, System.currentTimeMillis() - start);
+            }
             if (!bundle.isEmpty()) {
                 log.trace("set project {} cache {}, prev is {}", project, bundle, cache.get());
                 cache.set(bundle);
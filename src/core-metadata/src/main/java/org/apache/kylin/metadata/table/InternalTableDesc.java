@@ -54,6 +54,9 @@ public class InternalTableDesc extends ATable implements Serializable {
     private static final String PRIMARY_KEY = "primaryKey";
     private static final String SORT_BY_KEY = "sortByKey";
     private static final String SORT_BY_PARTITION_BEFORE_SAVE = "sortByPartition";
+    private static final String LOAD_MODE = "loadMode";
+    private static final String LOAD_MODE_UPSERT = "upsert";
+    private static final String VERSION_COLUMN = "versionColumn";
     public static final int INIT_SIZE = 0;
 
     @Getter
@@ -184,6 +187,26 @@ public class InternalTableDesc extends ATable implements Serializable {
                 .collect(Collectors.toList());
     }
 
+    public boolean hasPrimaryKey() {
+        return StringUtils.isNotBlank(tblProperties.get(PRIMARY_KEY));
+    }
+
+    /**
+     * In upsert mode, of the source rows with the same primary key the one with the greatest version is merged,
+     * without a version column the source rows must not share a primary key.
+     */
+    public String getVersionColumn() {
+        return StringUtils.trimToNull(tblProperties.get(VERSION_COLUMN));
+    }
+
+    /**
+     * In upsert mode, loading merges the source rows into the table by primary key instead of overwriting
+     * whole partitions, only data files containing changed rows are rewritten.
+     */
+    public boolean isUpsertMode() {
+        return LOAD_MODE_UPSERT.equalsIgnoreCase(StringUtils.trim(tblProperties.get(LOAD_MODE)));
+    }
+
     public boolean isPreloadedCacheEnable() {
         return Boolean.parseBoolean(tblProperties.getOrDefault(PRELOADED_CACHE, KylinConfig.FALSE));
     }
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.measure.percentile;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.ToDoubleFunction;
+
+import org.apache.kylin.guava30.shaded.common.collect.Lists;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import com.tdunning.math.stats.AVLTreeDigest;
+import com.tdunning.math.stats.TDigest;
+
+/**
+ * Time of merging the serialized percentile of many cube cells, with every cell deserialized into an AVL tree
+ * digest and added to another one as before, and with the centroids of every cell merged into a merging digest.
+ */
+@Disabled("Save UT time")
+class PercentileCounterMergeBenchmarkTest {
+
+    private static final double COMPRESSION = 100;
+    private static final int CELLS = 100000;
+    private static final int VALUES_PER_CELL = 50;
+    private static final int ROUNDS = 5;
+
+    @Test
+    void benchmarkMergeSerializedCells() {
+        Random random = new Random(1);
+        List<byte[]> legacyCells = Lists.newArrayListWithCapacity(CELLS);
+        List<byte[]> cells = Lists.newArrayListWithCapacity(CELLS);
+        for (int i = 0; i < CELLS; i++) {
+            TDigest legacy = TDigest.createAvlTreeDigest(COMPRESSION);
+            PercentileCounter counter = new PercentileCounter(COMPRESSION);
+            for (int j = 0; j < VALUES_PER_CELL; j++) {
+                double d = random.nextDouble() * 1000;
+                legacy.add(d);
+                counter.add(d);
+            }
+            legacy.compress();
+            ByteBuffer legacyBuffer = ByteBuffer.allocate(legacy.smallByteSize());
+            legacy.asSmallBytes(legacyBuffer);
+            legacyCells.add(legacyBuffer.array());
+            ByteBuffer buffer = ByteBuffer.allocate(counter.maxLength());
+            counter.writeRegisters(buffer);
+            cells.add(Arrays.copyOf(buffer.array(), buffer.position()));
+        }
+
+        double legacyResult = mergeWithAvlTreeDigest(legacyCells);
+        double result = mergeWithMergingDigest(cells);
+        Assertions.assertEquals(legacyResult, result, 10);
+        // cells written by older releases are merged the new way as well
+        Assertions.assertEquals(legacyResult, mergeWithMergingDigest(legacyCells), 10);
+
+        // warm up
+        time(legacyCells, this::mergeWithAvlTreeDigest);
+        time(cells, this::mergeWithMergingDigest);
+        long legacyNanos = time(legacyCells, this::mergeWithAvlTreeDigest);
+        long nanos = time(cells, this::mergeWithMergingDigest);
+
+        System.out.println("merge " + CELLS + " cells into an avl tree digest (ms) : " + legacyNanos / 1e6);
+        System.out.println("merge " + CELLS + " cells into a merging digest (ms) : " + nanos / 1e6);
+        Assertions.assertTrue(nanos < legacyNanos);
+    }
+
+    private long time(List<byte[]> cells, ToDoubleFunction<List<byte[]>> merge) {
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            merge.applyAsDouble(cells);
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * The merge before the merging digest, kept as the baseline.
+     */
+    private double mergeWithAvlTreeDigest(List<byte[]> cells) {
+        TDigest merged = TDigest.createAvlTreeDigest(COMPRESSION);
+        for (byte[] cell : cells) {
+            merged.add(AVLTreeDigest.fromBytes(ByteBuffer.wrap(cell)));
+        }
+        return merged.quantile(0.5);
+    }
+
+    private double mergeWithMergingDigest(List<byte[]> cells) {
+        PercentileCounter merged = new PercentileCounter(COMPRESSION, 0.5);
+        for (byte[] cell : cells) {
+            merged.mergeRegisters(ByteBuffer.wrap(cell));
+        }
+        return merged.getResultEstimate();
+    }
+}
@@ -19,7 +19,11 @@
 package org.apache.kylin.measure.percentile;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
@@ -28,6 +32,7 @@ import org.apache.kylin.common.util.MathUtil;
 import org.apache.kylin.guava30.shaded.common.collect.Lists;
 import org.junit.Test;
 
+import com.tdunning.math.stats.AVLTreeDigest;
 import com.tdunning.math.stats.TDigest;
 
 public class PercentileCounterTest {
@@ -59,7 +64,7 @@ public class PercentileCounterTest {
         double quantile = 0.5;
 
         PercentileCounter counter = new PercentileCounter(compression, quantile);
-        TDigest tDigest = TDigest.createAvlTreeDigest(compression);
+        TDigest tDigest = TDigest.createMergingDigest(compression);
 
         Random random = new Random();
         int dataSize = 10000;
@@ -77,4 +82,117 @@ public class PercentileCounterTest {
         assertEquals(expectedResult, actualResult, 0);
     }
 
+    @Test
+    public void testReadLegacyAvlTreeRegisters() {
+        double compression = 100;
+        Random random = new Random(20261019L);
+        TDigest legacy = TDigest.createAvlTreeDigest(compression);
+        List<Double> dataset = Lists.newArrayList();
+        for (int i = 0; i < 10000; i++) {
+            double d = random.nextDouble();
+            legacy.add(d);
+            dataset.add(d);
+        }
+        Collections.sort(dataset);
+        legacy.compress();
+        ByteBuffer buffer = ByteBuffer.allocate(legacy.smallByteSize() + 128);
+        legacy.asSmallBytes(buffer);
+        int legacyLength = buffer.position();
+        buffer.flip();
+
+        PercentileCounter counter = new PercentileCounter(compression, 0.5);
+        assertEquals(legacyLength, counter.peekLength(buffer));
+        counter.readRegisters(buffer);
+        assertEquals(legacyLength, buffer.position());
+        assertEquals(10000, counter.getRegisters().size());
+        assertEquals(MathUtil.findMedianInSortedList(dataset), counter.getResultEstimate(), 0.01);
+
+        // legacy registers are merged as well
+        buffer.rewind();
+        PercentileCounter merged = new PercentileCounter(compression, 0.5);
+        merged.mergeRegisters(buffer);
+        assertEquals(counter.getResultEstimate(), merged.getResultEstimate(), 0.001);
+    }
+
+    @Test
+    public void testWriteAndReadRegisters() {
+        PercentileCounter counter = new PercentileCounter(100, 0.9);
+        Random random = new Random(20261019L);
+        for (int i = 0; i < 10000; i++) {
+            counter.add(random.nextGaussian());
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(counter.maxLength());
+        counter.writeRegisters(buffer);
+        int length = buffer.position();
+        buffer.flip();
+
+        PercentileCounter copy = new PercentileCounter(100, 0.9);
+        assertEquals(length, copy.peekLength(buffer));
+        assertEquals(0, buffer.position());
+        copy.readRegisters(buffer);
+        assertEquals(length, buffer.position());
+        assertEquals(counter.getRegisters().size(), copy.getRegisters().size());
+        assertEquals(counter.getResultEstimate(), copy.getResultEstimate(), 0.001);
+    }
+
+    /**
+     * Merge the serialized percentile of many cube cells, every centroid takes a float and a varint as in
+     * the small encoding of the AVL tree digest, and both digests read the registers written by the other one.
+     */
+    @Test
+    public void testMergeSerializedCells() {
+        double compression = 100;
+        int cellCount = 2000;
+        Random random = new Random(20261019L);
+        List<Double> dataset = Lists.newArrayList();
+        List<byte[]> legacyCells = Lists.newArrayListWithCapacity(cellCount);
+        List<byte[]> cells = Lists.newArrayListWithCapacity(cellCount);
+        for (int i = 0; i < cellCount; i++) {
+            TDigest legacy = TDigest.createAvlTreeDigest(compression);
+            PercentileCounter counter = new PercentileCounter(compression);
+            for (int j = 0; j < 50; j++) {
+                double d = random.nextDouble() * 1000;
+                legacy.add(d);
+                counter.add(d);
+                dataset.add(d);
+            }
+            legacy.compress();
+            ByteBuffer legacyBuffer = ByteBuffer.allocate(legacy.smallByteSize());
+            legacy.asSmallBytes(legacyBuffer);
+            legacyCells.add(legacyBuffer.array());
+            ByteBuffer buffer = ByteBuffer.allocate(counter.maxLength());
+            counter.writeRegisters(buffer);
+            byte[] cell = Arrays.copyOf(buffer.array(), buffer.position());
+            cells.add(cell);
+
+            assertEquals(16 + counter.getRegisters().centroids().size() * 5, cell.length);
+            assertTrue(cell.length <= counter.getBytesEstimate(50));
+        }
+        Collections.sort(dataset);
+        double expected = MathUtil.findMedianInSortedList(dataset);
+
+        TDigest legacyMerged = TDigest.createAvlTreeDigest(compression);
+        PercentileCounter merged = new PercentileCounter(compression, 0.5);
+        for (int i = 0; i < cellCount; i++) {
+            // older releases read the registers written now
+            legacyMerged.add(AVLTreeDigest.fromBytes(ByteBuffer.wrap(cells.get(i))));
+            merged.mergeRegisters(ByteBuffer.wrap(legacyCells.get(i)));
+        }
+        assertEquals(dataset.size(), legacyMerged.size());
+        assertEquals(dataset.size(), merged.getRegisters().size());
+        assertEquals(expected, legacyMerged.quantile(0.5), 10);
+        assertEquals(expected, merged.getResultEstimate(), 10);
+    }
+
+    @Test
+    public void testMergeRegistersWithDifferentCompression() {
+        PercentileCounter counter = new PercentileCounter(1000);
+        counter.add(1);
+        ByteBuffer buffer = ByteBuffer.allocate(counter.maxLength());
+        counter.writeRegisters(buffer);
+        buffer.flip();
+
+        PercentileCounter merged = new PercentileCounter(100);
+        assertThrows(IllegalArgumentException.class, () -> merged.mergeRegisters(buffer));
+    }
 }
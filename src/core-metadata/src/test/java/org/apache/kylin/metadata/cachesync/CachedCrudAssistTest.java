@@ -20,7 +20,14 @@ package org.apache.kylin.metadata.cachesync;
 
 import static org.apache.kylin.common.util.TestUtils.getTestConfig;
 
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.kylin.common.persistence.MetadataType;
+import org.apache.kylin.common.persistence.ResourceStore;
 import org.apache.kylin.junit.annotation.MetadataInfo;
+import org.apache.kylin.junit.annotation.OverwriteProp;
 import org.apache.kylin.metadata.user.ManagedUser;
 import org.apache.kylin.metadata.user.NKylinUserManager;
 import org.junit.jupiter.api.Assertions;
@@ -60,4 +67,37 @@ class CachedCrudAssistTest {
         // insert a deleted user
         Assertions.assertThrows(IllegalArgumentException.class, () -> manager.createUser(delUser));
     }
+
+    @Test
+    @OverwriteProp(key = "kylin.metadata.bootstrap.parallelism", value = "4")
+    @OverwriteProp(key = "kylin.metadata.bootstrap.parallel-threshold", value = "2")
+    void testParallelReloadOnlyInScope() {
+        NKylinUserManager manager = NKylinUserManager.getInstance(getTestConfig());
+        for (int i = 0; i < 8; i++) {
+            manager.createUser(new ManagedUser("user" + i, "pwd", false));
+        }
+        Set<Thread> reloadThreads = ConcurrentHashMap.newKeySet();
+        CachedCrudAssist<ManagedUser> crud = new CachedCrudAssist<ManagedUser>(
+                ResourceStore.getKylinMetaStore(getTestConfig()), MetadataType.USER_INFO, null, ManagedUser.class) {
+            @Override
+            protected ManagedUser initEntityAfterReload(ManagedUser user, String resourceName) {
+                reloadThreads.add(Thread.currentThread());
+                return user;
+            }
+        };
+
+        // reloads on cache sync stay on the calling thread
+        crud.reloadAll();
+        Assertions.assertEquals(Collections.singleton(Thread.currentThread()), reloadThreads);
+
+        reloadThreads.clear();
+        CachedCrudAssist.runWithParallelReload(crud::reloadAll);
+        Assertions.assertFalse(reloadThreads.isEmpty());
+        Assertions.assertFalse(reloadThreads.contains(Thread.currentThread()));
+
+        // the scope ends with the action
+        reloadThreads.clear();
+        crud.reloadAll();
+        Assertions.assertEquals(Collections.singleton(Thread.currentThread()), reloadThreads);
+    }
 }
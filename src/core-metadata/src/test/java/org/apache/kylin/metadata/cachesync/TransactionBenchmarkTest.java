@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.metadata.cachesync;
+
+import static org.apache.kylin.common.util.TestUtils.getTestConfig;
+
+import org.apache.kylin.common.KylinConfig;
+import org.apache.kylin.common.persistence.transaction.UnitOfWork;
+import org.apache.kylin.junit.annotation.MetadataInfo;
+import org.apache.kylin.metadata.cube.model.NDataflowManager;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+
+/**
+ * Transactions per second of small dataflow updates, with and without reusing transaction contexts.
+ */
+@Disabled("Save UT time")
+@MetadataInfo
+class TransactionBenchmarkTest {
+
+    private static final String PROJECT = "default";
+
+    private static final int TRANSACTIONS = 2000;
+
+    @Test
+    void benchmarkSmallTransactions() {
+        String dataflowId = NDataflowManager.getInstance(getTestConfig(), PROJECT).listAllDataflows().get(0).getId();
+
+        getTestConfig().setProperty("kylin.metadata.transaction.context-pool-size", "0");
+        double withoutReuse = transactionsPerSecond(dataflowId);
+        getTestConfig().setProperty("kylin.metadata.transaction.context-pool-size", "8");
+        double withReuse = transactionsPerSecond(dataflowId);
+
+        System.out.println("transactions per second without reuse : " + withoutReuse);
+        System.out.println("transactions per second with reuse : " + withReuse);
+        val dataflow = NDataflowManager.getInstance(getTestConfig(), PROJECT).getDataflow(dataflowId);
+        Assertions.assertEquals(TRANSACTIONS - 1, dataflow.getCost());
+    }
+
+    private double transactionsPerSecond(String dataflowId) {
+        // warm up
+        runTransactions(dataflowId, TRANSACTIONS / 10);
+        long start = System.nanoTime();
+        runTransactions(dataflowId, TRANSACTIONS);
+        return TRANSACTIONS * 1e9 / (System.nanoTime() - start);
+    }
+
+    private void runTransactions(String dataflowId, int count) {
+        for (int i = 0; i < count; i++) {
+            int cost = i;
+            UnitOfWork.doInTransactionWithRetry(() -> {
+                NDataflowManager.getInstance(KylinConfig.getInstanceFromEnv(), PROJECT).updateDataflow(dataflowId,
+                        copyForWrite -> copyForWrite.setCost(cost));
+                return null;
+            }, PROJECT);
+        }
+    }
+}
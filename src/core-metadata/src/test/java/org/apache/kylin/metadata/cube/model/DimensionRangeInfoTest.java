@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kylin.metadata.cube.model;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.apache.kylin.guava30.shaded.common.collect.ImmutableMap;
+import org.apache.kylin.junit.annotation.MetadataInfo;
+import org.apache.kylin.metadata.model.TableDesc;
+import org.apache.kylin.metadata.model.TblColRef;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+@MetadataInfo(onlyProps = true)
+class DimensionRangeInfoTest {
+
+    private Map<Integer, TblColRef> dimCols() {
+        TableDesc table = TableDesc.mockup("DEFAULT.TEST_TABLE");
+        return ImmutableMap.of(0, TblColRef.mockup(table, 1, "ID", "bigint"), //
+                1, TblColRef.mockup(table, 2, "NAME", "varchar(10)"), //
+                2, TblColRef.mockup(table, 3, "PRICE", "decimal(10,2)"));
+    }
+
+    @Test
+    void testMergeAll() {
+        Map<String, DimensionRangeInfo> segment1 = ImmutableMap.of( //
+                "0", new DimensionRangeInfo("9", "100", 0L), //
+                "1", new DimensionRangeInfo("b", "d", 2L), //
+                "3", new DimensionRangeInfo("x", "y", 0L));
+        Map<String, DimensionRangeInfo> segment2 = ImmutableMap.of( //
+                "0", new DimensionRangeInfo("10", "20", 1L), //
+                "1", new DimensionRangeInfo("a", "c"));
+
+        Map<String, DimensionRangeInfo> merged = DimensionRangeInfo.mergeAll(Arrays.asList(segment1, segment2),
+                dimCols());
+        // compared by the data type of dimensions
+        Assertions.assertEquals(new DimensionRangeInfo("9", "100", 1L), merged.get("0"));
+        // the null count calculated by older versions is unknown
+        Assertions.assertEquals(new DimensionRangeInfo("a", "d", null), merged.get("1"));
+        // dimension without range in any segment
+        Assertions.assertFalse(merged.containsKey("2"));
+        // not a dimension
+        Assertions.assertFalse(merged.containsKey("3"));
+    }
+
+    @Test
+    void testMergeAllWithDimensionMissingInSegment() {
+        Map<String, DimensionRangeInfo> segment1 = ImmutableMap.of( //
+                "0", new DimensionRangeInfo("1", "5", 0L), //
+                "1", new DimensionRangeInfo("a", "c", 0L));
+        // the dimension 0 was added after a partial build of this segment, its values are not collected
+        Map<String, DimensionRangeInfo> segment2 = ImmutableMap.of("1", new DimensionRangeInfo("b", "d", 3L));
+
+        Map<String, DimensionRangeInfo> merged = DimensionRangeInfo.mergeAll(Arrays.asList(segment1, segment2),
+                dimCols());
+        Assertions.assertFalse(merged.containsKey("0"));
+        Assertions.assertEquals(new DimensionRangeInfo("a", "d", 3L), merged.get("1"));
+
+        // segments without any range
+        Map<String, DimensionRangeInfo> segment3 = ImmutableMap.of();
+        merged = DimensionRangeInfo.mergeAll(Arrays.asList(segment1, segment3), dimCols());
+        Assertions.assertTrue(merged.isEmpty());
+        Assertions.assertEquals(new DimensionRangeInfo("1", "5", null),
+                segment1.get("0").merge(new DimensionRangeInfo("2", "3"), dimCols().get(0).getType()));
+    }
+}
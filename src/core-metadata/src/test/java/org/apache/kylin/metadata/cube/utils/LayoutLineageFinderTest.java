@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.metadata.cube.utils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.apache.kylin.common.util.Pair;
+import org.apache.kylin.guava30.shaded.common.collect.Lists;
+import org.apache.kylin.guava30.shaded.common.collect.Sets;
+import org.apache.kylin.metadata.cube.model.LayoutEntity;
+import org.apache.kylin.metadata.model.NDataModel;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LayoutLineageFinderTest {
+
+    private static final Function<LayoutEntity, List<Integer>> DIMENSIONS = layout -> layout.getColOrder().stream()
+            .filter(id -> id < NDataModel.MEASURE_ID_BASE).collect(Collectors.toList());
+
+    @Test
+    public void testFindSubSequenceLineage() {
+        LayoutEntity layout1 = createLayout(1L, Lists.newArrayList(1, 2, 3, 100000), Lists.newArrayList());
+        LayoutEntity layout2 = createLayout(2L, Lists.newArrayList(1, 3, 100000), Lists.newArrayList());
+        LayoutEntity layout3 = createLayout(3L, Lists.newArrayList(3, 1, 100000), Lists.newArrayList());
+        LayoutEntity layout4 = createLayout(4L, Lists.newArrayList(1, 100000), Lists.newArrayList(1));
+        List<LayoutEntity> sortedLayouts = IndexPlanReduceUtil
+                .descSortByColOrderSize(Lists.newArrayList(layout1, layout2, layout3, layout4));
+
+        Set<Pair<LayoutEntity, LayoutEntity>> lineage = LayoutLineageFinder.findSubSequenceLineage(sortedLayouts,
+                DIMENSIONS);
+        // layout3 is not a sub-sequence of layout1, layout4 has a different shard by column
+        Assert.assertEquals(Sets.newHashSet(new Pair<>(layout2, layout1)), lineage);
+    }
+
+    @Test
+    public void testSameLineageWithComparingAllPairs() {
+        Random random = new Random(20261019L);
+        List<LayoutEntity> layouts = Lists.newArrayList();
+        for (int i = 0; i < 600; i++) {
+            List<Integer> dims = Lists.newArrayList();
+            for (int dim = 0; dim < 12; dim++) {
+                if (random.nextInt(3) > 0) {
+                    dims.add(dim);
+                }
+            }
+            if (random.nextBoolean()) {
+                Collections.shuffle(dims.subList(0, dims.size() / 2), random);
+            }
+            List<Integer> colOrder = Lists.newArrayList(dims);
+            colOrder.add(NDataModel.MEASURE_ID_BASE);
+            List<Integer> shardBy = random.nextInt(4) == 0 && !dims.isEmpty() ? Lists.newArrayList(dims.get(0))
+                    : Lists.newArrayList();
+            layouts.add(createLayout(i + 1L, colOrder, shardBy));
+        }
+        List<LayoutEntity> sortedLayouts = IndexPlanReduceUtil.descSortByColOrderSize(layouts);
+
+        Set<Pair<LayoutEntity, LayoutEntity>> expected = findLineageByAllPairs(sortedLayouts);
+        Set<Pair<LayoutEntity, LayoutEntity>> actual = LayoutLineageFinder.findSubSequenceLineage(sortedLayouts,
+                DIMENSIONS);
+        Assert.assertFalse(expected.isEmpty());
+        Assert.assertEquals(expected, actual);
+    }
+
+    private Set<Pair<LayoutEntity, LayoutEntity>> findLineageByAllPairs(List<LayoutEntity> sortedLayouts) {
+        Set<Pair<LayoutEntity, LayoutEntity>> lineageSet = Sets.newHashSet();
+        for (int i = 0; i < sortedLayouts.size(); i++) {
+            LayoutEntity father = sortedLayouts.get(i);
+            for (int j = i + 1; j < sortedLayouts.size(); j++) {
+                LayoutEntity son = sortedLayouts.get(j);
+                if (father.getColOrder().size() == son.getColOrder().size()
+                        || !Objects.equals(son.getShardByColumns(), father.getShardByColumns())) {
+                    continue;
+                }
+                if (IndexPlanReduceUtil.isSubPartColOrder(DIMENSIONS.apply(son), DIMENSIONS.apply(father))) {
+                    lineageSet.add(new Pair<>(son, father));
+                }
+            }
+        }
+        return lineageSet;
+    }
+
+    private LayoutEntity createLayout(long id, List<Integer> colOrder, List<Integer> shardBy) {
+        LayoutEntity layout = new LayoutEntity();
+        layout.setId(id);
+        layout.setColOrder(colOrder);
+        layout.setShardByColumns(shardBy);
+        return layout;
+    }
+}
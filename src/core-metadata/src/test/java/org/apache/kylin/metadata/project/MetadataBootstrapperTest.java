@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.metadata.project;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kylin.common.util.NLocalFileMetadataTestCase;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import lombok.val;
+
+public class MetadataBootstrapperTest extends NLocalFileMetadataTestCase {
+
+    private final MetadataBootstrapper bootstrapper = MetadataBootstrapper.getInstance();
+
+    @Before
+    public void setUp() throws Exception {
+        createTestMetadata();
+        bootstrapper.reset();
+    }
+
+    @After
+    public void after() throws Exception {
+        bootstrapper.reset();
+        cleanupTestMetadata();
+    }
+
+    @Test
+    public void testBootstrapAllProjects() throws Exception {
+        val config = getTestConfig();
+        Assert.assertFalse(bootstrapper.isReady());
+        bootstrapper.bootstrap(config).get(60, TimeUnit.SECONDS);
+
+        Assert.assertTrue(bootstrapper.isReady());
+        val statuses = bootstrapper.getStatuses();
+        Assert.assertEquals(NProjectManager.getInstance(config).listAllProjects().size(), statuses.size());
+        Assert.assertEquals(MetadataBootstrapper.LoadState.LOADED, statuses.get("default").getState());
+    }
+
+    @Test
+    public void testLazyLoadColdProjects() throws Exception {
+        val config = getTestConfig();
+        config.setProperty("kylin.metadata.bootstrap.lazy-load-enabled", "true");
+        config.setProperty("kylin.metadata.bootstrap.eager-load-max-projects", "0");
+        config.setProperty("kylin.metadata.bootstrap.eager-load-projects", "default");
+        bootstrapper.bootstrap(config).get(60, TimeUnit.SECONDS);
+
+        Assert.assertTrue(bootstrapper.isReady());
+        val statuses = bootstrapper.getStatuses();
+        Assert.assertEquals(MetadataBootstrapper.LoadState.LOADED, statuses.get("default").getState());
+        Assert.assertEquals(MetadataBootstrapper.LoadState.LAZY, statuses.get("ssb").getState());
+
+        // a cold project is loaded on its first access
+        NProjectLoader.updateCache("ssb");
+        NProjectLoader.removeCache();
+        Assert.assertEquals(MetadataBootstrapper.LoadState.LOADED, bootstrapper.getStatuses().get("ssb").getState());
+    }
+}
@@ -99,4 +99,23 @@ class InternalTableDescTest {
         table.optimizeTblProperties();
         Assertions.assertTrue(table.isSortByPartitionEnabled());
     }
+
+    @Test
+    void testUpsertMode() {
+        NTableMetadataManager tableMetadataManager = NTableMetadataManager.getInstance(KylinConfig.getInstanceFromEnv(),
+                "default");
+        TableDesc originTable = tableMetadataManager.getTableDesc("DEFAULT.TEST_KYLIN_FACT");
+        InternalTableDesc table = new InternalTableDesc(originTable);
+
+        HashMap<String, String> tblProperties = new HashMap<>();
+        table.setTblProperties(tblProperties);
+        Assertions.assertFalse(table.isUpsertMode());
+        Assertions.assertFalse(table.hasPrimaryKey());
+
+        tblProperties.put("loadMode", "UPSERT");
+        tblProperties.put("primaryKey", "trans_id");
+        table.setTblProperties(tblProperties);
+        Assertions.assertTrue(table.isUpsertMode());
+        Assertions.assertTrue(table.hasPrimaryKey());
+    }
 }
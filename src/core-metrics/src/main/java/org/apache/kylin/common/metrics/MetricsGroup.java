@@ -295,6 +295,7 @@ public class MetricsGroup {
         newCounter(MetricsName.JOB_ERROR, MetricsCategory.PROJECT, projectName, tags);
         newHistogram(MetricsName.JOB_DURATION_HISTOGRAM, MetricsCategory.PROJECT, projectName, tags);
         newCounter(MetricsName.JOB_WAIT_DURATION, MetricsCategory.PROJECT, projectName, tags);
+        newHistogram(MetricsName.JOB_START_LATENCY, MetricsCategory.PROJECT, projectName, tags);
         // metadata management
         newCounter(MetricsName.METADATA_CLEAN, MetricsCategory.PROJECT, projectName, tags);
         newCounter(MetricsName.METADATA_BACKUP, MetricsCategory.PROJECT, projectName, tags);
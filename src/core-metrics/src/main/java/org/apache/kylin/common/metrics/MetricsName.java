@@ -81,6 +81,8 @@ public enum MetricsName {
     QUERY_3S_5S_RATIO("bw_3s_5s_ratio", ClusterConstant.ALL, ClusterConstant.QUERY), //
     QUERY_5S_10S_RATIO("bw_5s_10s_ratio", ClusterConstant.ALL, ClusterConstant.QUERY), //
     QUERY_SLOW_RATIO("gt10s_query_ratio", ClusterConstant.ALL, ClusterConstant.QUERY), //
+    QUERY_ADMISSION_QUEUE_TIME("query_admission_queue_time", ClusterConstant.ALL, ClusterConstant.QUERY), //
+    QUERY_ADMISSION_REJECTED("query_admission_rejected_total_times", ClusterConstant.ALL, ClusterConstant.QUERY), //
 
     //job
     JOB("job_created_total_times", ClusterConstant.ALL, ClusterConstant.JOB), //
@@ -96,6 +98,7 @@ public enum MetricsName {
     JOB_RUNNING_GAUGE("running_job_num_gauge", true), //
     JOB_PENDING_GAUGE("pending_job_num_gauge", true), //
     JOB_WAIT_DURATION("job_wait_duration", ClusterConstant.ALL, ClusterConstant.JOB), //
+    JOB_START_LATENCY("job_start_latency", ClusterConstant.ALL, ClusterConstant.JOB), //
 
     // host
     QUERY_HOST("query_num_per_host"), //
@@ -129,6 +132,11 @@ public enum MetricsName {
     TRANSACTION_RETRY_COUNTER("transaction_retry_total_times"), //
     TRANSACTION_LATENCY("transaction_latency"), //
 
+    //broadcast
+    BROADCAST_DELIVERY_LATENCY("broadcast_delivery_latency"), //
+    BROADCAST_COALESCED("broadcast_coalesced_total_times"), //
+    BROADCAST_DROPPED("broadcast_dropped_total_times"), //
+
     //user management
     USER_GAUGE("user_num_gauge", true), //
 
@@ -38,6 +38,7 @@ public enum MetricsTag {
     HOST("host"), //
     TIMEOUT("timeout"), //
     WAITING("waiting"), //
+    PRIORITY("priority"), //
     CONSTANTS("constants");
 
     private final String value;
@@ -30,6 +30,7 @@ import static org.mockito.Mockito.when;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
@@ -69,8 +70,12 @@ import org.apache.kylin.rest.response.InternalTableDescResponse;
 import org.apache.kylin.rest.response.InternalTableLoadingJobResponse;
 import org.apache.kylin.rest.util.AclEvaluate;
 import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.RowFactory;
 import org.apache.spark.sql.SparderEnv;
 import org.apache.spark.sql.SparkSession;
+import org.apache.spark.sql.types.DataTypes;
+import org.apache.spark.sql.types.StructType;
 import org.assertj.core.util.Lists;
 import org.junit.Assert;
 import org.junit.jupiter.api.AfterAll;
@@ -90,6 +95,7 @@ import org.springframework.security.authentication.TestingAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 import io.delta.tables.ClickhouseTable;
+import io.delta.tables.DeltaTable;
 import lombok.val;
 import lombok.extern.slf4j.Slf4j;
 
@@ -756,6 +762,68 @@ public class InternalTableServiceTest extends AbstractTestCase {
         }
     }
 
+    @Test
+    void testUpsertInternalTable() throws Exception {
+        KylinConfig config = KylinConfig.getInstanceFromEnv();
+        NTableMetadataManager tManager = NTableMetadataManager.getInstance(config, PROJECT);
+        InternalTableManager internalTableManager = InternalTableManager.getInstance(config, PROJECT);
+        TableDesc table = tManager.getTableDesc(TABLE_INDENTITY);
+        InternalTableLoader loader = new InternalTableLoader();
+        SparkSession ss = SparderEnv.getSparkSession();
+        when(tableService.getPartitionColumnFormat(any(), any(), any(), any())).thenReturn("yyyy-MM-dd");
+
+        Map<String, String> tblProperties = new HashMap<>();
+        tblProperties.put("primaryKey", "TRANS_ID");
+        tblProperties.put("loadMode", "upsert");
+        internalTableService.createInternalTable(PROJECT, table.getName(), table.getDatabase(),
+                new String[] { DATE_COL }, "yyyy-MM-dd", tblProperties, InternalTableDesc.StorageType.DELTALAKE.name());
+        InternalTableDesc internalTable = internalTableManager.getInternalTableDesc(TABLE_INDENTITY);
+        String location = internalTable.generateInternalTableLocation();
+        long sourceCount = loader.getSourceData(ss, internalTable, "0", "0", null, false).count();
+
+        // the table does not exist yet, it is created by overwrite
+        loader.loadInternalTable(ss, internalTable, new String[] { "0", "0" }, null, "default", false);
+        Assertions.assertEquals(sourceCount, ss.read().format("delta").load(location).count());
+
+        // reloading merges the same rows without duplicating them
+        loader.loadInternalTable(ss, internalTable, new String[] { "0", "0" }, null, "default", false);
+        Assertions.assertEquals("MERGE", DeltaTable.forPath(ss, location).history(1).head().getAs("operation"));
+        Assertions.assertEquals(sourceCount, ss.read().format("delta").load(location).count());
+
+        // the partition values are literals, not sql, rows of other partitions are kept
+        loader.loadInternalTable(ss, internalTable, new String[] { "0", "0" },
+                new String[] { "2012-01-01", "x' OR '1' = '1" }, "default", false);
+        Assertions.assertEquals("MERGE", DeltaTable.forPath(ss, location).history(1).head().getAs("operation"));
+        Assertions.assertEquals(sourceCount, ss.read().format("delta").load(location).count());
+    }
+
+    @Test
+    void testDeduplicateUpsertSourceByVersion() {
+        SparkSession ss = SparderEnv.getSparkSession();
+        InternalTableLoader loader = new InternalTableLoader();
+        StructType schema = new StructType().add("ID", DataTypes.IntegerType).add("VERSION", DataTypes.IntegerType)
+                .add("NAME", DataTypes.StringType);
+        Dataset<Row> source = ss.createDataFrame(Arrays.asList(RowFactory.create(1, 1, "a"),
+                RowFactory.create(1, 3, "c"), RowFactory.create(1, 2, "b"), RowFactory.create(2, 1, "x")), schema);
+
+        // the row with the greatest version of each key is kept
+        List<Row> rows = loader.deduplicateByPrimaryKey(source, Arrays.asList("ID"), "VERSION").orderBy("ID")
+                .collectAsList();
+        Assertions.assertEquals(2, rows.size());
+        Assertions.assertEquals("c", rows.get(0).getString(2));
+        Assertions.assertEquals("x", rows.get(1).getString(2));
+
+        // the rows of a key can not be told apart without a version, or with the same greatest version
+        Dataset<Row> withoutVersion = loader.deduplicateByPrimaryKey(source, Arrays.asList("ID"), null);
+        Assertions.assertThrows(Exception.class, withoutVersion::collectAsList);
+        Dataset<Row> sameVersion = loader.deduplicateByPrimaryKey(source.union(source), Arrays.asList("ID"),
+                "VERSION");
+        Assertions.assertThrows(Exception.class, sameVersion::collectAsList);
+        // unique keys are kept as they are
+        Assertions.assertEquals(4,
+                loader.deduplicateByPrimaryKey(source, Arrays.asList("ID", "VERSION"), null).count());
+    }
+
     @Test
     void testCreateExistInternalTableErrorCode() throws Exception {
         KylinConfig config = KylinConfig.getInstanceFromEnv();
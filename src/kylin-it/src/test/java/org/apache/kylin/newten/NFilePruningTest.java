@@ -18,6 +18,7 @@
 
 package org.apache.kylin.newten;
 
+import java.sql.Timestamp;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
@@ -34,6 +35,7 @@ import org.apache.kylin.engine.spark.NLocalWithSparkSessionTest;
 import org.apache.kylin.guava30.shaded.common.collect.Lists;
 import org.apache.kylin.job.util.JobContextUtil;
 import org.apache.kylin.junit.TimeZoneTestRunner;
+import org.apache.kylin.metadata.cube.model.DimensionRangeInfo;
 import org.apache.kylin.metadata.cube.model.IndexPlan;
 import org.apache.kylin.metadata.cube.model.LayoutEntity;
 import org.apache.kylin.metadata.cube.model.NDataSegment;
@@ -50,9 +52,14 @@ import org.apache.kylin.util.ExecAndComp;
 import org.apache.spark.SparkConf;
 import org.apache.spark.sql.SparderEnv;
 import org.apache.spark.sql.SparkSession;
+import org.apache.spark.sql.catalyst.expressions.Attribute;
+import org.apache.spark.sql.catalyst.expressions.Expression;
+import org.apache.spark.sql.catalyst.expressions.GreaterThanOrEqual;
+import org.apache.spark.sql.catalyst.expressions.Literal;
 import org.apache.spark.sql.execution.KylinFileSourceScanExec;
 import org.apache.spark.sql.execution.SparkPlan;
 import org.apache.spark.sql.execution.adaptive.AdaptiveSparkPlanHelper;
+import org.apache.spark.sql.execution.datasource.FilePruner;
 import org.apache.spark.sql.internal.StaticSQLConf;
 import org.junit.After;
 import org.junit.Assert;
@@ -64,6 +71,8 @@ import org.junit.runner.RunWith;
 import org.sparkproject.guava.collect.Sets;
 
 import lombok.val;
+import scala.Option;
+import scala.collection.JavaConverters;
 import scala.runtime.AbstractFunction1;
 
 @RunWith(TimeZoneTestRunner.class)
@@ -245,6 +254,39 @@ public class NFilePruningTest extends NLocalWithSparkSessionTest implements Adap
         ExecAndComp.execAndCompare(query, getProject(), ExecAndComp.CompareLevel.SAME, "default");
     }
 
+    @Test
+    public void testSegPruningWithDerivedTimePartitionFilters() throws Exception {
+        // the ranges of runtime filters on the time partition column are passed in as derived filters
+        val dfId = "8c670664-8d05-466a-802f-83c023b56c77";
+        buildMultiSegs(dfId, 10001);
+        populateSSWithCSVData(getTestConfig(), getProject(), SparderEnv.getSparkSession());
+
+        val df = ExecAndComp.queryModelWithoutCompute(getProject(),
+                base + "where TEST_TIME_ENC > TIMESTAMP '2008-01-01 00:00:00'");
+        df.collect();
+        val scan = findFileSourceScanExec(df.queryExecution().executedPlan());
+        Assert.assertEquals(3L, scan.metrics().get("numFiles").get().value());
+
+        val filePruner = (FilePruner) scan.relation().location();
+        val timePartitionName = filePruner.timePartitionSchema().fieldNames()[0];
+        Attribute timePartition = JavaConverters.seqAsJavaList(scan.output()).stream()
+                .filter(attr -> attr.name().equals(timePartitionName)).findFirst().get();
+        Expression derivedFilter = new GreaterThanOrEqual(timePartition,
+                Literal.create(Timestamp.valueOf("2013-01-01 00:00:00"), timePartition.dataType()));
+
+        // only the segment [2013-01-01 00:00:00, 2015-01-01 00:00:00) is left
+        val files = filePruner.listFilesInternal(scan.partitionFilters(), scan.dataFilters(),
+                JavaConverters.asScalaBuffer(Lists.newArrayList(derivedFilter)).toSeq());
+        long numFiles = JavaConverters.seqAsJavaList(files).stream().mapToLong(dir -> dir.files().size()).sum();
+        Assert.assertEquals(1L, numFiles);
+
+        Option<Object> prunedFiles = KylinFileSourceScanExec.runtimeFilterPrunedFiles(filePruner,
+                scan.partitionFilters(), scan.dataFilters(), numFiles);
+        Assert.assertEquals(2L, prunedFiles.get());
+        Assert.assertTrue(KylinFileSourceScanExec.runtimeFilterPrunedFiles(filePruner, scan.partitionFilters(),
+                JavaConverters.asScalaBuffer(Lists.<Expression> newArrayList()).toSeq(), numFiles).isEmpty());
+    }
+
     @Test
     public void testShardPruning() throws Exception {
         overwriteSystemProp("kylin.storage.columnar.shard-rowcount", "100");
@@ -617,6 +659,41 @@ public class NFilePruningTest extends NLocalWithSparkSessionTest implements Adap
         Assert.assertTrue(segment.getDimensionRangeInfoMap().isEmpty());
     }
 
+    @Test
+    public void testDimRangePruningWithIsNull() throws Exception {
+        String dataflowId = "3f152495-44de-406c-9abf-b11d4132aaed";
+        overwriteSystemProp("kylin.engine.persist-flattable-enabled", "false");
+        buildMultiSegs(dataflowId);
+        populateSSWithCSVData(getTestConfig(), getProject(), SparderEnv.getSparkSession());
+        Segments<NDataSegment> segments = NDataflowManager.getInstance(getTestConfig(), getProject())
+                .getDataflow(dataflowId).getSegments();
+        Assert.assertEquals(3, segments.size());
+
+        // column 11 is PRICE, the last segment keeps an older range without the null count
+        updatePriceNullCount(segments.get(0), 1L);
+        updatePriceNullCount(segments.get(1), 0L);
+        updatePriceNullCount(segments.get(2), null);
+
+        val expectedRanges = Lists.<Pair<String, String>> newArrayList();
+        expectedRanges.add(Pair.newPair("2009-01-01 00:00:00", "2011-01-01 00:00:00"));
+        expectedRanges.add(Pair.newPair("2011-01-01 00:00:00", "2013-01-01 00:00:00"));
+        expectedRanges.add(Pair.newPair("2013-01-01 00:00:00", "2015-01-01 00:00:00"));
+        // the segments are pruned by the files, only the one known to have no null values is skipped
+        assertResultsAndScanFiles(dataflowId, base + "where PRICE is null", 2, false, expectedRanges);
+        assertResultsAndScanFiles(dataflowId, base + "where PRICE is not null", 3, false, expectedRanges);
+    }
+
+    private void updatePriceNullCount(NDataSegment segment, Long nullCount) {
+        EnhancedUnitOfWork.doInTransactionWithCheckAndRetry(() -> {
+            NDataSegmentManager.getInstance(getTestConfig(), getProject()).update(segment.getUuid(), copy -> {
+                DimensionRangeInfo rangeInfo = copy.getDimensionRangeInfoMap().get("11");
+                copy.getDimensionRangeInfoMap().put("11",
+                        new DimensionRangeInfo(rangeInfo.getMin(), rangeInfo.getMax(), nullCount));
+            });
+            return null;
+        }, getProject());
+    }
+
     private void basicPruningScenario(String dfId) throws Exception {
         // shard pruning supports: Equality/In/IsNull/And/Or
         // other expression(gt/lt/like/cast/substr, etc.) will select all files.
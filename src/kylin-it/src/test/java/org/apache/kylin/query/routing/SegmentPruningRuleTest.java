@@ -23,9 +23,16 @@ import static org.awaitility.Awaitility.await;
 import java.util.Calendar;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import org.apache.calcite.jdbc.CalciteSchema;
 import org.apache.calcite.rex.RexExecutorImpl;
@@ -38,7 +45,11 @@ import org.apache.kylin.common.exception.KylinTimeoutException;
 import org.apache.kylin.common.util.RandomUtil;
 import org.apache.kylin.common.util.TempMetadataBuilder;
 import org.apache.kylin.engine.spark.NLocalWithSparkSessionTest;
+import org.apache.kylin.guava30.shaded.common.collect.Lists;
+import org.apache.kylin.guava30.shaded.common.collect.Maps;
+import org.apache.kylin.guava30.shaded.common.collect.Sets;
 import org.apache.kylin.job.util.JobContextUtil;
+import org.apache.kylin.metadata.cube.model.DimensionRangeInfo;
 import org.apache.kylin.metadata.cube.model.NDataSegment;
 import org.apache.kylin.metadata.cube.model.NDataflow;
 import org.apache.kylin.metadata.cube.model.NDataflowManager;
@@ -65,6 +76,8 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import com.alibaba.ttl.TtlCallable;
+
 import lombok.val;
 
 public class SegmentPruningRuleTest extends NLocalWithSparkSessionTest {
@@ -673,6 +686,52 @@ public class SegmentPruningRuleTest extends NLocalWithSparkSessionTest {
         Assert.assertEquals(0, selectSegmentList.size());
     }
 
+    @Test
+    public void testPruningByDimRangeWithIsNull() throws Exception {
+        KylinConfig kylinConfig = getTestConfig();
+        String project = getProject();
+        val dataflowId = "1e12e297-ae63-4019-5e05-f571174ea157";
+        NDataflowManager dataflowManager = NDataflowManager.getInstance(kylinConfig, project);
+        overwriteSystemProp("kylin.query.dimension-range-filter-enabled", "true");
+        String sql = "SELECT ID2 from TEST_DB.TEST_MEASURE WHERE ID2 IS NULL";
+
+        // the ranges of ID2 have no null count, they may have ignored null values
+        List<NDataSegment> selectSegmentList = startRealizationPruner(dataflowManager, dataflowId, sql, project,
+                kylinConfig);
+        Assert.assertEquals(5, selectSegmentList.size());
+
+        updateNullCount(dataflowManager, dataflowId, "1132bdcb-ac2b-8886-427a-ee0e3b7f8c63", 2L);
+        updateNullCount(dataflowManager, dataflowId, "904964d7-b4b4-c8f5-187d-fa9b0c7bf6bf", 0L);
+        updateNullCount(dataflowManager, dataflowId, "4b3130a3-dc14-e0f9-6a9a-819db188b6b6", 0L);
+        selectSegmentList = startRealizationPruner(dataflowManager, dataflowId, sql, project, kylinConfig);
+        // only the segments known to have no null values are pruned
+        Assert.assertEquals(
+                Sets.newHashSet("f69eea91-0c16-47f4-957e-e4d1e9064e2a", "1132bdcb-ac2b-8886-427a-ee0e3b7f8c63",
+                        "9b3e9c1d-1c41-9d6f-5aa4-1b70c5a3591e"),
+                selectSegmentList.stream().map(NDataSegment::getId).collect(Collectors.toSet()));
+
+        // the range predicates still prune by the value of the column
+        sql = "SELECT ID2 from TEST_DB.TEST_MEASURE WHERE ID2 IS NULL OR ID2 = 332342344";
+        selectSegmentList = startRealizationPruner(dataflowManager, dataflowId, sql, project, kylinConfig);
+        Assert.assertEquals(
+                Sets.newHashSet("f69eea91-0c16-47f4-957e-e4d1e9064e2a", "1132bdcb-ac2b-8886-427a-ee0e3b7f8c63",
+                        "9b3e9c1d-1c41-9d6f-5aa4-1b70c5a3591e", "4b3130a3-dc14-e0f9-6a9a-819db188b6b6"),
+                selectSegmentList.stream().map(NDataSegment::getId).collect(Collectors.toSet()));
+    }
+
+    private void updateNullCount(NDataflowManager dataflowManager, String dataflowId, String segmentId,
+            Long nullCount) {
+        // column 3 is ID2
+        NDataSegment segment = dataflowManager.getDataflow(dataflowId).getSegment(segmentId).copy();
+        Map<String, DimensionRangeInfo> rangeInfoMap = Maps.newHashMap(segment.getDimensionRangeInfoMap());
+        DimensionRangeInfo rangeInfo = rangeInfoMap.get("3");
+        rangeInfoMap.put("3", new DimensionRangeInfo(rangeInfo.getMin(), rangeInfo.getMax(), nullCount));
+        segment.setDimensionRangeInfoMap(rangeInfoMap);
+        NDataflowUpdate update = new NDataflowUpdate(dataflowId);
+        update.setToUpdateSegs(segment);
+        dataflowManager.updateDataflowWithoutIndex(update);
+    }
+
     @Test
     public void testPruningWithDifferentConjunctions() throws Exception {
         KylinConfig kylinConfig = getTestConfig();
@@ -694,6 +753,80 @@ public class SegmentPruningRuleTest extends NLocalWithSparkSessionTest {
         Assert.assertEquals(5, selectSegmentList.size());
     }
 
+    @Test
+    public void testPruningMemoSharedByContexts() throws Exception {
+        val dataflowId = "3718b614-5191-2254-77e9-f4c5ca64e309";
+        KylinConfig kylinConfig = getTestConfig();
+        String project = getProject();
+        NDataflow dataflow = NDataflowManager.getInstance(kylinConfig, project).getDataflow(dataflowId);
+        String branch = "SELECT DATE_6 FROM TEST_DB.TEST_FACT_13_10W WHERE DATE_6 >= '2021-10-28' AND DATE_6 < '2021-11-05'";
+        List<OlapContext> olapContexts = OlapContextTestUtil.getOlapContexts(project,
+                branch + " UNION ALL " + branch);
+        Assert.assertEquals(2, olapContexts.size());
+
+        QueryContext.current().getPrunedSegmentsMemo().clear();
+        CalciteSchema rootSchema = new QueryExec(project, kylinConfig).getRootSchema();
+        SimpleDataContext dataContext = new SimpleDataContext(rootSchema.plus(), TypeSystem.javaTypeFactory(),
+                kylinConfig);
+        List<List<NDataSegment>> results = Lists.newArrayList();
+        for (OlapContext context : olapContexts) {
+            context.getFirstTableScan().getCluster().getPlanner().setExecutor(new RexExecutorImpl(dataContext));
+            context.fixModel(dataflow.getModel(), context.matchJoins(dataflow.getModel(), false, false));
+            results.add(new SegmentPruningRule().pruneSegments(dataflow, context));
+        }
+        Assert.assertEquals(1, QueryContext.current().getPrunedSegmentsMemo().size());
+        Assert.assertEquals(4, results.get(0).size());
+        Assert.assertEquals(results.get(0), results.get(1));
+    }
+
+    @Test
+    public void testPruningMemoSharedByParallelContexts() throws Exception {
+        val dataflowId = "3718b614-5191-2254-77e9-f4c5ca64e309";
+        KylinConfig kylinConfig = getTestConfig();
+        String project = getProject();
+        NDataflow dataflow = NDataflowManager.getInstance(kylinConfig, project).getDataflow(dataflowId);
+        String branch = "SELECT DATE_6 FROM TEST_DB.TEST_FACT_13_10W WHERE DATE_6 >= '2021-10-28' AND DATE_6 < '2021-11-05'";
+        List<OlapContext> olapContexts = OlapContextTestUtil.getOlapContexts(project,
+                branch + " UNION ALL " + branch + " UNION ALL " + branch + " UNION ALL " + branch);
+        Assert.assertEquals(4, olapContexts.size());
+
+        QueryContext.current().getPrunedSegmentsMemo().clear();
+        CalciteSchema rootSchema = new QueryExec(project, kylinConfig).getRootSchema();
+        SimpleDataContext dataContext = new SimpleDataContext(rootSchema.plus(), TypeSystem.javaTypeFactory(),
+                kylinConfig);
+        // the contexts are chosen in parallel like kylin.query.realization-chooser-using-multi-threads=true
+        ExecutorService executor = Executors.newFixedThreadPool(olapContexts.size());
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Segments<NDataSegment>>> futures = Lists.newArrayList();
+            for (OlapContext context : olapContexts) {
+                context.getFirstTableScan().getCluster().getPlanner().setExecutor(new RexExecutorImpl(dataContext));
+                context.fixModel(dataflow.getModel(), context.matchJoins(dataflow.getModel(), false, false));
+                futures.add(executor.submit(Objects.requireNonNull(TtlCallable.get(() -> {
+                    start.await();
+                    try (KylinConfig.SetAndUnsetThreadLocalConfig ignored = KylinConfig
+                            .setAndUnsetThreadLocalConfig(kylinConfig)) {
+                        return new SegmentPruningRule().pruneSegments(dataflow, context);
+                    }
+                }))));
+            }
+            start.countDown();
+            List<List<NDataSegment>> results = Lists.newArrayList();
+            for (Future<Segments<NDataSegment>> future : futures) {
+                results.add(future.get(1, TimeUnit.MINUTES));
+            }
+
+            // all contexts share the pruning of one of them
+            Map<String, CompletableFuture<List<String>>> memo = QueryContext.current().getPrunedSegmentsMemo();
+            Assert.assertEquals(1, memo.size());
+            Assert.assertEquals(4, memo.values().iterator().next().get().size());
+            results.forEach(result -> Assert.assertEquals(results.get(0), result));
+            Assert.assertEquals(4, results.get(0).size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     @Override
     public String getProject() {
         return "multi_partition_date_type";
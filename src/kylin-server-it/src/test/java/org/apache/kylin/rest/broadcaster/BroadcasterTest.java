@@ -29,13 +29,18 @@ import static org.apache.kylin.common.util.ClusterConstant.SMART;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
 
 import org.apache.kylin.common.KylinConfig;
 import org.apache.kylin.common.constant.ObsConfig;
 import org.apache.kylin.common.persistence.transaction.AddCredentialToSparkBroadcastEventNotifier;
 import org.apache.kylin.common.persistence.transaction.AuditLogBroadcastEventNotifier;
 import org.apache.kylin.common.persistence.transaction.BroadcastEventReadyNotifier;
+import org.apache.kylin.common.persistence.transaction.JobSchedulingBroadcastNotifier;
+import org.apache.kylin.common.persistence.transaction.StopQueryBroadcastEventNotifier;
+import org.apache.kylin.guava30.shaded.common.collect.Lists;
 import org.apache.kylin.junit.annotation.MetadataInfo;
 import org.apache.kylin.rest.cluster.ClusterManager;
 import org.apache.kylin.rest.cluster.DefaultClusterManager;
@@ -107,6 +112,56 @@ class BroadcasterTest {
         }
     }
 
+    @Test
+    void testAnnounceCoalesceAndPriority() {
+        Broadcaster broadcaster = new Broadcaster(new DefaultClusterManager(7070));
+        broadcaster.announce(new AuditLogBroadcastEventNotifier());
+        // the same event is coalesced while it is still waiting
+        broadcaster.announce(new AuditLogBroadcastEventNotifier());
+        broadcaster.announce(new StopQueryBroadcastEventNotifier("query-1"));
+        broadcaster.announce(new StopQueryBroadcastEventNotifier("query-2"));
+
+        BlockingQueue<?> eventQueue = (BlockingQueue<?>) ReflectionTestUtils.getField(broadcaster, "eventQueue");
+        Assertions.assertNotNull(eventQueue);
+        Assertions.assertEquals(3, eventQueue.size());
+        List<BroadcastEventReadyNotifier> polled = Lists.newArrayList();
+        Object event;
+        while ((event = eventQueue.poll()) != null) {
+            polled.add(ReflectionTestUtils.invokeMethod(event, "getNotifier"));
+        }
+        // stopping queries is delivered first, in the announced order
+        Assertions.assertEquals(new StopQueryBroadcastEventNotifier("query-1"), polled.get(0));
+        Assertions.assertEquals(new StopQueryBroadcastEventNotifier("query-2"), polled.get(1));
+        Assertions.assertEquals(new AuditLogBroadcastEventNotifier(), polled.get(2));
+    }
+
+    @Test
+    void testAnnounceKeepsOrderOfSameKey() {
+        Broadcaster broadcaster = new Broadcaster(new DefaultClusterManager(7070));
+        JobSchedulingBroadcastNotifier scheduling = new JobSchedulingBroadcastNotifier();
+        broadcaster.announce(scheduling);
+        BroadcastEventReadyNotifier projectEvent = new BroadcastEventReadyNotifier();
+        projectEvent.setProject("default");
+        broadcaster.announce(projectEvent);
+        // not coalesced with the waiting one, which is not the latest of its project
+        JobSchedulingBroadcastNotifier projectScheduling = new JobSchedulingBroadcastNotifier();
+        projectScheduling.setProject("default");
+        broadcaster.announce(projectScheduling);
+
+        BlockingQueue<?> eventQueue = (BlockingQueue<?>) ReflectionTestUtils.getField(broadcaster, "eventQueue");
+        Assertions.assertNotNull(eventQueue);
+        Assertions.assertEquals(3, eventQueue.size());
+        List<BroadcastEventReadyNotifier> polled = Lists.newArrayList();
+        Object event;
+        while ((event = eventQueue.poll()) != null) {
+            polled.add(ReflectionTestUtils.invokeMethod(event, "getNotifier"));
+        }
+        // the scheduling event of the project does not overtake the earlier event of the project
+        Assertions.assertSame(scheduling, polled.get(0));
+        Assertions.assertSame(projectEvent, polled.get(1));
+        Assertions.assertSame(projectScheduling, polled.get(2));
+    }
+
     @Test
     void testBroadcastSyncAdminUserAcl() throws Exception {
         BroadcastListener broadcastListener = new BroadcastListener();
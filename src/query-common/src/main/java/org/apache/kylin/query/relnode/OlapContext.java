@@ -487,7 +487,8 @@ public class OlapContext {
     }
 
     public boolean isUniqueAsyncQuery(KylinConfig olapConfig) {
-        return QueryContext.current().getQueryTagInfo().isAsyncQuery() && olapConfig.isUniqueAsyncQueryYarnQueue();
+        return QueryContext.current().getQueryTagInfo().isAsyncQuery() && olapConfig.isUniqueAsyncQueryYarnQueue()
+                && !QueryContext.current().getQueryTagInfo().isAsyncQueryOnSharedApp();
     }
 
     public boolean asyncQueryUseGlutenEnabled(KylinConfig olapConfig) {
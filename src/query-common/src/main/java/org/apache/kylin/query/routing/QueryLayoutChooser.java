@@ -20,7 +20,7 @@ package org.apache.kylin.query.routing;
 
 import java.util.Collection;
 import java.util.Comparator;
-import java.util.Iterator;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -361,19 +361,16 @@ public class QueryLayoutChooser {
 
     /**
      * compare filters with dim pos in layout, filter columns are sorted by filter type and selectivity (cardinality)
+     * the positions of a candidate are computed once per comparator, as sorting compares a candidate many times
      */
     public static Comparator<NLayoutCandidate> colComparator(List<Integer> sortedCols) {
+        Map<NLayoutCandidate, int[]> positionsCache = new IdentityHashMap<>();
         return (layoutCandidate1, layoutCandidate2) -> {
-            List<Integer> position1 = getColumnsPos(layoutCandidate1, sortedCols);
-            List<Integer> position2 = getColumnsPos(layoutCandidate2, sortedCols);
-            Iterator<Integer> iter1 = position1.iterator();
-            Iterator<Integer> iter2 = position2.iterator();
-
-            while (iter1.hasNext() && iter2.hasNext()) {
-                int i1 = iter1.next();
-                int i2 = iter2.next();
-
-                int c = i1 - i2;
+            int[] position1 = positionsCache.computeIfAbsent(layoutCandidate1, c -> getColumnsPos(c, sortedCols));
+            int[] position2 = positionsCache.computeIfAbsent(layoutCandidate2, c -> getColumnsPos(c, sortedCols));
+            int length = Math.min(position1.length, position2.length);
+            for (int i = 0; i < length; i++) {
+                int c = position1[i] - position2[i];
                 if (c != 0)
                     return c;
             }
@@ -388,46 +385,43 @@ public class QueryLayoutChooser {
      * 2. if both layout has shardy columns in filters, compare the filter type and selectivity (cardinality)
      */
     public static Comparator<NLayoutCandidate> shardByComparator(List<Integer> columns) {
+        Map<Integer, Integer> columnIndexes = Maps.newHashMapWithExpectedSize(columns.size());
+        for (int i = 0; i < columns.size(); i++) {
+            columnIndexes.putIfAbsent(columns.get(i), i);
+        }
         return (candidate1, candidate2) -> {
-            int shardByCol1Idx = getShardByColIndex(candidate1, columns);
-            int shardByCol2Idx = getShardByColIndex(candidate2, columns);
-            return shardByCol1Idx - shardByCol2Idx;
+            int shardByCol1Idx = getShardByColIndex(candidate1, columnIndexes);
+            int shardByCol2Idx = getShardByColIndex(candidate2, columnIndexes);
+            return Integer.compare(shardByCol1Idx, shardByCol2Idx);
         };
     }
 
-    private static int getShardByColIndex(NLayoutCandidate candidate1, List<Integer> columns) {
-        int shardByCol1Idx = Integer.MAX_VALUE;
-        List<Integer> shardByCols1 = candidate1.getLayoutEntity().getShardByColumns();
-        if (CollectionUtils.isNotEmpty(shardByCols1)) {
-            int tmpCol = shardByCols1.get(0);
-            for (int i = 0; i < columns.size(); i++) {
-                if (columns.get(i) == tmpCol) {
-                    shardByCol1Idx = i;
-                    break;
-                }
-            }
+    private static int getShardByColIndex(NLayoutCandidate candidate, Map<Integer, Integer> columnIndexes) {
+        List<Integer> shardByCols = candidate.getLayoutEntity().getShardByColumns();
+        if (CollectionUtils.isEmpty(shardByCols)) {
+            return Integer.MAX_VALUE;
         }
-        return shardByCol1Idx;
+        return columnIndexes.getOrDefault(shardByCols.get(0), Integer.MAX_VALUE);
     }
 
-    private static List<Integer> getColumnsPos(final NLayoutCandidate candidate, List<Integer> sortedColumns) {
-
+    private static int[] getColumnsPos(final NLayoutCandidate candidate, List<Integer> sortedColumns) {
+        LayoutEntity layout = candidate.getLayoutEntity();
         List<Integer> positions = Lists.newArrayList();
         for (Integer col : sortedColumns) {
             DeriveInfo deriveInfo = candidate.getDerivedToHostMap().get(col);
             if (deriveInfo == null) {
-                positions.add(getDimsIndexInLayout(col, candidate));
+                positions.add(getDimsIndexInLayout(col, layout));
             } else {
                 for (Integer hostColId : deriveInfo.columns) {
-                    positions.add(getDimsIndexInLayout(hostColId, candidate));
+                    positions.add(getDimsIndexInLayout(hostColId, layout));
                 }
             }
         }
-        return positions;
+        return positions.stream().mapToInt(Integer::intValue).toArray();
     }
 
-    private static int getDimsIndexInLayout(Integer id, final NLayoutCandidate candidate) {
+    private static int getDimsIndexInLayout(Integer id, final LayoutEntity layout) {
         //get dimension
-        return id == null ? -1 : candidate.getLayoutEntity().getColOrder().indexOf(id);
+        return id == null ? -1 : layout.getColumnPosition(id);
     }
 }
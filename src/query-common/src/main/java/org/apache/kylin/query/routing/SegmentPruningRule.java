@@ -23,23 +23,31 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
 import org.apache.calcite.plan.RelOptPredicateList;
 import org.apache.calcite.plan.RelOptUtil;
 import org.apache.calcite.rex.RexBuilder;
+import org.apache.calcite.rex.RexCall;
 import org.apache.calcite.rex.RexInputRef;
 import org.apache.calcite.rex.RexNode;
 import org.apache.calcite.rex.RexSimplify;
 import org.apache.calcite.rex.RexUtil;
+import org.apache.calcite.rex.RexVisitorImpl;
+import org.apache.calcite.sql.SqlKind;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.time.DateUtils;
 import org.apache.kylin.common.KylinConfig;
+import org.apache.kylin.common.QueryContext;
 import org.apache.kylin.common.exception.KylinRuntimeException;
 import org.apache.kylin.common.exception.KylinTimeoutException;
 import org.apache.kylin.common.util.DateFormat;
 import org.apache.kylin.guava30.shaded.common.collect.BiMap;
 import org.apache.kylin.guava30.shaded.common.collect.Lists;
+import org.apache.kylin.guava30.shaded.common.collect.Sets;
 import org.apache.kylin.metadata.cube.cuboid.NLayoutCandidate;
 import org.apache.kylin.metadata.cube.model.DimensionRangeInfo;
 import org.apache.kylin.metadata.cube.model.NDataSegment;
@@ -156,7 +164,6 @@ public class SegmentPruningRule extends PruningRule {
             return dataflow.getQueryableSegments();
         }
 
-        Segments<NDataSegment> selectedSegments = new Segments<>();
         RexInputRef partitionColInputRef = olapContext.getFilterColumns().contains(partitionColRef)
                 ? RexUtils.transformColumn2RexInputRef(partitionColRef, olapContext.getAllTableScans())
                 : null;
@@ -164,6 +171,67 @@ public class SegmentPruningRule extends PruningRule {
         Map<TblColRef, RexInputRef> dimTblInputRefMap = dimTblColRefs.stream().collect(Collectors.toMap(tcr -> tcr,
                 tcr -> RexUtils.transformColumn2RexInputRef(tcr, olapContext.getAllTableScans())));
 
+        Set<Integer> nullTestedInputRefs = collectNullTestedInputRefs(simplifiedFilter);
+
+        if (!dataflow.getConfig().isQuerySegmentPruningMemoEnabled()) {
+            return pruneQueryableSegments(dataflow, rexSimplify, partitionColRef, partitionColInputRef,
+                    partitionDateFormat, dimTblInputRefMap, nullTestedInputRefs, simplifiedFilter);
+        }
+
+        // contexts chosen in parallel wait for the one pruning with the same key instead of pruning again
+        String memoKey = getPruningMemoKey(dataflow, partitionColInputRef, partitionDateFormat, dimTblInputRefMap,
+                simplifiedFilter);
+        Map<String, CompletableFuture<List<String>>> memo = QueryContext.current().getPrunedSegmentsMemo();
+        CompletableFuture<List<String>> pruning = new CompletableFuture<>();
+        CompletableFuture<List<String>> memoized = memo.computeIfAbsent(memoKey, key -> pruning);
+        if (memoized != pruning) {
+            List<String> memoizedSegmentIds = waitForMemoizedPruning(memoized);
+            if (memoizedSegmentIds != null) {
+                Segments<NDataSegment> selectedSegments = new Segments<>();
+                memoizedSegmentIds.forEach(segmentId -> selectedSegments.add(dataflow.getSegment(segmentId)));
+                log.info("Scan segments {}/{} pruned by the same filter of another context",
+                        selectedSegments.size(), dataflow.getQueryableSegments().size());
+                return selectedSegments;
+            }
+            return pruneQueryableSegments(dataflow, rexSimplify, partitionColRef, partitionColInputRef,
+                    partitionDateFormat, dimTblInputRefMap, nullTestedInputRefs, simplifiedFilter);
+        }
+
+        try {
+            Segments<NDataSegment> selectedSegments = pruneQueryableSegments(dataflow, rexSimplify, partitionColRef,
+                    partitionColInputRef, partitionDateFormat, dimTblInputRefMap, nullTestedInputRefs,
+                    simplifiedFilter);
+            pruning.complete(selectedSegments.stream().map(NDataSegment::getId).collect(Collectors.toList()));
+            return selectedSegments;
+        } catch (RuntimeException e) {
+            // let the waiting and later contexts prune by themselves
+            memo.remove(memoKey, pruning);
+            pruning.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * @return the segment ids pruned by another context, or null if that context failed
+     */
+    private List<String> waitForMemoizedPruning(CompletableFuture<List<String>> memoized) {
+        try {
+            return memoized.get();
+        } catch (InterruptedException ie) {
+            log.error("Interrupted on waiting for segments pruned by another context!", ie);
+            Thread.currentThread().interrupt();
+            throw new KylinRuntimeException(ie);
+        } catch (ExecutionException ee) {
+            log.warn("Pruning segments by the same filter failed in another context, prune again", ee.getCause());
+            return null;
+        }
+    }
+
+    private Segments<NDataSegment> pruneQueryableSegments(NDataflow dataflow, RexSimplify rexSimplify,
+            TblColRef partitionColRef, RexInputRef partitionColInputRef, String partitionDateFormat,
+            Map<TblColRef, RexInputRef> dimTblInputRefMap, Set<Integer> nullTestedInputRefs,
+            RexNode simplifiedFilter) {
+        Segments<NDataSegment> selectedSegments = new Segments<>();
         for (NDataSegment segment : dataflow.getQueryableSegments()) {
             try {
                 QueryInterruptChecker.checkQueryCanceledOrThreadInterrupted(
@@ -173,7 +241,8 @@ public class SegmentPruningRule extends PruningRule {
                 List<RexNode> allPredicates = Lists.newArrayList();
                 allPredicates.addAll(collectPartitionPredicates(rexSimplify.rexBuilder, segment, partitionColInputRef,
                         partitionDateFormat, partitionColRef.getType()));
-                allPredicates.addAll(collectDimensionPredicates(rexSimplify.rexBuilder, segment, dimTblInputRefMap));
+                allPredicates.addAll(collectDimensionPredicates(rexSimplify.rexBuilder, segment, dimTblInputRefMap,
+                        nullTestedInputRefs));
                 RelOptPredicateList predicateList = RelOptPredicateList.of(rexSimplify.rexBuilder, allPredicates);
 
                 // To improve this simplification after fixed https://olapio.atlassian.net/browse/KE-42295
@@ -201,6 +270,27 @@ public class SegmentPruningRule extends PruningRule {
         return selectedSegments;
     }
 
+    /**
+     * The pruning result only depends on the queryable segments, the input refs of the partition column and
+     * the dimensions, and the simplified filter. Input refs are unique among the table scans of a context,
+     * so contexts of the same tables with the same filter share the key.
+     */
+    private String getPruningMemoKey(NDataflow dataflow, RexInputRef partitionColInputRef, String partitionDateFormat,
+            Map<TblColRef, RexInputRef> dimTblInputRefMap, RexNode simplifiedFilter) {
+        StringBuilder key = new StringBuilder(dataflow.getId());
+        for (NDataSegment segment : dataflow.getQueryableSegments()) {
+            key.append(',').append(segment.getId()).append(':').append(segment.getMvcc());
+        }
+        key.append('|').append(partitionColInputRef).append(':').append(partitionDateFormat).append('|');
+        dimTblInputRefMap.entrySet().stream().map(entry -> entry.getKey().getIdentity() + ":" + entry.getValue())
+                .sorted().forEach(dim -> key.append(dim).append(','));
+        key.append('|').append(simplifiedFilter).append('|');
+        RexUtils.getAllInputRefs(simplifiedFilter).stream()
+                .map(ref -> ref.getIndex() + ":" + ref.getType().getFullTypeString()).sorted()
+                .forEach(ref -> key.append(ref).append(','));
+        return key.toString();
+    }
+
     private Segments<NDataSegment> selectSegmentsForMaxMeasure(NDataflow dataflow) {
         Segments<NDataSegment> selectedSegments = new Segments<>();
         long days = dataflow.getConfig().getMaxMeasureSegmentPrunerBeforeDays();
@@ -250,8 +340,25 @@ public class SegmentPruningRule extends PruningRule {
         return true;
     }
 
+    /**
+     * The indexes of input refs tested by IS NULL in the filter.
+     */
+    private Set<Integer> collectNullTestedInputRefs(RexNode filter) {
+        Set<Integer> nullTested = Sets.newHashSet();
+        filter.accept(new RexVisitorImpl<Void>(true) {
+            @Override
+            public Void visitCall(RexCall call) {
+                if (call.getKind() == SqlKind.IS_NULL && call.getOperands().get(0) instanceof RexInputRef) {
+                    nullTested.add(((RexInputRef) call.getOperands().get(0)).getIndex());
+                }
+                return super.visitCall(call);
+            }
+        });
+        return nullTested;
+    }
+
     private List<RexNode> collectDimensionPredicates(RexBuilder rexBuilder, NDataSegment dataSegment,
-            Map<TblColRef, RexInputRef> dimTblInputRefMap) {
+            Map<TblColRef, RexInputRef> dimTblInputRefMap, Set<Integer> nullTestedInputRefs) {
         Map<String, DimensionRangeInfo> dimRangeInfoMap = dataSegment.getDimensionRangeInfoMap();
         if (dimRangeInfoMap.isEmpty()) {
             return Collections.emptyList();
@@ -266,6 +373,12 @@ public class SegmentPruningRule extends PruningRule {
                 log.warn("There is no values for the column[{}] in this segment.", tblColRef.getName());
                 return;
             }
+            // the range predicates imply the column is not null, which only holds for a segment known to
+            // have no null values; older ranges without a null count ignored nulls when collecting min/max
+            Long nullCount = dimRangeInfo.getNullCount();
+            if ((nullCount == null || nullCount > 0) && nullTestedInputRefs.contains(inputRef.getIndex())) {
+                return;
+            }
 
             List<RexNode> rexNodes = transformValue2RexCall(rexBuilder, inputRef, tblColRef.getType(),
                     dimRangeInfo.getMin(), dimRangeInfo.getMax(), true);
@@ -24,6 +24,7 @@ import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 import org.apache.commons.lang3.StringUtils;
@@ -55,6 +56,13 @@ public class AsyncQueryUtil {
         private String code;
     }
 
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ResultManifest {
+        private List<String> files;
+    }
+
     public static final String ASYNC_QUERY_JOB_ID_PRE = "ASYNC-QUERY-";
     private static final Logger logger = LoggerFactory.getLogger(AsyncQueryUtil.class);
 
@@ -167,6 +175,41 @@ public class AsyncQueryUtil {
         return null;
     }
 
+    /**
+     * Save the result files in the order to be downloaded, the result written by executors
+     * is split into several files.
+     */
+    public static void saveResultManifest(Path asyncQueryResultDir, List<String> files) throws IOException {
+        try (FSDataOutputStream os = getFileSystem().create(new Path(asyncQueryResultDir, getManifestFileName()))) {
+            os.write(JsonUtil.writeValueAsBytes(new ResultManifest(files)));
+            os.hflush();
+        }
+    }
+
+    /**
+     * Get the result files in the order of the manifest, or all the data files by name without a manifest.
+     */
+    public static List<Path> getResultFiles(Path asyncQueryResultDir) throws IOException {
+        FileSystem fileSystem = getFileSystem();
+        Path manifestPath = new Path(asyncQueryResultDir, getManifestFileName());
+        List<Path> resultFiles = Lists.newArrayList();
+        if (fileSystem.exists(manifestPath)) {
+            try (FSDataInputStream in = fileSystem.open(manifestPath)) {
+                ResultManifest manifest = JsonUtil.readValue(in, ResultManifest.class);
+                manifest.getFiles().forEach(file -> resultFiles.add(new Path(asyncQueryResultDir, file)));
+            }
+            return resultFiles;
+        }
+        for (FileStatus fileStatus : fileSystem.listStatus(asyncQueryResultDir)) {
+            String name = fileStatus.getPath().getName();
+            if (!name.startsWith("_") && !name.startsWith(".")) {
+                resultFiles.add(fileStatus.getPath());
+            }
+        }
+        resultFiles.sort(Comparator.comparing(Path::getName));
+        return resultFiles;
+    }
+
     public static Path getAsyncQueryResultDir(String project, String queryId) {
         return new Path(KapConfig.getInstanceFromEnv().getAsyncResultBaseDir(project), queryId);
     }
@@ -191,4 +234,8 @@ public class AsyncQueryUtil {
         return "_FILEINFO";
     }
 
+    public static String getManifestFileName() {
+        return "_MANIFEST";
+    }
+
 }
@@ -64,6 +64,7 @@ public class SchemaConverter implements IPushDownConverter {
             return originSql;
         }
         if (QueryContext.current().getQueryTagInfo().isAsyncQuery() && config.isUniqueAsyncQueryYarnQueue()
+                && !QueryContext.current().getQueryTagInfo().isAsyncQueryOnSharedApp()
                 && !config.uniqueAsyncQueryUseGlutenEnabled()) {
             log.debug("Async query, skip it");
             return originSql;
@@ -352,12 +352,9 @@ public class AsyncQueryService extends BasicService {
 
     private void processFile(OutputStream outputStream, Path dataPath) throws IOException {
         FileSystem fileSystem = AsyncQueryUtil.getFileSystem();
-        FileStatus[] fileStatuses = fileSystem.listStatus(dataPath);
-        for (FileStatus f : fileStatuses) {
-            if (!f.getPath().getName().startsWith("_")) {
-                try (FSDataInputStream inputStream = fileSystem.open(f.getPath())) {
-                    IOUtils.copy(inputStream, outputStream);
-                }
+        for (Path resultFile : AsyncQueryUtil.getResultFiles(dataPath)) {
+            try (FSDataInputStream inputStream = fileSystem.open(resultFile)) {
+                IOUtils.copy(inputStream, outputStream);
             }
         }
     }
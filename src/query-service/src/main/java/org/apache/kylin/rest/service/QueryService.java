@@ -65,6 +65,7 @@ import org.apache.kylin.common.QueryContext;
 import org.apache.kylin.common.QueryTrace;
 import org.apache.kylin.common.constant.LogConstant;
 import org.apache.kylin.common.debug.BackdoorToggles;
+import org.apache.kylin.common.exception.AsyncQueryTooLargeException;
 import org.apache.kylin.common.exception.BigQueryException;
 import org.apache.kylin.common.exception.KylinException;
 import org.apache.kylin.common.exception.KylinTimeoutException;
@@ -159,6 +160,7 @@ import org.apache.kylin.rest.util.AclPermissionUtil;
 import org.apache.kylin.rest.util.QueryCacheSignatureUtil;
 import org.apache.kylin.rest.util.QueryRequestLimits;
 import org.apache.kylin.rest.util.QueryUtils;
+import org.apache.kylin.rest.util.SharedAsyncQuerySlots;
 import org.apache.kylin.rest.util.SparderUIUtil;
 import org.apache.kylin.rest.util.TableauInterceptor;
 import org.slf4j.Logger;
@@ -240,6 +242,10 @@ public class QueryService extends BasicService implements CacheSignatureQuerySup
                 if (StringUtils.isNotEmpty(sqlRequest.getSparkQueue())) {
                     queryParams.setSparkQueue(sqlRequest.getSparkQueue());
                 }
+                SQLResponse sharedAppResponse = queryOnSharedAsyncApp(queryParams);
+                if (sharedAppResponse != null) {
+                    return sharedAppResponse;
+                }
                 AsyncQueryJob asyncQueryJob = new AsyncQueryJob();
                 asyncQueryJob.setProject(queryParams.getProject());
                 slowQueryDetector.addJobIdForAsyncQueryJob(asyncQueryJob.getId());
@@ -273,6 +279,37 @@ public class QueryService extends BasicService implements CacheSignatureQuerySup
         }
     }
 
+    /**
+     * Run the async query on the long-lived sparder of this node instead of a new spark application, which saves
+     * the application startup and the metadata dump. Returns null when the query should be submitted as
+     * an async query job, because the shared application is disabled or busy, or the query is too large.
+     */
+    private SQLResponse queryOnSharedAsyncApp(QueryParams queryParams) throws Exception {
+        KylinConfig projectConfig = NProjectManager.getProjectConfig(queryParams.getProject());
+        if (!projectConfig.isAsyncQuerySharedAppEnabled()
+                || !SharedAsyncQuerySlots.tryAcquire(projectConfig.getAsyncQuerySharedAppMaxConcurrency())) {
+            return null;
+        }
+        QueryContext.QueryTagInfo queryTagInfo = QueryContext.current().getQueryTagInfo();
+        queryTagInfo.setAsyncQueryOnSharedApp(true);
+        try {
+            logger.info("Run async query {} on the shared application", QueryContext.current().getQueryId());
+            QueryResult result = queryRoutingEngine.queryWithSqlMassage(queryParams);
+            return buildSqlResponse(queryTagInfo.isPushdown(), result.getRowsIterable(), result.getSize(),
+                    result.getColumnMetas(), queryParams.getProject());
+        } catch (Exception e) {
+            if (!AsyncQueryTooLargeException.causedByTooLarge(e)) {
+                throw e;
+            }
+            logger.info("Async query {} is too large for the shared application, submit it as a job",
+                    QueryContext.current().getQueryId());
+            queryTagInfo.setAsyncQueryOnSharedApp(false);
+            return null;
+        } finally {
+            SharedAsyncQuerySlots.release();
+        }
+    }
+
     public void stopQuery(String id) {
         slowQueryDetector.stopQuery(id);
     }
@@ -411,7 +448,8 @@ public class QueryService extends BasicService implements CacheSignatureQuerySup
                 .put(LogReport.REFUSE, response.isRefused());
         String log = report.oldStyleLog();
         if (!(QueryContext.current().getQueryTagInfo().isAsyncQuery()
-                && NProjectManager.getProjectConfig(request.getProject()).isUniqueAsyncQueryYarnQueue())) {
+                && NProjectManager.getProjectConfig(request.getProject()).isUniqueAsyncQueryYarnQueue()
+                && !QueryContext.current().getQueryTagInfo().isAsyncQueryOnSharedApp())) {
             logger.info(log);
             logger.debug(report.jsonStyleLog());
             if (request.getExecuteAs() != null)
@@ -713,7 +751,8 @@ public class QueryService extends BasicService implements CacheSignatureQuerySup
         }
 
         if (!(QueryContext.current().getQueryTagInfo().isAsyncQuery()
-                && NProjectManager.getProjectConfig(sqlRequest.getProject()).isUniqueAsyncQueryYarnQueue())) {
+                && NProjectManager.getProjectConfig(sqlRequest.getProject()).isUniqueAsyncQueryYarnQueue()
+                && !QueryContext.current().getQueryTagInfo().isAsyncQueryOnSharedApp())) {
             try {
                 if (!sqlResponse.isPrepare() && QueryMetricsContext.isStarted()) {
                     val queryMetricsContext = QueryMetricsContext.collect(QueryContext.current());
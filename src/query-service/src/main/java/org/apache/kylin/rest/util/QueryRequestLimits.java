@@ -20,12 +20,19 @@ package org.apache.kylin.rest.util;
 
 import static org.apache.kylin.common.exception.ServerErrorCode.PERMISSION_DENIED;
 
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.kylin.common.KylinConfig;
+import org.apache.kylin.common.QueryContext;
 import org.apache.kylin.common.exception.KylinException;
+import org.apache.kylin.common.metrics.MetricsCategory;
+import org.apache.kylin.common.metrics.MetricsGroup;
+import org.apache.kylin.common.metrics.MetricsName;
+import org.apache.kylin.common.metrics.MetricsTag;
 import org.apache.kylin.common.msg.Message;
 import org.apache.kylin.common.msg.MsgPicker;
 import org.apache.kylin.guava30.shaded.common.cache.CacheBuilder;
@@ -33,6 +40,7 @@ import org.apache.kylin.guava30.shaded.common.cache.CacheLoader;
 import org.apache.kylin.guava30.shaded.common.cache.LoadingCache;
 import org.apache.kylin.guava30.shaded.common.cache.RemovalListener;
 import org.apache.kylin.guava30.shaded.common.cache.RemovalNotification;
+import org.apache.kylin.guava30.shaded.common.collect.Maps;
 import org.apache.kylin.metadata.project.NProjectManager;
 import org.apache.kylin.metadata.project.ProjectInstance;
 import org.slf4j.Logger;
@@ -87,6 +95,18 @@ public class QueryRequestLimits implements AutoCloseable {
         }
     }
 
+    /**
+     * @return a releaser of the opened request slot, which only closes the request the first time it runs
+     */
+    static Runnable requestSlotReleaser(String project, int maxConcurrentQuery) {
+        AtomicBoolean released = new AtomicBoolean(false);
+        return () -> {
+            if (released.compareAndSet(false, true)) {
+                closeQueryRequest(project, maxConcurrentQuery);
+            }
+        };
+    }
+
     public static Integer getCurrentRunningQuery(String project) {
         AtomicInteger nRunningQueries = runningStats.getIfPresent(project);
         if (nRunningQueries != null) {
@@ -100,16 +120,24 @@ public class QueryRequestLimits implements AutoCloseable {
 
     private final String project;
     private final int maxConcurrentQuery;
+    private final boolean admissionQueueEnabled;
+    private final Runnable releaser;
 
     public QueryRequestLimits(String project) {
         this.project = project;
 
         NProjectManager mgr = NProjectManager.getInstance(KylinConfig.getInstanceFromEnv());
         ProjectInstance prj = mgr.getProject(project);
+        this.admissionQueueEnabled = prj.getConfig().isQueryAdmissionQueueEnabled();
         this.maxConcurrentQuery = prj.getConfig().getQueryConcurrentRunningThresholdForProject();
 
         boolean ok = openQueryRequest(project, maxConcurrentQuery);
         checkRequest(ok);
+        this.releaser = requestSlotReleaser(project, maxConcurrentQuery);
+        if (admissionQueueEnabled) {
+            // queries answered by sparder hand the slot over to the admission queue, see QueryAdmissionController
+            QueryContext.current().setRequestSlotReleaser(releaser);
+        }
     }
 
     private static void checkRequest(boolean ok) {
@@ -121,6 +149,24 @@ public class QueryRequestLimits implements AutoCloseable {
 
     @Override
     public void close() {
-        closeQueryRequest(project, maxConcurrentQuery);
+        releaser.run();
+        if (admissionQueueEnabled) {
+            QueryContext.current().setRequestSlotReleaser(null);
+            recordAdmissionMetrics(project, QueryContext.currentMetrics());
+        }
+    }
+
+    static void recordAdmissionMetrics(String project, QueryContext.Metrics metrics) {
+        if (metrics.getAdmissionPriority() == null) {
+            return;
+        }
+        Map<String, String> tags = Maps.newHashMap();
+        tags.put(MetricsTag.PRIORITY.getVal(), metrics.getAdmissionPriority());
+        if (metrics.isAdmissionRejected()) {
+            MetricsGroup.counterInc(MetricsName.QUERY_ADMISSION_REJECTED, MetricsCategory.PROJECT, project, tags);
+        } else if (metrics.getAdmissionQueueTime() >= 0) {
+            MetricsGroup.histogramUpdate(MetricsName.QUERY_ADMISSION_QUEUE_TIME, MetricsCategory.PROJECT, project,
+                    tags, metrics.getAdmissionQueueTime());
+        }
     }
 }
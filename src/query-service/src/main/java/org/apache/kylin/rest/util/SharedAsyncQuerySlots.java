@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.rest.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits the async queries running on the shared application (the long-lived sparder of the query node),
+ * async queries that can not get a slot are submitted as standalone async query jobs.
+ */
+public class SharedAsyncQuerySlots {
+
+    private static final AtomicInteger runningCount = new AtomicInteger(0);
+
+    private SharedAsyncQuerySlots() {
+    }
+
+    public static boolean tryAcquire(int maxConcurrency) {
+        while (true) {
+            int current = runningCount.get();
+            if (current >= maxConcurrency) {
+                return false;
+            }
+            if (runningCount.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public static void release() {
+        runningCount.decrementAndGet();
+    }
+
+    public static int getRunningCount() {
+        return runningCount.get();
+    }
+}
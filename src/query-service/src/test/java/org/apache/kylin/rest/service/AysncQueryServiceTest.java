@@ -242,6 +242,38 @@ public class AysncQueryServiceTest extends ServiceTestBase {
         Assert.assertEquals("EXPR$0,EXPR$1\n\"123\"\"\",123\n", baos.toString(StandardCharsets.UTF_8.name()));
     }
 
+    @Test
+    public void testAsyncQueryAndDownloadCsvResultInParallel() throws IOException, SQLException {
+        overwriteSystemProp("kylin.query.async-query.parallel-export-enabled", "true");
+        QueryContext queryContext = QueryContext.current();
+        String queryId = queryContext.getQueryId();
+        mockMetadata(queryId, true);
+        queryContext.getQueryTagInfo().setAsyncQuery(true);
+        queryContext.getQueryTagInfo().setFileFormat("csv");
+        queryContext.getQueryTagInfo().setFileEncode("utf-8");
+        queryContext.getQueryTagInfo().setSeparator(",");
+        queryContext.getQueryTagInfo().setIncludeHeader(true);
+
+        String sql = "select '123\"','123'";
+        queryContext.setProject(PROJECT);
+
+        new QueryExec(PROJECT, getTestConfig()).executeQuery(sql);
+
+        Assert.assertSame(AsyncQueryService.QueryStatus.SUCCESS, asyncQueryService.queryStatus(PROJECT, queryId));
+        Path path = asyncQueryService.getAsyncQueryResultDir(PROJECT, queryId);
+        FileSystem fs = HadoopUtil.getWorkingFileSystem();
+        Assert.assertTrue(fs.exists(new Path(path, AsyncQueryUtil.getManifestFileName())));
+        List<Path> resultFiles = AsyncQueryUtil.getResultFiles(path);
+        Assert.assertEquals("header.csv", resultFiles.get(0).getName());
+        Assert.assertTrue(resultFiles.stream().skip(1).allMatch(file -> file.getName().startsWith("part-")));
+
+        // download asyncQuery result
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        ByteArrayOutputStream baos = mockOutputStream(response);
+        asyncQueryService.retrieveSavedQueryResult(PROJECT, queryId, response, "csv", encodeDefault);
+        Assert.assertEquals("EXPR$0,EXPR$1\n\"123\"\"\",123\n", baos.toString(StandardCharsets.UTF_8.name()));
+    }
+
     @Test
     public void testAsyncQueryPushDownAndDownloadCsvResultNotIncludeHeader() throws IOException {
         QueryContext queryContext = QueryContext.current();
@@ -34,4 +34,25 @@ public class QueryRequestLimitsTest {
         }
         Assert.assertThrows(KylinException.class, () -> ReflectionTestUtils.invokeMethod(QueryRequestLimits.class, "checkRequest", false));
     }
+
+    @Test
+    public void testRequestSlotReleasedOnce() {
+        String project = "request_slot_project";
+        Assert.assertTrue(QueryRequestLimits.openQueryRequest(project, 2));
+        Assert.assertTrue(QueryRequestLimits.openQueryRequest(project, 2));
+        Assert.assertFalse(QueryRequestLimits.openQueryRequest(project, 2));
+
+        // handed over to the admission queue, then closed
+        Runnable releaser = QueryRequestLimits.requestSlotReleaser(project, 2);
+        releaser.run();
+        releaser.run();
+        Assert.assertEquals(1, (int) QueryRequestLimits.getCurrentRunningQuery(project));
+
+        // queries bypassing the queue are still limited
+        Assert.assertTrue(QueryRequestLimits.openQueryRequest(project, 2));
+        Assert.assertFalse(QueryRequestLimits.openQueryRequest(project, 2));
+        QueryRequestLimits.closeQueryRequest(project, 2);
+        QueryRequestLimits.closeQueryRequest(project, 2);
+        Assert.assertEquals(0, (int) QueryRequestLimits.getCurrentRunningQuery(project));
+    }
 }
@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.rest.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SharedAsyncQuerySlotsTest {
+
+    @Test
+    public void testAcquireAndRelease() {
+        Assert.assertTrue(SharedAsyncQuerySlots.tryAcquire(2));
+        Assert.assertTrue(SharedAsyncQuerySlots.tryAcquire(2));
+        Assert.assertFalse(SharedAsyncQuerySlots.tryAcquire(2));
+        Assert.assertEquals(2, SharedAsyncQuerySlots.getRunningCount());
+
+        SharedAsyncQuerySlots.release();
+        Assert.assertTrue(SharedAsyncQuerySlots.tryAcquire(2));
+        SharedAsyncQuerySlots.release();
+        SharedAsyncQuerySlots.release();
+        Assert.assertEquals(0, SharedAsyncQuerySlots.getRunningCount());
+        Assert.assertFalse(SharedAsyncQuerySlots.tryAcquire(0));
+    }
+}
@@ -18,6 +18,8 @@
 
 package org.apache.kylin.query.engine.exec;
 
+import static org.apache.kylin.common.exception.ServerErrorCode.PERMISSION_DENIED;
+
 import java.util.List;
 
 import org.apache.calcite.DataContext;
@@ -27,11 +29,16 @@ import org.apache.kylin.common.KapConfig;
 import org.apache.kylin.common.KylinConfig;
 import org.apache.kylin.common.QueryContext;
 import org.apache.kylin.common.QueryTrace;
+import org.apache.kylin.common.exception.KylinException;
+import org.apache.kylin.common.msg.MsgPicker;
 import org.apache.kylin.guava30.shaded.common.collect.ImmutableList;
 import org.apache.kylin.guava30.shaded.common.collect.Lists;
 import org.apache.kylin.metadata.cube.cuboid.NLayoutCandidate;
 import org.apache.kylin.metadata.cube.model.IndexEntity;
+import org.apache.kylin.metadata.cube.model.NDataLayout;
+import org.apache.kylin.metadata.cube.model.NDataSegment;
 import org.apache.kylin.metadata.project.NProjectManager;
+import org.apache.kylin.metadata.query.BigQueryThresholdUpdater;
 import org.apache.kylin.query.engine.exec.sparder.QueryEngine;
 import org.apache.kylin.query.engine.meta.MutableDataContext;
 import org.apache.kylin.query.engine.meta.SimpleDataContext;
@@ -39,8 +46,10 @@ import org.apache.kylin.query.relnode.ContextUtil;
 import org.apache.kylin.query.relnode.OlapContext;
 import org.apache.kylin.query.relnode.OlapRel;
 import org.apache.kylin.query.runtime.SparkEngine;
+import org.apache.kylin.query.util.QueryAdmissionController;
 import org.apache.kylin.query.util.QueryContextCutter;
 import org.apache.kylin.query.util.QueryHelper;
+import org.apache.kylin.query.util.QueryPriorityClass;
 
 import lombok.val;
 import lombok.extern.slf4j.Slf4j;
@@ -120,7 +129,64 @@ public class SparderPlanExec implements QueryPlanExec {
         }
 
         // submit rel and dataContext to query engine
-        return internalCompute(new SparkEngine(), dataContext, rel.getInput(0));
+        try (QueryAdmissionController.Ticket ignored = admitQuery(contexts)) {
+            return internalCompute(new SparkEngine(), dataContext, rel.getInput(0));
+        }
+    }
+
+    /**
+     * Wait in the admission queue of the project, the priority is decided by the rows of the chosen layouts.
+     */
+    private QueryAdmissionController.Ticket admitQuery(List<OlapContext> contexts) {
+        String project = QueryContext.current().getProject();
+        KylinConfig projectConfig = NProjectManager.getProjectConfig(project);
+        if (!projectConfig.isQueryAdmissionQueueEnabled()) {
+            return null;
+        }
+        // the concurrency is limited by the admission queue from now on
+        QueryContext.current().releaseRequestSlot();
+        boolean scanTableIndex = false;
+        long estimatedRows = 0;
+        for (OlapContext context : contexts) {
+            NLayoutCandidate candidate = context.getStorageContext().getBatchCandidate();
+            if (candidate == null || candidate.isEmpty()) {
+                continue;
+            }
+            scanTableIndex = scanTableIndex || candidate.isTableIndex();
+            estimatedRows += estimateLayoutRows(candidate);
+        }
+        QueryContext.Metrics metrics = QueryContext.currentMetrics();
+        QueryPriorityClass priority = QueryPriorityClass.classify(QueryContext.current().getQueryTagInfo(),
+                scanTableIndex, estimatedRows, BigQueryThresholdUpdater.getBigQueryThreshold());
+        metrics.setAdmissionPriority(priority.name());
+        metrics.setAdmissionEstimatedRows(estimatedRows);
+
+        QueryAdmissionController.AdmissionLimits limits = new QueryAdmissionController.AdmissionLimits(
+                projectConfig.getQueryConcurrentRunningThresholdForProject(),
+                projectConfig.getQueryAdmissionHeavySlotRatio(), projectConfig.getQueryAdmissionQueueMaxSize(),
+                projectConfig.getQueryAdmissionQueueMaxWaitMs());
+        QueryAdmissionController.Ticket ticket = QueryAdmissionController.getInstance().tryAdmit(project, priority,
+                limits);
+        if (ticket == null) {
+            metrics.setAdmissionRejected(true);
+            throw new KylinException(PERMISSION_DENIED, MsgPicker.getMsg().getQueryTooManyRunning());
+        }
+        metrics.setAdmissionQueueTime(ticket.getQueueTimeMs());
+        return ticket;
+    }
+
+    private long estimateLayoutRows(NLayoutCandidate candidate) {
+        if (candidate.getPrunedSegments() == null) {
+            return 0;
+        }
+        long rows = 0;
+        for (NDataSegment segment : candidate.getPrunedSegments()) {
+            NDataLayout dataLayout = segment.getLayout(candidate.getLayoutId());
+            if (dataLayout != null) {
+                rows += dataLayout.getRows();
+            }
+        }
+        return rows;
     }
 
     private boolean checkNotAsyncQueryAndCalciteEngineCapable(RelNode rel) {
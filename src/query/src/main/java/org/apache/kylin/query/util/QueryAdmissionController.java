@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.query.util;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import lombok.Getter;
+
+/**
+ * Per-project admission queue for queries answered by Sparder.
+ *
+ * Instead of refusing a query as soon as the project reaches its concurrent running threshold, the query waits
+ * in a bounded queue for at most the configured time. Waiting queries are granted slots by priority class first
+ * (see {@link QueryPriorityClass}) and by arrival order second. Heavy and async queries share a capped number of
+ * slots, so that a few big scans can never take all slots away from VIP and light queries.
+ */
+public class QueryAdmissionController {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryAdmissionController.class);
+
+    private static final QueryAdmissionController INSTANCE = new QueryAdmissionController();
+
+    private final Map<String, ProjectQueue> projectQueues = new ConcurrentHashMap<>();
+
+    QueryAdmissionController() {
+    }
+
+    public static QueryAdmissionController getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return the admitted ticket which must be closed when the query finishes,
+     *         or null if the query is rejected because the queue is full or the wait timed out
+     */
+    public Ticket tryAdmit(String project, QueryPriorityClass priority, AdmissionLimits limits) {
+        if (limits.getMaxConcurrent() <= 0) {
+            return new Ticket(null, priority, 0);
+        }
+        ProjectQueue queue = projectQueues.computeIfAbsent(project, ProjectQueue::new);
+        return queue.tryAdmit(priority, limits);
+    }
+
+    public AdmissionStats getStats(String project) {
+        ProjectQueue queue = projectQueues.get(project);
+        return queue == null ? null : queue.stats;
+    }
+
+    // for unit test
+    void clear() {
+        projectQueues.clear();
+    }
+
+    @Getter
+    public static class AdmissionLimits {
+        private final int maxConcurrent;
+        private final int maxHeavyConcurrent;
+        private final int maxQueueSize;
+        private final long maxWaitMs;
+
+        public AdmissionLimits(int maxConcurrent, double heavySlotRatio, int maxQueueSize, long maxWaitMs) {
+            this.maxConcurrent = maxConcurrent;
+            this.maxHeavyConcurrent = Math.max(1, (int) Math.floor(maxConcurrent * heavySlotRatio));
+            this.maxQueueSize = maxQueueSize;
+            this.maxWaitMs = maxWaitMs;
+        }
+    }
+
+    public static class AdmissionStats {
+        @Getter
+        private final AtomicLong admitted = new AtomicLong();
+        @Getter
+        private final AtomicLong rejected = new AtomicLong();
+        @Getter
+        private final AtomicLong totalQueueTimeMs = new AtomicLong();
+    }
+
+    public static class Ticket implements AutoCloseable {
+        private final ProjectQueue queue;
+        @Getter
+        private final QueryPriorityClass priority;
+        @Getter
+        private final long queueTimeMs;
+        private boolean closed;
+
+        private Ticket(ProjectQueue queue, QueryPriorityClass priority, long queueTimeMs) {
+            this.queue = queue;
+            this.priority = priority;
+            this.queueTimeMs = queueTimeMs;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (queue != null) {
+                queue.release(priority);
+            }
+        }
+    }
+
+    private static class Waiter {
+        private final QueryPriorityClass priority;
+        private final long seq;
+        private final Condition condition;
+        private boolean granted;
+
+        private Waiter(QueryPriorityClass priority, long seq, Condition condition) {
+            this.priority = priority;
+            this.seq = seq;
+            this.condition = condition;
+        }
+    }
+
+    private static class ProjectQueue {
+        private final String project;
+        private final ReentrantLock lock = new ReentrantLock(true);
+        private final TreeSet<Waiter> waiters = new TreeSet<>(
+                Comparator.<Waiter> comparingInt(w -> w.priority.ordinal()).thenComparingLong(w -> w.seq));
+        private final AdmissionStats stats = new AdmissionStats();
+        private AdmissionLimits limits;
+        private int running;
+        private int heavyRunning;
+        private long seq;
+
+        private ProjectQueue(String project) {
+            this.project = project;
+        }
+
+        private Ticket tryAdmit(QueryPriorityClass priority, AdmissionLimits limits) {
+            long start = System.currentTimeMillis();
+            lock.lock();
+            try {
+                this.limits = limits;
+                Waiter waiter = new Waiter(priority, seq++, lock.newCondition());
+                waiters.add(waiter);
+                dispatch();
+                if (!waiter.granted && waiters.size() > limits.getMaxQueueSize()) {
+                    waiters.remove(waiter);
+                    return reject(priority, "the admission queue is full");
+                }
+
+                long remainingNanos = TimeUnit.MILLISECONDS.toNanos(limits.getMaxWaitMs());
+                while (!waiter.granted) {
+                    if (remainingNanos <= 0) {
+                        waiters.remove(waiter);
+                        return reject(priority, "waiting for a free slot timed out");
+                    }
+                    try {
+                        remainingNanos = waiter.condition.awaitNanos(remainingNanos);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        if (waiter.granted) {
+                            releaseLocked(priority);
+                        } else {
+                            waiters.remove(waiter);
+                        }
+                        return reject(priority, "the query is interrupted while waiting");
+                    }
+                }
+                long queueTime = System.currentTimeMillis() - start;
+                stats.admitted.incrementAndGet();
+                stats.totalQueueTimeMs.addAndGet(queueTime);
+                return new Ticket(this, priority, queueTime);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private Ticket reject(QueryPriorityClass priority, String reason) {
+            stats.rejected.incrementAndGet();
+            logger.warn("Query of priority {} is rejected by the admission queue of project {}, because {}. "
+                    + "Running: {}, waiting: {}.", priority, project, reason, running, waiters.size());
+            return null;
+        }
+
+        private void release(QueryPriorityClass priority) {
+            lock.lock();
+            try {
+                releaseLocked(priority);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void releaseLocked(QueryPriorityClass priority) {
+            running--;
+            if (priority.isHeavy()) {
+                heavyRunning--;
+            }
+            dispatch();
+        }
+
+        /**
+         * Grant free slots to waiters in priority order. A heavy waiter blocked by the heavy slot cap
+         * does not block lighter waiters queued behind it.
+         */
+        private void dispatch() {
+            Iterator<Waiter> iterator = waiters.iterator();
+            while (running < limits.getMaxConcurrent() && iterator.hasNext()) {
+                Waiter waiter = iterator.next();
+                if (waiter.priority.isHeavy() && heavyRunning >= limits.getMaxHeavyConcurrent()) {
+                    continue;
+                }
+                iterator.remove();
+                running++;
+                if (waiter.priority.isHeavy()) {
+                    heavyRunning++;
+                }
+                waiter.granted = true;
+                waiter.condition.signal();
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.query.util;
+
+import org.apache.kylin.common.QueryContext;
+
+/**
+ * Priority classes of the query admission queue, declared from the highest priority to the lowest.
+ */
+public enum QueryPriorityClass {
+    VIP(false), LIGHT(false), HEAVY(true), ASYNC(true);
+
+    private final boolean heavy;
+
+    QueryPriorityClass(boolean heavy) {
+        this.heavy = heavy;
+    }
+
+    public boolean isHeavy() {
+        return heavy;
+    }
+
+    /**
+     * @param scanTableIndex whether any chosen layout is a table index
+     * @param estimatedRows rows of the chosen layouts to be scanned, negative if unknown
+     * @param bigQueryThreshold queries scanning at least this many rows are heavy, non-positive to disable
+     */
+    public static QueryPriorityClass classify(QueryContext.QueryTagInfo tagInfo, boolean scanTableIndex,
+            long estimatedRows, long bigQueryThreshold) {
+        if (tagInfo.isHighPriorityQuery()) {
+            return VIP;
+        }
+        if (tagInfo.isAsyncQuery()) {
+            return ASYNC;
+        }
+        if (scanTableIndex || bigQueryThreshold > 0 && estimatedRows >= bigQueryThreshold) {
+            return HEAVY;
+        }
+        return LIGHT;
+    }
+}
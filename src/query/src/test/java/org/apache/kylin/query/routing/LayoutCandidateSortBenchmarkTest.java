@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kylin.query.routing;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.apache.kylin.common.util.ImmutableBitSet;
+import org.apache.kylin.guava30.shaded.common.collect.ImmutableSet;
+import org.apache.kylin.guava30.shaded.common.collect.Lists;
+import org.apache.kylin.guava30.shaded.common.collect.Sets;
+import org.apache.kylin.metadata.cube.cuboid.NLayoutCandidate;
+import org.apache.kylin.metadata.cube.model.LayoutEntity;
+import org.apache.kylin.metadata.realization.CapabilityResult;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Time of sorting many layout candidates by filter columns, with the column positions looked up by
+ * col_order.indexOf() on every comparison and with the positions computed once per candidate. And time of
+ * finding the layouts having all the columns of a query, by removing the layout dimensions from the query
+ * columns as the index matchers did, and by bit tests.
+ */
+@Disabled("Save UT time")
+class LayoutCandidateSortBenchmarkTest {
+
+    private static final int LAYOUTS = 5000;
+    private static final int DIMENSIONS = 100;
+    private static final int ROUNDS = 20;
+
+    @Test
+    void benchmarkFilterColumnComparator() {
+        Random random = new Random(1);
+        List<NLayoutCandidate> candidates = Lists.newArrayList();
+        for (int i = 0; i < LAYOUTS; i++) {
+            List<Integer> colOrder = random.ints(0, DIMENSIONS).distinct().limit(DIMENSIONS / 2).boxed()
+                    .collect(Collectors.toList());
+            LayoutEntity layout = new LayoutEntity();
+            layout.setId(i + 1L);
+            layout.setColOrder(colOrder);
+            candidates.add(new NLayoutCandidate(layout, 0, new CapabilityResult()));
+        }
+        List<Integer> sortedFilters = Lists.newArrayList(7, 42, 13, 99, 5);
+
+        List<NLayoutCandidate> expected = sort(candidates, legacyColComparator(sortedFilters));
+        List<NLayoutCandidate> actual = sort(candidates, QueryLayoutChooser.colComparator(sortedFilters));
+        Assertions.assertEquals(expected, actual);
+
+        // warm up
+        time(candidates, () -> legacyColComparator(sortedFilters));
+        time(candidates, () -> QueryLayoutChooser.colComparator(sortedFilters));
+        long legacyNanos = time(candidates, () -> legacyColComparator(sortedFilters));
+        long cachedNanos = time(candidates, () -> QueryLayoutChooser.colComparator(sortedFilters));
+
+        System.out.println("sort " + LAYOUTS + " layouts with indexOf per comparison (ms) : " + legacyNanos / 1e6);
+        System.out.println("sort " + LAYOUTS + " layouts with cached positions (ms) : " + cachedNanos / 1e6);
+        Assertions.assertTrue(cachedNanos < legacyNanos);
+    }
+
+    @Test
+    void benchmarkColumnCoverage() {
+        Random random = new Random(1);
+        List<LayoutEntity> layouts = Lists.newArrayList();
+        List<Set<Integer>> layoutDimensions = Lists.newArrayList();
+        for (int i = 0; i < LAYOUTS; i++) {
+            List<Integer> colOrder = random.ints(0, DIMENSIONS).distinct().limit(DIMENSIONS / 2).boxed()
+                    .collect(Collectors.toList());
+            LayoutEntity layout = new LayoutEntity();
+            layout.setId(i + 1L);
+            layout.setColOrder(colOrder);
+            layouts.add(layout);
+            // the ordered dimensions are cached by layouts as well
+            layoutDimensions.add(ImmutableSet.copyOf(colOrder));
+        }
+        Set<Integer> sqlColumns = ImmutableSet.of(7, 42, 13);
+        ImmutableBitSet sqlColumnBits = ImmutableBitSet.valueOf(Lists.newArrayList(sqlColumns));
+
+        IntSupplier removeAll = () -> {
+            int covered = 0;
+            for (Set<Integer> dimensions : layoutDimensions) {
+                Set<Integer> unmatchedCols = Sets.newHashSet(sqlColumns);
+                unmatchedCols.removeAll(dimensions);
+                covered += unmatchedCols.isEmpty() ? 1 : 0;
+            }
+            return covered;
+        };
+        IntSupplier bitTest = () -> {
+            int covered = 0;
+            for (LayoutEntity layout : layouts) {
+                covered += sqlColumnBits.andNot(layout.getDimensionBits()).isEmpty() ? 1 : 0;
+            }
+            return covered;
+        };
+        Assertions.assertEquals(removeAll.getAsInt(), bitTest.getAsInt());
+
+        // warm up
+        time(removeAll);
+        time(bitTest);
+        long removeAllNanos = time(removeAll);
+        long bitTestNanos = time(bitTest);
+
+        System.out.println("match " + LAYOUTS + " layouts by removing columns (ms) : " + removeAllNanos / 1e6);
+        System.out.println("match " + LAYOUTS + " layouts by bit tests (ms) : " + bitTestNanos / 1e6);
+        Assertions.assertTrue(bitTestNanos < removeAllNanos);
+    }
+
+    private long time(IntSupplier match) {
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS * 10; i++) {
+            match.getAsInt();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long time(List<NLayoutCandidate> candidates, Supplier<Comparator<NLayoutCandidate>> comparator) {
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            sort(candidates, comparator.get());
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static List<NLayoutCandidate> sort(List<NLayoutCandidate> candidates,
+            Comparator<NLayoutCandidate> comparator) {
+        List<NLayoutCandidate> sorted = Lists.newArrayList(candidates);
+        sorted.sort(comparator);
+        return sorted;
+    }
+
+    /**
+     * The comparator before the positions were cached, kept as the baseline.
+     */
+    private static Comparator<NLayoutCandidate> legacyColComparator(List<Integer> sortedCols) {
+        return (layoutCandidate1, layoutCandidate2) -> {
+            Iterator<Integer> iter1 = legacyColumnsPos(layoutCandidate1, sortedCols).iterator();
+            Iterator<Integer> iter2 = legacyColumnsPos(layoutCandidate2, sortedCols).iterator();
+            while (iter1.hasNext() && iter2.hasNext()) {
+                int c = iter1.next() - iter2.next();
+                if (c != 0)
+                    return c;
+            }
+            return 0;
+        };
+    }
+
+    private static List<Integer> legacyColumnsPos(NLayoutCandidate candidate, List<Integer> sortedCols) {
+        return sortedCols.stream().map(col -> candidate.getLayoutEntity().getColOrder().indexOf(col))
+                .collect(Collectors.toList());
+    }
+}
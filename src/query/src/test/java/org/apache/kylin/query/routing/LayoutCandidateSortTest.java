@@ -24,6 +24,7 @@ import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.apache.kylin.common.KylinConfig;
+import org.apache.kylin.common.util.ImmutableBitSet;
 import org.apache.kylin.guava30.shaded.common.collect.ImmutableList;
 import org.apache.kylin.guava30.shaded.common.collect.ImmutableMap;
 import org.apache.kylin.guava30.shaded.common.collect.Lists;
@@ -196,6 +197,45 @@ class LayoutCandidateSortTest {
         }
     }
 
+    @Test
+    void testColumnComparatorOnManyLayouts() {
+        int dimCount = 10;
+        MockEntity[] mocks = new MockEntity[200];
+        for (int i = 0; i < mocks.length; i++) {
+            List<Integer> dims = Lists.newArrayList();
+            for (int k = 0; k < dimCount; k++) {
+                dims.add((i + k) % dimCount);
+            }
+            mocks[i] = new MockEntity(i * IndexEntity.INDEX_ID_STEP + 1, dims, ImmutableMap.of());
+        }
+        List<NLayoutCandidate> layoutCandidates = mockLayouts(mocks);
+        List<Integer> sortedFilters = Lists.newArrayList(3, 5);
+        layoutCandidates.sort(QueryLayoutChooser.filterColumnComparator(sortedFilters));
+
+        Assertions.assertEquals(0, layoutCandidates.get(0).getLayoutEntity().getColumnPosition(3));
+        for (int i = 1; i < layoutCandidates.size(); i++) {
+            LayoutEntity previous = layoutCandidates.get(i - 1).getLayoutEntity();
+            LayoutEntity current = layoutCandidates.get(i).getLayoutEntity();
+            Assertions.assertEquals(previous.getColOrder().indexOf(3), previous.getColumnPosition(3));
+            Assertions.assertTrue(previous.getColumnPosition(3) <= current.getColumnPosition(3));
+        }
+        Assertions.assertEquals(-1, layoutCandidates.get(0).getLayoutEntity().getColumnPosition(dimCount + 1));
+    }
+
+    @Test
+    void testLayoutColumnBits() {
+        LayoutEntity layout = new LayoutEntity();
+        layout.setColOrder(Lists.newArrayList(3, 1, 100_000, 100_002));
+        Assertions.assertEquals(ImmutableBitSet.valueOf(1, 3), layout.getDimensionBits());
+        Assertions.assertEquals(ImmutableBitSet.valueOf(0, 2), layout.getMeasureBits());
+        Assertions.assertTrue(ImmutableBitSet.valueOf(1).andNot(layout.getDimensionBits()).isEmpty());
+        Assertions.assertFalse(ImmutableBitSet.valueOf(1, 2).andNot(layout.getDimensionBits()).isEmpty());
+
+        layout.setColOrder(Lists.newArrayList(2, 100_001));
+        Assertions.assertEquals(ImmutableBitSet.valueOf(2), layout.getDimensionBits());
+        Assertions.assertEquals(ImmutableBitSet.valueOf(1), layout.getMeasureBits());
+    }
+
     @Test
     void testMeasureSizeComparator() {
         MockEntity mock1 = new MockEntity(1L, ImmutableList.of(0), ImmutableList.of(100_000, 100_001));
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.query.util;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kylin.common.QueryContext;
+import org.awaitility.Awaitility;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QueryAdmissionControllerTest {
+
+    private static final String PROJECT = "default";
+
+    private final QueryAdmissionController controller = new QueryAdmissionController();
+
+    @After
+    public void tearDown() {
+        controller.clear();
+    }
+
+    @Test
+    public void testClassify() {
+        QueryContext.QueryTagInfo tagInfo = new QueryContext.QueryTagInfo();
+        Assert.assertEquals(QueryPriorityClass.LIGHT, QueryPriorityClass.classify(tagInfo, false, 10, 100));
+        Assert.assertEquals(QueryPriorityClass.LIGHT, QueryPriorityClass.classify(tagInfo, false, 1000, -1));
+        Assert.assertEquals(QueryPriorityClass.HEAVY, QueryPriorityClass.classify(tagInfo, false, 100, 100));
+        Assert.assertEquals(QueryPriorityClass.HEAVY, QueryPriorityClass.classify(tagInfo, true, 10, 100));
+        tagInfo.setAsyncQuery(true);
+        Assert.assertEquals(QueryPriorityClass.ASYNC, QueryPriorityClass.classify(tagInfo, false, 10, 100));
+        tagInfo.setHighPriorityQuery(true);
+        Assert.assertEquals(QueryPriorityClass.VIP, QueryPriorityClass.classify(tagInfo, true, 1000, 100));
+    }
+
+    @Test
+    public void testUnlimited() {
+        QueryAdmissionController.AdmissionLimits limits = new QueryAdmissionController.AdmissionLimits(0, 0.5, 0, 0);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertNotNull(controller.tryAdmit(PROJECT, QueryPriorityClass.HEAVY, limits));
+        }
+        Assert.assertNull(controller.getStats(PROJECT));
+    }
+
+    @Test
+    public void testRejectWithoutWaiting() {
+        QueryAdmissionController.AdmissionLimits limits = new QueryAdmissionController.AdmissionLimits(1, 1, 10, 0);
+        QueryAdmissionController.Ticket ticket = controller.tryAdmit(PROJECT, QueryPriorityClass.LIGHT, limits);
+        Assert.assertNotNull(ticket);
+        Assert.assertNull(controller.tryAdmit(PROJECT, QueryPriorityClass.VIP, limits));
+        ticket.close();
+        // closing twice must not release the slot twice
+        ticket.close();
+        Assert.assertNotNull(controller.tryAdmit(PROJECT, QueryPriorityClass.VIP, limits));
+        Assert.assertNull(controller.tryAdmit(PROJECT, QueryPriorityClass.VIP, limits));
+        Assert.assertEquals(2, controller.getStats(PROJECT).getAdmitted().get());
+        Assert.assertEquals(2, controller.getStats(PROJECT).getRejected().get());
+    }
+
+    @Test
+    public void testHeavySlotCap() {
+        QueryAdmissionController.AdmissionLimits limits = new QueryAdmissionController.AdmissionLimits(4, 0.5, 10,
+                0);
+        Assert.assertNotNull(controller.tryAdmit(PROJECT, QueryPriorityClass.HEAVY, limits));
+        Assert.assertNotNull(controller.tryAdmit(PROJECT, QueryPriorityClass.ASYNC, limits));
+        Assert.assertNull(controller.tryAdmit(PROJECT, QueryPriorityClass.HEAVY, limits));
+        Assert.assertNotNull(controller.tryAdmit(PROJECT, QueryPriorityClass.LIGHT, limits));
+        Assert.assertNotNull(controller.tryAdmit(PROJECT, QueryPriorityClass.LIGHT, limits));
+        Assert.assertNull(controller.tryAdmit(PROJECT, QueryPriorityClass.VIP, limits));
+    }
+
+    @Test
+    public void testWaitersAreGrantedByPriority() throws Exception {
+        QueryAdmissionController.AdmissionLimits limits = new QueryAdmissionController.AdmissionLimits(1, 1, 10,
+                TimeUnit.SECONDS.toMillis(30));
+        QueryAdmissionController.Ticket running = controller.tryAdmit(PROJECT, QueryPriorityClass.LIGHT, limits);
+        Assert.assertNotNull(running);
+
+        List<QueryPriorityClass> grantOrder = new CopyOnWriteArrayList<>();
+        CountDownLatch finished = new CountDownLatch(3);
+        for (QueryPriorityClass priority : new QueryPriorityClass[] { QueryPriorityClass.ASYNC,
+                QueryPriorityClass.HEAVY, QueryPriorityClass.VIP }) {
+            new Thread(() -> {
+                try (QueryAdmissionController.Ticket ticket = controller.tryAdmit(PROJECT, priority, limits)) {
+                    Assert.assertNotNull(ticket);
+                    grantOrder.add(ticket.getPriority());
+                } finally {
+                    finished.countDown();
+                }
+            }).start();
+            // make sure the waiters arrive in the declared order
+            Thread.sleep(100);
+        }
+
+        running.close();
+        Assert.assertTrue(finished.await(30, TimeUnit.SECONDS));
+        Awaitility.await().atMost(5, TimeUnit.SECONDS).until(() -> grantOrder.size() == 3);
+        Assert.assertEquals(QueryPriorityClass.VIP, grantOrder.get(0));
+        Assert.assertEquals(QueryPriorityClass.HEAVY, grantOrder.get(1));
+        Assert.assertEquals(QueryPriorityClass.ASYNC, grantOrder.get(2));
+        Assert.assertEquals(0, controller.getStats(PROJECT).getRejected().get());
+    }
+
+    @Test
+    public void testWaitTimeout() {
+        QueryAdmissionController.AdmissionLimits limits = new QueryAdmissionController.AdmissionLimits(1, 1, 10, 50);
+        Assert.assertNotNull(controller.tryAdmit(PROJECT, QueryPriorityClass.LIGHT, limits));
+        long start = System.currentTimeMillis();
+        Assert.assertNull(controller.tryAdmit(PROJECT, QueryPriorityClass.LIGHT, limits));
+        Assert.assertTrue(System.currentTimeMillis() - start >= 50);
+    }
+
+    @Test
+    public void testQueueFull() {
+        QueryAdmissionController.AdmissionLimits limits = new QueryAdmissionController.AdmissionLimits(1, 1, 0,
+                TimeUnit.SECONDS.toMillis(30));
+        Assert.assertNotNull(controller.tryAdmit(PROJECT, QueryPriorityClass.LIGHT, limits));
+        Assert.assertNull(controller.tryAdmit(PROJECT, QueryPriorityClass.LIGHT, limits));
+    }
+}
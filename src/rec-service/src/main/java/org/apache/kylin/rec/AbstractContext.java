@@ -95,6 +95,8 @@ public abstract class AbstractContext {
     @Getter(lazy = true)
     private final Map<String, RawRecItem> existingNonLayoutRecItemMap = Maps.newHashMap();
     private final Map<String, Collection<OlapContext>> modelViewOlapContextMap = Maps.newHashMap();
+    // the analyzed sql -> other sqls of the same template
+    private final Map<String, List<String>> sqlTemplateMembers = Maps.newHashMap();
 
     @Setter
     private boolean skipEvaluateCC;
@@ -262,6 +264,28 @@ public abstract class AbstractContext {
         });
     }
 
+    /**
+     * The sqls of the same template share the acceleration result of the analyzed one.
+     */
+    public void shareAccelerateInfoWithTemplateMembers() {
+        sqlTemplateMembers.forEach((analyzed, members) -> {
+            AccelerateInfo origin = accelerateInfoMap.get(analyzed);
+            if (origin == null) {
+                return;
+            }
+            members.forEach(sql -> {
+                AccelerateInfo accelerateInfo = new AccelerateInfo();
+                accelerateInfo.setFailedCause(origin.getFailedCause());
+                accelerateInfo.setPendingMsg(origin.getPendingMsg());
+                origin.getRelatedLayouts()
+                        .forEach(relation -> accelerateInfo.getRelatedLayouts()
+                                .add(new AccelerateInfo.QueryLayoutRelation(sql, relation.getModelId(),
+                                        relation.getLayoutId(), relation.getSemanticVersion())));
+                accelerateInfoMap.put(sql, accelerateInfo);
+            });
+        });
+    }
+
     public boolean skipCollectRecommendations() {
         return !(this instanceof ModelReuseContext);
     }
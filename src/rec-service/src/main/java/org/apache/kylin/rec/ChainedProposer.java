@@ -57,6 +57,7 @@ public class ChainedProposer extends AbstractProposer {
                     nums.get(SmartMaster.AccStatusType.PENDING), //
                     nums.get(SmartMaster.AccStatusType.FAILED));
         }
+        proposeContext.shareAccelerateInfoWithTemplateMembers();
     }
 
     private Map<SmartMaster.AccStatusType, Integer> getAccelerationNumMap() {
@@ -56,8 +56,10 @@ public class SQLAnalysisProposer extends AbstractProposer {
         List<NDataModel> models = proposeContext.getOriginModels();
         try (AbstractQueryRunner extractor = new QueryRunnerBuilder(project,
                 getProposeContext().getSmartConfig().getKylinConfig(), sqls).of(models).build()) {
+            extractor.setSqlTemplateEnabled(getProposeContext().getSmartConfig().isSqlTemplateEnabled());
             extractor.execute();
             logFailedQuery(extractor);
+            proposeContext.getSqlTemplateMembers().putAll(extractor.getTemplateMembers());
 
             val modelContexts = new GreedyModelTreesBuilder(KylinConfig.getInstanceFromEnv(), project, proposeContext)
                     .build(extractor.filterNonModelViewOlapContexts(), null) //
@@ -91,6 +91,10 @@ public class SmartConfig implements Serializable {
         return getOptional("model-opt-rule", "");
     }
 
+    public boolean isSqlTemplateEnabled() {
+        return getOptional("sql-template.enabled", true);
+    }
+
     public boolean skipUselessMetadata() {
         return getOptional("skip-useless-metadata", true);
     }
@@ -52,6 +52,7 @@ import org.apache.kylin.rec.query.mockup.AbstractQueryExecutor;
 import org.apache.kylin.rec.query.mockup.MockupQueryExecutor;
 
 import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -66,6 +67,14 @@ public abstract class AbstractQueryRunner implements Closeable {
     private final Map<String, SQLResult> queryResults = new ConcurrentSkipListMap<>();
     @Getter
     private final Map<String, Collection<OlapContext>> olapContexts = Maps.newLinkedHashMap();
+    /**
+     * The analyzed sql of a template -> other sqls of the same template sharing its analysis,
+     * these sqls have their query results but no OlapContexts.
+     */
+    @Getter
+    private final Map<String, List<String>> templateMembers = Maps.newLinkedHashMap();
+    @Setter
+    private boolean sqlTemplateEnabled;
 
     private static final ExecutorService SUGGESTION_EXECUTOR_POOL = Executors.newFixedThreadPool(
             KylinConfig.getInstanceFromEnv().getProposingThreadNum(), new NamedThreadFactory("SuggestRunner"));
@@ -123,15 +132,56 @@ public abstract class AbstractQueryRunner implements Closeable {
         try {
             AbstractQueryExecutor queryExecutor = new MockupQueryExecutor();
             List<String> distinctSqls = Arrays.stream(sqls).distinct().collect(Collectors.toList());
-            CountDownLatch latch = new CountDownLatch(distinctSqls.size());
-            distinctSqls.forEach(sql -> olapContexts.put(sql, Lists.newArrayList()));
-            distinctSqls.forEach(sql -> submitQueryExecute(latch, queryExecutor, config, project, sql));
-            latch.await();
+            if (sqlTemplateEnabled) {
+                executeByTemplate(queryExecutor, config, distinctSqls);
+            } else {
+                executeAll(queryExecutor, config, distinctSqls);
+            }
         } finally {
             cleanupConfig(config);
         }
     }
 
+    private void executeAll(AbstractQueryExecutor queryExecutor, KylinConfig config, List<String> sqlList)
+            throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(sqlList.size());
+        sqlList.forEach(sql -> olapContexts.put(sql, Lists.newArrayList()));
+        sqlList.forEach(sql -> submitQueryExecute(latch, queryExecutor, config, project, sql));
+        latch.await();
+    }
+
+    /**
+     * Only analyze the first sql of each template, other sqls of a template share its analysis if it succeeds,
+     * otherwise they are analyzed one by one as the failure may be caused by the literals.
+     */
+    private void executeByTemplate(AbstractQueryExecutor queryExecutor, KylinConfig config, List<String> sqlList)
+            throws InterruptedException {
+        Map<String, List<String>> templates = Maps.newLinkedHashMap();
+        sqlList.forEach(sql -> templates.computeIfAbsent(SqlTemplateNormalizer.normalize(sql),
+                template -> Lists.newArrayList()).add(sql));
+        executeAll(queryExecutor, config,
+                templates.values().stream().map(members -> members.get(0)).collect(Collectors.toList()));
+
+        List<String> unshared = Lists.newArrayList();
+        templates.values().stream().filter(members -> members.size() > 1).forEach(members -> {
+            String analyzed = members.get(0);
+            List<String> others = members.subList(1, members.size());
+            SQLResult sqlResult = queryResults.get(analyzed);
+            if (sqlResult == null || sqlResult.getStatus() != SQLResult.Status.SUCCESS) {
+                unshared.addAll(others);
+                return;
+            }
+            others.forEach(sql -> queryResults.put(sql, sqlResult.copyOf(sql)));
+            templateMembers.put(analyzed, Lists.newArrayList(others));
+        });
+        executeAll(queryExecutor, config, unshared);
+
+        int shared = sqlList.size() - templates.size() - unshared.size();
+        log.info("{} sqls are normalized to {} templates, {} sqls share the analysis of their templates,"
+                + " template hit rate {}%", sqlList.size(), templates.size(), shared,
+                sqlList.isEmpty() ? 0 : shared * 100 / sqlList.size());
+    }
+
     public abstract KylinConfig prepareConfig() throws IOException;
 
     public abstract void cleanupConfig(KylinConfig config) throws IOException;
@@ -162,5 +212,6 @@ public abstract class AbstractQueryRunner implements Closeable {
         queryCache.invalidateAll();
         queryResults.clear();
         olapContexts.clear();
+        templateMembers.clear();
     }
 }
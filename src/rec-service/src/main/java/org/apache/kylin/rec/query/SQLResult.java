@@ -74,6 +74,15 @@ public class SQLResult implements Serializable {
         }
     }
 
+    public SQLResult copyOf(String sql) {
+        SQLResult copied = new SQLResult();
+        copied.write(project, sql, duration, queryId);
+        copied.status = status;
+        copied.message = message;
+        copied.exception = exception;
+        return copied;
+    }
+
     private void write(String project, String sql, long elapsed, String queryId) {
         this.project = project;
         this.sql = sql;
@@ -0,0 +1,319 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.rec.query;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.apache.kylin.guava30.shaded.common.collect.ImmutableSet;
+import org.apache.kylin.guava30.shaded.common.collect.Lists;
+
+/**
+ * Normalize a sql to a template by replacing the literals compared with columns in the where and having clauses,
+ * the sqls only different in these literals, like date ranges or values of in-lists, share the same template.
+ *
+ * The literals elsewhere, e.g. in the select list or the case expressions, may become a part of the proposed
+ * computed columns, so they are kept. The kind of a replaced literal and the size of an in-list are kept too,
+ * because they may change the way the sql is planned.
+ */
+public class SqlTemplateNormalizer {
+
+    private static final Set<String> COMPARISON_OPERATORS = ImmutableSet.of("=", "<>", "!=", "<", ">", "<=", ">=");
+    private static final Set<String> TYPED_LITERAL_PREFIXES = ImmutableSet.of("DATE", "TIME", "TIMESTAMP");
+    private static final Set<String> FILTER_CLAUSES = ImmutableSet.of("WHERE", "HAVING");
+    private static final Set<String> NON_FILTER_CLAUSES = ImmutableSet.of("SELECT", "FROM", "JOIN", "ON", "GROUP",
+            "ORDER", "LIMIT", "OFFSET", "FETCH", "UNION", "INTERSECT", "EXCEPT", "MINUS", "WINDOW");
+    private static final Set<String> KEYWORDS = ImmutableSet.of("AND", "OR", "NOT", "WHERE", "HAVING", "SELECT",
+            "CASE", "WHEN", "THEN", "ELSE", "END", "NULL", "TRUE", "FALSE", "IS", "ON", "AS", "BY", "FROM", "IN",
+            "BETWEEN", "LIKE", "EXISTS", "DISTINCT", "ALL", "ANY", "SOME", "INTERVAL");
+
+    private SqlTemplateNormalizer() {
+    }
+
+    public static String normalize(String sql) {
+        List<Token> tokens = tokenize(sql);
+        List<String> template = Lists.newArrayListWithCapacity(tokens.size());
+        Deque<Scope> scopes = new ArrayDeque<>();
+        scopes.push(new Scope(false));
+        int i = 0;
+        while (i < tokens.size()) {
+            Token token = tokens.get(i);
+            Scope scope = scopes.peek();
+            int next = scope.isFilter() ? replaceLiterals(tokens, i, template) : -1;
+            if (next > i) {
+                i = next;
+                continue;
+            }
+            if (token.type == TokenType.OPEN) {
+                scopes.push(new Scope(scope.isFilter()));
+            } else if (token.type == TokenType.CLOSE && scopes.size() > 1) {
+                scopes.pop();
+            } else if (token.type == TokenType.WORD) {
+                scope.onWord(token.upper());
+            }
+            template.add(token.text);
+            i++;
+        }
+        return String.join(" ", template);
+    }
+
+    /**
+     * @return the index after the replaced tokens, or -1 if nothing is replaced
+     */
+    private static int replaceLiterals(List<Token> tokens, int start, List<String> template) {
+        if (!isColumn(tokens, start)) {
+            return -1;
+        }
+        int i = start + 1;
+        boolean not = i < tokens.size() && tokens.get(i).isWord("NOT");
+        int operator = not ? i + 1 : i;
+        if (operator >= tokens.size()) {
+            return -1;
+        }
+        Token op = tokens.get(operator);
+        List<String> replaced = Lists.newArrayList();
+        int end = -1;
+        if (!not && op.type == TokenType.SYMBOL && COMPARISON_OPERATORS.contains(op.text)) {
+            end = literalEnd(tokens, operator + 1, replaced);
+        } else if (op.isWord("IN")) {
+            end = inListEnd(tokens, operator + 1, replaced);
+        } else if (op.isWord("BETWEEN")) {
+            end = literalEnd(tokens, operator + 1, replaced);
+            if (end > 0 && end < tokens.size() && tokens.get(end).isWord("AND")) {
+                replaced.add(tokens.get(end).text);
+                end = literalEnd(tokens, end + 1, replaced);
+            } else {
+                end = -1;
+            }
+        }
+        if (end < 0) {
+            return -1;
+        }
+        for (int j = start; j <= operator; j++) {
+            template.add(tokens.get(j).text);
+        }
+        template.addAll(replaced);
+        return end;
+    }
+
+    private static int inListEnd(List<Token> tokens, int start, List<String> replaced) {
+        if (start >= tokens.size() || tokens.get(start).type != TokenType.OPEN) {
+            return -1;
+        }
+        replaced.add("(");
+        int i = literalEnd(tokens, start + 1, replaced);
+        while (i > 0 && i < tokens.size() && tokens.get(i).isSymbol(",")) {
+            replaced.add(",");
+            i = literalEnd(tokens, i + 1, replaced);
+        }
+        if (i < 0 || i >= tokens.size() || tokens.get(i).type != TokenType.CLOSE) {
+            return -1;
+        }
+        replaced.add(")");
+        return i + 1;
+    }
+
+    private static int literalEnd(List<Token> tokens, int start, List<String> replaced) {
+        if (start >= tokens.size()) {
+            return -1;
+        }
+        Token token = tokens.get(start);
+        if (token.type == TokenType.STRING) {
+            replaced.add("?s");
+            return start + 1;
+        }
+        if (token.type == TokenType.NUMBER) {
+            replaced.add(numberPlaceholder(token.text));
+            return start + 1;
+        }
+        if (start + 1 >= tokens.size()) {
+            return -1;
+        }
+        Token next = tokens.get(start + 1);
+        if ((token.isSymbol("-") || token.isSymbol("+")) && next.type == TokenType.NUMBER) {
+            replaced.add(numberPlaceholder(next.text));
+            return start + 2;
+        }
+        if (token.type == TokenType.WORD && TYPED_LITERAL_PREFIXES.contains(token.upper())
+                && next.type == TokenType.STRING) {
+            replaced.add(token.upper() + " ?s");
+            return start + 2;
+        }
+        return -1;
+    }
+
+    private static String numberPlaceholder(String number) {
+        if (number.indexOf('.') >= 0 || number.indexOf('e') >= 0 || number.indexOf('E') >= 0) {
+            return "?d";
+        }
+        // integers out of the range of INTEGER are typed as BIGINT
+        return number.length() > 9 ? "?l" : "?i";
+    }
+
+    private static boolean isColumn(List<Token> tokens, int index) {
+        Token token = tokens.get(index);
+        if (token.type == TokenType.QUOTED_IDENTIFIER) {
+            return true;
+        }
+        return token.type == TokenType.WORD && !KEYWORDS.contains(token.upper());
+    }
+
+    static List<Token> tokenize(String sql) {
+        List<Token> tokens = Lists.newArrayList();
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            char next = i + 1 < length ? sql.charAt(i + 1) : 0;
+            int start = i;
+            TokenType type;
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            } else if (c == '-' && next == '-') {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end;
+                type = TokenType.COMMENT;
+            } else if (c == '/' && next == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+                type = TokenType.COMMENT;
+            } else if (c == '\'') {
+                i = quotedEnd(sql, i, c);
+                type = TokenType.STRING;
+            } else if (c == '"' || c == '`') {
+                i = quotedEnd(sql, i, c);
+                type = TokenType.QUOTED_IDENTIFIER;
+            } else if (Character.isDigit(c) || c == '.' && Character.isDigit(next)) {
+                i = numberEnd(sql, i);
+                type = TokenType.NUMBER;
+            } else if (Character.isLetter(c) || c == '_' || c == '$') {
+                while (i < length && isWordPart(sql.charAt(i))) {
+                    i++;
+                }
+                type = TokenType.WORD;
+            } else if (c == '(' || c == ')') {
+                i++;
+                type = c == '(' ? TokenType.OPEN : TokenType.CLOSE;
+            } else {
+                boolean twoChars = (c == '<' || c == '>' || c == '!') && next == '=' || c == '<' && next == '>'
+                        || c == '|' && next == '|';
+                i += twoChars ? 2 : 1;
+                type = TokenType.SYMBOL;
+            }
+            tokens.add(new Token(type, sql.substring(start, i)));
+        }
+        return tokens;
+    }
+
+    private static int quotedEnd(String sql, int start, char quote) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            if (sql.charAt(i) == quote) {
+                // two quotes are an escaped quote
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return sql.length();
+    }
+
+    private static int numberEnd(String sql, int start) {
+        int i = start;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (Character.isDigit(c) || c == '.') {
+                i++;
+            } else if ((c == 'e' || c == 'E') && i + 1 < sql.length()) {
+                char next = sql.charAt(i + 1);
+                boolean signed = (next == '+' || next == '-') && i + 2 < sql.length()
+                        && Character.isDigit(sql.charAt(i + 2));
+                if (!signed && !Character.isDigit(next)) {
+                    break;
+                }
+                i += signed ? 3 : 2;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    private static boolean isWordPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    enum TokenType {
+        WORD, QUOTED_IDENTIFIER, STRING, NUMBER, SYMBOL, OPEN, CLOSE, COMMENT
+    }
+
+    static class Token {
+        private final TokenType type;
+        private final String text;
+
+        Token(TokenType type, String text) {
+            this.type = type;
+            this.text = text;
+        }
+
+        String upper() {
+            return text.toUpperCase(Locale.ROOT);
+        }
+
+        boolean isWord(String word) {
+            return type == TokenType.WORD && word.equalsIgnoreCase(text);
+        }
+
+        boolean isSymbol(String symbol) {
+            return type == TokenType.SYMBOL && symbol.equals(text);
+        }
+    }
+
+    private static class Scope {
+        private boolean filter;
+        private int caseDepth;
+
+        Scope(boolean filter) {
+            this.filter = filter;
+        }
+
+        boolean isFilter() {
+            return filter && caseDepth == 0;
+        }
+
+        void onWord(String word) {
+            if (FILTER_CLAUSES.contains(word)) {
+                filter = true;
+            } else if (NON_FILTER_CLAUSES.contains(word)) {
+                filter = false;
+            } else if ("CASE".equals(word)) {
+                caseDepth++;
+            } else if ("END".equals(word) && caseDepth > 0) {
+                caseDepth--;
+            }
+        }
+    }
+}
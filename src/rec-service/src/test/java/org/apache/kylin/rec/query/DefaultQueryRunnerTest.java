@@ -19,6 +19,7 @@
 package org.apache.kylin.rec.query;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 
 import org.apache.kylin.query.relnode.OlapContext;
@@ -52,6 +53,29 @@ public class DefaultQueryRunnerTest extends AutoTestOnLearnKylinData {
         Assert.assertEquals(0, olapContext2.getAllOlapJoins().size());
     }
 
+    @Test
+    public void testExecuteByTemplate() throws Exception {
+        String[] sqls = new String[] {
+                "select part_dt, sum(price) from kylin_sales where part_dt >= date '2012-01-01' group by part_dt",
+                "select part_dt, sum(price) from kylin_sales where part_dt >= date '2013-01-01' group by part_dt",
+                "select part_dt, sum(price) from kylin_sales where price > 1 group by part_dt" };
+        try (AbstractQueryRunner queryRunner = new QueryRunnerBuilder(proj, getTestConfig(), sqls).build()) {
+            queryRunner.setSqlTemplateEnabled(true);
+            queryRunner.execute();
+
+            Map<String, Collection<OlapContext>> olapContexts = queryRunner.getOlapContexts();
+            Assert.assertEquals(2, olapContexts.size());
+            Assert.assertFalse(olapContexts.containsKey(sqls[1]));
+            Assert.assertEquals(1, queryRunner.getTemplateMembers().size());
+            Assert.assertEquals(Collections.singletonList(sqls[1]), queryRunner.getTemplateMembers().get(sqls[0]));
+
+            Map<String, SQLResult> queryResults = queryRunner.getQueryResults();
+            Assert.assertEquals(3, queryResults.size());
+            Assert.assertEquals(SQLResult.Status.SUCCESS, queryResults.get(sqls[1]).getStatus());
+            Assert.assertEquals(sqls[1], queryResults.get(sqls[1]).getSql());
+        }
+    }
+
     @Test
     public void testProposeWithMessage() {
         SqlSyntaxAdvisor sqlSyntaxAdvisor = new SqlSyntaxAdvisor();
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.rec.query;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SqlTemplateNormalizerTest {
+
+    private static void assertSameTemplate(String sql1, String sql2) {
+        Assert.assertEquals(SqlTemplateNormalizer.normalize(sql1), SqlTemplateNormalizer.normalize(sql2));
+    }
+
+    private static void assertDifferentTemplate(String sql1, String sql2) {
+        Assert.assertNotEquals(SqlTemplateNormalizer.normalize(sql1), SqlTemplateNormalizer.normalize(sql2));
+    }
+
+    @Test
+    public void testNormalizeFilterLiterals() {
+        assertSameTemplate("select part_dt, sum(price) from kylin_sales where part_dt >= date '2012-01-01' "
+                + "and part_dt < date '2012-02-01' and lstg_site_id in (1, 2, 3) group by part_dt",
+                "select part_dt, sum(price)\nfrom kylin_sales where part_dt >= date '2013-05-01' "
+                        + "and part_dt < date '2013-06-01' and lstg_site_id in (7, 8, 9) group by part_dt");
+        assertSameTemplate("select * from kylin_sales where \"KYLIN_SALES\".\"SELLER_ID\" = 'it''s'",
+                "select * from kylin_sales where \"KYLIN_SALES\".\"SELLER_ID\" = 'abc'");
+        assertSameTemplate("select * from kylin_sales where price between -1.5 and 10.0 having sum(price) > 1",
+                "select * from kylin_sales where price between 2.5 and 30.0 having sum(price) > 1");
+        assertSameTemplate("select * from t1 where id in (select id from t2 where name = 'a')",
+                "select * from t1 where id in (select id from t2 where name = 'b')");
+    }
+
+    @Test
+    public void testKeepLiteralsMayChangeThePlan() {
+        // kinds of literals and sizes of in-lists
+        assertDifferentTemplate("select * from kylin_sales where price = 1",
+                "select * from kylin_sales where price = 1.0");
+        assertDifferentTemplate("select * from kylin_sales where price = 1",
+                "select * from kylin_sales where price = '1'");
+        assertDifferentTemplate("select * from kylin_sales where lstg_site_id in (1, 2)",
+                "select * from kylin_sales where lstg_site_id in (1, 2, 3)");
+        // literals may be a part of computed columns
+        assertDifferentTemplate("select sum(case when lstg_site_id = 1 then price end) from kylin_sales",
+                "select sum(case when lstg_site_id = 2 then price end) from kylin_sales");
+        assertDifferentTemplate("select * from kylin_sales where case when lstg_site_id = 1 then 1 end = 1",
+                "select * from kylin_sales where case when lstg_site_id = 2 then 1 end = 1");
+        assertDifferentTemplate("select * from kylin_sales where price + 1 > 2",
+                "select * from kylin_sales where price + 2 > 2");
+        assertDifferentTemplate("select * from t1 join t2 on t1.id = t2.id and t2.flag = 'Y'",
+                "select * from t1 join t2 on t1.id = t2.id and t2.flag = 'N'");
+        // model priorities are hinted by comments
+        assertDifferentTemplate("-- MODEL_PRIORITY(m1)\nselect * from kylin_sales where price = 1",
+                "-- MODEL_PRIORITY(m2)\nselect * from kylin_sales where price = 2");
+        assertDifferentTemplate("select * from kylin_sales where price = 1 -- comment",
+                "select * from kylin_sales where price = 1 -- another comment");
+    }
+}
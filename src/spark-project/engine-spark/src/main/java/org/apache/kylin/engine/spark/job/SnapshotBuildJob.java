@@ -101,7 +101,8 @@ public class SnapshotBuildJob extends SparkApplication {
             }
             logger.info("{} need build partitions: {}", tableDesc.getIdentity(), partitionToBuild);
 
-            new SnapshotPartitionBuilder().buildSnapshot(ss, tableDesc, selectedPartCol, partitionToBuild);
+            new SnapshotPartitionBuilder().buildSnapshot(ss, tableDesc, selectedPartCol, partitionToBuild,
+                    incrementalBuild);
 
             if (incrementalBuild) {
                 moveIncrementalPartitions(tableDesc.getLastSnapshotPath(), tableDesc.getTempSnapshotPath());
@@ -135,6 +136,7 @@ public class SnapshotBuildJob extends SparkApplication {
                 TableExtDesc copyExt = tableMetadataManager
                         .copyForWrite(tableMetadataManager.getOrCreateTableExt(table));
                 copyExt.setTotalRows(0);
+                copyExt.retainSnapshotPartitionFingerprints(partitions);
                 tableMetadataManager.saveTableExt(copyExt);
             }
             copy.setTempSnapshotPath(resourcePath);
@@ -116,6 +116,7 @@ public class AfterBuildResourceMerger extends MetadataMerger {
         }
 
         localDataflowManager.updateDataflow(dfUpdate);
+        recordStorageManifest(dfUpdate);
         updateIndexPlan(dataflowId, remoteStore);
         return dfUpdate.getToAddOrUpdateLayouts();
     }
@@ -170,6 +171,7 @@ public class AfterBuildResourceMerger extends MetadataMerger {
         dfUpdate.setToAddOrUpdateLayouts(addCuboids.toArray(new NDataLayout[0]));
 
         localDataflowManager.updateDataflow(dfUpdate);
+        recordStorageManifest(dfUpdate);
         updateIndexPlan(flowName, remoteStore);
         return dfUpdate.getToAddOrUpdateLayouts();
     }
@@ -224,6 +226,7 @@ public class AfterBuildResourceMerger extends MetadataMerger {
         dfUpdate.setToAddOrUpdateLayouts(upsertCuboids.toArray(new NDataLayout[0]));
 
         localDataflowManager.updateDataflow(dfUpdate);
+        recordStorageManifest(dfUpdate);
         updateIndexPlan(flowName, remoteStore);
         return dfUpdate.getToAddOrUpdateLayouts();
     }
@@ -36,6 +36,7 @@ import org.apache.kylin.metadata.cube.model.NDataflow;
 import org.apache.kylin.metadata.cube.model.NDataflowManager;
 import org.apache.kylin.metadata.cube.model.NDataflowUpdate;
 import org.apache.kylin.metadata.cube.model.PartitionStatusEnum;
+import org.apache.kylin.metadata.cube.storage.StorageManifest;
 import org.apache.kylin.metadata.model.SegmentStatusEnum;
 
 import lombok.val;
@@ -59,6 +60,8 @@ public class AfterMergeOrRefreshResourceMerger extends MetadataMerger {
 
         List<NDataSegment> toUpdateSegments = Lists.newArrayList();
         List<NDataLayout> toUpdateCuboids = Lists.newArrayList();
+        // refreshed partitions are written into new buckets, the old buckets of them are replaced
+        List<String> supersededBuckets = Lists.newArrayList();
 
         NDataSegment mergedSegment;
         NDataSegment remoteSegment = distDataflow.getSegment(segmentIds.iterator().next()).copy();
@@ -88,6 +91,10 @@ public class AfterMergeOrRefreshResourceMerger extends MetadataMerger {
                 for (long layoutId : availableLayoutIds) {
                     NDataLayout remoteLayout = remoteSeg.getLayout(layoutId);
                     NDataLayout localLayout = localSeg.getLayout(layoutId);
+                    if (JobTypeEnum.SUB_PARTITION_REFRESH == jobType && localLayout != null) {
+                        supersededBuckets
+                                .addAll(StorageManifest.getPartitionPaths(localDataflow, localLayout, partitions));
+                    }
                     NDataLayout upsertLayout = upsertLayoutPartition(localLayout, remoteLayout, partitions);
                     toUpdateCuboids.add(upsertLayout);
                 }
@@ -118,6 +125,7 @@ public class AfterMergeOrRefreshResourceMerger extends MetadataMerger {
         update.setToUpdateSegs(toUpdateSegments.toArray(new NDataSegment[0]));
 
         mgr.updateDataflow(update);
+        recordStorageManifest(update, supersededBuckets);
 
         updateIndexPlan(dataflowId, remoteResourceStore);
         return update.getToAddOrUpdateLayouts();
@@ -168,6 +176,7 @@ public class AfterMergeOrRefreshResourceMerger extends MetadataMerger {
         }
 
         mgr.updateDataflow(update);
+        recordStorageManifest(update);
 
         updateIndexPlan(dataflowId, remoteResourceStore);
         return update.getToAddOrUpdateLayouts();
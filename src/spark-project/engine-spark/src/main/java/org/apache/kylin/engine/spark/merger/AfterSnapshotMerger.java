@@ -89,12 +89,16 @@ public class AfterSnapshotMerger extends MetadataMerger {
             copyExt.setOriginalSize(remoteTblExtDesc.getOriginalSize());
             copy.setSnapshotPartitionCol(null);
             copy.resetSnapshotPartitions(Sets.newHashSet());
+            copyExt.retainSnapshotPartitionFingerprints(Sets.newHashSet());
         } else {
             copyExt.setOriginalSize(remoteTbDesc.getSnapshotPartitions().values().stream().mapToLong(i -> i).sum());
             copy.setSnapshotPartitionCol(selectPartCol);
             copy.setSnapshotPartitions(remoteTbDesc.getSnapshotPartitions());
             copy.setSnapshotPartitionsInfo(remoteTbDesc.getSnapshotPartitionsInfo());
+            copyExt.setSnapshotPartitionFingerprints(remoteTblExtDesc.getSnapshotPartitionFingerprints());
+            copyExt.retainSnapshotPartitionFingerprints(remoteTbDesc.getSnapshotPartitions().keySet());
         }
+        copyExt.setSnapshotFingerprints(remoteTblExtDesc.getSnapshotFingerprints());
 
         copyExt.setTotalRows(remoteTblExtDesc.getTotalRows());
         localTblMgr.saveTableExt(copyExt);
@@ -19,12 +19,14 @@
 package org.apache.kylin.engine.spark.merger;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import org.apache.kylin.common.KylinConfig;
 import org.apache.kylin.common.KylinConfigExt;
@@ -49,9 +51,11 @@ import org.apache.kylin.metadata.cube.model.NDataLayoutDetailsManager;
 import org.apache.kylin.metadata.cube.model.NDataSegment;
 import org.apache.kylin.metadata.cube.model.NDataflow;
 import org.apache.kylin.metadata.cube.model.NDataflowManager;
+import org.apache.kylin.metadata.cube.model.NDataflowUpdate;
 import org.apache.kylin.metadata.cube.model.NIndexPlanManager;
 import org.apache.kylin.metadata.cube.model.PartitionStatusEnum;
 import org.apache.kylin.metadata.cube.model.SegmentPartition;
+import org.apache.kylin.metadata.cube.storage.StorageManifest;
 import org.apache.kylin.metadata.model.NTableMetadataManager;
 import org.apache.kylin.metadata.model.TableRef;
 import org.apache.kylin.metadata.model.TblColRef;
@@ -141,6 +145,29 @@ public abstract class MetadataMerger {
                 });
     }
 
+    /**
+     * Record the layout paths created and the segment paths superseded by the update,
+     * so that the storage cleaner does not need to list the whole working directory to find them.
+     */
+    protected void recordStorageManifest(NDataflowUpdate update) {
+        recordStorageManifest(update, Collections.emptyList());
+    }
+
+    /**
+     * Same as {@link #recordStorageManifest(NDataflowUpdate)}, with extra paths superseded by the update
+     * that can not be derived from it, e.g. the old buckets of refreshed partitions.
+     */
+    protected void recordStorageManifest(NDataflowUpdate update, Collection<String> supersededPaths) {
+        if (!getConfig().isStorageManifestEnabled()) {
+            return;
+        }
+        NDataflow dataflow = NDataflowManager.getInstance(getConfig(), getProject())
+                .getDataflow(update.getDataflowId());
+        StorageManifest manifest = StorageManifest.of(dataflow, update);
+        manifest.getSupersededPaths().addAll(supersededPaths);
+        StorageManifest.record(dataflow, manifest);
+    }
+
     protected boolean isSnapshotManualManagementEnabled(ResourceStore configStore) {
         try {
             val projectConfig = getProjectConfig(configStore);
@@ -174,25 +201,10 @@ public abstract class MetadataMerger {
         } else if (newSegment.getDimensionRangeInfoMap().isEmpty()) {
             localSegment.setDimensionRangeInfoMap(localSegment.getDimensionRangeInfoMap());
         } else {
-            Map<String, DimensionRangeInfo> mergeDimRangeInfo = Maps.newHashMap();
             BiMap<Integer, TblColRef> dimCols = newSegment.getDataflow().getIndexPlan().getEffectiveDimCols();
-            Map<String, DimensionRangeInfo> calcDimRangeInfoMap = localSegment.getDimensionRangeInfoMap().entrySet()
-                    .stream().filter(dim -> dimCols.containsKey(Integer.parseInt(dim.getKey())))
-                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-            Map<String, DimensionRangeInfo> storedDimRangeInfoMap = newSegment.getDimensionRangeInfoMap().entrySet()
-                    .stream().filter(dim -> dimCols.containsKey(Integer.parseInt(dim.getKey())))
-                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-            Set<String> combinedKeys = Stream
-                    .concat(calcDimRangeInfoMap.keySet().stream(), storedDimRangeInfoMap.keySet().stream())
-                    .collect(Collectors.toSet());
-            combinedKeys.forEach(column -> {
-                DimensionRangeInfo rangeInfo1 = calcDimRangeInfoMap.get(column);
-                DimensionRangeInfo rangeInfo2 = storedDimRangeInfoMap.get(column);
-                DimensionRangeInfo updateDimRangeInfo = rangeInfo1.merge(rangeInfo2,
-                        dimCols.get(Integer.parseInt(column)).getType());
-                mergeDimRangeInfo.put(column, updateDimRangeInfo);
-            });
-            localSegment.setDimensionRangeInfoMap(mergeDimRangeInfo);
+            localSegment.setDimensionRangeInfoMap(DimensionRangeInfo.mergeAll(
+                    Arrays.asList(localSegment.getDimensionRangeInfoMap(), newSegment.getDimensionRangeInfoMap()),
+                    dimCols));
         }
         final Map<String, Long> merged = Maps.newHashMap();
         partitions.stream().map(SegmentPartition::getColumnSourceBytes) //
@@ -22,8 +22,11 @@ import java.io.IOException
 import java.util
 import java.util.Locale
 
+import scala.collection.JavaConverters._
+
 import org.apache.commons.lang3.StringUtils
 import org.apache.hadoop.fs.Path
+import org.apache.kylin.common.KylinConfig
 import org.apache.kylin.common.exception.{CommonErrorCode, KylinException}
 import org.apache.kylin.common.util.{DateFormat, HadoopUtil}
 import org.apache.kylin.engine.spark.utils.SparkDataSource._
@@ -35,7 +38,9 @@ import org.apache.spark.internal.Logging
 import org.apache.spark.sql.delta.DeltaLog
 import org.apache.spark.sql.delta.catalog.ClickHouseTableV2
 import org.apache.spark.sql.delta.implicits.stringLongEncoder
-import org.apache.spark.sql.{Dataset, Row, SparkSession, functions}
+import org.apache.spark.sql.expressions.Window
+import org.apache.spark.sql.functions.{col, count, expr, lit, raise_error, rank, when}
+import org.apache.spark.sql.{Column, Dataset, Row, SparkSession, functions}
 
 import io.delta.tables.{ClickhouseTable, DeltaTable}
 
@@ -48,6 +53,9 @@ class InternalTableLoader extends Logging {
   val STORAGE_POLICY = "clickhouse.storage_policy"
   val OVERWRITE = "overwrite"
   val APPEND = "append"
+  val DEFAULT_STORAGE_POLICY = "default"
+  private val VERSION_RANK = "__version_rank"
+  private val KEY_COUNT = "__key_count"
 
   private[this] var _onlyLoadSchema: Boolean = false
 
@@ -69,6 +77,14 @@ class InternalTableLoader extends Logging {
     val endDate = range(1)
     val location = table.generateInternalTableLocation
     var sourceData = getSourceData(ss, table, startDate, endDate, partitions, incremental)
+    if (table.isUpsertMode && !onlyLoadSchema) {
+      if (isUpsertSupported(ss, table, location, storagePolicy)) {
+        upsertInternalTable(ss, table, location, sourceData, startDate, endDate, partitions, incremental)
+        return
+      }
+      logInfo(s"Table $location is not created yet, is not stored as delta or changes its storage policy," +
+        " load it by overwrite")
+    }
     val tablePartition = table.getTablePartition
     val bucketColumn = table.getBucketColumn
     val bucketNum = table.getBucketNumber
@@ -110,6 +126,127 @@ class InternalTableLoader extends Logging {
     writer.format(format).mode(outPutMode).save(location)
   }
 
+  private def isUpsertSupported(ss: SparkSession, table: InternalTableDesc, location: String,
+                                storagePolicy: String): Boolean = {
+    table.getStorageType match {
+      // MERGE takes no write options, the files it writes follow the storage policy recorded in the table
+      case StorageType.GLUTEN => DeltaTable.isDeltaTable(ss, location) &&
+        getTableStoragePolicy(ss, location) == StringUtils.defaultIfBlank(storagePolicy, DEFAULT_STORAGE_POLICY)
+      case StorageType.DELTALAKE => DeltaTable.isDeltaTable(ss, location)
+      case _ => false
+    }
+  }
+
+  private def getTableStoragePolicy(ss: SparkSession, location: String): String = {
+    new ClickHouseTableV2(ss, new Path(location)).snapshot.metadata.configuration
+      .getOrElse(STORAGE_POLICY.stripPrefix("clickhouse."), DEFAULT_STORAGE_POLICY)
+  }
+
+  /**
+   * Merge the source rows into the table by primary key. Matched rows are updated, new rows are inserted
+   * and rows of the refreshed range missing in the source are deleted, so only the data files containing
+   * changed rows are rewritten.
+   */
+  private def upsertInternalTable(ss: SparkSession,
+                                  table: InternalTableDesc,
+                                  location: String,
+                                  sourceData: Dataset[Row],
+                                  startDate: String,
+                                  endDate: String,
+                                  partitions: Array[String],
+                                  incremental: Boolean): Unit = {
+    if (!table.hasPrimaryKey) {
+      throw new KylinException(CommonErrorCode.INTERNAL_TABLE_MISSING_PRIMARY_KEY,
+        s"Primary key is required to load internal table ${table.getIdentity} in upsert mode")
+    }
+    val primaryKey = table.getPrimaryKey.asScala
+    val sparkTable = table.getStorageType match {
+      case StorageType.GLUTEN => ClickhouseTable.forPath(ss, location)
+      case _ => DeltaTable.forPath(ss, location)
+    }
+    val rangeCondition = getRefreshedRangeCondition(table, startDate, endDate, partitions, incremental)
+    var mergeCondition = primaryKey.map(key => col(s"target.`$key`") <=> col(s"source.`$key`")).reduce(_ && _)
+    // restricting the target to the refreshed range prunes files, it is safe only if
+    // a row can never move out of its partition, i.e. the partition column is part of the primary key
+    val partitionInKey = table.getPartitionColumns != null &&
+      table.getPartitionColumns.forall(column => primaryKey.exists(_.equalsIgnoreCase(column)))
+    if (rangeCondition.isDefined && partitionInKey) {
+      mergeCondition = mergeCondition && rangeCondition.get
+    }
+    logInfo(s"Upsert into internal table $location on $mergeCondition")
+
+    // MERGE fails if more than one source row matches the same target row
+    val dedupSource = deduplicateByPrimaryKey(sourceData, table.getPrimaryKey, table.getVersionColumn)
+    val merge = sparkTable.as("target").merge(dedupSource.as("source"), mergeCondition)
+      .whenMatched().updateAll()
+      .whenNotMatched().insertAll()
+    rangeCondition match {
+      case Some(condition) => merge.whenNotMatchedBySource(condition).delete().execute()
+      case None => merge.whenNotMatchedBySource().delete().execute()
+    }
+    compactIfNeeded(ss, table, sparkTable, location)
+  }
+
+  /**
+   * Keep one source row per primary key deterministically: the row with the greatest version if a version column
+   * is given. Loading fails if the rows of a key can not be told apart, i.e. without a version column or with the
+   * same greatest version.
+   */
+  def deduplicateByPrimaryKey(sourceData: Dataset[Row], primaryKey: util.List[String],
+                              versionColumn: String): Dataset[Row] = {
+    val keyColumns = primaryKey.asScala.map(key => col(s"`$key`"))
+    val byKey = Window.partitionBy(keyColumns: _*)
+    val latest = if (versionColumn == null) {
+      sourceData
+    } else {
+      sourceData.withColumn(VERSION_RANK, rank().over(byKey.orderBy(col(s"`$versionColumn`").desc)))
+        .where(col(VERSION_RANK) === 1).drop(VERSION_RANK)
+    }
+    val duplicated = s"Duplicate primary key ${primaryKey.asScala.mkString(",")} in the source rows of upsert" +
+      (if (versionColumn == null) "" else s" with the same greatest $versionColumn")
+    // checked while merging, which saves another pass over the source
+    latest.withColumn(KEY_COUNT, count(lit(1)).over(byKey))
+      .where(when(col(KEY_COUNT) > 1, raise_error(lit(duplicated))).otherwise(lit(true)))
+      .drop(KEY_COUNT)
+  }
+
+  private def getRefreshedRangeCondition(table: InternalTableDesc,
+                                         startDate: String,
+                                         endDate: String,
+                                         partitions: Array[String],
+                                         incremental: Boolean): Option[Column] = {
+    if (null != partitions && partitions.length > 0) {
+      val partitionColumn = table.getTablePartition.getPartitionColumns()(0)
+      Some(col(s"target.`$partitionColumn`").isin(partitions: _*))
+    } else if (incremental) {
+      val partitionColumn = table.getTablePartition.getPartitionColumns()(0)
+      val dateFormat = table.getTablePartition.getDatePartitionFormat
+      Some(expr(DefaultPartitionConditionBuilder.buildDateRangeCondition(s"target.`$partitionColumn`", dateFormat,
+        startDate, endDate)))
+    } else {
+      None
+    }
+  }
+
+  /**
+   * Every upsert adds new files, compact them the same way as the layout data compaction once there are too many.
+   */
+  private def compactIfNeeded(ss: SparkSession, table: InternalTableDesc, sparkTable: DeltaTable,
+                              location: String): Unit = {
+    val threshold = KylinConfig.getInstanceFromEnv.getInternalTableUpsertCompactionFileThreshold
+    if (threshold <= 0) {
+      return
+    }
+    val numOfFiles = table.getStorageType match {
+      case StorageType.GLUTEN => new ClickHouseTableV2(ss, new Path(location)).snapshot.numOfFiles
+      case _ => DeltaLog.forTable(ss, location).update().numOfFiles
+    }
+    if (numOfFiles > threshold) {
+      logInfo(s"Compact internal table $location with $numOfFiles files")
+      sparkTable.optimize().executeCompaction()
+    }
+  }
+
   def getSourceData(ss: SparkSession,
                     table: InternalTableDesc,
                     startDate: String,
@@ -32,10 +32,16 @@ import org.apache.kylin.guava30.shaded.common.collect.Maps
 import org.apache.kylin.metadata.model.{NDataModel, NTableMetadataManager, TableDesc, TableExtDesc}
 import org.apache.kylin.metadata.project.NProjectManager
 import org.apache.kylin.source.SourceFactory
+import org.apache.parquet.hadoop.ParquetFileReader
+import org.apache.parquet.hadoop.util.HadoopInputFile
 import org.apache.spark.SparkException
 import org.apache.spark.internal.Logging
+import org.apache.spark.sql.hive.execution.HiveTableScanExec
 import org.apache.spark.sql.hive.utils.ResourceDetectUtils
 import org.apache.spark.sql._
+import org.apache.spark.sql.catalyst.encoders.RowEncoder
+import org.apache.spark.sql.execution.FileSourceScanExec
+import org.apache.spark.sql.functions.{col, hash, isnull, xxhash64}
 import org.apache.spark.utils.ProxyThreadUtils
 
 import java.io.IOException
@@ -43,6 +49,7 @@ import java.util
 import java.util.concurrent.{ConcurrentHashMap, ConcurrentMap, Executors}
 import java.util.{Objects, UUID}
 import scala.collection.JavaConverters._
+import scala.collection.mutable.ListBuffer
 import scala.concurrent.duration._
 import scala.concurrent.{ExecutionContext, Future}
 import scala.util.control.Breaks._
@@ -156,6 +163,9 @@ class SnapshotBuilder(var jobId: String) extends Logging with Serializable {
           tableExt.setTotalRows(result.totalRows)
           tableDescCopy.setSnapshotTotalRows(result.totalRows)
         }
+        Seq(result.fingerprint, result.sourceSignature).filter(_ != null).foreach(fingerprint =>
+          tableExt.putSnapshotFingerprint(fingerprint, result.path,
+            KylinConfig.getInstanceFromEnv.getSnapshotFingerprintIndexSize))
         tableMetadataManager.saveTableExt(tableExt)
         tableMetadataManager.updateTableDesc(tableDescCopy)
         tableExt
@@ -190,7 +200,7 @@ class SnapshotBuilder(var jobId: String) extends Logging with Serializable {
         val path = new Path(baseDir, snapshotPath)
         if (fs.exists(path)) {
           logInfo(s"Calculate table ${tableDesc.getIdentity}'s total rows from snapshot ${path}")
-          val totalRows = ss.read.parquet(path.toString).count()
+          val totalRows = readFooterStats(path, fs).map(_._2).getOrElse(ss.read.parquet(path.toString).count())
           logInfo(s"Table ${tableDesc.getIdentity}'s total rows is ${totalRows}'")
           return totalRows
         }
@@ -358,11 +368,29 @@ class SnapshotBuilder(var jobId: String) extends Logging with Serializable {
 
   def buildSingleSnapshot(ss: SparkSession, tableDesc: TableDesc, baseDir: String, fs: FileSystem, resultMap: util.Map[String, Result]): Unit = {
     val sourceData = getSourceData(ss, tableDesc)
+    if (!kylinConfig.isSnapshotFingerprintReuseEnabled) {
+      buildSingleSnapshotWithMd5(ss, tableDesc, sourceData, baseDir, fs, resultMap)
+      return
+    }
+    val result = buildSnapshotWithFingerprint(tableDesc, sourceData, baseDir, fs) { (data, resourcePath) =>
+      val (repartitionNum, _) = decideSparkJobArg(data)
+      ss.sparkContext.setJobDescription(s"Build table snapshot ${tableDesc.getIdentity}.")
+      if (repartitionNum == 0) {
+        data.write.parquet(resourcePath)
+      } else {
+        data.repartition(repartitionNum).write.parquet(resourcePath)
+      }
+    }
+    resultMap.put(tableDesc.getIdentity, result)
+  }
+
+  private def buildSingleSnapshotWithMd5(ss: SparkSession, tableDesc: TableDesc, sourceData: Dataset[Row], baseDir: String,
+                                         fs: FileSystem, resultMap: util.Map[String, Result]): Unit = {
     val tablePath = FileNames.snapshotFile(tableDesc)
     var snapshotTablePath = tablePath + "/" + UUID.randomUUID
     val resourcePath = baseDir + "/" + snapshotTablePath
     sourceData.coalesce(1).write.parquet(resourcePath)
-    val (originSize, totalRows) = computeSnapshotSize(sourceData)
+    val (originSize, totalRows) = computeSnapshotSize(new Path(resourcePath), fs, sourceData)
     val currSnapFile = fs.listStatus(new Path(resourcePath), parquetPathFilter).head
     val currSnapMd5 = getFileMd5(currSnapFile)
     val md5Path = resourcePath + "/" + "_" + currSnapMd5 + MD5_SUFFIX
@@ -406,9 +434,25 @@ class SnapshotBuilder(var jobId: String) extends Logging with Serializable {
   def buildSingleSnapshotWithoutMd5(ss: SparkSession, tableDesc: TableDesc, baseDir: String,
                                     resultMap: ConcurrentMap[String, Result]): Unit = {
     val sourceData = getSourceData(ss, tableDesc)
+    if (kylinConfig.isSnapshotFingerprintReuseEnabled) {
+      val result = buildSnapshotWithFingerprint(tableDesc, sourceData, baseDir, HadoopUtil.getWorkingFileSystem) {
+        (data, resourcePath) => writeSnapshotInParallel(ss, tableDesc, data, resourcePath)
+      }
+      resultMap.put(tableDesc.getIdentity, result)
+      return
+    }
     val tablePath = FileNames.snapshotFile(tableDesc)
     val snapshotTablePath = tablePath + "/" + UUID.randomUUID
     val resourcePath = baseDir + "/" + snapshotTablePath
+    writeSnapshotInParallel(ss, tableDesc, sourceData, resourcePath)
+
+    val (originSize, totalRows) = computeSnapshotSize(new Path(resourcePath), HadoopUtil.getWorkingFileSystem,
+      ss.read.parquet(resourcePath))
+    resultMap.put(tableDesc.getIdentity, Result(snapshotTablePath, originSize, totalRows))
+  }
+
+  private def writeSnapshotInParallel(ss: SparkSession, tableDesc: TableDesc, sourceData: Dataset[Row],
+                                      resourcePath: String): Unit = {
     var hadoopConf = SparderEnv.getHadoopConfiguration()
     if (kylinConfig.getClusterManagerClassName.contains("AWSServerless")) {
       hadoopConf = ss.sparkContext.hadoopConfiguration
@@ -427,7 +471,7 @@ class SnapshotBuilder(var jobId: String) extends Logging with Serializable {
     ss.sparkContext.setJobDescription(s"Build table snapshot ${tableDesc.getIdentity}.")
     lazy val snapshotInfo = Map(
       "source" -> tableDesc.getIdentity,
-      "snapshot" -> snapshotTablePath,
+      "snapshot" -> resourcePath,
       "sizeMB" -> sizeMB,
       "partition" -> repartitionNum
     )
@@ -437,10 +481,179 @@ class SnapshotBuilder(var jobId: String) extends Logging with Serializable {
     } else {
       sourceData.repartition().write.parquet(resourcePath)
     }
+  }
 
-    val snapshotDS = ss.read.parquet(resourcePath)
-    val (originSize, totalRows) = computeSnapshotSize(snapshotDS)
-    resultMap.put(tableDesc.getIdentity, Result(snapshotTablePath, originSize, totalRows))
+  /**
+   * The source is read only once. A snapshot is reused without reading the source when the source signature matches
+   * a former build, otherwise the source is written and its content fingerprint is computed in the same read. When the
+   * written content matches an existing snapshot, the new copy is dropped and the existing one is reused.
+   */
+  private def buildSnapshotWithFingerprint(tableDesc: TableDesc, sourceData: Dataset[Row], baseDir: String,
+                                           fs: FileSystem)(write: (Dataset[Row], String) => Unit): Result = {
+    val sourceSignature = computeSourceSignature(sourceData, tableDesc)
+    sourceSignature.flatMap(signature => findReusableSnapshot(tableDesc, signature, baseDir, fs)) match {
+      case Some(reusedPath) =>
+        val (originSize, totalRows) = computeSnapshotSize(new Path(baseDir + "/" + reusedPath), fs, sourceData)
+        Result(reusedPath, originSize, totalRows, sourceSignature = sourceSignature.orNull)
+      case None =>
+        val newSnapshotPath = FileNames.snapshotFile(tableDesc) + "/" + UUID.randomUUID
+        val resourcePath = baseDir + "/" + newSnapshotPath
+        val fingerprint = writeWithFingerprint(sourceData, resourcePath, fs)(data => write(data, resourcePath))
+        fingerprint.foreach(value => logInfo(s"Table ${tableDesc.getIdentity}'s snapshot fingerprint is $value"))
+        val snapshotPath = fingerprint.flatMap(value => findReusableSnapshot(tableDesc, value, baseDir, fs))
+          .filter(_ != newSnapshotPath) match {
+          case Some(reusedPath) =>
+            fs.delete(new Path(resourcePath), true)
+            reusedPath
+          case None => newSnapshotPath
+        }
+        val (originSize, totalRows) = computeSnapshotSize(new Path(baseDir + "/" + snapshotPath), fs, sourceData)
+        Result(snapshotPath, originSize, totalRows, fingerprint.orNull, sourceSignature.orNull)
+    }
+  }
+
+  /**
+   * Fingerprint the source by the files it reads and by its plan, without reading any data. Returns None when
+   * the source is not only read from files, e.g. a view over a JDBC table, whose content is only known by reading it.
+   */
+  private[builder] def computeSourceSignature(sourceData: Dataset[Row], tableDesc: TableDesc): Option[String] = {
+    Try {
+      val plan = sourceData.queryExecution.sparkPlan
+      val fileScansOnly = plan.collectLeaves().forall {
+        case _: FileSourceScanExec | _: HiveTableScanExec => true
+        case _ => false
+      }
+      if (!fileScansOnly) {
+        None
+      } else {
+        val hadoopConf = sourceData.sparkSession.sparkContext.hadoopConfiguration
+        val files = ResourceDetectUtils.getPaths(plan).flatMap { path =>
+          val iterator = path.getFileSystem(hadoopConf).listFiles(path, true)
+          val statuses = ListBuffer[String]()
+          while (iterator.hasNext) {
+            val file = iterator.next()
+            statuses += s"${file.getPath}|${file.getLen}|${file.getModificationTime}"
+          }
+          statuses
+        }
+        if (files.isEmpty) {
+          None
+        } else {
+          Some(DigestUtils.md5Hex((sourceData.queryExecution.optimizedPlan.canonicalized.toString +: files.sorted)
+            .mkString("\n")))
+        }
+      }
+    } match {
+      case Success(signature) => signature
+      case Failure(e) =>
+        logWarning(s"Failed to compute the source signature of ${tableDesc.getIdentity}", e)
+        None
+    }
+  }
+
+  /**
+   * Write the source data and compute its content fingerprint in the same read. Every row is hashed in Spark and
+   * the hashes are summed by accumulators, the sums do not depend on the order of rows or on how they are
+   * partitioned. A recomputed task may be counted twice, so the fingerprint is only returned when the counted rows
+   * match the rows written.
+   */
+  private[builder] def writeWithFingerprint(sourceData: Dataset[Row], resourcePath: String, fs: FileSystem)
+                                           (write: Dataset[Row] => Unit): Option[String] = {
+    val sparkContext = sourceData.sparkSession.sparkContext
+    val rowCount = sparkContext.longAccumulator("snapshotFingerprintRows")
+    val xxHashSum = sparkContext.longAccumulator("snapshotFingerprintXxHash")
+    val murmurHashSum = sparkContext.longAccumulator("snapshotFingerprintMurmurHash")
+    val columnSize = sourceData.columns.length
+    val columns = sourceData.columns.map(name => col("`" + name + "`"))
+    // hash functions skip null values, hash a null flag next to every column so that
+    // rows only differing in the positions of their nulls do not collide
+    val nullSafeColumns = columns.flatMap(column => Seq(column, isnull(column)))
+    val hashedData = sourceData.select(columns ++ Seq(xxhash64(nullSafeColumns: _*), hash(nullSafeColumns: _*)): _*)
+      .mapPartitions { iter =>
+        iter.map { row =>
+          rowCount.add(1)
+          xxHashSum.add(row.getLong(columnSize))
+          murmurHashSum.add(row.getInt(columnSize + 1))
+          Row.fromSeq(row.toSeq.take(columnSize))
+        }
+      }(RowEncoder(sourceData.schema))
+    write(hashedData)
+
+    readFooterStats(new Path(resourcePath), fs) match {
+      case Some((_, writtenRows)) if writtenRows == rowCount.value =>
+        Some(DigestUtils.md5Hex(Seq(sourceData.schema.json, rowCount.value, xxHashSum.value, murmurHashSum.value)
+          .mkString("|")))
+      case stats =>
+        logWarning(s"Skip the snapshot fingerprint of $resourcePath, ${rowCount.value} rows are hashed and " +
+          s"the written stats are $stats")
+        None
+    }
+  }
+
+  private[builder] def findReusableSnapshot(tableDesc: TableDesc, fingerprint: String, baseDir: String,
+                                            fs: FileSystem): Option[String] = {
+    val tableExt = NTableMetadataManager.getInstance(KylinConfig.getInstanceFromEnv, tableDesc.getProject)
+      .getTableExtIfExists(tableDesc)
+    val reused = Option(tableExt).flatMap(ext => Option(ext.getSnapshotPathByFingerprint(fingerprint)))
+      .filter(path => Try(fs.exists(new Path(baseDir + "/" + path))).getOrElse(false))
+    reused.foreach(path => logInfo(s"Reuse snapshot $path of ${tableDesc.getIdentity} with fingerprint $fingerprint"))
+    reused
+  }
+
+  /**
+   * Compute the size and the total rows of a written snapshot from parquet footers, scan the data only when
+   * the footers are not available. The original size of a snapshot is the uncompressed size of its parquet files
+   * on every build path, the scan only estimates it by the utf8 length of the values.
+   */
+  private[builder] def computeSnapshotSize(snapshotPath: Path, fs: FileSystem, sourceData: Dataset[Row]): (Long, Long) = {
+    if (!needCollectStat) {
+      return (-1L, -1L)
+    }
+    readFooterStats(snapshotPath, fs).getOrElse(computeSnapshotSize(sourceData))
+  }
+
+  /**
+   * Read the uncompressed size and the row count of all parquet files under the path from their footers,
+   * several files at a time. No spark job is launched.
+   */
+  private[builder] def readFooterStats(path: Path, fs: FileSystem): Option[(Long, Long)] = {
+    val files = ListBuffer[FileStatus]()
+    val service = Executors.newFixedThreadPool(Math.max(1, kylinConfig.getSnapshotFooterReadParallelism))
+    implicit val executorContext = ExecutionContext.fromExecutorService(service)
+    val stats = Try {
+      val iterator = fs.listFiles(path, true)
+      while (iterator.hasNext) {
+        val file = iterator.next()
+        if (file.getPath.getName.endsWith(PARQUET_SUFFIX)) {
+          files += file
+        }
+      }
+      val futures = files.map(file => Future {
+        val reader = ParquetFileReader.open(HadoopInputFile.fromStatus(file, fs.getConf))
+        try {
+          reader.getFooter.getBlocks.asScala.foldLeft((0L, 0L)) {
+            (stat, block) => (stat._1 + block.getTotalByteSize, stat._2 + block.getRowCount)
+          }
+        } finally {
+          reader.close()
+        }
+      })
+      val timeout = kylinConfig.snapshotParallelBuildTimeoutSeconds.seconds
+      ProxyThreadUtils.awaitResult(Future.sequence(futures.toList), timeout)
+        .foldLeft((0L, 0L))((a, b) => (a._1 + b._1, a._2 + b._2))
+    }
+    ProxyThreadUtils.shutdown(service)
+    stats match {
+      case Success(_) if files.isEmpty =>
+        logInfo(s"No parquet file found under $path")
+        None
+      case Success(result) =>
+        logInfo(s"Read stats of ${files.size} parquet files under $path from footers: $result")
+        Some(result)
+      case Failure(e) =>
+        logWarning(s"Failed to read parquet footers under $path", e)
+        None
+    }
   }
 
   private[builder] def computeSnapshotSize(sourceData: Dataset[Row]): (Long, Long) = {
@@ -520,6 +733,7 @@ class SnapshotBuilder(var jobId: String) extends Logging with Serializable {
     }
   }
 
-  case class Result(path: String, originalSize: Long, totalRows: Long)
+  case class Result(path: String, originalSize: Long, totalRows: Long, fingerprint: String = null,
+                    sourceSignature: String = null)
 
 }
@@ -18,7 +18,9 @@
 
 package org.apache.kylin.engine.spark.builder
 
+import org.apache.hadoop.fs.Path
 import org.apache.kylin.common.persistence.transaction.{UnitOfWork, UnitOfWorkParams}
+import org.apache.kylin.common.util.HadoopUtil
 import org.apache.kylin.common.{KapConfig, KylinConfig}
 import org.apache.kylin.engine.spark.utils.LogUtils
 import org.apache.kylin.metadata.datatype.DataType
@@ -31,12 +33,23 @@ import java.util.concurrent.Executors
 import scala.collection.JavaConverters._
 import scala.concurrent.duration._
 import scala.concurrent.{ExecutionContext, Future}
+import scala.util.Try
 
 class SnapshotPartitionBuilder extends SnapshotBuilder {
 
   @throws[IOException]
   def buildSnapshot(ss: SparkSession, table: TableDesc, partitionCol: String, partitions: java.util.Set[String]): Unit = {
-    executeBuildSnapshot(ss, table, partitionCol, partitions.asScala.toSet)
+    buildSnapshot(ss, table, partitionCol, partitions, incremental = false)
+  }
+
+  /**
+   * For an incremental build, partitions whose source signature is unchanged are not rewritten,
+   * the partition already in the last snapshot is kept.
+   */
+  @throws[IOException]
+  def buildSnapshot(ss: SparkSession, table: TableDesc, partitionCol: String, partitions: java.util.Set[String],
+                    incremental: Boolean): Unit = {
+    executeBuildSnapshot(ss, table, partitionCol, partitions.asScala.toSet, incremental)
   }
 
   def checkPointForPartition(project: String, tableName: String, results: List[(String, Result)]): Unit = {
@@ -52,7 +65,12 @@ class SnapshotPartitionBuilder extends SnapshotBuilder {
             if (result.totalRows != -1) {
               copyForWrite.setTotalRows(copyForWrite.getTotalRows + result.totalRows - originTable.getPartitionRow(partition))
             }
+            if (result.sourceSignature != null) {
+              copyForWrite.putSnapshotPartitionFingerprint(partition, result.sourceSignature)
+            }
           })
+          copyForWrite.retainSnapshotPartitionFingerprints(
+            (originTable.getSnapshotPartitions.keySet.asScala ++ results.map(_._1)).asJava)
         })
         tableMetadataManager.updateTableDesc(tableName, (copyForWrite: TableDesc) => {
           results.foreach(item => {
@@ -80,6 +98,11 @@ class SnapshotPartitionBuilder extends SnapshotBuilder {
   }
 
   def executeBuildSnapshot(ss: SparkSession, table: TableDesc, partitionCol: String, partitions: Set[String]): Unit = {
+    executeBuildSnapshot(ss, table, partitionCol, partitions, incremental = false)
+  }
+
+  def executeBuildSnapshot(ss: SparkSession, table: TableDesc, partitionCol: String, partitions: Set[String],
+                           incremental: Boolean): Unit = {
     val baseDir = KapConfig.getInstanceFromEnv.getMetadataWorkingDirectory
     val resourcePath = table.getTempSnapshotPath
     val snapshotTablePath = baseDir + '/' + resourcePath
@@ -93,7 +116,7 @@ class SnapshotPartitionBuilder extends SnapshotBuilder {
     val futures = partitions.map { partition =>
       Future {
         wrapConfigExecute[(String, Result)](() => {
-          (partition, buildSingleSnapshotWithoutMd5(ss, table, partitionCol, partition, snapshotTablePath))
+          (partition, buildSingleSnapshotWithoutMd5(ss, table, partitionCol, partition, snapshotTablePath, incremental))
         }, table.getIdentity + ":" + partition)
       }
     }
@@ -121,6 +144,11 @@ class SnapshotPartitionBuilder extends SnapshotBuilder {
 
   def buildSingleSnapshotWithoutMd5(ss: SparkSession, tableDesc: TableDesc,
                                     partitionCol: String, partition: String, snapshotTablePath: String): Result = {
+    buildSingleSnapshotWithoutMd5(ss, tableDesc, partitionCol, partition, snapshotTablePath, incremental = false)
+  }
+
+  def buildSingleSnapshotWithoutMd5(ss: SparkSession, tableDesc: TableDesc, partitionCol: String, partition: String,
+                                    snapshotTablePath: String, incremental: Boolean): Result = {
     var sourceData = getSourceData(ss, tableDesc)
     sourceData = sourceData.filter(newFilter(partitionCol, partition, tableDesc.findColumnByName(partitionCol).getType))
 
@@ -132,6 +160,19 @@ class SnapshotPartitionBuilder extends SnapshotBuilder {
     val partitionName = partitionCol + '=' + newPartition
     val resourcePath = snapshotTablePath + "/" + partitionName
 
+    // the source signature only lists the source files, the source is not read to decide the partition unchanged
+    val sourceSignature = if (kylinConfig.isSnapshotFingerprintReuseEnabled) {
+      computeSourceSignature(sourceData, tableDesc)
+    } else {
+      None
+    }
+    if (incremental && sourceSignature.exists(signature => isPartitionUnchanged(tableDesc, partition, partitionName,
+      signature))) {
+      logInfo(s"Partition $partition of ${tableDesc.getIdentity} is unchanged, skip rebuilding it.")
+      val (originSize, totalRows) = computeSnapshotSize(getLastPartitionPath(tableDesc, partitionName),
+        HadoopUtil.getWorkingFileSystem, sourceData)
+      return Result(snapshotTablePath, originSize, totalRows, sourceSignature = sourceSignature.get)
+    }
 
     val (repartitionNum, sizeMB) = decideSparkJobArg(sourceData)
 
@@ -151,8 +192,25 @@ class SnapshotPartitionBuilder extends SnapshotBuilder {
     } else {
       sourceData.repartition(repartitionNum).write.mode(SaveMode.Overwrite).parquet(resourcePath)
     }
-    val (originSize, totalRows) = computeSnapshotSize(sourceData)
-    Result(snapshotTablePath, originSize, totalRows)
+    val (originSize, totalRows) = computeSnapshotSize(new Path(resourcePath), HadoopUtil.getWorkingFileSystem,
+      sourceData)
+    Result(snapshotTablePath, originSize, totalRows, sourceSignature = sourceSignature.orNull)
+  }
+
+  private def isPartitionUnchanged(tableDesc: TableDesc, partition: String, partitionName: String,
+                                   fingerprint: String): Boolean = {
+    val tableExt = NTableMetadataManager.getInstance(KylinConfig.getInstanceFromEnv, tableDesc.getProject)
+      .getTableExtIfExists(tableDesc)
+    if (tableExt == null || tableDesc.getLastSnapshotPath == null
+      || fingerprint != tableExt.getSnapshotPartitionFingerprint(partition)) {
+      return false
+    }
+    Try(HadoopUtil.getWorkingFileSystem.exists(getLastPartitionPath(tableDesc, partitionName))).getOrElse(false)
+  }
+
+  private def getLastPartitionPath(tableDesc: TableDesc, partitionName: String): Path = {
+    val baseDir = KapConfig.getInstanceFromEnv.getMetadataWorkingDirectory
+    new Path(baseDir + "/" + tableDesc.getLastSnapshotPath + "/" + partitionName)
   }
 
 }
@@ -313,12 +313,13 @@ trait SegmentExec extends Logging {
     })
   }
 
-  protected final def wrapLayoutDS(layout: LayoutEntity, parentDS: Dataset[Row]): Dataset[Row] = {
+  protected final def wrapLayoutDS(layout: LayoutEntity, parentDS: Dataset[Row],
+                                   needAggregation: Boolean = true): Dataset[Row] = {
     if (IndexEntity.isTableIndex(layout.getId)) {
       require(layout.getIndex.getMeasures.isEmpty)
       wrapTblLayoutDS(layout, parentDS)
     } else {
-      wrapAggLayoutDS(layout, parentDS)
+      wrapAggLayoutDS(layout, parentDS, needAggregation)
     }
   }
 
@@ -331,10 +332,14 @@ trait SegmentExec extends Logging {
 
   protected def columnIdFunc(colRef: TblColRef): String
 
-  private def wrapAggLayoutDS(layout: LayoutEntity, parentDS: Dataset[Row]): Dataset[Row] = {
+  private def wrapAggLayoutDS(layout: LayoutEntity, parentDS: Dataset[Row], needAggregation: Boolean): Dataset[Row] = {
     val dimensions = wrapDimensions(layout)
     val measures = layout.getOrderedMeasures.keySet()
     val selectColumns = NSparkCubingUtil.getColumns(NSparkCubingUtil.combineIndices(dimensions, measures))
+    if (!needAggregation) {
+      // the parent is already aggregated by the dimensions of this layout
+      return parentDS.select(selectColumns: _*)
+    }
     val aggregated = CuboidAggregator.aggregate(parentDS, //
       dimensions, layout.getIndex.getEffectiveMeasures, columnIdFunc)
     aggregated.select(selectColumns: _*)
@@ -414,16 +419,21 @@ trait SegmentExec extends Logging {
       val columns = NSparkCubingUtil.getColumns(intersectionDimensions)
       val dimDS = ds.select(columns: _*)
 
-      // Calculate max and min of all dimensions
+      // Calculate max, min and null count of all dimensions in one aggregation
       val minCols: Array[Column] = dimDS.columns.map(min)
       val maxCols: Array[Column] = dimDS.columns.map(max)
-      val cols = Array.concat(minCols, maxCols)
-      val row = dimDS.agg(cols.head, cols.tail: _*).head.toSeq.splitAt(columns.length)
-      (intersectionDimensions.asScala.toSeq, row._1, row._2)
-        .zipped.map {
-          case (_, null, null) =>
-          case (column, min, max) => dimRangeInfo.put(column.toString, new DimensionRangeInfo(min.toString, max.toString))
+      val countCols: Array[Column] = dimDS.columns.map(column => count(col(column)))
+      val cols = Array.concat(minCols, maxCols, countCols, Array(count(lit(1))))
+      val row = dimDS.agg(cols.head, cols.tail: _*).head
+      val rowCount = row.getLong(cols.length - 1)
+      intersectionDimensions.asScala.toSeq.zipWithIndex.foreach { case (column, i) =>
+        val min = row.get(i)
+        val max = row.get(columns.length + i)
+        if (min != null && max != null) {
+          val nullCount = rowCount - row.getLong(2 * columns.length + i)
+          dimRangeInfo.put(column.toString, new DimensionRangeInfo(min.toString, max.toString, nullCount))
         }
+      }
       val timeCost = System.currentTimeMillis() - start
       logInfo(s"Segment $segmentId calculate dimension range cost $timeCost ms")
     }
@@ -444,17 +454,10 @@ trait SegmentExec extends Logging {
       // By design, Support for calculating dimension_range_information_map for one level partition under multi partitions
       // Calculate and merge with other partition's dimension range info, cautions are as follows
       // 1. Take the minimum min value and the maximum max value as the boundary to avoid losing data when query filtering.
-      // 2. No additional consideration of deletion
+      // 2. No additional consideration of deletion, the null counts of refreshed partitions may be counted twice
       val dimCols = segment.getDataflow.getIndexPlan.getEffectiveDimCols
-      val calcDimRangeInfoMap = calcDimRangeInfo.asScala.filter(dim => dimCols.containsKey(Integer.parseInt(dim._1)))
-      val storedDimRangeInfoMap = storedDimRangeInfo.asScala.filter(dim => dimCols.containsKey(Integer.parseInt(dim._1)))
-
-      (calcDimRangeInfoMap.keySet ++ storedDimRangeInfoMap.keySet).map { column =>
-        val rangeInfo1 = calcDimRangeInfoMap(column)
-        val rangeInfo2 = storedDimRangeInfoMap(column)
-        val updateDimRangeInfo = rangeInfo1.merge(rangeInfo2, dimCols.get(Integer.parseInt(column)).getType)
-        mergeDimRangeInfo.put(column, updateDimRangeInfo)
-      }
+      mergeDimRangeInfo.putAll(DimensionRangeInfo.mergeAll(
+        Seq[java.util.Map[String, DimensionRangeInfo]](calcDimRangeInfo, storedDimRangeInfo).asJava, dimCols))
     }
     val timeCost = System.currentTimeMillis() - start
     logInfo(s"Partition segment $segmentId calculate dimension range cost $timeCost ms")
@@ -28,7 +28,8 @@ import org.apache.kylin.engine.spark.job.step.StageExec
 import org.apache.kylin.engine.spark.job.{SegmentExec, SegmentJob}
 import org.apache.kylin.engine.spark.model.SegmentFlatTableDesc
 import org.apache.kylin.metadata.cube.model._
-import org.apache.kylin.metadata.model.TblColRef
+import org.apache.kylin.metadata.model.SegmentRange.TimePartitionedSegmentRange
+import org.apache.kylin.metadata.model.{PartitionDesc, TblColRef}
 import org.apache.kylin.metadata.sourceusage.SourceUsageManager
 import org.apache.spark.sql.datasource.storage.{StorageStoreUtils, WriteTaskStats}
 import org.apache.spark.sql.{Dataset, Row, SaveMode}
@@ -36,7 +37,6 @@ import org.apache.spark.sql.{Dataset, Row, SaveMode}
 import java.io.IOException
 import java.lang
 import java.util.Objects
-import scala.collection.JavaConverters
 import scala.collection.JavaConverters._
 
 abstract class MergeStage(private val jobContext: SegmentJob,
@@ -60,6 +60,19 @@ abstract class MergeStage(private val jobContext: SegmentJob,
   }
   protected val sparkSchedulerPool: String = "merge"
 
+  // The time partition column can tell apart the rows of different segments when all segments cover disjoint
+  // time ranges, the rows of a layout containing it never collide after the segments are united.
+  private lazy val disjointPartitionColumnId: Option[Integer] = {
+    val ranges = unmerged.map(_.getSegRange).collect { case range: TimePartitionedSegmentRange => range }
+    val disjoint = ranges.size == unmerged.size &&
+      ranges.combinations(2).forall(pair => !pair.head.overlaps(pair.last))
+    if (!disjoint || PartitionDesc.isEmptyPartitionDesc(dataModel.getPartitionDesc)) {
+      None
+    } else {
+      Some(dataModel.getPartitionColumnId).filter(_ >= 0).map(id => Integer.valueOf(id))
+    }
+  }
+
   override def getJobContext: SparkApplication = jobContext
 
   protected def mergeIndices(): Unit = {
@@ -104,10 +117,19 @@ abstract class MergeStage(private val jobContext: SegmentJob,
 
   private def mergeDataLayout(layout: LayoutEntity, unitedDS: Dataset[Row]): Unit = {
     val readableDesc = s"Merge layout ${layout.getId}"
-    val layoutDS = wrapLayoutDS(layout, unitedDS)
+    val layoutDS = wrapLayoutDS(layout, unitedDS, isAggregationNeeded(layout))
     newDataLayout(dataSegment, layout, layoutDS, readableDesc, None)
   }
 
+  protected final def isAggregationNeeded(layout: LayoutEntity): Boolean = {
+    val needed = !config.isMergeWithoutAggregationEnabled ||
+      !disjointPartitionColumnId.exists(layout.getOrderedDimensions.containsKey)
+    if (!needed) {
+      logInfo(s"Merge layout ${layout.getId} without aggregation, segments are split by the partition column")
+    }
+    needed
+  }
+
   override protected def recordTaskInfo(t: Task): Unit = {
     logInfo(s"Segment $segmentId submit task: ${t.getTaskDesc}")
   }
@@ -215,16 +237,15 @@ abstract class MergeStage(private val jobContext: SegmentJob,
       override def process(): Unit = {
         val usageManager = SourceUsageManager.getInstance(config)
         val totalCount = unmerged.map(_.getSourceCount).sum
-        val evaluated = unmerged.flatMap { segment => //
+        val evaluated = new java.util.HashMap[String, java.lang.Long]
+        unmerged.foreach { segment => //
           val existed = if (segment.getColumnSourceBytes.isEmpty && segment.getSourceCount != 0) {
             usageManager.calcAvgColumnSourceBytes(segment)
           } else {
             segment.getColumnSourceBytes
           }
-          existed.asScala
-        }.groupBy(_._1) //
-          .mapValues(_.map(_._2).reduce(_ + _)) //
-          .asJava
+          addColumnBytes(evaluated, existed)
+        }
         val dataflowManager = NDataflowManager.getInstance(config, project)
         val copiedSegment = dataflowManager.getDataflow(dataflowId).getSegment(segmentId).copy()
         val dataflowUpdate = new NDataflowUpdate(dataflowId)
@@ -250,18 +271,21 @@ abstract class MergeStage(private val jobContext: SegmentJob,
       val flatTablePath = config.getFlatTableDir(project, dataflowId, segmentId)
       val mergedDS = sparkSession.read.parquet(flatTablePath.toString)
       calDimRange(mergedSegment, mergedDS)
-    } else if (emptyDimRangeSeg.nonEmpty) {
-      new java.util.HashMap[String, DimensionRangeInfo]
-    } else {
+    } else if (emptyDimRangeSeg.isEmpty) {
+      // Dimensions not collected in some segment, e.g. added after a partial build, are dropped
       val dimCols = dataflow.getIndexPlan.getEffectiveDimCols
-      val mergedDimRange = unmerged.map(seg => JavaConverters.mapAsScalaMap(seg.getDimensionRangeInfoMap).toSeq)
-        .reduce(_ ++ _).groupBy(_._1).mapValues(_.map(_._2).seq)
-        .filter(dim => dimCols.containsKey(Integer.parseInt(dim._1)))
-        .map(dim => (dim._1, dim._2.reduce(_.merge(_, dimCols.get(Integer.parseInt(dim._1)).getType))))
-      JavaConverters.mapAsJavaMap(mergedDimRange)
+      DimensionRangeInfo.mergeAll(unmerged.map(_.getDimensionRangeInfoMap).asJava, dimCols)
+    } else {
+      new java.util.HashMap[String, DimensionRangeInfo]
     }
   }
 
+  protected final def addColumnBytes(merged: java.util.Map[String, java.lang.Long],
+                                     columnBytes: java.util.Map[String, java.lang.Long]): Unit = {
+    columnBytes.forEach((column, bytes) =>
+      merged.merge(column, bytes, (a: java.lang.Long, b: java.lang.Long) => java.lang.Long.valueOf(a + b)))
+  }
+
   protected case class LayoutMergeTask(grouped: Seq[NDataLayout]) extends Task {
     override def getTaskDesc: String = {
       s"${grouped.head.getLayoutId}"
@@ -96,7 +96,7 @@ abstract class PartitionMergeStage(private val jobContext: SegmentJob,
 
   private def mergeLayoutPartition(partitionId: java.lang.Long, layout: LayoutEntity, unitedDS: Dataset[Row]): Unit = {
     val readableDesc = s"Merge layout ${layout.getId} partition $partitionId"
-    val layoutDS = wrapLayoutDS(layout, unitedDS)
+    val layoutDS = wrapLayoutDS(layout, unitedDS, isAggregationNeeded(layout))
     newLayoutPartition(dataSegment, layout, partitionId, layoutDS, readableDesc, None)
   }
 
@@ -112,11 +112,8 @@ abstract class PartitionMergeStage(private val jobContext: SegmentJob,
           .values.foreach { grouped => //
           val partitionId = grouped.head.getPartitionId
           val totalCount = grouped.map(_.getSourceCount).sum
-          val evaluated = grouped.flatMap(_.getColumnSourceBytes.asScala) //
-            .groupBy(_._1) //
-            .mapValues(_.map(_._2).reduce(_ + _))
-            .map { case (k, v) => k -> long2Long(v) }
-            .asJava
+          val evaluated = new java.util.HashMap[String, java.lang.Long]
+          grouped.foreach(partition => addColumnBytes(evaluated, partition.getColumnSourceBytes))
 
           val segmentPartition = newSegmentPartition(copiedSegment, partitionId, newAdds)
           segmentPartition.setSourceCount(totalCount)
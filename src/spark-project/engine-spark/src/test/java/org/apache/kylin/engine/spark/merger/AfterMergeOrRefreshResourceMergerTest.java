@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.engine.spark.merger;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Set;
+
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.kylin.common.KapConfig;
+import org.apache.kylin.common.KylinConfig;
+import org.apache.kylin.common.persistence.ResourceStore;
+import org.apache.kylin.common.persistence.transaction.UnitOfWork;
+import org.apache.kylin.common.util.HadoopUtil;
+import org.apache.kylin.common.util.NLocalFileMetadataTestCase;
+import org.apache.kylin.guava30.shaded.common.collect.Sets;
+import org.apache.kylin.job.execution.JobTypeEnum;
+import org.apache.kylin.metadata.cube.model.NDataLayout;
+import org.apache.kylin.metadata.cube.model.NDataflow;
+import org.apache.kylin.metadata.cube.model.NDataflowManager;
+import org.apache.kylin.metadata.cube.model.NDataflowUpdate;
+import org.apache.kylin.metadata.cube.storage.StorageManifest;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import lombok.val;
+
+public class AfterMergeOrRefreshResourceMergerTest extends NLocalFileMetadataTestCase {
+
+    private static final String PROJECT = "default";
+    // a multi-level partition model, layout 110001 of the segment stores partition 7 in bucket 20
+    // and partition 8 in bucket 21
+    private static final String DATAFLOW_ID = "b780e4e4-69af-449e-b09f-05c90dfa04b6";
+    private static final String SEGMENT_ID = "0db919f3-1359-496c-aab5-b6f3951adc0e";
+    private static final long LAYOUT_ID = 110001L;
+
+    @Before
+    public void setup() {
+        createTestMetadata();
+        getTestConfig().setProperty("kylin.garbage.storage.manifest-enabled", "true");
+    }
+
+    @After
+    public void teardown() {
+        cleanupTestMetadata();
+    }
+
+    @Test
+    public void testSubPartitionRefreshRecordsReplacedBuckets() throws IOException {
+        // the job wrote partition 7 into bucket 20, while the committed metadata still points to bucket 30
+        ResourceStore remoteStore = ResourceStore.getKylinMetaStore(KylinConfig.createKylinConfig(getTestConfig()));
+        updateBucket(7L, 30);
+
+        merge(JobTypeEnum.SUB_PARTITION_REFRESH, Sets.newHashSet(7L), remoteStore);
+
+        NDataLayout layout = getDataflow().getSegment(SEGMENT_ID).getLayout(LAYOUT_ID);
+        Assert.assertEquals(20, layout.getDataPartition(7L).getBucketId());
+        Assert.assertEquals(21, layout.getDataPartition(8L).getBucketId());
+
+        StorageManifest manifest = readLatestManifest();
+        String layoutPath = StorageManifest.getSegmentPath(getDataflow(), SEGMENT_ID) + "/" + LAYOUT_ID;
+        // the replaced bucket is collected, the new bucket and the untouched partition are kept
+        Assert.assertTrue(manifest.getSupersededPaths().contains(layoutPath + "/30"));
+        Assert.assertFalse(manifest.getSupersededPaths().contains(layoutPath + "/20"));
+        Assert.assertFalse(manifest.getSupersededPaths().contains(layoutPath + "/21"));
+    }
+
+    @Test
+    public void testSubPartitionBuildRecordsNoBuckets() throws IOException {
+        ResourceStore remoteStore = ResourceStore.getKylinMetaStore(KylinConfig.createKylinConfig(getTestConfig()));
+
+        merge(JobTypeEnum.SUB_PARTITION_BUILD, Sets.newHashSet(7L), remoteStore);
+
+        StorageManifest manifest = readLatestManifest();
+        String layoutPath = StorageManifest.getSegmentPath(getDataflow(), SEGMENT_ID) + "/" + LAYOUT_ID;
+        Assert.assertTrue(manifest.getSupersededPaths().stream().noneMatch(path -> path.startsWith(layoutPath)));
+    }
+
+    private void merge(JobTypeEnum jobType, Set<Long> partitions, ResourceStore remoteStore) {
+        UnitOfWork.doInTransactionWithRetry(() -> {
+            val merger = new AfterMergeOrRefreshResourceMerger(KylinConfig.getInstanceFromEnv(), PROJECT);
+            merger.merge(DATAFLOW_ID, Sets.newHashSet(SEGMENT_ID), Sets.newHashSet(LAYOUT_ID), remoteStore, jobType,
+                    partitions);
+            return null;
+        }, PROJECT);
+    }
+
+    private void updateBucket(long partitionId, long bucketId) {
+        UnitOfWork.doInTransactionWithRetry(() -> {
+            NDataflowManager dataflowManager = NDataflowManager.getInstance(KylinConfig.getInstanceFromEnv(),
+                    PROJECT);
+            NDataLayout layout = dataflowManager.getDataflow(DATAFLOW_ID).getSegment(SEGMENT_ID).copy()
+                    .getLayout(LAYOUT_ID);
+            layout.getDataPartition(partitionId).setBucketId(bucketId);
+            NDataflowUpdate update = new NDataflowUpdate(DATAFLOW_ID);
+            update.setToAddOrUpdateLayouts(layout);
+            dataflowManager.updateDataflow(update);
+            return null;
+        }, PROJECT);
+    }
+
+    private NDataflow getDataflow() {
+        return NDataflowManager.getInstance(getTestConfig(), PROJECT).getDataflow(DATAFLOW_ID);
+    }
+
+    private StorageManifest readLatestManifest() throws IOException {
+        FileSystem fs = HadoopUtil.getWorkingFileSystem();
+        String workingDir = KapConfig.wrap(getDataflow().getConfig()).getMetadataWorkingDirectory();
+        FileStatus[] manifests = fs.listStatus(StorageManifest.getManifestDir(workingDir, PROJECT),
+                path -> path.getName().endsWith(StorageManifest.MANIFEST_SUFFIX));
+        // manifest names start with the create time
+        FileStatus latest = Arrays.stream(manifests).max(Comparator.comparing(status -> status.getPath().getName()))
+                .orElseThrow(() -> new AssertionError("no storage manifest recorded"));
+        return StorageManifest.read(fs, latest.getPath());
+    }
+}
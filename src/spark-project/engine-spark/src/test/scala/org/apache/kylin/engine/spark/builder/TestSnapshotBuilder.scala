@@ -22,7 +22,7 @@ import org.apache.kylin.common.util.HadoopUtil
 import org.apache.kylin.common.{KapConfig, KylinConfig}
 import org.apache.kylin.metadata.model.{NDataModel, NDataModelManager, NTableMetadataManager}
 import org.apache.spark.SparkException
-import org.apache.spark.sql.SparderEnv
+import org.apache.spark.sql.{Dataset, Row, SparderEnv}
 import org.apache.spark.sql.common.{LocalMetadata, SharedSparkSession, SparderBaseFunSuite}
 import org.junit.Assert
 
@@ -53,6 +53,53 @@ class TestSnapshotBuilder extends SparderBaseFunSuite with SharedSparkSession wi
     buildSnapshot(dataModel, isMock = true, 2, null)
   }
 
+  test("snapshot -- fingerprint does not depend on row order") {
+    val ds = spark.range(0, 100).selectExpr("id", "cast(id as string) as name")
+    val fingerprint = writeWithFingerprint(ds)
+    val shuffledFingerprint = writeWithFingerprint(ds.orderBy(ds("id").desc).repartition(3))
+    val filteredFingerprint = writeWithFingerprint(ds.filter("id > 0"))
+    Assert.assertTrue(fingerprint.isDefined)
+    Assert.assertEquals(fingerprint, shuffledFingerprint)
+    Assert.assertNotEquals(fingerprint, filteredFingerprint)
+  }
+
+  test("snapshot -- read total rows from parquet footers") {
+    val snapshotBuilder = new SnapshotBuilder()
+    val path = new Path(KapConfig.wrap(getTestConfig).getReadHdfsWorkingDirectory + "footer_stats")
+    spark.range(0, 100).repartition(3).write.mode("overwrite").parquet(path.toString)
+    val stats = snapshotBuilder.readFooterStats(path, HadoopUtil.getWorkingFileSystem)
+    Assert.assertTrue(stats.isDefined)
+    Assert.assertEquals(100L, stats.get._2)
+    Assert.assertTrue(stats.get._1 > 0)
+    Assert.assertTrue(snapshotBuilder.readFooterStats(new Path(path, "not_exists"), HadoopUtil.getWorkingFileSystem).isEmpty)
+  }
+
+  test("snapshot -- fingerprint distinguishes the positions of nulls") {
+    val ds = spark.range(0, 10).selectExpr("nullif(cast(id as string), '-1') as a", "cast(null as string) as b")
+    val swapped = ds.selectExpr("b as a", "a as b")
+    val fingerprint = writeWithFingerprint(ds)
+    val swappedFingerprint = writeWithFingerprint(swapped)
+    Assert.assertEquals(ds.schema, swapped.schema)
+    Assert.assertNotEquals(fingerprint, swappedFingerprint)
+  }
+
+  test("snapshot -- source signature follows the source files") {
+    val snapshotBuilder = new SnapshotBuilder()
+    val tableDesc = NTableMetadataManager.getInstance(getTestConfig, DEFAULT_PROJECT).getTableDesc("DEFAULT.TEST_KYLIN_FACT")
+    val path = KapConfig.wrap(getTestConfig).getReadHdfsWorkingDirectory + "source_signature"
+    spark.range(0, 100).write.mode("overwrite").parquet(path)
+    val signature = snapshotBuilder.computeSourceSignature(spark.read.parquet(path), tableDesc)
+    Assert.assertTrue(signature.isDefined)
+    Assert.assertEquals(signature, snapshotBuilder.computeSourceSignature(spark.read.parquet(path), tableDesc))
+    Assert.assertNotEquals(signature,
+      snapshotBuilder.computeSourceSignature(spark.read.parquet(path).filter("id > 0"), tableDesc))
+
+    spark.range(100, 200).write.mode("append").parquet(path)
+    Assert.assertNotEquals(signature, snapshotBuilder.computeSourceSignature(spark.read.parquet(path), tableDesc))
+    // not only read from files, the source has to be read to know its content
+    Assert.assertTrue(snapshotBuilder.computeSourceSignature(spark.range(0, 100).toDF(), tableDesc).isEmpty)
+  }
+
   test("test concurrent snapshot success") {
     overwriteSystemProp("kylin.snapshot.parallel-build-enabled", "true")
     buildSnapshot(getModel(MODEL_ID))
@@ -84,6 +131,13 @@ class TestSnapshotBuilder extends SparderBaseFunSuite with SharedSparkSession wi
   }
 
 
+  private def writeWithFingerprint(ds: Dataset[Row]): Option[String] = {
+    val path = KapConfig.wrap(getTestConfig).getReadHdfsWorkingDirectory + "fingerprint"
+    new SnapshotBuilder().writeWithFingerprint(ds, path, HadoopUtil.getWorkingFileSystem) { data =>
+      data.write.mode("overwrite").parquet(path)
+    }
+  }
+
   private def buildSnapshot(dm: NDataModel): Unit = {
     buildSnapshot(dm, false, 1, null)
   }
@@ -21,8 +21,10 @@ import org.apache.commons.io.FileUtils
 import org.apache.hadoop.fs.Path
 import org.apache.kylin.common.KylinConfig
 import org.apache.kylin.engine.spark.job.SegmentJob
-import org.apache.kylin.metadata.cube.model.NDataSegment
-import org.apache.kylin.metadata.model.NDataModel
+import org.apache.kylin.guava30.shaded.common.collect.{ImmutableBiMap, Lists}
+import org.apache.kylin.metadata.cube.model.{LayoutEntity, NDataSegment}
+import org.apache.kylin.metadata.model.SegmentRange.TimePartitionedSegmentRange
+import org.apache.kylin.metadata.model.{NDataModel, PartitionDesc, TblColRef}
 import org.apache.spark.sql.common.LocalMetadata
 import org.junit.Assert
 import org.mockito.Mockito
@@ -52,6 +54,8 @@ class MergeStageTest extends AnyFunSuite with LocalMetadata {
 
     override def getUnmergedFTPaths: Seq[Path] = super.getUnmergedFTPaths
 
+    def aggregationNeeded(layout: LayoutEntity): Boolean = isAggregationNeeded(layout)
+
     override def getStageName: String = "MergeStageMock"
   }
 
@@ -93,4 +97,51 @@ class MergeStageTest extends AnyFunSuite with LocalMetadata {
     testGetUnmergedFTPaths(config)
   }
 
+  def newMergeStage(ranges: TimePartitionedSegmentRange*): MergeStageMock = {
+    val jobContext = Mockito.mock(classOf[SegmentJob])
+    Mockito.when(jobContext.getConfig).thenReturn(KylinConfig.getInstanceFromEnv)
+
+    val partitionDesc = new PartitionDesc
+    partitionDesc.setPartitionDateColumn("TEST_KYLIN_FACT.CAL_DT")
+    val dataModel = Mockito.mock(classOf[NDataModel])
+    Mockito.when(dataModel.getPartitionDesc).thenReturn(partitionDesc)
+    Mockito.when(dataModel.getPartitionColumnId).thenReturn(2)
+    val dataSegment = Mockito.mock(classOf[NDataSegment])
+    Mockito.when(dataSegment.getModel).thenReturn(dataModel)
+
+    val unmerged = ranges.map { range =>
+      val segment = Mockito.mock(classOf[NDataSegment])
+      Mockito.when(segment.getSegRange).thenReturn(range)
+      segment
+    }
+    Mockito.when(jobContext.getUnmergedSegments(dataSegment)).thenReturn(Lists.newArrayList(unmerged: _*))
+    new MergeStageMock(jobContext, dataSegment)
+  }
+
+  def newLayout(dimensions: Int*): LayoutEntity = {
+    val builder = ImmutableBiMap.builder[Integer, TblColRef]()
+    dimensions.foreach(dim => builder.put(dim, Mockito.mock(classOf[TblColRef])))
+    val layout = Mockito.mock(classOf[LayoutEntity])
+    Mockito.when(layout.getOrderedDimensions).thenReturn(builder.build())
+    layout
+  }
+
+  test("merge layout without aggregation if it contains the partition column") {
+    val mergeStage = newMergeStage(new TimePartitionedSegmentRange(0L, 10L), new TimePartitionedSegmentRange(10L, 20L))
+    Assert.assertFalse(mergeStage.aggregationNeeded(newLayout(1, 2)))
+    Assert.assertTrue(mergeStage.aggregationNeeded(newLayout(1, 3)))
+
+    KylinConfig.getInstanceFromEnv.setProperty("kylin.engine.merge-without-aggregation-enabled", "false")
+    try {
+      Assert.assertTrue(mergeStage.aggregationNeeded(newLayout(1, 2)))
+    } finally {
+      KylinConfig.getInstanceFromEnv.setProperty("kylin.engine.merge-without-aggregation-enabled", "true")
+    }
+  }
+
+  test("merge layout with aggregation if segments overlap") {
+    val mergeStage = newMergeStage(new TimePartitionedSegmentRange(0L, 10L), new TimePartitionedSegmentRange(5L, 20L))
+    Assert.assertTrue(mergeStage.aggregationNeeded(newLayout(1, 2)))
+  }
+
 }
@@ -250,7 +250,7 @@ object SparkSqlClient {
       }
   }
 
-  private def rawValueToString(value: Any, wrapped: Boolean = false): String = value match {
+  private[query] def rawValueToString(value: Any, wrapped: Boolean = false): String = value match {
     case null => null
     case value: Timestamp => DateFormat.castTimestampToString(value.getTime)
     case value: String => if (wrapped) "\"" + value + "\"" else value
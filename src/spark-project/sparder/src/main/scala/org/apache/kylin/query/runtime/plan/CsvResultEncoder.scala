@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.query.runtime.plan
+
+import org.apache.calcite.sql.`type`.SqlTypeName
+import org.apache.kylin.query.pushdown.SparkSqlClient
+import org.apache.spark.sql.Row
+import org.apache.spark.sql.util.SparderTypeUtil
+
+/**
+ * Encode result rows into csv lines, it's serializable to encode rows on executors.
+ *
+ * @param columnTypes the sql type name and the scale of each column, null for push down queries
+ */
+class CsvResultEncoder(separator: String, columnTypes: Array[(SqlTypeName, Int)]) extends Serializable {
+
+  def encode(row: Row): String = {
+    val size = if (columnTypes == null) row.size else math.min(row.size, columnTypes.length)
+    val builder = new StringBuilder
+    for (i <- 0 until size) {
+      val value = if (columnTypes == null) {
+        SparkSqlClient.rawValueToString(row.get(i))
+      } else {
+        SparderTypeUtil.convertToStringWithSqlType(row.get(i), columnTypes(i)._1, columnTypes(i)._2)
+      }
+      if (i > 0) builder.append(separator)
+      builder.append(CsvResultEncoder.encodeCell(if (value == null) "" else value, separator))
+    }
+    builder.toString()
+  }
+}
+
+object CsvResultEncoder {
+  val QUOTE_CHAR = "\""
+
+  // the encode logic is copied from org.supercsv.encoder.DefaultCsvEncoder.encode
+  def encodeCell(column1: String, separator: String): String = {
+
+    var column = column1
+    var needQuote = column.contains(separator) || column.contains("\r") || column.contains("\n")
+
+    if (column.contains(QUOTE_CHAR)) {
+      needQuote = true
+      column = column.replace(QUOTE_CHAR, QUOTE_CHAR + QUOTE_CHAR)
+    }
+
+    if (needQuote) QUOTE_CHAR + column + QUOTE_CHAR
+    else column
+  }
+}
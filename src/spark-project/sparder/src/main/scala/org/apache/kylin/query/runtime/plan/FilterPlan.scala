@@ -21,7 +21,8 @@ import org.apache.calcite.DataContext
 import org.apache.kylin.engine.spark.utils.LogEx
 import org.apache.kylin.query.relnode.OlapFilterRel
 import org.apache.kylin.query.runtime.SparderRexVisitor
-import org.apache.spark.sql.Column
+import org.apache.kylin.query.util.SparderDerivedUtil
+import org.apache.spark.sql.{Column, SparderEnv}
 import org.apache.spark.sql.catalyst.plans.logical.{Filter, LogicalPlan}
 
 object FilterPlan extends LogEx {
@@ -34,6 +35,6 @@ object FilterPlan extends LogEx {
       dataContext)
     val filterColumn = rel.getCondition.accept(visitor).asInstanceOf[Column]
 
-    Filter(filterColumn.expr, plan)
+    SparderDerivedUtil.translateDerivedFilters(SparderEnv.getSparkSession, Filter(filterColumn.expr, plan))
   }
 }
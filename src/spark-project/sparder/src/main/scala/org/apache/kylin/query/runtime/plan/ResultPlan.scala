@@ -27,7 +27,7 @@ import org.apache.commons.io.IOUtils
 import org.apache.gluten.extension.GlutenSessionExtensions
 import org.apache.hadoop.fs.Path
 import org.apache.kylin.common.exception.code.ErrorCodeServer.ASYNC_QUERY_OUT_OF_DATA_RANGE
-import org.apache.kylin.common.exception.{BigQueryException, NewQueryRefuseException}
+import org.apache.kylin.common.exception.{AsyncQueryTooLargeException, BigQueryException, NewQueryRefuseException}
 import org.apache.kylin.common.util.{HadoopUtil, RandomUtil}
 import org.apache.kylin.common.{KapConfig, KylinConfig, QueryContext}
 import org.apache.kylin.engine.spark.QueryCostCollector
@@ -41,13 +41,15 @@ import org.apache.kylin.query.engine.exec.ExecuteResult
 import org.apache.kylin.query.pushdown.SparkSqlClient.readPushDownResultRow
 import org.apache.kylin.query.relnode.ContextUtil
 import org.apache.kylin.query.util.{AsyncQueryUtil, QueryInterruptChecker, SparkJobTrace, SparkQueryJobManager}
-import org.apache.poi.xssf.usermodel.{XSSFSheet, XSSFWorkbook}
+import org.apache.poi.ss.usermodel.Sheet
+import org.apache.poi.xssf.streaming.SXSSFWorkbook
 import org.apache.spark.SparkConf
 import org.apache.spark.sql.execution._
 import org.apache.spark.sql.execution.gluten.KylinFileSourceScanExecTransformer
 import org.apache.spark.sql.hive.QueryMetricUtils
+import org.apache.spark.sql.hive.utils.ResourceDetectUtils
 import org.apache.spark.sql.util.{SparderConstants, SparderTypeUtil}
-import org.apache.spark.sql.{DataFrame, Row, SaveMode, SparderEnv}
+import org.apache.spark.sql.{DataFrame, Encoders, Row, SaveMode, SparderEnv}
 
 import scala.collection.JavaConverters._
 import scala.collection.convert.ImplicitConversions.`iterator asScala`
@@ -66,6 +68,8 @@ object ResultPlan extends LogEx {
   val QUOTE_CHAR = "\""
   val END_OF_LINE_SYMBOLS: String = IOUtils.LINE_SEPARATOR_UNIX
   val CHECK_WRITE_SIZE = 1000
+  val CSV_HEADER_FILE = "header.csv"
+  val SPARK_PART_FILE_PREFIX = "part-"
 
   def saveAsyncQueryResult(df: DataFrame, format: String, encode: String, rowType: RelDataType): Unit = {
     val kapConfig = KapConfig.getInstanceFromEnv
@@ -78,7 +82,11 @@ object ResultPlan extends LogEx {
     sparkContext.setJobGroup(jobGroup,
       QueryContext.current().getMetrics.getCorrectedSql,
       interruptOnCancel = true)
-    if (kapConfig.isQueryLimitEnabled && SparderEnv.isSparkExecutorResourceLimited(sparkContext.getConf)) {
+    if (QueryContext.current().getQueryTagInfo.isAsyncQueryOnSharedApp) {
+      checkSharedAsyncQuerySize(df)
+      val projectConfig = NProjectManager.getProjectConfig(QueryContext.current().getProject)
+      sparkContext.setLocalProperty(SPARK_SCHEDULER_POOL, projectConfig.getAsyncQuerySharedAppSchedulerPool)
+    } else if (kapConfig.isQueryLimitEnabled && SparderEnv.isSparkExecutorResourceLimited(sparkContext.getConf)) {
       sparkContext.setLocalProperty(SPARK_SCHEDULER_POOL, "async_query_tasks")
     }
     df.sparkSession.sparkContext.setLocalProperty(QueryToExecutionIDCache.KYLIN_QUERY_EXECUTION_ID, queryExecutionId)
@@ -135,6 +143,30 @@ object ResultPlan extends LogEx {
     }
   }
 
+  /**
+   * Only small and medium async queries run on the shared application, large ones are handed back
+   * to be submitted as standalone async query jobs before anything is executed. Both index and pushdown
+   * queries save their results here, the scanned bytes cover pushdown queries which do not collect scan rows.
+   */
+  private[kylin] def checkSharedAsyncQuerySize(df: DataFrame): Unit = {
+    val projectConfig = NProjectManager.getProjectConfig(QueryContext.current().getProject)
+    // planning the query collects the source scan rows
+    val sparkPlan = df.queryExecution.sparkPlan
+    val sourceScanRows = QueryContext.current().getMetrics.getAccumSourceScanRows
+    val maxScanRows = projectConfig.getAsyncQuerySharedAppMaxScanRows
+    if (sourceScanRows > maxScanRows) {
+      throw new AsyncQueryTooLargeException(s"The async query scans $sourceScanRows rows, " +
+        s"more than $maxScanRows rows allowed on the shared application.")
+    }
+    val sourceScanBytes = ResourceDetectUtils.getResourceSize(projectConfig, SparderEnv.getHadoopConfiguration(),
+      ResourceDetectUtils.getPaths(sparkPlan): _*)
+    val maxScanBytes = projectConfig.getAsyncQuerySharedAppMaxScanBytes
+    if (sourceScanBytes > maxScanBytes) {
+      throw new AsyncQueryTooLargeException(s"The async query scans $sourceScanBytes bytes, " +
+        s"more than $maxScanBytes bytes allowed on the shared application.")
+    }
+  }
+
   private def ifRefuseQuery(sumOfSourceScanRows: Long, bigQueryThreshold: Long, sourceScanRows: util.List[lang.Long], ifBigQuery: Boolean): Unit = {
     if (QueryShareStateManager.isShareStateSwitchEnabled
       && sumOfSourceScanRows >= bigQueryThreshold
@@ -394,33 +426,82 @@ object ResultPlan extends LogEx {
     }
   }
 
-  def processCsv(df: DataFrame, format: String, rowType: RelDataType, path: String, queryId: String, includeHeader: Boolean) = {
-    val file = createTmpFile(queryId, format)
-    val writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)
-    if (includeHeader) processCsvHeader(writer, rowType)
-    val (iterator, resultRowSize) = df.toIterator()
-    asyncQueryIteratorWriteCsv(iterator, writer, rowType)
-    uploadAsyncQueryResult(file, path, queryId, format)
-    setResultRowCount(resultRowSize)
+  def processCsv(df: DataFrame, format: String, rowType: RelDataType, path: String, queryId: String, includeHeader: Boolean): Unit = {
+    if (NProjectManager.getProjectConfig(QueryContext.current().getProject).isAsyncQueryParallelExportEnabled) {
+      processCsvInParallel(df, rowType, path, includeHeader)
+    } else {
+      val file = createTmpFile(queryId, format)
+      val writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)
+      if (includeHeader) processCsvHeader(writer, rowType)
+      val (iterator, resultRowSize) = df.toIterator()
+      asyncQueryIteratorWriteCsv(iterator, writer, rowType)
+      uploadAsyncQueryResult(file, path, queryId, format)
+      setResultRowCount(resultRowSize)
+    }
+  }
+
+  /**
+   * Executors encode and write the csv lines to the result directory in parallel, nothing is collected to
+   * the driver. The header is written as a separate file, and the manifest keeps the order of the files.
+   */
+  private def processCsvInParallel(df: DataFrame, rowType: RelDataType, path: String, includeHeader: Boolean): Unit = {
+    val separator = QueryContext.current().getQueryTagInfo.getSeparator
+    val columnTypes = if (rowType == null) {
+      null
+    } else {
+      rowType.getFieldList.asScala.map(field => (field.getType.getSqlTypeName, field.getType.getScale)).toArray
+    }
+    val encoder = new CsvResultEncoder(separator, columnTypes)
+    val fileSystem = AsyncQueryUtil.getFileSystem
+    val resultDir = new Path(path)
+    val files = mutable.ArrayBuffer[String]()
+    if (includeHeader) {
+      fileSystem.mkdirs(resultDir)
+      val writer = new OutputStreamWriter(fileSystem.create(new Path(resultDir, CSV_HEADER_FILE)), StandardCharsets.UTF_8)
+      try {
+        processCsvHeader(writer, rowType)
+      } finally {
+        writer.close()
+      }
+      files += CSV_HEADER_FILE
+    }
+    df.map(row => encoder.encode(row))(Encoders.STRING).write.mode(SaveMode.Append).text(path)
+    // the part files are named by the index of partitions, which keeps the order of rows
+    files ++= fileSystem.listStatus(resultDir).map(_.getPath.getName)
+      .filter(name => name.startsWith(SPARK_PART_FILE_PREFIX)).sorted
+    AsyncQueryUtil.saveResultManifest(resultDir, files.asJava)
   }
 
   def processXlsx(df: DataFrame, format: String, rowType: RelDataType, path: String, queryId: String, includeHeader: Boolean) = {
     val file = createTmpFile(queryId, format)
     val outputStream = new FileOutputStream(file)
-    val workbook = new XSSFWorkbook
-    val sheet = workbook.createSheet("query_result")
-    var num = 0
-    if (includeHeader) {
-      processXlsxHeader(sheet, rowType)
-      num += 1
+    // only the rows in the window are kept in memory, the others are flushed to a temporary file
+    val workbook = new SXSSFWorkbook(
+      NProjectManager.getProjectConfig(QueryContext.current().getProject).getAsyncQueryXlsxRowWindowSize)
+    var resultRowSize = 0
+    try {
+      val sheet = workbook.createSheet("query_result")
+      var num = 0
+      if (includeHeader) {
+        processXlsxHeader(sheet, rowType)
+        num += 1
+      }
+      val (iterator, rowSize) = df.toIterator()
+      resultRowSize = rowSize
+      iterator.foreach(row => {
+        val excelRow = sheet.createRow(num)
+        for (i <- 0 until row.size) {
+          if (!row.isNullAt(i)) {
+            excelRow.createCell(i).setCellValue(row.get(i).toString)
+          }
+        }
+        num += 1
+      })
+      workbook.write(outputStream)
+    } finally {
+      outputStream.close()
+      workbook.dispose()
     }
-    val (iterator, resultRowSize) = df.toIterator()
-    iterator.foreach(row => {
-      val row1 = sheet.createRow(num)
-      row.toSeq.zipWithIndex.foreach(it => row1.createCell(it._2).setCellValue(it._1.toString))
-      num += 1
-    })
-    workbook.write(outputStream)
     uploadAsyncQueryResult(file, path, queryId, format)
     setResultRowCount(resultRowSize)
   }
@@ -446,7 +527,7 @@ object ResultPlan extends LogEx {
     writer.flush()
   }
 
-  def processXlsxHeader(sheet: XSSFSheet, rowType: RelDataType): Unit = {
+  def processXlsxHeader(sheet: Sheet, rowType: RelDataType): Unit = {
     val excelRow = sheet.createRow(0)
 
     rowType match {
@@ -490,19 +571,8 @@ object ResultPlan extends LogEx {
       }
   }
 
-  // the encode logic is copied from org.supercsv.encoder.DefaultCsvEncoder.encode
   def encodeCell(column1: String, separator: String): String = {
-
-    var column = column1
-    var needQuote = column.contains(separator) || column.contains("\r") || column.contains("\n")
-
-    if (column.contains(QUOTE_CHAR)) {
-      needQuote = true
-      column = column.replace(QUOTE_CHAR, QUOTE_CHAR + QUOTE_CHAR)
-    }
-
-    if (needQuote) QUOTE_CHAR + column + QUOTE_CHAR
-    else column
+    CsvResultEncoder.encodeCell(column1, separator)
   }
 
   /**
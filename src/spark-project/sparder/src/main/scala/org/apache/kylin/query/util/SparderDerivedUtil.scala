@@ -28,17 +28,23 @@ import org.apache.kylin.metadata.model.util.scd2.Scd2Simplifier
 import org.apache.kylin.metadata.model.{DeriveInfo, NDataModel, NTableMetadataManager, TblColRef}
 import org.apache.kylin.metadata.table.InternalTableManager
 import org.apache.kylin.metadata.tuple.TupleInfo
-import org.apache.spark.sql.catalyst.plans.JoinType
-import org.apache.spark.sql.catalyst.plans.logical.{Join, JoinHint, LogicalPlan}
+import org.apache.spark.internal.Logging
+import org.apache.spark.sql.catalyst.expressions.{Alias, And, BindReferences, Expression, GenericInternalRow, GreaterThanOrEqual, In, LessThanOrEqual, Literal, PredicateHelper, RowOrdering, Unevaluable}
+import org.apache.spark.sql.catalyst.planning.ExtractEquiJoinKeys
+import org.apache.spark.sql.catalyst.plans.{Inner, JoinType, LeftOuter}
+import org.apache.spark.sql.catalyst.plans.logical.{Distinct, Filter, Join, JoinHint, Limit, LogicalPlan, Project}
+import org.apache.spark.sql.catalyst.trees.TreeNodeTag
+import org.apache.spark.sql.catalyst.util.TypeUtils
 import org.apache.spark.sql.derived.DerivedInfo
 import org.apache.spark.sql.execution.utils.{DeriveTableColumnInfo, SchemaProcessor}
 import org.apache.spark.sql.functions.col
 import org.apache.spark.sql.manager.SparderLookupManager
-import org.apache.spark.sql.{Column, SparkOperation}
+import org.apache.spark.sql.{Column, SparkInternalAgent, SparkOperation, SparkSession}
 
 import java.util
 import scala.collection.JavaConverters._
 import scala.collection.mutable
+import scala.util.control.NonFatal
 
 // scalastyle:off
 case class SparderDerivedUtil(gtInfoTableName: String,
@@ -231,7 +237,23 @@ case class SparderDerivedUtil(gtInfoTableName: String,
         .getSimplifiedNonEquiJoinConditions
       joinCol = genNonEquiJoinColumn(newNameLookupPlan, gTInfoNames, joinCol, simplifiedCond.asScala)
     }
-    Join(plan, newNameLookupPlan, JoinType.apply(derivedInfo.join.getType), Option(joinCol.expr), JoinHint.NONE)
+    val join = Join(plan, newNameLookupPlan, JoinType.apply(derivedInfo.join.getType), Option(joinCol.expr), JoinHint.NONE)
+    if (canTranslateFilters(derivedInfo)) {
+      join.setTagValue(SparderDerivedUtil.MAX_HOST_KEYS, dataSeg.getConfig.getDerivedFilterTranslationThreshold)
+    }
+    join
+  }
+
+  // filters on the derived columns can be evaluated against a small lookup snapshot at planning,
+  // see SparderDerivedUtil.translateDerivedFilters
+  def canTranslateFilters(derivedInfo: DerivedInfo): Boolean = {
+    val threshold = dataSeg.getConfig.getDerivedFilterTranslationThreshold
+    if (threshold <= 0 || derivedInfo.deriveType != DeriveType.LOOKUP || derivedInfo.fkIdx.length != 1) {
+      return false
+    }
+    val tableDesc = NTableMetadataManager.getInstance(dataSeg.getConfig, dataSeg.getProject)
+      .getTableDesc(derivedInfo.join.getPKSide.getTableIdentity)
+    tableDesc != null && tableDesc.getSnapshotTotalRows > 0 && tableDesc.getSnapshotTotalRows <= threshold
   }
 
   def genNonEquiJoinColumn(newNameLookupPlan: LogicalPlan,
@@ -259,3 +281,110 @@ case class SparderDerivedUtil(gtInfoTableName: String,
 
   }
 }
+
+object SparderDerivedUtil extends PredicateHelper with Logging {
+
+  // the max number of host keys to translate into, set on the joins of derived lookup tables
+  val MAX_HOST_KEYS: TreeNodeTag[Int] = TreeNodeTag[Int]("derived_filter_max_host_keys")
+
+  private val TRANSLATED = -1
+
+  /**
+   * Filters on derived columns are applied on the lookup side of the derived join only, the layout is
+   * still fully scanned. For the joins tagged with [[MAX_HOST_KEYS]] under the filter, evaluate the filters
+   * against the lookup snapshot once while planning the query, and add a predicate of the matched primary
+   * keys on the host foreign key, so that shard pruning, dimension range pruning and parquet pushdown work on it.
+   *
+   * The join is kept to fetch the derived columns, it is left as is when the filtered lookup has more keys
+   * than the tagged limit.
+   */
+  def translateDerivedFilters(session: SparkSession, filter: Filter): LogicalPlan = {
+    if (filter.find(_.getTagValue(MAX_HOST_KEYS).exists(_ > 0)).isEmpty) {
+      return filter
+    }
+    try {
+      SparkInternalAgent.getDataFrame(session, filter).queryExecution.analyzed match {
+        case Filter(condition, child) =>
+          Filter(condition, addHostKeyFilters(session, splitConjunctivePredicates(condition), child))
+        case analyzed => analyzed
+      }
+    } catch {
+      case NonFatal(e) =>
+        logWarning("Failed to translate derived filters, fall back to the join", e)
+        filter
+    }
+  }
+
+  private def addHostKeyFilters(session: SparkSession, conjuncts: Seq[Expression],
+                                plan: LogicalPlan): LogicalPlan = plan match {
+    case project: Project if project.projectList.forall(_.deterministic) =>
+      val aliasMap = getAliasMap(project)
+      project.copy(child = addHostKeyFilters(session, conjuncts.map(replaceAlias(_, aliasMap)), project.child))
+    case join: Join if join.getTagValue(MAX_HOST_KEYS).exists(_ > 0) =>
+      // the joins of the other derived lookup tables are on the left
+      val withLeft = join.copy(left = addHostKeyFilters(session, conjuncts, join.left))
+      val translated = addHostKeyFilter(session, conjuncts, withLeft, join.getTagValue(MAX_HOST_KEYS).get)
+      translated.setTagValue(MAX_HOST_KEYS, TRANSLATED)
+      translated
+    case other => other
+  }
+
+  private def addHostKeyFilter(session: SparkSession, conjuncts: Seq[Expression], join: Join,
+                               maxHostKeys: Int): Join = join match {
+    case ExtractEquiJoinKeys(joinType, Seq(hostKey), Seq(lookupKey), None, _, left, right, _)
+      if hostKey.dataType == lookupKey.dataType =>
+      val lookupFilters = conjuncts.filter(condition => condition.deterministic
+        && condition.references.nonEmpty && condition.references.subsetOf(right.outputSet))
+      // host rows without a matched lookup row are kept by a left join unless a filter rejects the nulls
+      val applicable = joinType match {
+        case Inner => lookupFilters.nonEmpty
+        case LeftOuter => lookupFilters.exists(canFilterOutNull)
+        case _ => false
+      }
+      if (!applicable) {
+        return join
+      }
+      collectLookupKeys(session, lookupKey, Filter(lookupFilters.reduce(And), right), maxHostKeys) match {
+        case Some(keys) =>
+          logInfo(s"Translate derived filters into ${keys.size} host keys on $hostKey")
+          join.copy(left = Filter(hostKeyPredicate(session, hostKey, keys), left))
+        case None => join
+      }
+    case _ => join
+  }
+
+  private def canFilterOutNull(condition: Expression): Boolean = {
+    val attributes = condition.references.toSeq
+    val bound = BindReferences.bindReference(condition, attributes)
+    if (bound.find(_.isInstanceOf[Unevaluable]).isDefined) {
+      return false
+    }
+    val value = bound.eval(new GenericInternalRow(attributes.length))
+    value == null || value == false
+  }
+
+  private def collectLookupKeys(session: SparkSession, lookupKey: Expression, lookup: LogicalPlan,
+                                maxHostKeys: Int): Option[Seq[Literal]] = {
+    val keyPlan = Limit(Literal(maxHostKeys + 1), Distinct(Project(Seq(Alias(lookupKey, "lookup_key")()), lookup)))
+    val keys = SparkInternalAgent.getDataFrame(session, keyPlan).collect()
+    if (keys.length > maxHostKeys) {
+      logInfo(s"Skip translating derived filters, more than $maxHostKeys keys matched on $lookupKey")
+      None
+    } else {
+      Some(keys.filter(!_.isNullAt(0)).map(row => Literal.create(row.get(0), lookupKey.dataType)).toSeq)
+    }
+  }
+
+  // parquet pushes down an IN list only up to a threshold of values, a longer list becomes the range of the keys
+  private def hostKeyPredicate(session: SparkSession, hostKey: Expression, keys: Seq[Literal]): Expression = {
+    val inFilterThreshold = SparkInternalAgent.getConf(session).parquetFilterPushDownInFilterThreshold
+    if (keys.size <= inFilterThreshold || !RowOrdering.isOrderable(hostKey.dataType)) {
+      In(hostKey, keys)
+    } else {
+      val ordering = TypeUtils.getInterpretedOrdering(hostKey.dataType)
+      val values = keys.map(_.value)
+      And(GreaterThanOrEqual(hostKey, Literal(values.min(ordering), hostKey.dataType)),
+        LessThanOrEqual(hostKey, Literal(values.max(ordering), hostKey.dataType)))
+    }
+  }
+}
@@ -29,6 +29,7 @@ import org.apache.commons.collections4.CollectionUtils;
 import org.apache.kylin.common.KapConfig;
 import org.apache.kylin.common.KylinConfig;
 import org.apache.kylin.common.QueryContext;
+import org.apache.kylin.common.exception.AsyncQueryTooLargeException;
 import org.apache.kylin.common.exception.BigQueryException;
 import org.apache.kylin.common.exception.NewQueryRefuseException;
 import org.apache.kylin.common.state.StateSwitchConstant;
@@ -114,6 +115,26 @@ public class TestResultPlan extends NLocalFileMetadataTestCase {
         }
     }
 
+    @Test
+    public void testRejectLargeAsyncQueryOnSharedApp() {
+        overwriteSystemProp("kylin.query.async-query.shared-app.max-scan-bytes", "1");
+        try (QueryContext queryContext = QueryContext.current()) {
+            queryContext.setProject("default");
+            queryContext.getQueryTagInfo().setAsyncQuery(true);
+            queryContext.getQueryTagInfo().setAsyncQueryOnSharedApp(true);
+            String sql = "select * from TEST_KYLIN_FACT";
+
+            Assert.assertThrows(AsyncQueryTooLargeException.class, () -> ResultPlan.getResult(ss.sql(sql), null));
+            // pushdown queries do not collect scan rows, the scanned bytes still reject them
+            Assert.assertEquals(0, queryContext.getMetrics().getAccumSourceScanRows());
+            Assert.assertThrows(AsyncQueryTooLargeException.class,
+                    () -> SparkSqlClient.dfToList(ss, sql, ss.sql(sql)));
+
+            overwriteSystemProp("kylin.query.async-query.shared-app.max-scan-bytes", "10737418240");
+            ResultPlan.checkSharedAsyncQuerySize(ss.sql(sql));
+        }
+    }
+
     @Test
     public void testCancelQuery() throws InterruptedException {
         overwriteSystemProp("kylin.query.use-iterable-collect", "true");
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.query.util
+
+import org.apache.spark.sql.catalyst.expressions.{And, EqualTo, Expression, GreaterThanOrEqual, In, IsNull, LessThanOrEqual, Literal}
+import org.apache.spark.sql.catalyst.plans.logical.{Filter, Join, JoinHint, LogicalPlan}
+import org.apache.spark.sql.catalyst.plans.{Inner, JoinType, LeftOuter}
+import org.apache.spark.sql.common.{SharedSparkSession, SparderBaseFunSuite}
+import org.apache.spark.sql.internal.SQLConf
+import org.apache.spark.sql.types.{IntegerType, StringType, StructField, StructType}
+import org.apache.spark.sql.{Row, SparkInternalAgent}
+
+import scala.collection.JavaConverters._
+
+class SparderDerivedUtilTest extends SparderBaseFunSuite with SharedSparkSession {
+
+  private def derivedFilter(maxHostKeys: Int, joinType: JoinType = Inner)
+                           (condition: Expression => Expression): Filter = {
+    val fact = spark.createDataFrame(
+      List(Row(1, 10), Row(2, 20), Row(3, 30), Row(4, 40)).asJava,
+      StructType(Seq(StructField("FK", IntegerType), StructField("PRICE", IntegerType))))
+    val lookup = spark.createDataFrame(
+      List(Row(1, "EAST"), Row(2, "WEST"), Row(3, "SOUTH"), Row(4, "WEST")).asJava,
+      StructType(Seq(StructField("PK", IntegerType), StructField("REGION", StringType))))
+    val left = SparkInternalAgent.getLogicalPlan(fact)
+    val right = SparkInternalAgent.getLogicalPlan(lookup)
+    val joinCondition = EqualTo(left.output.find(_.name == "FK").get, right.output.find(_.name == "PK").get)
+    val join = Join(left, right, joinType, Some(joinCondition), JoinHint.NONE)
+    if (maxHostKeys > 0) {
+      join.setTagValue(SparderDerivedUtil.MAX_HOST_KEYS, maxHostKeys)
+    }
+    Filter(condition(right.output.find(_.name == "REGION").get), join)
+  }
+
+  private def westOnly(region: Expression): Expression = EqualTo(region, Literal("WEST"))
+
+  private def hostKeyFilter(plan: LogicalPlan): Option[Expression] = plan.collectFirst {
+    case Join(Filter(condition, _), _, _, _, _) => condition
+  }
+
+  test("translate derived filters into host keys") {
+    val translated = SparderDerivedUtil.translateDerivedFilters(spark, derivedFilter(10)(westOnly))
+    hostKeyFilter(translated) match {
+      case Some(in: In) => assert(in.list.map(_.asInstanceOf[Literal].value).toSet == Set(2, 4))
+      case other => fail(s"Unexpected host key filter $other")
+    }
+    // translated only once
+    assert(SparderDerivedUtil.translateDerivedFilters(spark, translated.asInstanceOf[Filter]) == translated)
+  }
+
+  test("translate derived filters into a range of host keys beyond the parquet IN threshold") {
+    val inFilterThreshold = spark.conf.get(SQLConf.PARQUET_FILTER_PUSHDOWN_INFILTERTHRESHOLD.key)
+    spark.conf.set(SQLConf.PARQUET_FILTER_PUSHDOWN_INFILTERTHRESHOLD.key, "1")
+    try {
+      val translated = SparderDerivedUtil.translateDerivedFilters(spark, derivedFilter(10)(westOnly))
+      hostKeyFilter(translated) match {
+        case Some(And(GreaterThanOrEqual(_, min: Literal), LessThanOrEqual(_, max: Literal))) =>
+          assert(min.value == 2)
+          assert(max.value == 4)
+        case other => fail(s"Unexpected host key filter $other")
+      }
+    } finally {
+      spark.conf.set(SQLConf.PARQUET_FILTER_PUSHDOWN_INFILTERTHRESHOLD.key, inFilterThreshold)
+    }
+  }
+
+  test("translate derived filters of left joins only when they reject nulls") {
+    val translated = SparderDerivedUtil.translateDerivedFilters(spark, derivedFilter(10, LeftOuter)(westOnly))
+    assert(hostKeyFilter(translated).isDefined)
+
+    // host rows without a lookup row pass the filter
+    val notTranslated = SparderDerivedUtil.translateDerivedFilters(spark,
+      derivedFilter(10, LeftOuter)(region => IsNull(region)))
+    assert(hostKeyFilter(notTranslated).isEmpty)
+  }
+
+  test("fall back to the join when too many host keys matched") {
+    val translated = SparderDerivedUtil.translateDerivedFilters(spark, derivedFilter(1)(westOnly))
+    assert(hostKeyFilter(translated).isEmpty)
+  }
+
+  test("do not translate untagged joins") {
+    val filter = derivedFilter(0)(westOnly)
+    assert(SparderDerivedUtil.translateDerivedFilters(spark, filter) eq filter)
+  }
+}
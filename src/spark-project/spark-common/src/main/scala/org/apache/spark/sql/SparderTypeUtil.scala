@@ -272,6 +272,14 @@ object SparderTypeUtil extends Logging {
   }
 
   def convertToStringWithCalciteType(rawValue: Any, relType: RelDataType, wrapped: Boolean = false): String = {
+    convertToStringWithSqlType(rawValue, relType.getSqlTypeName, relType.getScale, wrapped)
+  }
+
+  /**
+   * Only the type name and the scale of the calcite type are needed, which are serializable and can be
+   * used to convert values on executors.
+   */
+  def convertToStringWithSqlType(rawValue: Any, sqlTypeName: SqlTypeName, scale: Int, wrapped: Boolean = false): String = {
     val formatStringValue = (value: String) => if (wrapped) StringHelper.doubleQuote(value) else value
     val formatArray = (value: String) => {
       if (value.startsWith("WrappedArray")) {
@@ -284,7 +292,7 @@ object SparderTypeUtil extends Logging {
       }
     }
 
-    (rawValue, relType.getSqlTypeName) match {
+    (rawValue, sqlTypeName) match {
       case (null, _) => null
       // types that matched
       case (value: BigDecimal, SqlTypeName.DECIMAL) => adjustDecimal(value)
@@ -306,7 +314,7 @@ object SparderTypeUtil extends Logging {
       // cast type to align with relType
       case (value: Any, SqlTypeName.DECIMAL) =>
         new java.math.BigDecimal(value.toString)
-          .setScale(relType.getScale, BigDecimal.ROUND_HALF_EVEN)
+          .setScale(scale, BigDecimal.ROUND_HALF_EVEN)
           .toString
       case (value: Any, SqlTypeName.INTEGER | SqlTypeName.TINYINT | SqlTypeName.SMALLINT | SqlTypeName.BIGINT) =>
         value match {
@@ -320,7 +328,7 @@ object SparderTypeUtil extends Logging {
       case (value: Any, SqlTypeName.TIME) => value.toString
       case (value: Any, SqlTypeName.DATE | SqlTypeName.TIMESTAMP) =>
         val millis = DateFormat.stringToMillis(value.toString)
-        if (relType.getSqlTypeName == SqlTypeName.TIMESTAMP) {
+        if (sqlTypeName == SqlTypeName.TIMESTAMP) {
           DateFormat.castTimestampToString(millis)
         } else {
           DateFormat.formatToDateStr(new Date(millis).getTime)
@@ -330,13 +338,13 @@ object SparderTypeUtil extends Logging {
       case (dt: java.sql.Date, _) => DateFormat.formatToDateStr(dt.getTime)
       case (str: java.lang.String, _) => formatStringValue(str)
       case (value: mutable.WrappedArray.ofRef[AnyRef], _) =>
-        value.array.map(v => convertToStringWithCalciteType(v, relType, wrapped = true)).mkString("[", ",", "]")
+        value.array.map(v => convertToStringWithSqlType(v, sqlTypeName, scale, wrapped = true)).mkString("[", ",", "]")
       case (value: mutable.WrappedArray[Any], _) =>
-        value.array.map(v => convertToStringWithCalciteType(v, relType, wrapped = true)).mkString("[", ",", "]")
+        value.array.map(v => convertToStringWithSqlType(v, sqlTypeName, scale, wrapped = true)).mkString("[", ",", "]")
       case (value: immutable.Map[Any, Any], _) =>
         value.map(v =>
-          convertToStringWithCalciteType(v._1, relType, wrapped = true) + ":"
-            + convertToStringWithCalciteType(v._2, relType, wrapped = true)
+          convertToStringWithSqlType(v._1, sqlTypeName, scale, wrapped = true) + ":"
+            + convertToStringWithSqlType(v._2, sqlTypeName, scale, wrapped = true)
         ).mkString("{", ",", "}")
       case (value: Array[Byte], _) => new String(value)
       case (other, _) => other.toString
@@ -22,15 +22,17 @@ import org.apache.hadoop.fs.{BlockLocation, FileStatus, LocatedFileStatus, Path}
 import org.apache.kylin.common.KylinConfig
 import org.apache.kylin.softaffinity.SoftAffinityManager
 import org.apache.spark.rdd.RDD
-import org.apache.spark.sql.catalyst.expressions.{Ascending, Attribute, BloomAndRangeFilterExpression, Expression, SortOrder}
+import org.apache.spark.sql.catalyst.expressions.{Ascending, Attribute, BloomAndRangeFilterExpression, Expression, Literal, PlanExpression, SortOrder}
 import org.apache.spark.sql.catalyst.plans.physical.{HashPartitioning, Partitioning, UnknownPartitioning}
 import org.apache.spark.sql.catalyst.{InternalRow, TableIdentifier}
 import org.apache.spark.sql.execution.datasource.{FilePruner, ShardSpec}
 import org.apache.spark.sql.execution.datasources._
-import org.apache.spark.sql.execution.metric.SQLMetrics
+import org.apache.spark.sql.execution.metric.{SQLMetric, SQLMetrics}
+import org.apache.spark.sql.sources.Filter
 import org.apache.spark.sql.types.StructType
 
 import scala.collection.mutable.ArrayBuffer
+import scala.util.Try
 
 // scalastyle:off
 class KylinFileSourceScanExec(@transient relation: HadoopFsRelation,
@@ -49,27 +51,52 @@ class KylinFileSourceScanExec(@transient relation: HadoopFsRelation,
     sourceScanRows
   }
 
+  // min-max ranges of the join keys collected by runtime bloom filters, only known at execution time
+  @transient private lazy val rangeRuntimeFilters: Seq[Expression] =
+    dataFilters.filter(_.isInstanceOf[BloomAndRangeFilterExpression])
+      .flatMap(filter => filter.asInstanceOf[BloomAndRangeFilterExpression].rangeRow)
+
+  override protected def extraMetrics: Map[String, SQLMetric] = Map(
+    "numRuntimeFilterPrunedFiles" -> SQLMetrics.createMetric(sparkContext, "number of files pruned by runtime filters"))
+
   @transient override lazy val selectedPartitions: Array[PartitionDirectory] = {
     val optimizerMetadataTimeNs = relation.location.metadataOpsTimeNs.getOrElse(0L)
     val startTime = System.nanoTime()
-    val rangeRuntimeFilters = dataFilters.filter(_.isInstanceOf[BloomAndRangeFilterExpression])
-      .flatMap(filter => filter.asInstanceOf[BloomAndRangeFilterExpression].rangeRow)
     logInfo(s"Extra runtime filters from BloomAndRangeFilterExpression to " +
       s"prune segment: ${rangeRuntimeFilters.mkString(",")}")
     val filePruner = relation.location.asInstanceOf[FilePruner]
     val ret = filePruner.listFilesInternal(partitionFilters, dataFilters, rangeRuntimeFilters)
     val timeTakenMs = ((System.nanoTime() - startTime) + optimizerMetadataTimeNs) / 1000 / 1000
 
-    metrics("numFiles").add(ret.map(_.files.size.toLong).sum)
+    val numFiles = ret.map(_.files.size.toLong).sum
+    metrics("numFiles").add(numFiles)
     metrics("metadataTime").add(timeTakenMs)
+    if (rangeRuntimeFilters.nonEmpty) {
+      KylinFileSourceScanExec.runtimeFilterPrunedFiles(filePruner, partitionFilters, dataFilters, numFiles)
+        .foreach { prunedFiles =>
+          logInfo(s"Pruned $prunedFiles files by runtime filters")
+          metrics("numRuntimeFilterPrunedFiles").add(prunedFiles)
+        }
+    }
 
     val executionId = sparkContext.getLocalProperty(SQLExecution.EXECUTION_ID_KEY)
     SQLMetrics.postDriverMetricUpdates(sparkContext, executionId,
-      metrics("numFiles") :: metrics("metadataTime") :: Nil)
+      metrics("numFiles") :: metrics("metadataTime") :: metrics("numRuntimeFilterPrunedFiles") :: Nil)
 
     ret.toArray
   }
 
+  // the ranges of runtime filters also skip parquet row groups by their min-max statistics
+  @transient private lazy val pushedDownFiltersWithRuntimeRange: Seq[Filter] = {
+    if (KylinConfig.getInstanceFromEnv.isRuntimeFilterRangePushdownEnabled && rangeRuntimeFilters.nonEmpty) {
+      val supportNestedPredicatePushdown = DataSourceUtils.supportNestedPredicatePushdown(relation)
+      pushedDownFilters ++ KylinFileSourceScanExec.literalRuntimeRanges(rangeRuntimeFilters)
+        .flatMap(DataSourceStrategy.translateFilter(_, supportNestedPredicatePushdown))
+    } else {
+      pushedDownFilters
+    }
+  }
+
   override lazy val inputRDD: RDD[InternalRow] = {
     val readFile: (PartitionedFile) => Iterator[InternalRow] =
       relation.fileFormat.buildReaderWithPartitionValues(
@@ -77,7 +104,7 @@ class KylinFileSourceScanExec(@transient relation: HadoopFsRelation,
         dataSchema = relation.dataSchema,
         partitionSchema = relation.partitionSchema,
         requiredSchema = requiredSchema,
-        filters = pushedDownFilters,
+        filters = pushedDownFiltersWithRuntimeRange,
         options = relation.options,
         hadoopConf = relation.sparkSession.sessionState.newHadoopConfWithOptions(relation.options))
 
@@ -319,3 +346,31 @@ class KylinFileSourceScanExec(@transient relation: HadoopFsRelation,
   }
 
 }
+
+object KylinFileSourceScanExec {
+
+  /**
+   * The bounds of runtime ranges may still be scalar subqueries or other foldable expressions,
+   * while translateFilter only pushes down comparisons with literals. Ranges with subqueries
+   * are dropped, the foldable bounds are evaluated into literals.
+   */
+  def literalRuntimeRanges(rangeRuntimeFilters: Seq[Expression]): Seq[Expression] = {
+    rangeRuntimeFilters
+      .filterNot(_.find(_.isInstanceOf[PlanExpression[_]]).isDefined)
+      .flatMap { range =>
+        Try(range.transformUp {
+          case e if e.foldable && !e.isInstanceOf[Literal] => Literal.create(e.eval(), e.dataType)
+        }).toOption
+      }
+  }
+
+  /**
+   * Number of files skipped by the runtime filters, compared with the files listed without them
+   * when planning the scan. None if the scan was not listed without runtime filters.
+   */
+  def runtimeFilterPrunedFiles(filePruner: FilePruner, partitionFilters: Seq[Expression],
+                               dataFilters: Seq[Expression], numFiles: Long): Option[Long] = {
+    Option(filePruner.cached.get((partitionFilters, dataFilters, Seq.empty[Expression])))
+      .map(staticFiles => staticFiles._1.map(_.files.size.toLong).sum - numFiles)
+  }
+}
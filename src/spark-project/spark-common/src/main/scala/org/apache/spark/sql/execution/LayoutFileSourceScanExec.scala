@@ -370,7 +370,10 @@ case class LayoutFileSourceScanExec(
     } else {
       Map.empty[String, SQLMetric]
     }
-  } ++ staticMetrics
+  } ++ staticMetrics ++ extraMetrics
+
+  /** SQL metrics of subclasses. */
+  protected def extraMetrics: Map[String, SQLMetric] = Map.empty
 
   protected override def doExecute(): RDD[InternalRow] = {
     val numOutputRows = longMetric("numOutputRows")
@@ -228,6 +228,7 @@ case class FilePruner(val session: SparkSession,
 
     require(isResolved)
     val timePartitionFilters = getSpecFilter(dataFilters, timePartitionColumn)
+    val derivedTimePartitionFilters = getSpecFilter(derivedFilters, timePartitionColumn)
     val dimFilters = getDimFilter(dataFilters, timePartitionColumn, shardByColumn)
     val derivedDimFilters = getDimFilter(derivedFilters, timePartitionColumn, shardByColumn)
     logInfoIf(timePartitionFilters.nonEmpty)(s"Applying time partition filters: ${timePartitionFilters.mkString(",")}")
@@ -246,6 +247,10 @@ case class FilePruner(val session: SparkSession,
     selected = afterPruning("pruning segment with time partition", timePartitionFilters, selected) {
       pruneSegments
     }
+    // the join keys on the time partition column bound the segments to read at runtime
+    selected = afterPruning("pruning segment with derived time partition", derivedTimePartitionFilters, selected) {
+      pruneSegments
+    }
     val filteredSizeAfterTimePartition = selected.size
     var filteredSizeAfterDimensionFilter = selected.size
 
@@ -840,8 +845,10 @@ case class SegDimFilters(dimRange: java.util.Map[String, DimensionRangeInfo], di
         }).exists(_.equals(Trivial(true)))
         Trivial(satisfied)
 
-      case IsNull(_) =>
-        Trivial(true)
+      case IsNull(id) =>
+        // the segment has no null values of the column
+        val noNull = Option(dimRange.get(escapeQuote(id))).flatMap(range => Option(range.getNullCount)).exists(_ == 0L)
+        Trivial(!noNull)
       case IsNotNull(_) =>
         Trivial(true)
       case GreaterThan(id, value: Any) =>
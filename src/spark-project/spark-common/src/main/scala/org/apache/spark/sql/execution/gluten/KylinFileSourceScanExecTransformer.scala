@@ -25,10 +25,10 @@ import org.apache.spark.sql.catalyst.TableIdentifier
 import org.apache.spark.sql.catalyst.expressions.{Ascending, Attribute, BloomAndRangeFilterExpression, Expression, SortOrder}
 import org.apache.spark.sql.catalyst.plans.physical.{HashPartitioning, Partitioning, UnknownPartitioning}
 import org.apache.spark.sql.connector.read.InputPartition
-import org.apache.spark.sql.execution.SQLExecution
-import org.apache.spark.sql.execution.datasource.ShardSpec
+import org.apache.spark.sql.execution.datasource.{FilePruner, ShardSpec}
 import org.apache.spark.sql.execution.datasources.{HadoopFsRelation, PartitionDirectory}
-import org.apache.spark.sql.execution.metric.SQLMetrics
+import org.apache.spark.sql.execution.metric.{SQLMetric, SQLMetrics}
+import org.apache.spark.sql.execution.{KylinFileSourceScanExec, SQLExecution}
 import org.apache.spark.sql.types.StructType
 import org.apache.spark.util.collection.BitSet
 
@@ -58,6 +58,25 @@ class KylinFileSourceScanExecTransformer(@transient relation: HadoopFsRelation,
     sourceScanRows
   }
 
+  // Copy from KylinFileSourceScanExec
+  @transient private lazy val rangeRuntimeFilters: Seq[Expression] =
+    dataFilters.filter(_.isInstanceOf[BloomAndRangeFilterExpression])
+      .flatMap(filter => filter.asInstanceOf[BloomAndRangeFilterExpression].rangeRow)
+
+  // dynamic partition pruning is disabled for Sparder, so there are no static metrics to keep
+  @transient override lazy val metrics: Map[String, SQLMetric] =
+    BackendsApiManager.getMetricsApiInstance.genFileSourceScanTransformerMetrics(sparkContext) ++ Map(
+      "numRuntimeFilterPrunedFiles" -> SQLMetrics.createMetric(sparkContext, "number of files pruned by runtime filters"))
+
+  // the ranges of runtime filters also skip row groups in the native reader
+  override def filterExprs(): Seq[Expression] = {
+    if (KylinConfig.getInstanceFromEnv.isRuntimeFilterRangePushdownEnabled && rangeRuntimeFilters.nonEmpty) {
+      super.filterExprs() ++ KylinFileSourceScanExec.literalRuntimeRanges(rangeRuntimeFilters)
+    } else {
+      super.filterExprs()
+    }
+  }
+
   override def getPartitions: Seq[InputPartition] =
     BackendsApiManager.getTransformerApiInstance.genInputPartitionSeq(
       relation,
@@ -74,20 +93,26 @@ class KylinFileSourceScanExecTransformer(@transient relation: HadoopFsRelation,
   @transient override lazy val selectedPartitions: Array[PartitionDirectory] = {
     val optimizerMetadataTimeNs = relation.location.metadataOpsTimeNs.getOrElse(0L)
     val startTime = System.nanoTime()
-    val rangeRuntimeFilters = dataFilters.filter(_.isInstanceOf[BloomAndRangeFilterExpression])
-      .flatMap(filter => filter.asInstanceOf[BloomAndRangeFilterExpression].rangeRow)
     logInfo(s"Extra runtime filters from BloomAndRangeFilterExpression to " +
       s"prune segment: ${rangeRuntimeFilters.mkString(",")}")
-    val collectFilters = dataFilters ++ rangeRuntimeFilters
-    val ret = relation.location.listFiles(partitionFilters, collectFilters)
+    val filePruner = relation.location.asInstanceOf[FilePruner]
+    val ret = filePruner.listFilesInternal(partitionFilters, dataFilters, rangeRuntimeFilters)
     val timeTakenMs = ((System.nanoTime() - startTime) + optimizerMetadataTimeNs) / 1000 / 1000
 
-    metrics("numFiles").add(ret.map(_.files.size.toLong).sum)
+    val numFiles = ret.map(_.files.size.toLong).sum
+    metrics("numFiles").add(numFiles)
     metrics("metadataTime").add(timeTakenMs)
+    if (rangeRuntimeFilters.nonEmpty) {
+      KylinFileSourceScanExec.runtimeFilterPrunedFiles(filePruner, partitionFilters, dataFilters, numFiles)
+        .foreach { prunedFiles =>
+          logInfo(s"Pruned $prunedFiles files by runtime filters")
+          metrics("numRuntimeFilterPrunedFiles").add(prunedFiles)
+        }
+    }
 
     val executionId = sparkContext.getLocalProperty(SQLExecution.EXECUTION_ID_KEY)
     SQLMetrics.postDriverMetricUpdates(sparkContext, executionId,
-      metrics("numFiles") :: metrics("metadataTime") :: Nil)
+      metrics("numFiles") :: metrics("metadataTime") :: metrics("numRuntimeFilterPrunedFiles") :: Nil)
 
     ret.toArray
   }
@@ -19,11 +19,14 @@
 package org.apache.spark.sql.udaf
 
 import org.apache.kylin.common.util.ByteBufferBackedInputStream
+import org.apache.spark.TaskContext
+import org.apache.spark.util.TaskCompletionListener
 import org.roaringbitmap.longlong.Roaring64NavigableMap
 
 import java.io.DataInputStream
 import java.nio.ByteBuffer
 import java.util
+import java.util.Arrays
 import java.util.{Map => JMap}
 import scala.collection.JavaConverters._
 
@@ -46,15 +49,25 @@ class IntersectBitmapCounter() {
   }
 
   def add(key: String, value: Array[Byte]): Unit = {
-    val newBitmap = new Roaring64NavigableMap()
-    if (value.nonEmpty) {
-      val bbi = new ByteBufferBackedInputStream(ByteBuffer.wrap(value))
-      newBitmap.deserialize(new DataInputStream(bbi))
-    }
-    if (_map.containsKey(key)) {
-      _map.get(key).or(newBitmap)
-    } else {
-      _map.put(key, newBitmap)
+    add(Array(key), value)
+  }
+
+  /**
+   * Add the bitmap of a row to all the matched keys, the bitmap is deserialized only once.
+   */
+  def add(keys: Array[String], value: Array[Byte]): Unit = {
+    if (keys.nonEmpty) {
+      val bitmap = IntersectBitmapCounter.deserialize(value)
+      keys.foreach { key =>
+        if (_map.containsKey(key)) {
+          _map.get(key).or(bitmap)
+        } else {
+          // the deserialized bitmap may be shared with other counters, never keep it directly
+          val newBitmap = new Roaring64NavigableMap()
+          newBitmap.or(bitmap)
+          _map.put(key, newBitmap)
+        }
+      }
     }
   }
 
@@ -70,3 +83,43 @@ class IntersectBitmapCounter() {
     }
   }
 }
+
+object IntersectBitmapCounter {
+
+  // All intersect expressions of an aggregation are updated one by one with the same row, so the
+  // bitmap of the last row is kept and shared by them instead of being deserialized for each expression.
+  // It is cleared when the task completes, so that a large bitmap is not kept alive by the thread.
+  private val lastBitmap = new ThreadLocal[(Array[Byte], Roaring64NavigableMap)]
+
+  /**
+   * The returned bitmap is shared, it must not be modified.
+   */
+  def deserialize(value: Array[Byte]): Roaring64NavigableMap = {
+    val last = lastBitmap.get()
+    if (last != null && isSameValue(last._1, value)) {
+      last._2
+    } else {
+      val bitmap = new Roaring64NavigableMap()
+      if (value.nonEmpty) {
+        val bbi = new ByteBufferBackedInputStream(ByteBuffer.wrap(value))
+        bitmap.deserialize(new DataInputStream(bbi))
+      }
+      if (last == null && TaskContext.get() != null) {
+        TaskContext.get().addTaskCompletionListener(new TaskCompletionListener {
+          override def onTaskCompletion(context: TaskContext): Unit = clear()
+        })
+      }
+      lastBitmap.set((value, bitmap))
+      bitmap
+    }
+  }
+
+  // the bytes are compared only when the lengths are equal, a different row usually differs in length
+  private def isSameValue(last: Array[Byte], value: Array[Byte]): Boolean = {
+    (last eq value) || (last.length == value.length && Arrays.equals(last, value))
+  }
+
+  private[udaf] def clear(): Unit = {
+    lastBitmap.remove()
+  }
+}
@@ -29,7 +29,8 @@ import org.apache.spark.sql.types._
 import org.apache.spark.unsafe.types.UTF8String
 import org.roaringbitmap.longlong.Roaring64NavigableMap
 
-import java.util.regex.Pattern
+import java.util
+import java.util.regex.{Matcher, Pattern}
 import scala.collection.JavaConverters._
 
 object IntersectCount {
@@ -61,7 +62,7 @@ case class IntersectCount(child1: Expression, child2: Expression, child3: Expres
     val bitmap = child1.eval(input).asInstanceOf[Array[Byte]]
     val key = child2.eval(input)
     if (bitmap != null && key != null) {
-      filter.matchResult(key).foreach(counter.add(_, bitmap))
+      counter.add(filter.matchResult(key), bitmap)
     }
     counter
   }
@@ -170,25 +171,64 @@ sealed abstract class IntersectFilter {
   def matchResult(value: Any): Array[String]
 }
 
-case class RegexpFilter() extends IntersectFilter {
+/**
+ * Remember the matched filters of each key, the keys of intersect count are usually
+ * of low cardinality, like dates, so the filters are evaluated once per distinct key.
+ */
+sealed abstract class CachedIntersectFilter extends IntersectFilter {
+
+  private val matchedCache = new util.HashMap[Any, Array[String]]()
 
-  private var filterTuples: Array[(Pattern, String)] = _
+  protected def doMatch(value: Any): Array[String]
+
+  override def matchResult(value: Any): Array[String] = {
+    val cached = matchedCache.get(value)
+    if (cached != null) {
+      cached
+    } else {
+      val matched = doMatch(value)
+      if (matchedCache.size() < CachedIntersectFilter.MAX_CACHED_KEYS) {
+        // the string may point to a reused row buffer
+        val key = value match {
+          case string: UTF8String => string.clone()
+          case other => other
+        }
+        matchedCache.put(key, matched)
+      }
+      matched
+    }
+  }
+}
+
+object CachedIntersectFilter {
+  val MAX_CACHED_KEYS = 10000
+}
+
+case class RegexpFilter() extends CachedIntersectFilter {
+
+  private var matchers: Array[Matcher] = _
+  private var rawStrings: Array[String] = _
 
   override def init(filters: Array[Any]): Unit = {
-    val rawStrings = filters.map(_.toString)
-    val patterns = rawStrings.map(str => Pattern.compile(str))
-    filterTuples = patterns.zip(rawStrings)
+    rawStrings = filters.map(_.toString)
+    matchers = rawStrings.map(str => Pattern.compile(str).matcher(""))
   }
 
-  override def matchResult(value: Any): Array[String] = {
+  override protected def doMatch(value: Any): Array[String] = {
     val string = value.toString
-    filterTuples.filter{
-      case (pattern: Pattern, _) => pattern.matcher(string).matches()
-    }.map(_._2)
+    val matched = Array.newBuilder[String]
+    var i = 0
+    while (i < matchers.length) {
+      if (matchers(i).reset(string).matches()) {
+        matched += rawStrings(i)
+      }
+      i += 1
+    }
+    matched.result()
   }
 }
 
-case class RawStringFilter(separator: String) extends IntersectFilter {
+case class RawStringFilter(separator: String) extends CachedIntersectFilter {
 
   private var filterTuples: Array[(Set[UTF8String], String)] = _
 
@@ -198,7 +238,7 @@ case class RawStringFilter(separator: String) extends IntersectFilter {
     filterTuples = sets.zip(rawStrings)
   }
 
-  override def matchResult(value: Any): Array[String] = {
+  override protected def doMatch(value: Any): Array[String] = {
     filterTuples.filter{
       case (sets: Set[UTF8String], _) => sets.contains(value.asInstanceOf[UTF8String])
     }.map(_._2)
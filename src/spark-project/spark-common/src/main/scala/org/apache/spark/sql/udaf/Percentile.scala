@@ -98,7 +98,9 @@ case class Percentile(aggColumn: Expression,
       case d: Number =>
         buffer.add(d.doubleValue())
       case array: Array[Byte] =>
-        buffer.merge(deserialize(array))
+        if (!array.isEmpty) {
+          buffer.mergeRegisters(ByteBuffer.wrap(array))
+        }
       case d: Decimal =>
         buffer.add(d.toDouble)
       case _ =>
@@ -26,9 +26,9 @@ import org.apache.hadoop.fs.Path
 import org.apache.kylin.cache.softaffinity.SoftAffinityConstants
 import org.apache.spark.SparkFunSuite
 import org.apache.spark.sql._
-import org.apache.spark.sql.catalyst.expressions.Expression
+import org.apache.spark.sql.catalyst.expressions.{Add, AttributeReference, Expression, GreaterThan, GreaterThanOrEqual, LessThanOrEqual, Literal, ScalarSubquery}
 import org.apache.spark.sql.catalyst.plans.SQLHelper
-import org.apache.spark.sql.catalyst.plans.logical.LogicalPlan
+import org.apache.spark.sql.catalyst.plans.logical.{LocalRelation, LogicalPlan}
 import org.apache.spark.sql.catalyst.util.stackTraceToString
 import org.apache.spark.sql.common.LocalMetadata
 import org.apache.spark.sql.delta.KylinDeltaLogFileIndex
@@ -37,6 +37,8 @@ import org.apache.spark.sql.execution.adaptive.AdaptiveSparkPlanHelper
 import org.apache.spark.sql.execution.datasource._
 import org.apache.spark.sql.execution.datasources._
 import org.apache.spark.sql.execution.gluten.KylinStorageScanExecTransformer
+import org.apache.spark.sql.sources
+import org.apache.spark.sql.types.IntegerType
 import org.mockito.{ArgumentMatchers, Mockito}
 
 import com.google.common.cache.CacheBuilder
@@ -197,6 +199,18 @@ class KylinFileSourceScanExecSuite extends SparkFunSuite
     }
   }
 
+  test("Push down runtime filter ranges with literal bounds only") {
+    val a = AttributeReference("a", IntegerType)()
+    val subqueryBound = GreaterThanOrEqual(a, ScalarSubquery(LocalRelation(AttributeReference("x", IntegerType)())))
+    val foldableBound = LessThanOrEqual(a, Add(Literal(1), Literal(2)))
+    val literalBound = GreaterThan(a, Literal(0))
+
+    val ranges = KylinFileSourceScanExec.literalRuntimeRanges(Seq(subqueryBound, foldableBound, literalBound))
+    assertResult(Seq(LessThanOrEqual(a, Literal(3)), literalBound))(ranges)
+    assertResult(Seq(sources.LessThanOrEqual("a", 3), sources.GreaterThan("a", 0)))(
+      ranges.flatMap(DataSourceStrategy.translateFilter(_, true)))
+  }
+
   private def createSimpleFilePrunnerDF(spark: SparkSession, tempDir: String) = {
     val df = createSimpleDF(spark, tempDir)
     val plan = df.queryExecution.logical
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.spark.sql.udaf
+
+import org.apache.kylin.common.util.ByteBufferOutputStream
+import org.apache.spark.sql.catalyst.expressions.{BoundReference, GenericInternalRow, Literal}
+import org.apache.spark.sql.common.SparderBaseFunSuite
+import org.apache.spark.sql.types.{BinaryType, DateType, LongType}
+import org.roaringbitmap.longlong.Roaring64NavigableMap
+
+import java.io.DataOutputStream
+import java.nio.ByteBuffer
+import scala.util.Random
+
+/**
+ * Time of updating many retention-style intersect_count expressions of one aggregation with the same rows,
+ * with the row bitmap deserialized for every expression and with it shared by all the expressions.
+ * Ignored to save UT time.
+ */
+class IntersectCountBenchmarkSuite extends SparderBaseFunSuite {
+
+  private val ROWS = 20000
+  private val DAYS = 30
+  private val EXPRESSIONS = 10
+  private val IDS_PER_ROW = 2000
+  private val ROUNDS = 5
+
+  ignore("benchmark updating intersect count expressions with shared row bitmaps") {
+    val random = new Random(1)
+    val byteBuffer = ByteBuffer.allocate(1024 * 1024)
+    val rows = (0 until ROWS).map { _ =>
+      val bitmap = new Roaring64NavigableMap()
+      (0 until IDS_PER_ROW).foreach(_ => bitmap.addLong(random.nextInt(1000000)))
+      byteBuffer.clear()
+      val dos = new DataOutputStream(new ByteBufferOutputStream(byteBuffer))
+      bitmap.serialize(dos)
+      dos.close()
+      val row = new GenericInternalRow(2)
+      row.update(0, byteBuffer.array().slice(0, byteBuffer.position()))
+      row.update(1, random.nextInt(DAYS))
+      row
+    }
+    // the users of the first day retained on each of the following days
+    val counts = (1 to EXPRESSIONS).map { day =>
+      IntersectCount(BoundReference(0, BinaryType, nullable = true), BoundReference(1, DateType, nullable = true),
+        Literal(Array(0, day)), Literal(IntersectCount.RAW_STRING), LongType, "\\|")
+    }
+
+    val expected = update(rows, counts, shared = false)
+    assert(update(rows, counts, shared = true) == expected)
+
+    // warm up
+    time(rows, counts, shared = false)
+    time(rows, counts, shared = true)
+    val perExpressionNanos = time(rows, counts, shared = false)
+    val sharedNanos = time(rows, counts, shared = true)
+
+    // scalastyle:off println
+    println(s"update $EXPRESSIONS expressions with $ROWS rows, deserialized per expression (ms) : " +
+      perExpressionNanos / 1e6)
+    println(s"update $EXPRESSIONS expressions with $ROWS rows, shared row bitmaps (ms) : " + sharedNanos / 1e6)
+    // scalastyle:on println
+    assert(sharedNanos < perExpressionNanos)
+  }
+
+  private def time(rows: Seq[GenericInternalRow], counts: Seq[IntersectCount], shared: Boolean): Long = {
+    val start = System.nanoTime()
+    (0 until ROUNDS).foreach(_ => update(rows, counts, shared))
+    System.nanoTime() - start
+  }
+
+  /**
+   * Update all the expressions row by row as the aggregation does, without sharing the row bitmap
+   * it is deserialized again for every expression, as before it was shared.
+   */
+  private def update(rows: Seq[GenericInternalRow], counts: Seq[IntersectCount], shared: Boolean): Seq[Any] = {
+    val buffers = counts.map(_.createAggregationBuffer())
+    rows.foreach { row =>
+      counts.zip(buffers).foreach { case (count, buffer) =>
+        if (!shared) {
+          IntersectBitmapCounter.clear()
+        }
+        count.update(buffer, row)
+      }
+    }
+    IntersectBitmapCounter.clear()
+    counts.zip(buffers).map { case (count, buffer) => count.eval(buffer) }
+  }
+}
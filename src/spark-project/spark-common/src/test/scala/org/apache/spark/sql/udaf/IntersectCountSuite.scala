@@ -21,7 +21,8 @@ package org.apache.spark.sql.udaf
 import org.apache.kylin.common.util.ByteBufferOutputStream
 import org.apache.spark.sql.catalyst.expressions.{BoundReference, GenericInternalRow, Literal}
 import org.apache.spark.sql.common.SparderBaseFunSuite
-import org.apache.spark.sql.types.{BinaryType, DateType, LongType}
+import org.apache.spark.sql.types.{BinaryType, DateType, LongType, StringType}
+import org.apache.spark.unsafe.types.UTF8String
 import org.roaringbitmap.longlong.Roaring64NavigableMap
 
 import java.io.DataOutputStream
@@ -146,4 +147,51 @@ class IntersectCountSuite extends SparderBaseFunSuite {
     assert(deCounter.map().keySet() == counter.map().keySet())
     assert(deCounter.map().values().asScala sameElements counter.map().values().asScala)
   }
+
+  test("share the bitmap of a row between regexp intersect expressions") {
+    val child1 = BoundReference(0, BinaryType, nullable = true)
+    val child2 = BoundReference(1, StringType, nullable = true)
+    val count1 = IntersectCount(child1, child2, Literal(Array("a.*", "b.*")),
+      Literal(IntersectCount.REG_EXP), LongType, "\\|")
+    val count2 = IntersectCount(child1, child2, Literal(Array("a1", ".*2")),
+      Literal(IntersectCount.REG_EXP), LongType, "\\|")
+    val buffer1 = count1.createAggregationBuffer()
+    val buffer2 = count2.createAggregationBuffer()
+
+    val rows = Seq(("a1", Seq(1L, 2L, 3L)), ("b2", Seq(2L, 3L, 4L)), ("a1", Seq(5L)), ("c2", Seq(3L, 5L)))
+    val row = new GenericInternalRow(2)
+    rows.foreach { case (key, values) =>
+      val bitmap = new Roaring64NavigableMap()
+      values.foreach(bitmap.addLong)
+      row.update(0, serialize(bitmap))
+      row.update(1, UTF8String.fromString(key))
+      count1.update(buffer1, row)
+      count2.update(buffer2, row)
+    }
+
+    // a.* -> {1, 2, 3, 5}, b.* -> {2, 3, 4}
+    assert(count1.eval(buffer1) == 2L)
+    // a1 -> {1, 2, 3, 5}, .*2 -> {2, 3, 4, 5}
+    assert(count2.eval(buffer2) == 3L)
+  }
+
+  test("reuse the last deserialized bitmap until it is cleared") {
+    val bitmap = new Roaring64NavigableMap()
+    bitmap.addLong(1L)
+    val value = serialize(bitmap)
+    bitmap.addLong(2L)
+    val other = serialize(bitmap)
+
+    IntersectBitmapCounter.clear()
+    val deserialized = IntersectBitmapCounter.deserialize(value)
+    assert(IntersectBitmapCounter.deserialize(value) eq deserialized)
+    assert(IntersectBitmapCounter.deserialize(value.clone()) eq deserialized)
+    assert(IntersectBitmapCounter.deserialize(other).getLongCardinality == 2L)
+    assert(IntersectBitmapCounter.deserialize(value) ne deserialized)
+
+    val last = IntersectBitmapCounter.deserialize(value)
+    IntersectBitmapCounter.clear()
+    assert(IntersectBitmapCounter.deserialize(value) ne last)
+    IntersectBitmapCounter.clear()
+  }
 }
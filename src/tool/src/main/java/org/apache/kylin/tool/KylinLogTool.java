@@ -29,8 +29,11 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.text.SimpleDateFormat;
@@ -42,6 +45,10 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -60,11 +67,13 @@ import org.apache.kylin.common.KylinConfig;
 import org.apache.kylin.common.util.FileSystemUtil;
 import org.apache.kylin.common.util.HadoopUtil;
 import org.apache.kylin.common.util.JsonUtil;
+import org.apache.kylin.common.util.NamedThreadFactory;
 import org.apache.kylin.common.util.Pair;
 import org.apache.kylin.common.util.RandomUtil;
 import org.apache.kylin.guava30.shaded.common.annotations.VisibleForTesting;
 import org.apache.kylin.guava30.shaded.common.base.Preconditions;
 import org.apache.kylin.guava30.shaded.common.base.Throwables;
+import org.apache.kylin.guava30.shaded.common.collect.Lists;
 import org.apache.kylin.guava30.shaded.common.collect.Sets;
 import org.apache.kylin.query.util.ILogExtractor;
 import org.apache.kylin.rest.cluster.NacosClusterManager;
@@ -106,6 +115,12 @@ public class KylinLogTool {
 
     private static final int EXTRA_LINES = 100;
 
+    private static final int LOG_TIME_LENGTH = SECOND_DATE_FORMAT.length() - 2;
+    private static final String TRACE_ID_PREFIX = TRACE_ID + ": ";
+    private static final int UUID_LENGTH = 36;
+    private static final long SEEK_MIN_FILE_SIZE = 4L * 1024 * 1024;
+    private static final long SEEK_BLOCK_SIZE = 64L * 1024;
+
     private static final String ROLL_LOG_FILE_NAME_PREFIX = "events";
     private static final String SPARK_LOGS = "spark_logs";
     private static final String CLEAN_TMP_SPARK_LOGS_TEMPLATE = "Clean tmp spark logs {}";
@@ -391,20 +406,23 @@ public class KylinLogTool {
             Preconditions.checkArgument(timeRange.getFirst().compareTo(timeRange.getSecond()) <= 0);
 
             final String charsetName = Charset.defaultCharset().name();
-            try (InputStream in = Files.newInputStream(logFile.toPath());
+            long offset = seekLineBeforeTime(logFile, timeRange.getFirst());
+            try (FileChannel channel = FileChannel.open(logFile.toPath()).position(offset);
+                    InputStream in = Channels.newInputStream(channel);
                     OutputStream out = Files.newOutputStream(distFile.toPath());
                     BufferedReader br = new BufferedReader(new InputStreamReader(in, charsetName));
                     BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(out, charsetName))) {
 
                 boolean extract = false;
-                boolean stdLogNotFound = true;
+                // lines before the first standard log are only kept when reading from the beginning
+                boolean stdLogNotFound = offset == 0;
                 Pattern pattern = Pattern.compile(logPattern);
                 int extraLines = EXTRA_LINES;
                 String log;
                 while ((log = br.readLine()) != null) {
-                    Matcher matcher = pattern.matcher(log);
+                    Matcher matcher = mayContainLogTime(log) ? pattern.matcher(log) : null;
 
-                    if (matcher.find()) {
+                    if (matcher != null && matcher.find()) {
                         stdLogNotFound = false;
                         String logDate = matcher.group(1);
                         if (logDate.compareTo(timeRange.getSecond()) > 0 && --extraLines < 1) {
@@ -426,6 +444,134 @@ public class KylinLogTool {
                         distFile.getAbsolutePath(), e);
             }
         }
+
+        /**
+         * Binary search the byte offset of a line logged before the given time, so that extracting a small
+         * time range doesn't read a large log file from the beginning. The log time is read from the beginning
+         * of lines, lines without a log time like stack traces are skipped.
+         *
+         * @return offset of the beginning of a line, 0 if the log file is small or the time can't be located
+         */
+        @VisibleForTesting
+        long seekLineBeforeTime(File logFile, String time) {
+            try (RandomAccessFile file = new RandomAccessFile(logFile, "r")) {
+                long low = 0;
+                long high = file.length();
+                if (high < SEEK_MIN_FILE_SIZE) {
+                    return 0;
+                }
+                while (high - low > SEEK_BLOCK_SIZE) {
+                    long mid = low + (high - low) / 2;
+                    String midTime = readFirstLogTime(file, mid, high);
+                    if (midTime == null || midTime.compareTo(time) >= 0) {
+                        high = mid;
+                    } else {
+                        low = mid;
+                    }
+                }
+                if (low == 0) {
+                    return 0;
+                }
+                // skip the rest of the line, which may be cut in the middle
+                file.seek(low);
+                file.readLine();
+                return file.getFilePointer();
+            } catch (IOException e) {
+                logger.warn("Failed to seek log file {}, read it from the beginning", logFile.getAbsolutePath(), e);
+                return 0;
+            }
+        }
+
+        private String readFirstLogTime(RandomAccessFile file, long from, long to) throws IOException {
+            file.seek(from);
+            file.readLine();
+            String line;
+            while (file.getFilePointer() < to && (line = file.readLine()) != null) {
+                String logTime = getLeadingLogTime(line);
+                if (logTime != null) {
+                    return logTime;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * @return the log time at the beginning of the line, maybe after a trace id
+     */
+    private static String getLeadingLogTime(String line) {
+        int start = line.startsWith(TRACE_ID_PREFIX) ? TRACE_ID_PREFIX.length() + UUID_LENGTH + 1 : 0;
+        return isLogTimeAt(line, start) ? line.substring(start, start + LOG_TIME_LENGTH) : null;
+    }
+
+    /**
+     * A cheap check before matching the log pattern, most lines without a log time like stack traces
+     * are filtered out without running the regex.
+     */
+    @VisibleForTesting
+    static boolean mayContainLogTime(String line) {
+        for (int idx = line.indexOf('T', 10); idx >= 0; idx = line.indexOf('T', idx + 1)) {
+            if (isLogTimeAt(line, idx - 10)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // matches yyyy-MM-ddTHH:mm:ss at the position
+    private static boolean isLogTimeAt(String line, int start) {
+        if (start < 0 || line.length() < start + LOG_TIME_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < LOG_TIME_LENGTH; i++) {
+            char c = line.charAt(start + i);
+            boolean matched;
+            switch (i) {
+            case 4:
+            case 7:
+                matched = c == '-';
+                break;
+            case 10:
+                matched = c == 'T';
+                break;
+            case 13:
+            case 16:
+                matched = c == ':';
+                break;
+            default:
+                matched = c >= '0' && c <= '9';
+                break;
+            }
+            if (!matched) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Extract independent log files with a bounded pool, waits until all tasks are done.
+     */
+    private static void runInParallel(String name, List<Runnable> tasks) throws InterruptedException {
+        int parallelism = Math.min(tasks.size(),
+                Math.max(1, KylinConfig.getInstanceFromEnv().getDiagLogExtractParallelism()));
+        if (parallelism <= 1) {
+            tasks.forEach(Runnable::run);
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, new NamedThreadFactory(name));
+        try {
+            List<Future<?>> futures = tasks.stream().map(executor::submit).collect(Collectors.toList());
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    logger.error("Failed to extract log, ", e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
     }
 
     private static boolean isKylinLogFile(String fileName) {
@@ -513,9 +659,11 @@ public class KylinLogTool {
                     FileUtils.forceMkdir(sparkLogsDateDir);
 
                     FileStatus[] sourceAppFiles = sourceFileSystem.listStatus(new Path(sourceLogsPath));
+                    List<Runnable> tasks = Lists.newArrayList();
                     for (FileStatus sourceAppFile : sourceAppFiles) {
-                        extractAppDirSparderLog(sourceAppFile, sparkLogsDateDir, startTime, endTime);
+                        tasks.add(() -> extractAppDirSparderLog(sourceAppFile, sparkLogsDateDir, startTime, endTime));
                     }
+                    runInParallel("DiagSparderLog", tasks);
                 }
                 if (kylinConfig.cleanDiagTmpFile()) {
                     sourceFileSystem.delete(new Path(sourceLogsPath), true);
@@ -573,9 +721,9 @@ public class KylinLogTool {
             Pattern pattern = Pattern.compile(LOG_PATTERN);
             String log;
             while ((log = br.readLine()) != null) {
-                Matcher matcher = pattern.matcher(log);
+                Matcher matcher = mayContainLogTime(log) ? pattern.matcher(log) : null;
 
-                if (matcher.find()) {
+                if (matcher != null && matcher.find()) {
                     stdLogNotFound = false;
                     String logDate = matcher.group(1);
                     if (logDate.compareTo(timeRange.getSecond()) > 0) {
@@ -639,13 +787,22 @@ public class KylinLogTool {
             long start = System.currentTimeMillis();
             long duration = KylinConfig.getInstanceFromEnv().getDiagTaskTimeout() * 1000L;
             long timeout = start + duration;
+            boolean timeoutEnabled = !KylinConfig.getInstanceFromEnv().getDiagTaskTimeoutBlackList().contains("LOG");
+            List<Runnable> tasks = Lists.newArrayList();
             for (File logFile : kylinLogs) {
-                if (checkTimeoutTask(timeout)) {
-                    logger.error("Cancel 'LOG:kylin.log' task.");
-                    break;
-                }
-                DEFAULT_EXTRACT_LOG_BY_RANGE.extractLogByRange(logFile, timeRange, destLogDir);
+                tasks.add(() -> {
+                    if (timeoutEnabled && System.currentTimeMillis() > timeout) {
+                        logger.error("Cancel 'LOG:kylin.log' task of {}.", logFile.getName());
+                        return;
+                    }
+                    try {
+                        DEFAULT_EXTRACT_LOG_BY_RANGE.extractLogByRange(logFile, timeRange, destLogDir);
+                    } catch (IOException e) {
+                        logger.error("Failed to extract {}, ", logFile.getName(), e);
+                    }
+                });
             }
+            runInParallel("DiagKylinLog", tasks);
         } catch (Exception e) {
             logger.error("Failed to extract kylin.log, ", e);
         }
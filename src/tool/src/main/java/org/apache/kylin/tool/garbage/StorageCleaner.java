@@ -37,6 +37,10 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -52,7 +56,9 @@ import org.apache.kylin.common.persistence.ResourceStore;
 import org.apache.kylin.common.persistence.RootPersistentEntity;
 import org.apache.kylin.common.util.CliCommandExecutor;
 import org.apache.kylin.common.util.CliCommandExecutor.CliCmdExecResult;
+import org.apache.kylin.common.util.ExecutorServiceUtil;
 import org.apache.kylin.common.util.HadoopUtil;
+import org.apache.kylin.common.util.NamedThreadFactory;
 import org.apache.kylin.common.util.Pair;
 import org.apache.kylin.common.util.ShellException;
 import org.apache.kylin.guava30.shaded.common.collect.Lists;
@@ -71,6 +77,7 @@ import org.apache.kylin.metadata.cube.model.NDataSegDetails;
 import org.apache.kylin.metadata.cube.model.NDataSegment;
 import org.apache.kylin.metadata.cube.model.NDataflow;
 import org.apache.kylin.metadata.cube.model.NDataflowManager;
+import org.apache.kylin.metadata.cube.storage.StorageManifest;
 import org.apache.kylin.metadata.model.NTableMetadataManager;
 import org.apache.kylin.metadata.project.NProjectManager;
 import org.apache.kylin.metadata.project.ProjectInstance;
@@ -100,6 +107,8 @@ public class StorageCleaner implements GarbageCleaner {
     // for s3 https://olapio.atlassian.net/browse/AL-3154
     private static final RateLimiter rateLimiter = RateLimiter.create(Integer.MAX_VALUE);
 
+    private static final String FULL_SCAN_MARKER = "_storage_gc/last_full_scan";
+
     public enum CleanerTag {
         ROUTINE, CLI, SERVICE
     }
@@ -178,22 +187,75 @@ public class StorageCleaner implements GarbageCleaner {
                             config.getWritingClusterWorkingDir("")));
         }
         log.info("all file systems are {}", allFileSystems);
-        for (StorageItem allFileSystem : allFileSystems) {
-            log.debug("start to collect HDFS from {}", allFileSystem.getPath());
+        long configSurvivalTimeThreshold = config.getCuboidLayoutSurvivalTimeThreshold();
+        long protectionTime = startTime - configSurvivalTimeThreshold;
+        boolean fullScan = isFullScanRequired();
+        if (fullScan) {
+            collectByFullScan(projects, protectionTime);
+        } else {
+            collectFromManifests(projects, protectionTime);
+        }
+        boolean allSuccess = cleanup();
+        if (fullScan && allSuccess) {
+            markFullScan();
+        }
+        printConsole(allSuccess, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Storage manifests only cover what build, merge and refresh jobs superseded, so the full scan is still run
+     * once per configured interval as a consistency check, e.g. for dropped models, indexes and projects.
+     */
+    private boolean isFullScanRequired() {
+        if (!cleanup || !projectNames.isEmpty() || !kylinConfig.isStorageManifestGcEnabled()) {
+            return true;
+        }
+        try {
+            val fs = FileSystemDecorator.getInstance(HadoopUtil.getWorkingFileSystem());
+            long lastFullScan = fs.getFileStatus(getFullScanMarker()).getModificationTime();
+            return System.currentTimeMillis() - lastFullScan >= kylinConfig.getStorageFullScanInterval();
+        } catch (IOException e) {
+            log.info("No full scan of the storage is recorded, run it this time");
+            return true;
+        }
+    }
+
+    private void markFullScan() {
+        if (projectNames.isEmpty() && kylinConfig.isStorageManifestGcEnabled()) {
             try {
-                collectFromHDFS(allFileSystem);
+                HadoopUtil.writeStringToHdfs(String.valueOf(System.currentTimeMillis()), getFullScanMarker());
             } catch (IOException e) {
-                log.warn("No garbage files collected from {}", allFileSystem.getPath(), e);
+                log.warn("Failed to record the full scan of the storage", e);
+            }
+        }
+    }
+
+    private Path getFullScanMarker() {
+        return new Path(kylinConfig.getHdfsWorkingDirectory(), FULL_SCAN_MARKER);
+    }
+
+    private void collectByFullScan(List<ProjectInstance> projects, long protectionTime) throws InterruptedException {
+        int parallelism = Math.max(1, kylinConfig.getStorageCleanerScanParallelism());
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+                new NamedThreadFactory("StorageCleaner-scan"));
+        try {
+            for (StorageItem allFileSystem : allFileSystems) {
+                log.debug("start to collect HDFS from {}", allFileSystem.getPath());
+                try {
+                    collectFromHDFS(allFileSystem, executor);
+                } catch (IOException e) {
+                    log.warn("No garbage files collected from {}", allFileSystem.getPath(), e);
+                }
+                log.debug("folder {} is collected，detailed -> {}", allFileSystem.getPath(), allFileSystems);
             }
-            log.debug("folder {} is collected，detailed -> {}", allFileSystem.getPath(), allFileSystems);
+        } finally {
+            ExecutorServiceUtil.shutdownGracefully(executor, 60);
         }
         collectDeletedProject();
         for (ProjectInstance project : projects) {
             collect(project.getName());
         }
 
-        long configSurvivalTimeThreshold = config.getCuboidLayoutSurvivalTimeThreshold();
-        long protectionTime = startTime - configSurvivalTimeThreshold;
         for (StorageItem item : allFileSystems) {
             for (FileTreeNode node : item.getAllNodes()) {
                 val path = new Path(item.getPath(), node.getRelativePath());
@@ -205,8 +267,113 @@ public class StorageCleaner implements GarbageCleaner {
                 }
             }
         }
-        boolean allSuccess = cleanup();
-        printConsole(allSuccess, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Collect the superseded paths recorded in storage manifests, only the manifest directory of each project is
+     * listed. A superseded path still referenced by metadata is kept, because the transaction which wrote the
+     * manifest may have been rolled back.
+     */
+    private void collectFromManifests(List<ProjectInstance> projects, long protectionTime) {
+        for (ProjectInstance project : projects) {
+            val activeDataPaths = collectActiveDataPaths(project.getName());
+            for (StorageItem item : allFileSystems) {
+                try {
+                    collectFromManifests(item, project.getName(), activeDataPaths, protectionTime);
+                } catch (IOException e) {
+                    log.warn("No garbage files collected from manifests of project {} in {}", project.getName(),
+                            item.getPath(), e);
+                }
+            }
+        }
+    }
+
+    private void collectFromManifests(StorageItem item, String project, ActiveDataPaths activeDataPaths,
+            long protectionTime) throws IOException {
+        val fs = item.getFileSystemDecorator();
+        FileStatus[] manifests;
+        try {
+            manifests = fs.listStatus(StorageManifest.getManifestDir(item.getPath(), project),
+                    path -> path.getName().endsWith(StorageManifest.MANIFEST_SUFFIX));
+        } catch (FileNotFoundException e) {
+            log.debug("No storage manifest found for project {} in {}", project, item.getPath());
+            return;
+        }
+        for (FileStatus manifestStatus : manifests) {
+            if (manifestStatus.getModificationTime() > protectionTime) {
+                continue;
+            }
+            val manifest = fs.readManifest(manifestStatus.getPath());
+            for (String supersededPath : manifest.getSupersededPaths()) {
+                if (activeDataPaths.isInUse(supersededPath)) {
+                    log.debug("superseded path {} is still in use", supersededPath);
+                    continue;
+                }
+                val path = new Path(item.getPath(), supersededPath);
+                try {
+                    outdatedItems.add(new StorageItem(fs, fs.getFileStatus(path).getPath().toString()));
+                } catch (FileNotFoundException e) {
+                    log.debug("superseded path {} is already deleted", path);
+                }
+            }
+            outdatedItems.add(new StorageItem(fs, manifestStatus.getPath().toString()));
+        }
+    }
+
+    // should be private; package visible for test only
+    ActiveDataPaths collectActiveDataPaths(String project) {
+        val activeDataPaths = new ActiveDataPaths();
+        NDataflowManager.getInstance(kylinConfig, project).listAllDataflows().forEach(dataflow -> {
+            for (NDataSegment segment : dataflow.getSegments()) {
+                activeDataPaths.addAncestor(StorageManifest.getSegmentPath(dataflow, segment.getId()));
+                activeDataPaths.add(getSegmentFlatTableDir(project, segment));
+                segment.getLayoutsMap().values().forEach(layout -> {
+                    if (CollectionUtils.isEmpty(layout.getMultiPartition())) {
+                        activeDataPaths.add(getDataLayoutDir(layout));
+                    } else {
+                        // only the current bucket of each partition is in use, buckets replaced by
+                        // partition refreshes are garbage inside a live layout
+                        layout.getMultiPartition()
+                                .forEach(partition -> activeDataPaths.add(getDataPartitionDir(layout, partition)));
+                    }
+                    activeDataPaths.add(getDataLayoutDir(layout) + HadoopUtil.FAST_BITMAP_SUFFIX);
+                });
+            }
+        });
+        return activeDataPaths;
+    }
+
+    /**
+     * Relative paths referenced by metadata. A path is in use if it is one of them, is inside one of them,
+     * or is an ancestor directory of one of them.
+     */
+    static class ActiveDataPaths {
+        private final Set<String> paths = Sets.newHashSet();
+        private final Set<String> ancestors = Sets.newHashSet();
+
+        void add(String path) {
+            paths.add(path);
+            addAncestor(path);
+        }
+
+        void addAncestor(String path) {
+            ancestors.add(path);
+            for (int i = path.indexOf('/'); i > 0; i = path.indexOf('/', i + 1)) {
+                ancestors.add(path.substring(0, i));
+            }
+        }
+
+        boolean isInUse(String path) {
+            if (ancestors.contains(path)) {
+                return true;
+            }
+            for (int i = path.lastIndexOf('/'); i > 0; i = path.lastIndexOf('/', i - 1)) {
+                if (paths.contains(path.substring(0, i))) {
+                    return true;
+                }
+            }
+            return false;
+        }
     }
 
     public void printConsole(boolean success, long duration) {
@@ -324,52 +491,70 @@ public class StorageCleaner implements GarbageCleaner {
         return getDataLayoutDir(dataLayout) + "/" + dataPartition.getBucketId();
     }
 
-    private void collectFromHDFS(StorageItem item) throws IOException {
+    private void collectFromHDFS(StorageItem item, ExecutorService executor)
+            throws IOException, InterruptedException {
         val projectFolders = item.getFileSystemDecorator().listStatus(new Path(item.getPath()),
                 path -> !path.getName().startsWith("_")
                         && (this.projectNames.isEmpty() || this.projectNames.contains(path.getName())));
+        List<Future<ProjectFileTreeNode>> futures = Lists.newArrayList();
         for (FileStatus projectFolder : projectFolders) {
-            List<FileTreeNode> tableSnapshotParents = Lists.newArrayList();
-            val projectNode = new ProjectFileTreeNode(projectFolder.getPath().getName());
-            for (Pair<String, List<FileTreeNode>> pair : Arrays.asList(
-                    Pair.newPair(JOB_TMP_ROOT.substring(1), projectNode.getJobTmps()),
-                    Pair.newPair(GLOBAL_DICT_STORAGE_ROOT.substring(1), projectNode.getGlobalDictTables()),
-                    Pair.newPair(PARQUET_STORAGE_ROOT.substring(1), projectNode.getDataflows()),
-                    Pair.newPair(DELTA_STORAGE_ROOT.substring(1), projectNode.getDeltaDataFlows()),
-                    Pair.newPair(TABLE_EXD_STORAGE_ROOT.substring(1), projectNode.getTableExds()),
-                    Pair.newPair(SNAPSHOT_STORAGE_ROOT.substring(1), tableSnapshotParents),
-                    Pair.newPair(FLAT_TABLE_STORAGE_ROOT.substring(1), projectNode.getDfFlatTables()))) {
-                val treeNode = new FileTreeNode(pair.getFirst(), projectNode);
-                try {
-                    log.debug("collect files from {}", pair.getFirst());
-                    Stream.of(item.getFileSystemDecorator()
-                            .listStatus(new Path(item.getPath(), treeNode.getRelativePath())))
-                            .forEach(x -> pair.getSecond().add(new FileTreeNode(x.getPath().getName(), treeNode)));
-                } catch (FileNotFoundException e) {
-                    log.info("folder {} not found", new Path(item.getPath(), treeNode.getRelativePath()));
-                }
-            }
-            item.getProjectNodes().add(projectNode);
-            item.getProjects().put(projectNode.getName(), projectNode);
-            for (Pair<List<FileTreeNode>, List<FileTreeNode>> pair : Arrays.asList(
-                    Pair.newPair(tableSnapshotParents, projectNode.getSnapshots()), //
-                    Pair.newPair(projectNode.getGlobalDictTables(), projectNode.getGlobalDictColumns()), //
-                    Pair.newPair(projectNode.getDataflows(), projectNode.getSegments()), //
-                    Pair.newPair(projectNode.getDeltaDataFlows(), projectNode.getDeltaDataLayouts()),
-                    Pair.newPair(projectNode.getSegments(), projectNode.getLayouts()),
-                    Pair.newPair(projectNode.getDfFlatTables(), projectNode.getSegmentFlatTables()))) {
-                val slot = pair.getSecond();
-                for (FileTreeNode node : pair.getFirst()) {
-                    log.debug("collect from {} -> {}", node.getName(), node);
-                    Stream.of(
-                            item.getFileSystemDecorator().listStatus(new Path(item.getPath(), node.getRelativePath())))
-                            .forEach(x -> slot.add(new FileTreeNode(x.getPath().getName(), node)));
+            futures.add(executor.submit(() -> {
+                try (val ignored = KylinConfig.setAndUnsetThreadLocalConfig(kylinConfig)) {
+                    return collectProjectFromHDFS(item, projectFolder);
                 }
+            }));
+        }
+        for (Future<ProjectFileTreeNode> future : futures) {
+            try {
+                val projectNode = future.get();
+                item.getProjectNodes().add(projectNode);
+                item.getProjects().put(projectNode.getName(), projectNode);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
             }
-            projectNode.getBuckets()
-                    .addAll(collectMultiPartitions(item, projectNode.getName(), projectNode.getLayouts()));
         }
+    }
 
+    private ProjectFileTreeNode collectProjectFromHDFS(StorageItem item, FileStatus projectFolder)
+            throws IOException {
+        List<FileTreeNode> tableSnapshotParents = Lists.newArrayList();
+        val projectNode = new ProjectFileTreeNode(projectFolder.getPath().getName());
+        for (Pair<String, List<FileTreeNode>> pair : Arrays.asList(
+                Pair.newPair(JOB_TMP_ROOT.substring(1), projectNode.getJobTmps()),
+                Pair.newPair(GLOBAL_DICT_STORAGE_ROOT.substring(1), projectNode.getGlobalDictTables()),
+                Pair.newPair(PARQUET_STORAGE_ROOT.substring(1), projectNode.getDataflows()),
+                Pair.newPair(DELTA_STORAGE_ROOT.substring(1), projectNode.getDeltaDataFlows()),
+                Pair.newPair(TABLE_EXD_STORAGE_ROOT.substring(1), projectNode.getTableExds()),
+                Pair.newPair(SNAPSHOT_STORAGE_ROOT.substring(1), tableSnapshotParents),
+                Pair.newPair(FLAT_TABLE_STORAGE_ROOT.substring(1), projectNode.getDfFlatTables()))) {
+            val treeNode = new FileTreeNode(pair.getFirst(), projectNode);
+            try {
+                log.debug("collect files from {}", pair.getFirst());
+                Stream.of(item.getFileSystemDecorator()
+                        .listStatus(new Path(item.getPath(), treeNode.getRelativePath())))
+                        .forEach(x -> pair.getSecond().add(new FileTreeNode(x.getPath().getName(), treeNode)));
+            } catch (FileNotFoundException e) {
+                log.info("folder {} not found", new Path(item.getPath(), treeNode.getRelativePath()));
+            }
+        }
+        for (Pair<List<FileTreeNode>, List<FileTreeNode>> pair : Arrays.asList(
+                Pair.newPair(tableSnapshotParents, projectNode.getSnapshots()), //
+                Pair.newPair(projectNode.getGlobalDictTables(), projectNode.getGlobalDictColumns()), //
+                Pair.newPair(projectNode.getDataflows(), projectNode.getSegments()), //
+                Pair.newPair(projectNode.getDeltaDataFlows(), projectNode.getDeltaDataLayouts()),
+                Pair.newPair(projectNode.getSegments(), projectNode.getLayouts()),
+                Pair.newPair(projectNode.getDfFlatTables(), projectNode.getSegmentFlatTables()))) {
+            val slot = pair.getSecond();
+            for (FileTreeNode node : pair.getFirst()) {
+                log.debug("collect from {} -> {}", node.getName(), node);
+                Stream.of(item.getFileSystemDecorator().listStatus(new Path(item.getPath(), node.getRelativePath())))
+                        .forEach(x -> slot.add(new FileTreeNode(x.getPath().getName(), node)));
+            }
+        }
+        projectNode.getBuckets()
+                .addAll(collectMultiPartitions(item, projectNode.getName(), projectNode.getLayouts()));
+        return projectNode;
     }
 
     private List<FileTreeNode> collectMultiPartitions(StorageItem item, String project, List<FileTreeNode> layouts)
@@ -454,6 +639,10 @@ public class StorageCleaner implements GarbageCleaner {
         public boolean delete(Path f, boolean recursive) throws IOException {
             return sleepAndRetry(() -> fs.delete(f, recursive));
         }
+
+        public StorageManifest readManifest(Path f) throws IOException {
+            return sleepAndRetry(() -> StorageManifest.read(fs, f));
+        }
     }
 
     @Data
@@ -35,6 +35,7 @@ import org.apache.hadoop.fs.Path;
 import org.apache.kylin.common.KylinConfig;
 import org.apache.kylin.common.util.HadoopUtil;
 import org.apache.kylin.common.util.NLocalFileMetadataTestCase;
+import org.apache.kylin.common.util.Pair;
 import org.apache.kylin.tool.obf.KylinConfObfuscatorTest;
 import org.apache.kylin.tool.util.ToolUtil;
 import org.joda.time.DateTime;
@@ -706,4 +707,48 @@ public class KylinLogToolTest extends NLocalFileMetadataTestCase {
         Assert.assertEquals("2023-10-25T18:16:44", tool.getFirstTimeByLogFile(logFile1));
         Assert.assertEquals("2023-10-25T18:17:35", tool.getFirstTimeByLogFile(logFile2));
     }
+
+    @Test
+    public void testExtractLogByTimeRangeWithSeek() throws IOException {
+        File mainDir = new File(temporaryFolder.getRoot(), testName.getMethodName());
+        FileUtils.forceMkdir(mainDir);
+
+        StringBuilder logs = new StringBuilder();
+        DateTime time = new DateTime(2023, 10, 25, 0, 0, 0);
+        for (int i = 0; i < 60_000; i++) {
+            logs.append(time.plusSeconds(i).toString("yyyy-MM-dd'T'HH:mm:ss,SSS"))
+                    .append(" INFO  [Query 4c01a2e5-3b4b-4e7c-a5f4-0bd5b4d1d5c1-1] service.QueryService : log ")
+                    .append(i).append('\n');
+            if (i % 10 == 0) {
+                logs.append("\tat org.apache.kylin.rest.service.QueryService.query(QueryService.java:100)\n");
+            }
+        }
+        File logFile = new File(mainDir, "kylin.log");
+        FileUtils.writeStringToFile(logFile, logs.toString());
+
+        KylinLogTool.ExtractLogByRangeTool tool = (KylinLogTool.ExtractLogByRangeTool) ReflectionTestUtils
+                .getField(KylinLogTool.class, "DEFAULT_EXTRACT_LOG_BY_RANGE");
+        Pair<String, String> timeRange = new Pair<>("2023-10-25T10:00:00", "2023-10-25T10:00:10");
+        long offset = tool.seekLineBeforeTime(logFile, timeRange.getFirst());
+        Assert.assertTrue(offset > 0);
+        String lineAtOffset = logs.substring((int) offset, logs.indexOf("\n", (int) offset));
+        Assert.assertEquals('\n', logs.charAt((int) offset - 1));
+        Assert.assertTrue(lineAtOffset.startsWith("\tat") || lineAtOffset.compareTo(timeRange.getFirst()) < 0);
+
+        File distFile = new File(mainDir, "kylin.log.extracted");
+        tool.extractLogByTimeRange(logFile, timeRange, distFile);
+        String extracted = FileUtils.readFileToString(distFile);
+        Assert.assertTrue(extracted.startsWith("2023-10-25T10:00:00,000 INFO"));
+        Assert.assertTrue(extracted.contains("2023-10-25T10:00:10,000 INFO"));
+        Assert.assertFalse(extracted.contains("2023-10-25T09:59:59,000 INFO"));
+    }
+
+    @Test
+    public void testMayContainLogTime() {
+        Assert.assertTrue(KylinLogTool.mayContainLogTime("2023-10-25T18:17:35,792 INFO  test"));
+        Assert.assertTrue(KylinLogTool
+                .mayContainLogTime("traceId: eba55ae6-0936-9d42-25d2-adf00a55f06d 2023-10-25T18:16:44,803 INFO"));
+        Assert.assertFalse(KylinLogTool.mayContainLogTime("\tat org.apache.kylin.Test.run(Test.java:10)"));
+        Assert.assertFalse(KylinLogTool.mayContainLogTime("2019-09-02 02:39:18,868 INFO  test2"));
+    }
 }
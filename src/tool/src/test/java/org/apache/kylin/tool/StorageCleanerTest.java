@@ -52,6 +52,7 @@ import org.apache.kylin.job.util.JobContextUtil;
 import org.apache.kylin.metadata.cube.model.NDataflow;
 import org.apache.kylin.metadata.cube.model.NDataflowManager;
 import org.apache.kylin.metadata.cube.model.NIndexPlanManager;
+import org.apache.kylin.metadata.cube.storage.StorageManifest;
 import org.apache.kylin.metadata.model.NTableMetadataManager;
 import org.apache.kylin.metadata.project.NProjectManager;
 import org.apache.kylin.metadata.project.ProjectInstance;
@@ -275,6 +276,55 @@ public class StorageCleanerTest extends NLocalFileMetadataTestCase {
         Assert.assertTrue(snapshots.iterator().next().getAbsolutePath().contains(countryTableSnapshotPath));
     }
 
+    @Test
+    public void testCleanupFromManifests() throws Exception {
+        val config = getTestConfig();
+        config.setProperty("kylin.garbage.storage.manifest-gc-enabled", "true");
+        // a recent full scan, so only the manifests are read
+        HadoopUtil.writeStringToHdfs(String.valueOf(System.currentTimeMillis()),
+                new Path(config.getHdfsWorkingDirectory(), "_storage_gc/last_full_scan"));
+
+        val dataflow = NDataflowManager.getInstance(config, "default").listAllDataflows().stream()
+                .filter(df -> !"nmodel_basic_inner".equals(df.getModelAlias()) && !df.getSegments().isEmpty()
+                        && !df.getFirstSegment().getLayoutsMap().isEmpty())
+                .findFirst().orElseThrow(IllegalStateException::new);
+        val segment = dataflow.getFirstSegment();
+        val activePath = StorageManifest.getSegmentPath(dataflow, segment.getId()) + "/"
+                + segment.getLayoutsMap().keySet().iterator().next();
+        val supersededPath = StorageManifest.getSegmentPath(dataflow, "superseded_segment") + "/1";
+        val workingDir = KapConfig.wrap(dataflow.getConfig()).getMetadataWorkingDirectory();
+        val fs = HadoopUtil.getWorkingFileSystem();
+        fs.create(new Path(workingDir, activePath + "/part-00000.parquet")).close();
+        fs.create(new Path(workingDir, supersededPath + "/part-00000.parquet")).close();
+
+        // a former build superseded the layout of a removed segment
+        val supersededManifest = new StorageManifest();
+        supersededManifest.setProject("default");
+        supersededManifest.setDataflowId(dataflow.getId());
+        supersededManifest.setCreateTime(System.currentTimeMillis());
+        supersededManifest.getSupersededPaths().add(supersededPath);
+        StorageManifest.record(dataflow, supersededManifest);
+        // the manifest of a rolled back commit lists a layout that metadata still references
+        val activeManifest = new StorageManifest();
+        activeManifest.setProject("default");
+        activeManifest.setDataflowId(dataflow.getId());
+        activeManifest.setCreateTime(System.currentTimeMillis() + 1);
+        activeManifest.getSupersededPaths().add(activePath);
+        StorageManifest.record(dataflow, activeManifest);
+
+        val cleaner = new StorageCleaner();
+        cleaner.execute();
+
+        val outdatedItems = normalizeGarbages(cleaner.getOutdatedItems());
+        Assert.assertTrue(outdatedItems.stream().anyMatch(item -> item.endsWith(supersededPath)));
+        Assert.assertFalse(outdatedItems.stream().anyMatch(item -> item.endsWith(activePath)));
+        Assert.assertFalse(fs.exists(new Path(workingDir, supersededPath)));
+        Assert.assertTrue(fs.exists(new Path(workingDir, activePath)));
+        // manifests are deleted once read
+        Assert.assertFalse(fs.exists(StorageManifest.getManifestDir(workingDir, "default"))
+                && fs.listStatus(StorageManifest.getManifestDir(workingDir, "default")).length > 0);
+    }
+
     @Test
     public void testStorageCleanerWithRateLimiter() throws Exception {
         boolean cleanup = true;
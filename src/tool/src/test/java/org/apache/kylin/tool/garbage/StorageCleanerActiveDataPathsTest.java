@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.tool.garbage;
+
+import org.apache.kylin.common.KylinConfig;
+import org.apache.kylin.common.persistence.transaction.UnitOfWork;
+import org.apache.kylin.junit.annotation.MetadataInfo;
+import org.apache.kylin.metadata.cube.model.NDataLayout;
+import org.apache.kylin.metadata.cube.model.NDataflow;
+import org.apache.kylin.metadata.cube.model.NDataflowManager;
+import org.apache.kylin.metadata.cube.model.NDataflowUpdate;
+import org.apache.kylin.metadata.cube.storage.StorageManifest;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+class StorageCleanerActiveDataPathsTest {
+
+    private static final String PROJECT = "default";
+    // a multi-level partition model, layout 110001 of the segment stores partition 7 in bucket 20
+    // and partition 8 in bucket 21
+    private static final String DATAFLOW_ID = "b780e4e4-69af-449e-b09f-05c90dfa04b6";
+    private static final String SEGMENT_ID = "0db919f3-1359-496c-aab5-b6f3951adc0e";
+    private static final long LAYOUT_ID = 110001L;
+
+    @Test
+    void testIsInUse() {
+        StorageCleaner.ActiveDataPaths activeDataPaths = new StorageCleaner.ActiveDataPaths();
+        activeDataPaths.addAncestor("p1/parquet/df1/seg1");
+        activeDataPaths.add("p1/parquet/df1/seg1/1");
+        activeDataPaths.add("p1/flat_table/df1/seg1");
+
+        // referenced layouts and everything inside them
+        Assert.assertTrue(activeDataPaths.isInUse("p1/parquet/df1/seg1/1"));
+        Assert.assertTrue(activeDataPaths.isInUse("p1/parquet/df1/seg1/1/part-00000.parquet"));
+        Assert.assertTrue(activeDataPaths.isInUse("p1/flat_table/df1/seg1"));
+
+        // ancestors of referenced paths
+        Assert.assertTrue(activeDataPaths.isInUse("p1/parquet/df1/seg1"));
+        Assert.assertTrue(activeDataPaths.isInUse("p1/parquet/df1"));
+
+        // removed layouts inside a live segment and removed segments are garbage
+        Assert.assertFalse(activeDataPaths.isInUse("p1/parquet/df1/seg1/2"));
+        Assert.assertFalse(activeDataPaths.isInUse("p1/parquet/df1/seg2"));
+        Assert.assertFalse(activeDataPaths.isInUse("p1/flat_table/df1/seg2"));
+        Assert.assertFalse(activeDataPaths.isInUse("p1/parquet/df2"));
+    }
+
+    @Test
+    void testIsInUseWithPartitionBuckets() {
+        StorageCleaner.ActiveDataPaths activeDataPaths = new StorageCleaner.ActiveDataPaths();
+        activeDataPaths.addAncestor("p1/parquet/df1/seg1");
+        activeDataPaths.add("p1/parquet/df1/seg1/1/3");
+        activeDataPaths.add("p1/parquet/df1/seg1/1/4");
+
+        // current buckets of partitions and the layout holding them
+        Assert.assertTrue(activeDataPaths.isInUse("p1/parquet/df1/seg1/1/3/part-00000.parquet"));
+        Assert.assertTrue(activeDataPaths.isInUse("p1/parquet/df1/seg1/1/4"));
+        Assert.assertTrue(activeDataPaths.isInUse("p1/parquet/df1/seg1/1"));
+
+        // buckets replaced by partition refreshes
+        Assert.assertFalse(activeDataPaths.isInUse("p1/parquet/df1/seg1/1/1"));
+        Assert.assertFalse(activeDataPaths.isInUse("p1/parquet/df1/seg1/1/2/part-00000.parquet"));
+    }
+
+    @Test
+    @MetadataInfo
+    void testCollectActiveDataPathsOfMultiPartitionLayouts() throws Exception {
+        String layoutPath = getLayoutPath();
+        StorageCleaner.ActiveDataPaths activeDataPaths = new StorageCleaner(false).collectActiveDataPaths(PROJECT);
+
+        Assert.assertTrue(activeDataPaths.isInUse(layoutPath + "/20"));
+        Assert.assertTrue(activeDataPaths.isInUse(layoutPath + "/21/part-00000.parquet"));
+        Assert.assertTrue(activeDataPaths.isInUse(layoutPath));
+        // buckets not referenced by any partition of the layout
+        Assert.assertFalse(activeDataPaths.isInUse(layoutPath + "/30"));
+        Assert.assertFalse(activeDataPaths.isInUse(layoutPath + "/22"));
+    }
+
+    @Test
+    @MetadataInfo
+    void testCollectActiveDataPathsAfterPartitionRefresh() throws Exception {
+        // a refresh of partition 7 wrote its data into bucket 30
+        UnitOfWork.doInTransactionWithRetry(() -> {
+            NDataflowManager dataflowManager = NDataflowManager.getInstance(KylinConfig.getInstanceFromEnv(),
+                    PROJECT);
+            NDataLayout layout = dataflowManager.getDataflow(DATAFLOW_ID).getSegment(SEGMENT_ID).copy()
+                    .getLayout(LAYOUT_ID);
+            layout.getDataPartition(7L).setBucketId(30);
+            NDataflowUpdate update = new NDataflowUpdate(DATAFLOW_ID);
+            update.setToAddOrUpdateLayouts(layout);
+            dataflowManager.updateDataflow(update);
+            return null;
+        }, PROJECT);
+        String layoutPath = getLayoutPath();
+        StorageCleaner.ActiveDataPaths activeDataPaths = new StorageCleaner(false).collectActiveDataPaths(PROJECT);
+
+        // the new bucket is kept, the replaced one is garbage
+        Assert.assertTrue(activeDataPaths.isInUse(layoutPath + "/30"));
+        Assert.assertFalse(activeDataPaths.isInUse(layoutPath + "/20"));
+        Assert.assertTrue(activeDataPaths.isInUse(layoutPath + "/21"));
+    }
+
+    private String getLayoutPath() {
+        NDataflow dataflow = NDataflowManager.getInstance(KylinConfig.getInstanceFromEnv(), PROJECT)
+                .getDataflow(DATAFLOW_ID);
+        return StorageManifest.getSegmentPath(dataflow, SEGMENT_ID) + "/" + LAYOUT_ID;
+    }
+}